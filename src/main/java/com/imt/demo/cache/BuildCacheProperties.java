@@ -0,0 +1,90 @@
+package com.imt.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.build-cache")
+public class BuildCacheProperties {
+
+    /**
+     * Active le cache des sorties de build (target/classes et jar) indexé par le hash des sources
+     */
+    private boolean enabled = true;
+
+    /**
+     * Répertoire du magasin local (adressé par contenu)
+     */
+    private String directory = System.getProperty("user.home") + "/.jonk/build-cache";
+
+    /**
+     * Taille maximale du magasin local avant éviction LRU
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(5);
+
+    /**
+     * URL d'un cache distant partagé (ex: http://jonk-node-1:8080/api/build-cache), vide = local uniquement
+     */
+    private String remoteUrl;
+
+    /**
+     * Jeton Bearer envoyé au cache distant
+     */
+    private String remoteToken;
+
+    /**
+     * Timeout des échanges avec le cache distant
+     */
+    private Duration remoteTimeout = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String getRemoteUrl() {
+        return remoteUrl;
+    }
+
+    public void setRemoteUrl(String remoteUrl) {
+        this.remoteUrl = remoteUrl;
+    }
+
+    public String getRemoteToken() {
+        return remoteToken;
+    }
+
+    public void setRemoteToken(String remoteToken) {
+        this.remoteToken = remoteToken;
+    }
+
+    public Duration getRemoteTimeout() {
+        return remoteTimeout;
+    }
+
+    public void setRemoteTimeout(Duration remoteTimeout) {
+        this.remoteTimeout = remoteTimeout;
+    }
+}
@@ -0,0 +1,444 @@
+package com.imt.demo.cache;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Cache des sorties de build adressé par contenu.
+ * La clé est le hash des pom.xml, des sources de production (src/main), de la configuration .mvn
+ * et de la chaîne d'outils (versions de Maven et du JDK). Les sorties (target/classes, jar) sont
+ * archivées dans un magasin local, éventuellement partagé entre nœuds via un cache HTTP distant.
+ */
+@Slf4j
+@Component
+public class BuildOutputCache {
+
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of("target", "build", ".git", ".gradle", ".idea", "node_modules");
+    private static final String CLASSES_DIRECTORY = "target/classes";
+
+    private final BuildCacheProperties properties;
+    private final HttpClient httpClient;
+
+    private volatile String toolchain;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong sizeBytes = new AtomicLong(-1);
+
+    public BuildOutputCache(BuildCacheProperties properties) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getRemoteTimeout())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Une clé valide est un hash SHA-256 hexadécimal
+     */
+    public static boolean isValidKey(String key) {
+        return key != null && key.matches("[0-9a-f]{64}");
+    }
+
+    /**
+     * Calcule la clé de cache des sources d'un projet (ou d'un module)
+     *
+     * @param root                répertoire du projet ou du module
+     * @param excludedDirectories sous-répertoires à ignorer (ex: modules enfants hachés séparément)
+     * @param salt                entrées supplémentaires de la clé (ex: clés des modules dont il dépend)
+     */
+    public String computeKey(Path root, Collection<Path> excludedDirectories, Collection<String> salt) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && (IGNORED_DIRECTORIES.contains(dir.getFileName().toString())
+                        || excludedDirectories.contains(dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isBuildInput(root.relativize(file))) {
+                    inputs.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        inputs.sort(Comparator.comparing(p -> root.relativize(p).toString()));
+
+        MessageDigest digest = sha256();
+        digest.update(toolchain().getBytes(StandardCharsets.UTF_8));
+        for (String value : salt) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        for (Path input : inputs) {
+            digest.update(root.relativize(input).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(fileHash(input));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Restaure les sorties associées à une clé (magasin local, puis cache distant)
+     *
+     * @return true en cas de hit
+     */
+    public boolean restore(String key, Path baseDir) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        try {
+            Path entry = entryPath(key);
+            boolean remote = false;
+            if (!Files.exists(entry)) {
+                remote = fetchRemote(key, entry);
+                if (!remote) {
+                    misses.incrementAndGet();
+                    return false;
+                }
+            }
+
+            // Sorties déjà présentes (workspace emprunté au pool): des classes de sources supprimées ou renommées
+            // resteraient à côté des sorties restaurées et finiraient dans l'archive packagée
+            clearOutputs(entry, baseDir);
+            unzip(entry, baseDir);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            (remote ? remoteHits : localHits).incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            log.warn("Restauration du cache de build impossible ({}): {}", key, e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Archive les sorties d'un build sous une clé et les publie sur le cache distant
+     *
+     * @param outputs fichiers ou répertoires, relatifs à baseDir
+     */
+    public void store(String key, Path baseDir, List<Path> outputs) {
+        if (!isEnabled() || outputs.isEmpty()) {
+            return;
+        }
+
+        try {
+            Path entry = entryPath(key);
+            Files.createDirectories(entry.getParent());
+            Path partial = entry.resolveSibling(key + "." + UUID.randomUUID() + ".part");
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(partial))) {
+                for (Path output : outputs) {
+                    addToZip(zip, baseDir, baseDir.resolve(output.toString()));
+                }
+                // Liste des sorties couvertes par l'entrée, vidées avant restauration
+                zip.setComment(String.join("\n", outputs.stream()
+                        .map(output -> output.toString().replace('\\', '/'))
+                        .toList()));
+            }
+            Files.move(partial, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stores.incrementAndGet();
+
+            publishRemote(key, entry);
+            evict();
+        } catch (Exception e) {
+            log.warn("Impossible de stocker les sorties de build ({}): {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Entrée du magasin local (pour le service HTTP du cache)
+     */
+    public Optional<Path> find(String key) {
+        Path entry = entryPath(key);
+        return Files.exists(entry) ? Optional.of(entry) : Optional.empty();
+    }
+
+    /**
+     * Enregistre une entrée reçue d'un autre nœud (service HTTP du cache)
+     */
+    public void put(String key, InputStream body) throws IOException {
+        Path entry = entryPath(key);
+        Files.createDirectories(entry.getParent());
+        Path partial = entry.resolveSibling(key + "." + UUID.randomUUID() + ".part");
+        Files.copy(body, partial, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(partial, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        stores.incrementAndGet();
+        evict();
+    }
+
+    /**
+     * Statistiques du cache (hits local/distant, miss, taille)
+     */
+    public Map<String, Object> stats() {
+        long hits = localHits.get() + remoteHits.get();
+        long lookups = hits + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("directory", properties.getDirectory());
+        stats.put("remoteUrl", properties.getRemoteUrl());
+        stats.put("localHits", localHits.get());
+        stats.put("remoteHits", remoteHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("sizeBytes", sizeBytes.get());
+        stats.put("maxSizeBytes", properties.getMaxSize().toBytes());
+        return stats;
+    }
+
+    /**
+     * Versions de Maven et du JDK utilisées pour les builds (hors chemins propres au nœud)
+     */
+    public String toolchain() {
+        if (toolchain == null) {
+            StringBuilder sb = new StringBuilder();
+            try {
+                Process process = new ProcessBuilder("mvn", "-v").redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("Apache Maven")) {
+                            sb.append(line.split(" \\(")[0]).append('\n');
+                        } else if (line.startsWith("Java version")) {
+                            sb.append(line.split(", runtime")[0]).append('\n');
+                        }
+                    }
+                }
+                process.waitFor();
+            } catch (Exception e) {
+                log.debug("Impossible de lire la version de Maven: {}", e.getMessage());
+            }
+            toolchain = sb.toString();
+        }
+        return toolchain;
+    }
+
+    private boolean isBuildInput(Path relative) {
+        String path = relative.toString().replace('\\', '/');
+        return relative.getFileName().toString().equals("pom.xml")
+                || path.startsWith("src/main/") || path.contains("/src/main/")
+                || (path.startsWith(".mvn/") && !path.endsWith(".jar"));
+    }
+
+    private Path entryPath(String key) {
+        return Path.of(properties.getDirectory(), key.substring(0, 2), key + ".zip");
+    }
+
+    private boolean fetchRemote(String key, Path entry) {
+        if (properties.getRemoteUrl() == null || properties.getRemoteUrl().isBlank()) {
+            return false;
+        }
+
+        try {
+            Files.createDirectories(entry.getParent());
+            Path partial = entry.resolveSibling(key + "." + UUID.randomUUID() + ".part");
+            HttpResponse<Path> response = httpClient.send(remoteRequest(key).GET().build(),
+                    HttpResponse.BodyHandlers.ofFile(partial));
+            if (response.statusCode() != 200) {
+                Files.deleteIfExists(partial);
+                return false;
+            }
+            Files.move(partial, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (Exception e) {
+            log.debug("Cache de build distant indisponible: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void publishRemote(String key, Path entry) {
+        if (properties.getRemoteUrl() == null || properties.getRemoteUrl().isBlank()) {
+            return;
+        }
+
+        try {
+            HttpResponse<Void> response = httpClient.send(remoteRequest(key)
+                            .header("Content-Type", "application/zip")
+                            .PUT(HttpRequest.BodyPublishers.ofFile(entry))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                log.warn("Publication sur le cache de build distant refusée: {}", response.statusCode());
+            }
+        } catch (Exception e) {
+            log.warn("Publication sur le cache de build distant impossible: {}", e.getMessage());
+        }
+    }
+
+    private HttpRequest.Builder remoteRequest(String key) {
+        String base = properties.getRemoteUrl().endsWith("/") ? properties.getRemoteUrl() : properties.getRemoteUrl() + "/";
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + key))
+                .timeout(properties.getRemoteTimeout());
+        if (properties.getRemoteToken() != null && !properties.getRemoteToken().isBlank()) {
+            builder.header("Authorization", "Bearer " + properties.getRemoteToken());
+        }
+        return builder;
+    }
+
+    /**
+     * Éviction LRU des entrées les moins récemment utilisées (date de modification, mise à jour à chaque hit)
+     */
+    private synchronized void evict() throws IOException {
+        Path root = Path.of(properties.getDirectory());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        List<Path> entries;
+        try (Stream<Path> paths = Files.walk(root)) {
+            entries = new ArrayList<>(paths.filter(p -> p.toString().endsWith(".zip")).toList());
+        }
+
+        long size = 0;
+        for (Path entry : entries) {
+            size += Files.size(entry);
+        }
+
+        long max = properties.getMaxSize().toBytes();
+        if (size > max) {
+            entries.sort(Comparator.comparing(p -> p.toFile().lastModified()));
+            long target = max * 9 / 10;
+            for (Path entry : entries) {
+                if (size <= target) {
+                    break;
+                }
+                long entrySize = Files.size(entry);
+                Files.deleteIfExists(entry);
+                size -= entrySize;
+                evictions.incrementAndGet();
+            }
+        }
+        sizeBytes.set(size);
+    }
+
+    private void addToZip(ZipOutputStream zip, Path baseDir, Path output) throws IOException {
+        if (!Files.exists(output)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(output)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                zip.putNextEntry(new ZipEntry(baseDir.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Supprime du workspace les sorties couvertes par une entrée (commentaire de l'archive).
+     * Pour une entrée sans commentaire, les répertoires target/classes de ses fichiers.
+     */
+    private void clearOutputs(Path archive, Path baseDir) throws IOException {
+        Path root = baseDir.toAbsolutePath().normalize();
+        Set<String> outputs = new LinkedHashSet<>();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            String comment = zip.getComment();
+            if (comment != null && !comment.isBlank()) {
+                outputs.addAll(comment.lines().filter(line -> !line.isBlank()).toList());
+            } else {
+                zip.stream().map(ZipEntry::getName).forEach(name -> {
+                    int classes = name.indexOf(CLASSES_DIRECTORY);
+                    if (classes == 0 || (classes > 0 && name.charAt(classes - 1) == '/')) {
+                        outputs.add(name.substring(0, classes + CLASSES_DIRECTORY.length()));
+                    }
+                });
+            }
+        }
+        for (String output : outputs) {
+            Path target = root.resolve(output).normalize();
+            if (!target.startsWith(root) || target.equals(root)) {
+                throw new IOException("Sortie d'archive hors du workspace: " + output);
+            }
+            if (Files.isDirectory(target)) {
+                WorkspaceFiles.deleteRecursively(target);
+            } else {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    private void unzip(Path archive, Path baseDir) throws IOException {
+        Path root = baseDir.toAbsolutePath().normalize();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException("Entrée d'archive hors du workspace: " + entry.getName());
+                }
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    zip.transferTo(out);
+                }
+            }
+        }
+    }
+
+    private byte[] fileHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.imt.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.dependency-prefetch")
+public class DependencyPrefetchProperties {
+
+    /**
+     * Précharge les dépendances Maven dès la mise en file d'un pipeline
+     */
+    private boolean enabled = true;
+
+    /**
+     * Répertoire des miroirs Git partiels (blobs à la demande) et des pom.xml extraits
+     */
+    private String directory = System.getProperty("user.home") + "/.jonk/prefetch";
+
+    /**
+     * Préchargements exécutés simultanément
+     */
+    private int threads = 2;
+
+    /**
+     * Timeout de la résolution des dépendances (mvn dependency:go-offline)
+     */
+    private Duration timeout = Duration.ofMinutes(15);
+
+    /**
+     * Attente maximale d'un préchargement en cours par le build Maven
+     */
+    private Duration awaitTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Timeout des commandes git sur le miroir
+     */
+    private Duration gitTimeout = Duration.ofMinutes(2);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getAwaitTimeout() {
+        return awaitTimeout;
+    }
+
+    public void setAwaitTimeout(Duration awaitTimeout) {
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    public Duration getGitTimeout() {
+        return gitTimeout;
+    }
+
+    public void setGitTimeout(Duration gitTimeout) {
+        this.gitTimeout = gitTimeout;
+    }
+}
@@ -0,0 +1,391 @@
+package com.imt.demo.cache;
+
+import com.imt.demo.maven.MavenReactor;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.workspace.RepositoryKey;
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Préchargement des dépendances Maven dès la mise en file d'un pipeline.
+ * Les pom.xml sont extraits d'un miroir Git partiel (arbres seuls, blobs récupérés à la demande), sans checkout
+ * du projet; leur hash identifie l'ensemble de dépendances. mvn dependency:go-offline les télécharge alors dans
+ * le cache Maven partagé, où le build Maven du pipeline puis le build Docker les retrouvent.
+ */
+@Slf4j
+@Component
+public class DependencyPrefetcher {
+
+    /**
+     * Fichiers de configuration Maven qui influencent la résolution, hachés avec les pom.xml
+     */
+    private static final List<String> MAVEN_CONFIG_FILES = List.of(".mvn/maven.config", ".mvn/extensions.xml");
+
+    private static final int MAX_WARM_HASHES = 500;
+
+    private final DependencyPrefetchProperties properties;
+    private final MavenRepositoryCache mavenRepositoryCache;
+    private final Executor executor;
+
+    // Dernier préchargement demandé par dépôt/branche, attendu par le build du pipeline
+    private final Map<RepositoryKey, CompletableFuture<Prefetch>> latest = new ConcurrentHashMap<>();
+
+    // Préchargements en cours par hash des pom: deux pipelines du même projet partagent le même
+    private final Map<String, CompletableFuture<Prefetch>> inFlight = new ConcurrentHashMap<>();
+
+    // Hash des pom dont les dépendances ont été téléchargées dans le cache partagé
+    private final Set<String> warm = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_WARM_HASHES;
+        }
+    }));
+
+    private final Map<String, Object> mirrorLocks = new ConcurrentHashMap<>();
+
+    // === Statistiques ===
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong downloaded = new AtomicLong();
+    private final AtomicLong alreadyWarm = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong prefetchMillis = new AtomicLong();
+    private final AtomicLong buildsAwaited = new AtomicLong();
+    private final AtomicLong buildsWarm = new AtomicLong();
+    private final AtomicLong awaitMillis = new AtomicLong();
+
+    public DependencyPrefetcher(DependencyPrefetchProperties properties, MavenRepositoryCache mavenRepositoryCache,
+                                @Qualifier("prefetchExecutor") Executor executor) {
+        this.properties = properties;
+        this.mavenRepositoryCache = mavenRepositoryCache;
+        this.executor = executor;
+    }
+
+    /**
+     * Résultat d'un préchargement
+     */
+    @Value
+    public static class Prefetch {
+        String pomHash;
+        boolean success;
+        boolean alreadyWarm;
+        long durationMs;
+        String message;
+    }
+
+    /**
+     * Lance le préchargement des dépendances d'un pipeline mis en file (sans attendre)
+     */
+    public void prefetch(PipelineContext context) {
+        if (!properties.isEnabled() || context.getGitUrl() == null || context.getBranch() == null
+                || "gradle".equalsIgnoreCase(context.getBuildTool())) {
+            return;
+        }
+
+        RepositoryKey key = new RepositoryKey(context.getGitUrl(), context.getBranch());
+        try {
+            latest.put(key, CompletableFuture.supplyAsync(() -> run(key), executor));
+            requested.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Préchargement des dépendances de {} abandonné: file pleine", key);
+        }
+    }
+
+    /**
+     * Attend le préchargement en cours pour le dépôt/branche du pipeline (borné par await-timeout)
+     *
+     * @return le résultat, ou empty si aucun préchargement n'a été lancé ou s'il n'a pas abouti à temps
+     */
+    public Optional<Prefetch> await(PipelineContext context) {
+        CompletableFuture<Prefetch> future = latest.get(new RepositoryKey(context.getGitUrl(), context.getBranch()));
+        if (future == null) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return Optional.of(future.get(properties.getAwaitTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            log.info("Préchargement des dépendances toujours en cours après {}s: le build continue sans l'attendre",
+                    properties.getAwaitTimeout().toSeconds());
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            buildsAwaited.incrementAndGet();
+            awaitMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Indique si les dépendances des pom.xml du workspace ont été préchargées dans le cache partagé
+     */
+    public boolean isWarm(Path workspace) {
+        try {
+            boolean hit = warm.contains(pomHash(workspace));
+            if (hit) {
+                buildsWarm.incrementAndGet();
+            }
+            return hit;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Dépôt à exposer au build Docker du workspace (contexte de build nommé, chaîné en maven.repo.local.tail)
+     *
+     * @return empty si les dépendances du workspace n'ont pas été préchargées ou si le cache partagé est inactif
+     */
+    public Optional<Path> dockerRepository(Path workspace) {
+        try {
+            if (!warm.contains(pomHash(workspace))) {
+                return Optional.empty();
+            }
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        return mavenRepositoryCache.sharedBase();
+    }
+
+    public Map<String, Object> stats() {
+        long completed = downloaded.get() + alreadyWarm.get() + failed.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("requested", requested.get());
+        stats.put("rejected", rejected.get());
+        stats.put("downloaded", downloaded.get());
+        stats.put("alreadyWarm", alreadyWarm.get());
+        stats.put("failed", failed.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("averagePrefetchMs", completed == 0 ? 0 : prefetchMillis.get() / completed);
+        stats.put("buildsAwaited", buildsAwaited.get());
+        stats.put("buildsWarm", buildsWarm.get());
+        stats.put("averageAwaitMs", buildsAwaited.get() == 0 ? 0 : awaitMillis.get() / buildsAwaited.get());
+        stats.put("warmPomHashes", warm.size());
+        return stats;
+    }
+
+    /**
+     * Hash des pom.xml du réacteur et de la configuration Maven d'un répertoire.
+     * Le POM effectif est une fonction de ces fichiers et des parents distants désignés par leurs coordonnées:
+     * hacher les fichiers source évite de lancer Maven (help:effective-pom) pour calculer la clé.
+     */
+    public static String pomHash(Path root) throws IOException {
+        List<String> files = new ArrayList<>();
+        MavenReactor.parse(root).ifPresentOrElse(
+                reactor -> reactor.getModules().keySet().forEach(path -> files.add(path.isEmpty() ? "pom.xml" : path + "/pom.xml")),
+                () -> files.add("pom.xml"));
+        MAVEN_CONFIG_FILES.stream().filter(file -> Files.isRegularFile(root.resolve(file))).forEach(files::add);
+        Collections.sort(files);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String file : files) {
+                digest.update(file.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(root.resolve(file)));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private Prefetch run(RepositoryKey key) {
+        long start = System.nanoTime();
+        Path poms = Path.of(properties.getDirectory(), "poms", UUID.randomUUID().toString());
+        try {
+            if (!extractPoms(key, poms)) {
+                failed.incrementAndGet();
+                return result(null, false, false, start, "pom.xml illisible depuis le miroir");
+            }
+            String hash = pomHash(poms);
+            if (warm.contains(hash)) {
+                alreadyWarm.incrementAndGet();
+                return result(hash, true, true, start, "dépendances déjà dans le cache partagé");
+            }
+
+            CompletableFuture<Prefetch> own = new CompletableFuture<>();
+            CompletableFuture<Prefetch> running = inFlight.putIfAbsent(hash, own);
+            if (running != null) {
+                return running.join();
+            }
+            Prefetch prefetch = new Prefetch(hash, false, false, 0, "préchargement interrompu");
+            try {
+                prefetch = goOffline(hash, poms, start);
+                return prefetch;
+            } finally {
+                own.complete(prefetch);
+                inFlight.remove(hash);
+            }
+
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("Préchargement des dépendances de {} impossible: {}", key, e.getMessage());
+            return result(null, false, false, start, e.getMessage());
+        } finally {
+            WorkspaceFiles.deleteRecursively(poms);
+        }
+    }
+
+    /**
+     * Résout et télécharge les dépendances et plugins des pom.xml extraits dans une couche dédiée,
+     * promue dans la base partagée à la fin (y compris en cas d'échec partiel)
+     */
+    private Prefetch goOffline(String hash, Path poms, long start) throws IOException, InterruptedException {
+        String owner = "prefetch-" + hash.substring(0, 16);
+        List<String> command = new ArrayList<>(List.of("mvn", "-B", "dependency:go-offline", "-DexcludeReactor=true"));
+        command.addAll(mavenRepositoryCache.mavenArguments(owner));
+
+        Path output = poms.resolve("go-offline.log");
+        boolean success;
+        try {
+            success = runMaven(command, poms, output);
+        } finally {
+            mavenRepositoryCache.release(owner);
+        }
+
+        if (!success) {
+            failed.incrementAndGet();
+            List<String> lines = Files.exists(output) ? Files.readAllLines(output) : List.of();
+            String error = lines.stream()
+                    .filter(line -> line.startsWith("[ERROR]"))
+                    .findFirst()
+                    .orElse("mvn dependency:go-offline en échec");
+            log.warn("Préchargement des dépendances en échec (pom {}): {}", hash.substring(0, 12), error);
+            return result(hash, false, false, start, error);
+        }
+
+        warm.add(hash);
+        downloaded.incrementAndGet();
+        Prefetch prefetch = result(hash, true, false, start, "dépendances téléchargées dans le cache partagé");
+        log.info("Dépendances préchargées (pom {}) en {}ms", hash.substring(0, 12), prefetch.getDurationMs());
+        return prefetch;
+    }
+
+    /**
+     * Exécute la commande Maven dans le répertoire des pom.xml extraits, sortie redirigée dans un fichier
+     *
+     * @return false en cas d'échec ou de timeout
+     */
+    boolean runMaven(List<String> command, Path directory, Path output) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        if (!process.waitFor(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            log.warn("Timeout du préchargement des dépendances dans {}", directory);
+            return false;
+        }
+        return process.exitValue() == 0;
+    }
+
+    /**
+     * Met à jour le miroir partiel du dépôt et en extrait les pom.xml (hors src/) et la configuration Maven.
+     * Le checkout par pathspec ne récupère que les blobs de ces fichiers, en une seule requête.
+     */
+    private boolean extractPoms(RepositoryKey key, Path destination) throws IOException, InterruptedException {
+        Path mirror = Path.of(properties.getDirectory(), "mirrors", WorkspaceFiles.slug(key.getGitUrl()) + ".git");
+        synchronized (mirrorLocks.computeIfAbsent(mirror.toString(), path -> new Object())) {
+            if (!Files.exists(mirror.resolve("HEAD"))) {
+                Files.createDirectories(mirror);
+                boolean initialized = git(mirror, "init", "--bare") != null
+                        && git(mirror, "remote", "add", "origin", key.getGitUrl()) != null
+                        && git(mirror, "config", "remote.origin.promisor", "true") != null
+                        && git(mirror, "config", "remote.origin.partialclonefilter", "blob:none") != null;
+                if (!initialized) {
+                    WorkspaceFiles.deleteRecursively(mirror);
+                    return false;
+                }
+            }
+
+            if (git(mirror, "fetch", "--depth", "1", "--filter=blob:none", "origin", key.getBranch()) == null) {
+                return false;
+            }
+
+            List<String> command = new ArrayList<>(List.of("--work-tree=" + destination, "checkout", "FETCH_HEAD", "--",
+                    ":(glob)**/pom.xml", ":(exclude,glob)**/src/**"));
+            String config = git(mirror, "ls-tree", "-r", "--name-only", "FETCH_HEAD", "--", ".mvn");
+            if (config != null) {
+                Arrays.stream(config.split("\n")).map(String::trim).filter(MAVEN_CONFIG_FILES::contains).forEach(command::add);
+            }
+            Files.createDirectories(destination);
+            return git(mirror, command.toArray(String[]::new)) != null && Files.isRegularFile(destination.resolve("pom.xml"));
+        }
+    }
+
+    /**
+     * Exécute une commande git sur le miroir et retourne sa sortie standard, ou null en cas d'échec
+     */
+    private String git(Path mirror, String... arguments) throws InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(arguments));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(mirror.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            CompletableFuture<String> output = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    return "";
+                }
+            });
+            if (!process.waitFor(properties.getGitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                log.warn("Timeout de la commande git {} sur le miroir", arguments[0]);
+                return null;
+            }
+            return process.exitValue() == 0 ? output.join() : null;
+        } catch (IOException e) {
+            log.debug("Erreur lors de l'exécution de git {}: {}", arguments[0], e.getMessage());
+            return null;
+        }
+    }
+
+    private Prefetch result(String hash, boolean success, boolean warmAlready, long start, String message) {
+        long durationMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        prefetchMillis.addAndGet(durationMs);
+        return new Prefetch(hash, success, warmAlready, durationMs, message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.imt.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.maven-cache")
+public class MavenCacheProperties {
+
+    /**
+     * Active le dépôt Maven local partagé entre pipelines (sinon ~/.m2 par défaut)
+     */
+    private boolean enabled = true;
+
+    /**
+     * Répertoire du cache: base/ (couche partagée en lecture seule) et overlays/ (une couche par pipeline)
+     */
+    private String directory = System.getProperty("user.home") + "/.jonk/maven-cache";
+
+    /**
+     * Taille maximale de la couche partagée avant éviction LRU
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,439 @@
+package com.imt.demo.cache;
+
+import com.imt.demo.model.StepResult;
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dépôt Maven local partagé et sûr en accès concurrent.
+ * Chaque pipeline travaille sur sa propre couche (overlay, dépôt local "split" verrouillé par fichier)
+ * chaînée à une couche de base partagée en lecture seule (maven.repo.local.tail, Maven 3.9+).
+ * En fin de pipeline, les artefacts téléchargés sont promus dans la base sous verrou exclusif,
+ * puis la base est ramenée sous sa taille maximale par éviction LRU. Les builds lisant la base sans verrou,
+ * l'éviction n'a lieu que lorsqu'aucun pipeline n'y est rattaché; sinon elle est reportée au dernier release.
+ */
+@Slf4j
+@Component
+public class MavenRepositoryCache {
+
+    private static final Pattern DOWNLOADED = Pattern.compile(
+            "Downloaded from [^:]+: \\S+ \\(([\\d.,]+) (B|kB|MB|GB) at");
+    private static final Pattern MAVEN_VERSION = Pattern.compile("Apache Maven (\\d+)\\.(\\d+)");
+    private static final int MAX_TRACKED_PIPELINES = 50;
+
+    private final MavenCacheProperties properties;
+
+    private volatile Boolean mavenSupportsLayers;
+
+    // Les verrous de fichier sont détenus par la JVM: les threads d'une même instance s'excluent ici
+    private final Object baseLock = new Object();
+
+    // Usage par pipeline en cours, puis historique borné des pipelines terminés
+    private final Map<String, PipelineUsage> running = new ConcurrentHashMap<>();
+    private final Map<String, PipelineUsage> finished = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PipelineUsage> eldest) {
+            return size() > MAX_TRACKED_PIPELINES;
+        }
+    };
+
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong invocationsWithoutDownload = new AtomicLong();
+    private final AtomicLong artifactsDownloaded = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong filesPromoted = new AtomicLong();
+    private final AtomicLong versionsEvicted = new AtomicLong();
+    private final AtomicLong evictionsDeferred = new AtomicLong();
+    private final AtomicBoolean evictionPending = new AtomicBoolean();
+    private final AtomicLong baseSizeBytes = new AtomicLong(-1);
+
+    public MavenRepositoryCache(MavenCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Arguments Maven à ajouter aux commandes d'un pipeline.
+     * Vide si le cache est désactivé ou si la version de Maven ne supporte pas les dépôts chaînés.
+     */
+    public List<String> mavenArguments(String ownerId) {
+        if (!isActive() || ownerId == null) {
+            return List.of();
+        }
+
+        // Même verrou que l'éviction: un pipeline ne commence pas à lire la base pendant qu'elle est élaguée
+        synchronized (baseLock) {
+            running.computeIfAbsent(ownerId, id -> new PipelineUsage());
+        }
+        return List.of(
+                "-Dmaven.repo.local=" + overlay(ownerId),
+                "-Dmaven.repo.local.tail=" + base(),
+                "-Daether.enhancedLocalRepository.split=true",
+                "-Daether.syncContext.named.factory=file-lock",
+                "-Daether.syncContext.named.nameMapper=file-gav"
+        );
+    }
+
+    /**
+     * Analyse la sortie d'une commande Maven pour mesurer les téléchargements (miss du cache)
+     */
+    public void recordInvocation(String ownerId, StepResult result) {
+        if (!isActive() || ownerId == null) {
+            return;
+        }
+
+        int downloads = 0;
+        long bytes = 0;
+        for (String line : result.getLogs()) {
+            Matcher matcher = DOWNLOADED.matcher(line);
+            if (matcher.find()) {
+                downloads++;
+                bytes += toBytes(matcher.group(1), matcher.group(2));
+            }
+        }
+
+        invocations.incrementAndGet();
+        if (downloads == 0) {
+            invocationsWithoutDownload.incrementAndGet();
+        }
+        artifactsDownloaded.addAndGet(downloads);
+        bytesDownloaded.addAndGet(bytes);
+
+        PipelineUsage usage = running.computeIfAbsent(ownerId, id -> new PipelineUsage());
+        usage.invocations.incrementAndGet();
+        usage.downloads.addAndGet(downloads);
+        usage.bytes.addAndGet(bytes);
+
+        result.addMetric("mavenCacheDownloads", downloads);
+        result.addMetric("mavenCacheBytesDownloaded", bytes);
+        result.addLog(String.format(" Cache Maven partagé: %d artefact(s) téléchargé(s), %.1f MB", downloads, bytes / 1_000_000.0));
+    }
+
+    /**
+     * Installe un artefact du projet dans la partie "installed" de l'overlay d'un pipeline, pour qu'un build
+     * partiel (-pl) le résolve sans reconstruire son module. Seule la partie "cached" étant promue,
+     * ces artefacts disparaissent avec l'overlay.
+     *
+     * @param artifact archive du module, null pour un module de packaging pom
+     * @return false si le cache est inactif (pas d'overlay isolé du pipeline)
+     */
+    public boolean installArtifact(String ownerId, String groupId, String artifactId, String version,
+                                   Path pom, Path artifact) throws IOException {
+        if (!isActive() || ownerId == null) {
+            return false;
+        }
+
+        Path directory = overlay(ownerId).resolve("installed")
+                .resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version);
+        Files.createDirectories(directory);
+        String baseName = artifactId + "-" + version;
+        Files.copy(pom, directory.resolve(baseName + ".pom"), StandardCopyOption.REPLACE_EXISTING);
+        if (artifact != null) {
+            String fileName = artifact.getFileName().toString();
+            String extension = fileName.substring(fileName.lastIndexOf('.'));
+            Files.copy(artifact, directory.resolve(baseName + extension), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    /**
+     * Fin de pipeline: promotion des téléchargements dans la base, éviction LRU et suppression de l'overlay
+     */
+    public void release(String ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+
+        PipelineUsage usage = running.remove(ownerId);
+        if (usage != null) {
+            synchronized (finished) {
+                finished.put(ownerId, usage);
+            }
+        }
+
+        Path overlay = overlay(ownerId);
+        boolean promotion = Files.isDirectory(overlay);
+        if (!promotion && !evictionPending.get()) {
+            return;
+        }
+
+        try {
+            withExclusiveLock(() -> {
+                if (promotion) {
+                    promote(overlay.resolve("cached"), base().resolve("cached"));
+                }
+                if (running.isEmpty()) {
+                    evictionPending.set(false);
+                    evict();
+                } else {
+                    // Un autre pipeline lit la base (maven.repo.local.tail): supprimer une version lui ferait
+                    // perdre un artefact en plein build. L'éviction est faite par le dernier pipeline terminé.
+                    evictionPending.set(true);
+                    evictionsDeferred.incrementAndGet();
+                    log.debug("Cache Maven: éviction reportée, {} pipeline(s) en cours", running.size());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Impossible de promouvoir l'overlay Maven {}: {}", ownerId, e.getMessage());
+        } finally {
+            WorkspaceFiles.deleteRecursively(overlay);
+        }
+    }
+
+    /**
+     * Statistiques du cache (taux de hit, volume téléchargé, par pipeline)
+     */
+    public Map<String, Object> stats() {
+        long total = invocations.get();
+
+        Map<String, Object> pipelines = new LinkedHashMap<>();
+        running.forEach((id, usage) -> pipelines.put(id, usage.toMap(true)));
+        synchronized (finished) {
+            finished.forEach((id, usage) -> pipelines.put(id, usage.toMap(false)));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("active", isActive());
+        stats.put("directory", properties.getDirectory());
+        stats.put("mavenInvocations", total);
+        stats.put("invocationsServedFromCache", invocationsWithoutDownload.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) invocationsWithoutDownload.get() / total);
+        stats.put("artifactsDownloaded", artifactsDownloaded.get());
+        stats.put("bytesDownloaded", bytesDownloaded.get());
+        stats.put("filesPromoted", filesPromoted.get());
+        stats.put("versionsEvicted", versionsEvicted.get());
+        stats.put("evictionsDeferred", evictionsDeferred.get());
+        stats.put("baseSizeBytes", baseSizeBytes.get());
+        stats.put("maxSizeBytes", properties.getMaxSize().toBytes());
+        stats.put("pipelines", pipelines);
+        return stats;
+    }
+
+    /**
+     * Répertoire de la couche partagée (lecture seule pendant les builds)
+     */
+    public Path base() {
+        return Path.of(properties.getDirectory(), "base");
+    }
+
+    /**
+     * Couche partagée à exposer en lecture seule à un build hors du moteur (build Docker),
+     * à chaîner avec maven.repo.local.tail et le layout "split"
+     *
+     * @return empty si le cache est inactif
+     */
+    public Optional<Path> sharedBase() {
+        return isActive() ? Optional.of(base()) : Optional.empty();
+    }
+
+    private Path overlay(String ownerId) {
+        return Path.of(properties.getDirectory(), "overlays", ownerId);
+    }
+
+    private boolean isActive() {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if (mavenSupportsLayers == null) {
+            mavenSupportsLayers = detectLayeredRepositorySupport();
+        }
+        return mavenSupportsLayers;
+    }
+
+    /**
+     * maven.repo.local.tail et le dépôt local "split" sont disponibles à partir de Maven 3.9
+     */
+    boolean detectLayeredRepositorySupport() {
+        try {
+            Process process = new ProcessBuilder("mvn", "-v").redirectErrorStream(true).start();
+            String version = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Matcher matcher = MAVEN_VERSION.matcher(line);
+                    if (version == null && matcher.find()) {
+                        version = matcher.group(1) + "." + matcher.group(2);
+                    }
+                }
+            }
+            process.waitFor();
+
+            if (version == null) {
+                return false;
+            }
+            String[] parts = version.split("\\.");
+            boolean supported = Integer.parseInt(parts[0]) > 3
+                    || (Integer.parseInt(parts[0]) == 3 && Integer.parseInt(parts[1]) >= 9);
+            if (!supported) {
+                log.warn("Maven {} ne supporte pas les dépôts locaux chaînés, cache partagé désactivé", version);
+            }
+            return supported;
+        } catch (Exception e) {
+            log.debug("Impossible de déterminer la version de Maven: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Verrou exclusif inter-processus sur la couche de base
+     */
+    private void withExclusiveLock(IoAction action) throws IOException {
+        Path lockFile = Path.of(properties.getDirectory(), "base.lock");
+        Files.createDirectories(lockFile.getParent());
+        synchronized (baseLock) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Copie dans la base les fichiers absents. Chaque fichier est écrit à côté puis renommé
+     * atomiquement: un build lisant la base ne voit jamais de fichier partiel.
+     */
+    private void promote(Path from, Path to) throws IOException {
+        if (!Files.isDirectory(from)) {
+            return;
+        }
+
+        Files.walkFileTree(from, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".lastUpdated") || name.endsWith(".lock") || name.equals("resolver-status.properties")) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                Path target = to.resolve(from.relativize(file).toString());
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    Path partial = target.resolveSibling(name + ".part");
+                    Files.copy(file, partial, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+                    filesPromoted.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Éviction LRU par version d'artefact. L'heure du dernier accès (atime, mise à jour au moins
+     * quotidiennement en relatime) sert de date d'utilisation.
+     */
+    private void evict() throws IOException {
+        Path cached = base().resolve("cached");
+        if (!Files.isDirectory(cached)) {
+            baseSizeBytes.set(0);
+            return;
+        }
+
+        Map<Path, VersionUsage> versions = new HashMap<>();
+        Files.walkFileTree(cached, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                VersionUsage usage = versions.computeIfAbsent(file.getParent(), VersionUsage::new);
+                usage.bytes += attrs.size();
+                FileTime used = attrs.lastAccessTime().compareTo(attrs.lastModifiedTime()) > 0
+                        ? attrs.lastAccessTime() : attrs.lastModifiedTime();
+                if (usage.lastUsed == null || used.compareTo(usage.lastUsed) > 0) {
+                    usage.lastUsed = used;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        long size = versions.values().stream().mapToLong(v -> v.bytes).sum();
+        long max = properties.getMaxSize().toBytes();
+        if (size > max) {
+            // Redescendre à 90% de la taille maximale pour ne pas évincer à chaque pipeline
+            long target = max * 9 / 10;
+            List<VersionUsage> byAge = new ArrayList<>(versions.values());
+            byAge.sort(Comparator.comparing(v -> v.lastUsed));
+            for (VersionUsage version : byAge) {
+                if (size <= target) {
+                    break;
+                }
+                WorkspaceFiles.deleteRecursively(version.directory);
+                size -= version.bytes;
+                versionsEvicted.incrementAndGet();
+            }
+            log.info("Cache Maven: éviction LRU jusqu'à {} octets", size);
+        }
+        baseSizeBytes.set(size);
+    }
+
+    private long toBytes(String value, String unit) {
+        double amount = Double.parseDouble(value.replace(",", ""));
+        return switch (unit) {
+            case "kB" -> (long) (amount * 1_000);
+            case "MB" -> (long) (amount * 1_000_000);
+            case "GB" -> (long) (amount * 1_000_000_000);
+            default -> (long) amount;
+        };
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Usage du cache par un pipeline
+     */
+    private static class PipelineUsage {
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong downloads = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        Map<String, Object> toMap(boolean running) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("running", running);
+            map.put("mavenInvocations", invocations.get());
+            map.put("artifactsDownloaded", downloads.get());
+            map.put("bytesDownloaded", bytes.get());
+            return map;
+        }
+    }
+
+    /**
+     * Taille et dernière utilisation d'un répertoire de version d'artefact
+     */
+    private static class VersionUsage {
+        private final Path directory;
+        private long bytes;
+        private FileTime lastUsed;
+
+        VersionUsage(Path directory) {
+            this.directory = directory;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.imt.demo.config;
 
+import com.imt.demo.cache.DependencyPrefetchProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,4 +57,20 @@ public class AsyncConfig {
 
         return executor;
     }
+
+    /**
+     * Executor des préchargements de dépendances Maven, lancés dès la mise en file d'un pipeline.
+     * Séparé du pool des pipelines pour qu'un préchargement ne retarde jamais une exécution.
+     */
+    @Bean(name = "prefetchExecutor")
+    public Executor prefetchExecutor(DependencyPrefetchProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("Prefetch-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
 }
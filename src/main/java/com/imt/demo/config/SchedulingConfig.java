@@ -0,0 +1,12 @@
+package com.imt.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées du moteur (maintenance des caches et pools).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,66 @@
+package com.imt.demo.controller;
+
+import com.imt.demo.cache.BuildOutputCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Service HTTP du cache de build: permet à plusieurs nœuds Jonk de partager leurs sorties de build
+ * (jonk.build-cache.remote-url pointant vers /api/build-cache d'un nœud de référence)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/build-cache")
+@RequiredArgsConstructor
+public class BuildCacheController {
+
+    private final BuildOutputCache buildOutputCache;
+
+    /**
+     * Télécharge une entrée du cache
+     * GET /api/build-cache/{key}
+     */
+    @GetMapping("/{key}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
+    public ResponseEntity<Resource> getEntry(@PathVariable String key) {
+        if (!BuildOutputCache.isValidKey(key)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<Path> entry = buildOutputCache.find(key);
+        if (entry.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(new FileSystemResource(entry.get()));
+    }
+
+    /**
+     * Publie une entrée dans le cache
+     * PUT /api/build-cache/{key}
+     */
+    @PutMapping("/{key}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
+    public ResponseEntity<Void> putEntry(@PathVariable String key, InputStream body) throws IOException {
+        if (!BuildOutputCache.isValidKey(key)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        buildOutputCache.put(key, body);
+        log.info(" Entrée de cache de build reçue: {}", key);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,7 +1,10 @@
 package com.imt.demo.controller;
 
+import com.imt.demo.cache.DependencyPrefetcher;
 import com.imt.demo.dto.PipelineRequest;
 import com.imt.demo.dto.PipelineResponse;
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.DeploymentStatus;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.PipelineExecution;
 import com.imt.demo.model.PipelineStatus;
@@ -29,6 +32,7 @@ import java.util.stream.Collectors;
 public class PipelineController {
 
     private final PipelineService pipelineService;
+    private final DependencyPrefetcher dependencyPrefetcher;
 
     /**
      * Endpoint pour déclencher un nouveau pipeline
@@ -60,6 +64,9 @@ public class PipelineController {
             // Convertir la requête en contexte
             PipelineContext context = buildContextFromRequest(request);
 
+            // Précharger les dépendances Maven pendant que le pipeline attend dans la file
+            dependencyPrefetcher.prefetch(context);
+
             // Lancer le pipeline de manière asynchrone
             String executionId = pipelineService.runPipelineAsync(context).join();
 
@@ -195,6 +202,40 @@ public class PipelineController {
         ));
     }
 
+    /**
+     * Annule le déploiement d'une exécution: la version précédente, conservée arrêtée, est redémarrée
+     * POST /api/pipeline/{id}/rollback
+     */
+    @PostMapping("/{id}/rollback")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
+    public ResponseEntity<?> rollbackPipeline(@PathVariable String id) {
+        log.info("  Demande de rollback du déploiement du pipeline: {}", id);
+
+        if (pipelineService.getDeployments(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Aucun déploiement enregistré pour ce pipeline"));
+        }
+
+        List<DeploymentRecord> deployments = pipelineService.rollbackDeployment(id);
+        if (deployments.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Les déploiements de ce pipeline ne sont plus en service"));
+        }
+        if (deployments.stream().anyMatch(record -> record.getStatus() != DeploymentStatus.ROLLED_BACK)) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "error", "La version précédente n'a pas pu être redémarrée sur tous les hôtes",
+                    "executionId", id,
+                    "deployments", deployments
+            ));
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Rollback effectué",
+                "executionId", id,
+                "deployments", deployments
+        ));
+    }
+
     /**
      * Convertit une requête en contexte de pipeline
      */
@@ -203,6 +244,12 @@ public class PipelineController {
                 .gitUrl(request.getGitUrl())
                 .branch(request.getBranch())
                 .buildTool(request.getBuildTool() != null ? request.getBuildTool() : "maven")
+                .affectedModules(Boolean.TRUE.equals(request.getAffectedModules()))
+                .testImpactAnalysis(Boolean.TRUE.equals(request.getTestImpactAnalysis()))
+                .testShards(request.getTestShards() != null ? request.getTestShards() : 1)
+                .testPrioritization(Boolean.TRUE.equals(request.getTestPrioritization()))
+                .failFast(Boolean.TRUE.equals(request.getFailFast()))
+                .testRetries(request.getTestRetries())
                 .dockerImageName(request.getDockerImageName())
                 .dockerImageTag(request.getDockerImageTag() != null ? request.getDockerImageTag() : "latest-" + System.currentTimeMillis())
                 .dockerRegistry(request.getDockerRegistry())
@@ -211,10 +258,16 @@ public class PipelineController {
                 .sonarProjectKey(request.getSonarProjectKey())
                 .sonarEnabled(Boolean.TRUE.equals(request.getSonarEnabled()))
                 .deploymentHost(request.getDeploymentHost())
+                .blueGreen(request.getBlueGreen())
+                .deploymentHosts(request.getDeploymentHosts())
+                .deploymentParallelism(request.getDeploymentParallelism())
+                .deploymentStrategy(request.getDeploymentStrategy())
                 .deploymentUser(request.getDeploymentUser())
                 .deploymentPort(request.getDeploymentPort())
                 .sshUser(request.getDeploymentUser())
                 .sshKeyPath(request.getSshKeyPath())
+                .performanceTest(request.getPerformanceTest())
+                .performanceRequests(request.getPerformanceRequests())
                 .environmentVariables(request.getEnvironmentVariables() != null ? request.getEnvironmentVariables() : new HashMap<>())
                 .triggeredBy(request.getTriggeredBy() != null ? request.getTriggeredBy() : "anonymous")
                 .build();
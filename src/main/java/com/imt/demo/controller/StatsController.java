@@ -0,0 +1,190 @@
+package com.imt.demo.controller;
+
+import com.imt.demo.cache.BuildOutputCache;
+import com.imt.demo.cache.DependencyPrefetcher;
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.deploy.SshConnectionPool;
+import com.imt.demo.docker.BuildKitCache;
+import com.imt.demo.docker.DockerEngineClient;
+import com.imt.demo.docker.DockerStateIndex;
+import com.imt.demo.engine.WorkspaceSnapshotter;
+import com.imt.demo.gradle.GradleDaemonPool;
+import com.imt.demo.maven.AffectedModulePlanner;
+import com.imt.demo.testing.TestImpactAnalyzer;
+import com.imt.demo.testing.TestPrioritizer;
+import com.imt.demo.testing.TestShardScheduler;
+import com.imt.demo.workspace.WorkspacePool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Contrôleur REST exposant les indicateurs internes du moteur (pools, caches)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final WorkspacePool workspacePool;
+    private final WorkspaceSnapshotter workspaceSnapshotter;
+    private final MavenRepositoryCache mavenRepositoryCache;
+    private final DependencyPrefetcher dependencyPrefetcher;
+    private final BuildOutputCache buildOutputCache;
+    private final AffectedModulePlanner affectedModulePlanner;
+    private final BuildKitCache buildKitCache;
+    private final DockerEngineClient dockerEngineClient;
+    private final DockerStateIndex dockerStateIndex;
+    private final SshConnectionPool sshConnectionPool;
+    private final GradleDaemonPool gradleDaemonPool;
+    private final TestImpactAnalyzer testImpactAnalyzer;
+    private final TestShardScheduler testShardScheduler;
+    private final TestPrioritizer testPrioritizer;
+
+    /**
+     * Statistiques du pool de workspaces pré-clonés (taux de hit, latence d'emprunt)
+     * GET /api/stats/workspace-pool
+     */
+    @GetMapping("/workspace-pool")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getWorkspacePoolStats() {
+        return ResponseEntity.ok(workspacePool.stats());
+    }
+
+    /**
+     * Statistiques des copies de workspace (stratégie, durée, volume disque)
+     * GET /api/stats/workspace-snapshots
+     */
+    @GetMapping("/workspace-snapshots")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getWorkspaceSnapshotStats() {
+        return ResponseEntity.ok(workspaceSnapshotter.stats());
+    }
+
+    /**
+     * Statistiques du dépôt Maven partagé (taux de hit, octets téléchargés par pipeline)
+     * GET /api/stats/maven-cache
+     */
+    @GetMapping("/maven-cache")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getMavenCacheStats() {
+        return ResponseEntity.ok(mavenRepositoryCache.stats());
+    }
+
+    /**
+     * Statistiques du préchargement des dépendances Maven (préchargements, builds trouvant le cache chaud)
+     * GET /api/stats/dependency-prefetch
+     */
+    @GetMapping("/dependency-prefetch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getDependencyPrefetchStats() {
+        return ResponseEntity.ok(dependencyPrefetcher.stats());
+    }
+
+    /**
+     * Statistiques du cache des sorties de build (hits local/distant, miss, taille)
+     * GET /api/stats/build-cache
+     */
+    @GetMapping("/build-cache")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getBuildCacheStats() {
+        return ResponseEntity.ok(buildOutputCache.stats());
+    }
+
+    /**
+     * Statistiques des builds par modules affectés (builds partiels, modules construits/restaurés)
+     * GET /api/stats/affected-modules
+     */
+    @GetMapping("/affected-modules")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getAffectedModulesStats() {
+        return ResponseEntity.ok(affectedModulePlanner.stats());
+    }
+
+    /**
+     * Statistiques du cache BuildKit des builds Docker (builds, caches importés/exportés)
+     * GET /api/stats/docker-build-cache
+     */
+    @GetMapping("/docker-build-cache")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getDockerBuildCacheStats() {
+        return ResponseEntity.ok(buildKitCache.stats());
+    }
+
+    /**
+     * Statistiques du client de l'API Docker Engine (requêtes, latence moyenne, connexions conservées)
+     * GET /api/stats/docker-engine
+     */
+    @GetMapping("/docker-engine")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getDockerEngineStats() {
+        return ResponseEntity.ok(dockerEngineClient.stats());
+    }
+
+    /**
+     * Statistiques de l'index Docker en mémoire (synchronisation, containers suivis, événements reçus)
+     * GET /api/stats/docker-state
+     */
+    @GetMapping("/docker-state")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getDockerStateStats() {
+        return ResponseEntity.ok(dockerStateIndex.stats());
+    }
+
+    /**
+     * Statistiques des connexions SSH partagées (poignées de main, réutilisations, canaux par hôte)
+     * GET /api/stats/ssh-pool
+     */
+    @GetMapping("/ssh-pool")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getSshPoolStats() {
+        return ResponseEntity.ok(sshConnectionPool.stats());
+    }
+
+    /**
+     * Statistiques du pool de daemons Gradle (occupation, attente, tâches évitées par le build cache)
+     * GET /api/stats/gradle
+     */
+    @GetMapping("/gradle")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getGradleStats() {
+        return ResponseEntity.ok(gradleDaemonPool.stats());
+    }
+
+    /**
+     * Statistiques de l'analyse d'impact des tests (exécutions complètes/sélectives, tests ignorés)
+     * GET /api/stats/test-impact
+     */
+    @GetMapping("/test-impact")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getTestImpactStats() {
+        return ResponseEntity.ok(testImpactAnalyzer.stats());
+    }
+
+    /**
+     * Statistiques du sharding des tests (créneaux occupés, accélération moyenne)
+     * GET /api/stats/test-shards
+     */
+    @GetMapping("/test-shards")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getTestShardStats() {
+        return ResponseEntity.ok(testShardScheduler.stats());
+    }
+
+    /**
+     * Statistiques de la priorisation des tests (arrêts fail-fast, médiane du temps avant premier échec)
+     * GET /api/stats/test-priority
+     */
+    @GetMapping("/test-priority")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getTestPriorityStats() {
+        return ResponseEntity.ok(testPrioritizer.stats());
+    }
+}
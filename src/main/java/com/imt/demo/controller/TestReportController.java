@@ -0,0 +1,87 @@
+package com.imt.demo.controller;
+
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.service.TestReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contrôleur REST exposant les résultats de tests par méthode (durées, tendances, historique des échecs)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/tests")
+@RequiredArgsConstructor
+public class TestReportController {
+
+    private final TestReportService testReportService;
+
+    /**
+     * Tests les plus lents d'un dépôt/branche
+     * GET /api/tests/slowest?gitUrl=...&branch=main&days=30&limit=20
+     */
+    @GetMapping("/slowest")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<List<Map<String, Object>>> getSlowestTests(@RequestParam String gitUrl,
+                                                                     @RequestParam(defaultValue = "main") String branch,
+                                                                     @RequestParam(defaultValue = "30") int days,
+                                                                     @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(testReportService.slowestTests(gitUrl, branch, days, limit));
+    }
+
+    /**
+     * Tests dont la durée augmente
+     * GET /api/tests/trending?gitUrl=...&branch=main&days=30&limit=20
+     */
+    @GetMapping("/trending")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<List<Map<String, Object>>> getTrendingTests(@RequestParam String gitUrl,
+                                                                      @RequestParam(defaultValue = "main") String branch,
+                                                                      @RequestParam(defaultValue = "30") int days,
+                                                                      @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(testReportService.trendingSlower(gitUrl, branch, days, limit));
+    }
+
+    /**
+     * Tests instables (passés seulement après relance)
+     * GET /api/tests/flaky?gitUrl=...&branch=main&days=30&limit=20
+     */
+    @GetMapping("/flaky")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<List<Map<String, Object>>> getFlakyTests(@RequestParam String gitUrl,
+                                                                   @RequestParam(defaultValue = "main") String branch,
+                                                                   @RequestParam(defaultValue = "30") int days,
+                                                                   @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(testReportService.flakyTests(gitUrl, branch, days, limit));
+    }
+
+    /**
+     * Historique d'une méthode de test sur un dépôt/branche (exécutions récentes et échecs)
+     * GET /api/tests/history?gitUrl=...&branch=main&testClass=com.acme.FooTest&testName=shouldWork&limit=50
+     */
+    @GetMapping("/history")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<Map<String, Object>> getTestHistory(@RequestParam String gitUrl,
+                                                              @RequestParam(defaultValue = "main") String branch,
+                                                              @RequestParam String testClass,
+                                                              @RequestParam String testName,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(testReportService.history(gitUrl, branch, testClass, testName, limit));
+    }
+
+    /**
+     * Résultats de tests d'une exécution de pipeline
+     * GET /api/tests/execution/{executionId}
+     */
+    @GetMapping("/execution/{executionId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV', 'VIEWER')")
+    public ResponseEntity<List<TestCaseResult>> getExecutionTests(@PathVariable String executionId) {
+        return ResponseEntity.ok(testReportService.executionResults(executionId));
+    }
+}
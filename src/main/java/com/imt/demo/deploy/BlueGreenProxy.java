@@ -0,0 +1,167 @@
+package com.imt.demo.deploy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Proxy nginx (un container par port public) placé devant les containers d'un déploiement bleu/vert:
+ * il occupe le port public et relaie vers le port de service du container actif.
+ * Basculer revient à réécrire l'upstream et à recharger nginx (nginx -s reload), sans couper
+ * les connexions en cours ni refuser les nouvelles.
+ */
+@Slf4j
+@Component
+public class BlueGreenProxy {
+
+    private static final Pattern UPSTREAM = Pattern.compile("server host\\.docker\\.internal:(\\d+);");
+    private static final String CONFIG_MOUNT = "/etc/nginx/jonk";
+    private static final String CONFIG = """
+            worker_processes 1;
+            events {
+                worker_connections 1024;
+            }
+            http {
+                upstream app {
+                    server host.docker.internal:%d;
+                    keepalive 16;
+                }
+                server {
+                    listen 80;
+                    location / {
+                        proxy_pass http://app;
+                        proxy_http_version 1.1;
+                        proxy_set_header Connection "";
+                        proxy_set_header Host $http_host;
+                        proxy_set_header X-Forwarded-For $proxy_add_x_forwarded_for;
+                    }
+                }
+            }
+            """;
+
+    private final DeployProperties properties;
+
+    public BlueGreenProxy(DeployProperties properties) {
+        this.properties = properties;
+    }
+
+    public String containerName(String publicPort) {
+        return "jonk-proxy-" + publicPort;
+    }
+
+    /**
+     * Port de service vers lequel le proxy du port public relaie, si ce proxy est en cours d'exécution
+     */
+    public synchronized Optional<Integer> activeUpstream(String publicPort) {
+        List<String> output = new ArrayList<>();
+        if (run(List.of("docker", "inspect", "-f", "{{.State.Running}}", containerName(publicPort)), output) != 0
+                || !output.contains("true")) {
+            return Optional.empty();
+        }
+        try {
+            Matcher matcher = UPSTREAM.matcher(Files.readString(configFile(publicPort)));
+            return matcher.find() ? Optional.of(Integer.parseInt(matcher.group(1))) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Démarre le proxy sur le port public (qui doit être libre), relayant vers upstreamPort
+     */
+    public synchronized boolean start(String publicPort, int upstreamPort, List<String> output) {
+        try {
+            writeConfig(publicPort, upstreamPort);
+        } catch (IOException e) {
+            output.add("✗ Configuration du proxy impossible: " + e.getMessage());
+            return false;
+        }
+        String name = containerName(publicPort);
+        run(List.of("docker", "rm", "-f", name), new ArrayList<>());
+        boolean started = run(List.of("docker", "run", "-d", "--name", name, "--restart=always",
+                "--add-host", "host.docker.internal:host-gateway",
+                "-p", publicPort + ":80",
+                "-v", configFile(publicPort).getParent() + ":" + CONFIG_MOUNT + ":ro",
+                properties.getProxyImage(),
+                "nginx", "-c", CONFIG_MOUNT + "/nginx.conf", "-g", "daemon off;"), output) == 0;
+        if (started) {
+            log.info("Proxy bleu/vert démarré sur le port {} vers le port {}", publicPort, upstreamPort);
+        }
+        return started;
+    }
+
+    /**
+     * Bascule le trafic du port public vers upstreamPort (configuration vérifiée avant rechargement)
+     */
+    public synchronized boolean switchTo(String publicPort, int upstreamPort, List<String> output) {
+        Path config = configFile(publicPort);
+        String previous;
+        try {
+            previous = Files.readString(config);
+            writeConfig(publicPort, upstreamPort);
+        } catch (IOException e) {
+            output.add("✗ Configuration du proxy impossible: " + e.getMessage());
+            return false;
+        }
+
+        String name = containerName(publicPort);
+        String configPath = CONFIG_MOUNT + "/nginx.conf";
+        if (run(List.of("docker", "exec", name, "nginx", "-t", "-c", configPath), output) != 0
+                || run(List.of("docker", "exec", name, "nginx", "-c", configPath, "-s", "reload"), output) != 0) {
+            try {
+                Files.writeString(config, previous);
+            } catch (IOException e) {
+                log.warn("Configuration précédente du proxy {} non restaurée: {}", name, e.getMessage());
+            }
+            return false;
+        }
+        log.info("Proxy du port {} basculé vers le port {}", publicPort, upstreamPort);
+        return true;
+    }
+
+    private Path configFile(String publicPort) {
+        return Path.of(properties.getProxyDirectory(), publicPort, "nginx.conf");
+    }
+
+    /**
+     * Écriture atomique: nginx ne lit jamais une configuration à moitié écrite
+     */
+    private void writeConfig(String publicPort, int upstreamPort) throws IOException {
+        Path config = configFile(publicPort);
+        Files.createDirectories(config.getParent());
+        Path temporary = config.resolveSibling("nginx.conf.tmp");
+        Files.writeString(temporary, String.format(CONFIG, upstreamPort));
+        Files.move(temporary, config, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int run(List<String> command, List<String> output) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.add(line);
+                }
+            }
+            return process.waitFor();
+        } catch (IOException e) {
+            output.add("✗ " + command.get(0) + ": " + e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.imt.demo.deploy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.deploy")
+public class DeployProperties {
+
+    /**
+     * Déploiement distant: image envoyée en flux (docker save | gzip | ssh docker load) sans fichier tar intermédiaire.
+     * Désactivé par défaut: docker save, scp puis docker load restent le chemin standard.
+     */
+    private boolean streaming = false;
+
+    /**
+     * Niveau de compression gzip du flux (1 = le plus rapide, 9 = le plus compact)
+     */
+    private int compressionLevel = 1;
+
+    /**
+     * Déploiement distant: image poussée dans un registre relais local puis tirée par l'hôte distant
+     * à travers un tunnel ssh -R, qui ne télécharge que les couches qu'il n'a pas déjà.
+     * Désactivé par défaut: démarre un registre local et ouvre un tunnel vers chaque hôte.
+     */
+    private boolean layerDelta = false;
+
+    /**
+     * Port du registre relais (sur 127.0.0.1 localement, et sur l'hôte distant via le tunnel)
+     */
+    private int registryPort = 5005;
+
+    /**
+     * Image du registre relais
+     */
+    private String registryImage = "registry:2";
+
+    /**
+     * Nom du container du registre relais
+     */
+    private String registryContainer = "jonk-registry";
+
+    /**
+     * Déploiement multi-hôtes: nombre d'hôtes déployés simultanément (taille d'une vague en rolling)
+     */
+    private int hostParallelism = 2;
+
+    /**
+     * Déploiement multi-hôtes: rolling (vagues successives, chacune validée par le health check)
+     * ou batch (tous les hôtes en une seule vague)
+     */
+    private String strategy = "rolling";
+
+    /**
+     * Déploiement local bleu/vert: le nouveau container démarre sur un port de service, est vérifié,
+     * puis un proxy nginx tenant le port public bascule vers lui avant l'arrêt de l'ancien
+     */
+    private boolean blueGreen = false;
+
+    /**
+     * Image du proxy bleu/vert
+     */
+    private String proxyImage = "nginx:1.27-alpine";
+
+    /**
+     * Répertoire des configurations du proxy bleu/vert (un sous-répertoire par port public)
+     */
+    private String proxyDirectory = System.getProperty("user.home") + "/.jonk/proxy";
+
+    /**
+     * Délai laissé aux requêtes en cours sur l'ancien container après la bascule, avant son arrêt
+     */
+    private Duration drainDelay = Duration.ofSeconds(2);
+
+    /**
+     * Connexion SSH maîtresse par hôte (ControlMaster): commandes et transferts passent par des canaux
+     * de la même connexion authentifiée au lieu d'une poignée de main chacun
+     */
+    private boolean sshMultiplexing = false;
+
+    /**
+     * Répertoire des sockets de contrôle SSH et du fichier known_hosts du moteur
+     */
+    private String sshControlDirectory = System.getProperty("user.home") + "/.jonk/ssh";
+
+    /**
+     * Durée pendant laquelle une connexion maîtresse inutilisée reste ouverte
+     */
+    private Duration sshControlPersist = Duration.ofMinutes(10);
+
+    /**
+     * Vérification de la clé d'hôte (accept-new: clé enregistrée au premier contact puis vérifiée)
+     */
+    private String sshStrictHostKeyChecking = "accept-new";
+
+    /**
+     * Délai maximal d'établissement d'une connexion SSH
+     */
+    private Duration sshConnectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Health check: délai maximal pour que l'application réponde après le déploiement
+     */
+    private Duration healthTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Health check: attente avant la deuxième sonde, doublée ensuite à chaque tentative (avec gigue)
+     */
+    private Duration healthInitialBackoff = Duration.ofMillis(100);
+
+    /**
+     * Health check: attente maximale entre deux sondes
+     */
+    private Duration healthMaxBackoff = Duration.ofSeconds(2);
+
+    /**
+     * Health check: délai de réponse d'une requête de sonde
+     */
+    private Duration healthRequestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Smoke test de performance après le health check (activable par pipeline)
+     */
+    private boolean smokeTest = false;
+
+    /**
+     * Smoke test: requêtes envoyées, au format "MÉTHODE /chemin [poids]" (ex: "GET /api/items 3")
+     */
+    private List<String> smokeRequests = new ArrayList<>(List.of("GET /"));
+
+    /**
+     * Smoke test: durée de la mesure, précédée d'un échauffement non mesuré (JIT, caches, pools)
+     */
+    private Duration smokeDuration = Duration.ofSeconds(10);
+    private Duration smokeWarmup = Duration.ofSeconds(2);
+
+    /**
+     * Smoke test: nombre de clients simultanés (un virtual thread chacun)
+     */
+    private int smokeConcurrency = 8;
+
+    /**
+     * Smoke test: délai de réponse d'une requête (au-delà, la requête compte comme une erreur)
+     */
+    private Duration smokeRequestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Smoke test: hausse maximale du p95 et du p99 par rapport au déploiement précédent (0.5 = +50 %)
+     */
+    private double smokeMaxLatencyIncrease = 0.5;
+
+    /**
+     * Smoke test: hausse absolue en dessous de laquelle une régression est ignorée (bruit de mesure)
+     */
+    private Duration smokeLatencyTolerance = Duration.ofMillis(5);
+
+    /**
+     * Smoke test: taux maximal de réponses en erreur (5xx, délai dépassé, connexion refusée)
+     */
+    private double smokeMaxErrorRate = 0.01;
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isLayerDelta() {
+        return layerDelta;
+    }
+
+    public void setLayerDelta(boolean layerDelta) {
+        this.layerDelta = layerDelta;
+    }
+
+    public int getRegistryPort() {
+        return registryPort;
+    }
+
+    public void setRegistryPort(int registryPort) {
+        this.registryPort = registryPort;
+    }
+
+    public String getRegistryImage() {
+        return registryImage;
+    }
+
+    public void setRegistryImage(String registryImage) {
+        this.registryImage = registryImage;
+    }
+
+    public String getRegistryContainer() {
+        return registryContainer;
+    }
+
+    public void setRegistryContainer(String registryContainer) {
+        this.registryContainer = registryContainer;
+    }
+
+    public int getHostParallelism() {
+        return hostParallelism;
+    }
+
+    public void setHostParallelism(int hostParallelism) {
+        this.hostParallelism = hostParallelism;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
+
+    public boolean isBlueGreen() {
+        return blueGreen;
+    }
+
+    public void setBlueGreen(boolean blueGreen) {
+        this.blueGreen = blueGreen;
+    }
+
+    public String getProxyImage() {
+        return proxyImage;
+    }
+
+    public void setProxyImage(String proxyImage) {
+        this.proxyImage = proxyImage;
+    }
+
+    public String getProxyDirectory() {
+        return proxyDirectory;
+    }
+
+    public void setProxyDirectory(String proxyDirectory) {
+        this.proxyDirectory = proxyDirectory;
+    }
+
+    public Duration getDrainDelay() {
+        return drainDelay;
+    }
+
+    public void setDrainDelay(Duration drainDelay) {
+        this.drainDelay = drainDelay;
+    }
+
+    public boolean isSshMultiplexing() {
+        return sshMultiplexing;
+    }
+
+    public void setSshMultiplexing(boolean sshMultiplexing) {
+        this.sshMultiplexing = sshMultiplexing;
+    }
+
+    public String getSshControlDirectory() {
+        return sshControlDirectory;
+    }
+
+    public void setSshControlDirectory(String sshControlDirectory) {
+        this.sshControlDirectory = sshControlDirectory;
+    }
+
+    public Duration getSshControlPersist() {
+        return sshControlPersist;
+    }
+
+    public void setSshControlPersist(Duration sshControlPersist) {
+        this.sshControlPersist = sshControlPersist;
+    }
+
+    public String getSshStrictHostKeyChecking() {
+        return sshStrictHostKeyChecking;
+    }
+
+    public void setSshStrictHostKeyChecking(String sshStrictHostKeyChecking) {
+        this.sshStrictHostKeyChecking = sshStrictHostKeyChecking;
+    }
+
+    public Duration getSshConnectTimeout() {
+        return sshConnectTimeout;
+    }
+
+    public void setSshConnectTimeout(Duration sshConnectTimeout) {
+        this.sshConnectTimeout = sshConnectTimeout;
+    }
+
+    public Duration getHealthTimeout() {
+        return healthTimeout;
+    }
+
+    public void setHealthTimeout(Duration healthTimeout) {
+        this.healthTimeout = healthTimeout;
+    }
+
+    public Duration getHealthInitialBackoff() {
+        return healthInitialBackoff;
+    }
+
+    public void setHealthInitialBackoff(Duration healthInitialBackoff) {
+        this.healthInitialBackoff = healthInitialBackoff;
+    }
+
+    public Duration getHealthMaxBackoff() {
+        return healthMaxBackoff;
+    }
+
+    public void setHealthMaxBackoff(Duration healthMaxBackoff) {
+        this.healthMaxBackoff = healthMaxBackoff;
+    }
+
+    public Duration getHealthRequestTimeout() {
+        return healthRequestTimeout;
+    }
+
+    public void setHealthRequestTimeout(Duration healthRequestTimeout) {
+        this.healthRequestTimeout = healthRequestTimeout;
+    }
+
+    public boolean isSmokeTest() {
+        return smokeTest;
+    }
+
+    public void setSmokeTest(boolean smokeTest) {
+        this.smokeTest = smokeTest;
+    }
+
+    public List<String> getSmokeRequests() {
+        return smokeRequests;
+    }
+
+    public void setSmokeRequests(List<String> smokeRequests) {
+        this.smokeRequests = smokeRequests;
+    }
+
+    public Duration getSmokeDuration() {
+        return smokeDuration;
+    }
+
+    public void setSmokeDuration(Duration smokeDuration) {
+        this.smokeDuration = smokeDuration;
+    }
+
+    public Duration getSmokeWarmup() {
+        return smokeWarmup;
+    }
+
+    public void setSmokeWarmup(Duration smokeWarmup) {
+        this.smokeWarmup = smokeWarmup;
+    }
+
+    public int getSmokeConcurrency() {
+        return smokeConcurrency;
+    }
+
+    public void setSmokeConcurrency(int smokeConcurrency) {
+        this.smokeConcurrency = smokeConcurrency;
+    }
+
+    public Duration getSmokeRequestTimeout() {
+        return smokeRequestTimeout;
+    }
+
+    public void setSmokeRequestTimeout(Duration smokeRequestTimeout) {
+        this.smokeRequestTimeout = smokeRequestTimeout;
+    }
+
+    public double getSmokeMaxLatencyIncrease() {
+        return smokeMaxLatencyIncrease;
+    }
+
+    public void setSmokeMaxLatencyIncrease(double smokeMaxLatencyIncrease) {
+        this.smokeMaxLatencyIncrease = smokeMaxLatencyIncrease;
+    }
+
+    public Duration getSmokeLatencyTolerance() {
+        return smokeLatencyTolerance;
+    }
+
+    public void setSmokeLatencyTolerance(Duration smokeLatencyTolerance) {
+        this.smokeLatencyTolerance = smokeLatencyTolerance;
+    }
+
+    public double getSmokeMaxErrorRate() {
+        return smokeMaxErrorRate;
+    }
+
+    public void setSmokeMaxErrorRate(double smokeMaxErrorRate) {
+        this.smokeMaxErrorRate = smokeMaxErrorRate;
+    }
+}
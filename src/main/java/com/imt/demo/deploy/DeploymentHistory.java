@@ -0,0 +1,156 @@
+package com.imt.demo.deploy;
+
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.DeploymentStatus;
+import com.imt.demo.model.PerformanceSnapshot;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.repository.DeploymentRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Historique des déploiements réussis par hôte et port: version en service, version remplacée
+ * et container conservé arrêté pour la restaurer. Un historique indisponible (MongoDB absent)
+ * ne fait jamais échouer un déploiement: le rollback se rabat alors sur le container conservé.
+ */
+@Slf4j
+@Component
+public class DeploymentHistory {
+
+    /**
+     * Hôte enregistré pour un déploiement local
+     */
+    public static final String LOCAL_HOST = "localhost";
+
+    private final DeploymentRecordRepository repository;
+
+    public DeploymentHistory(DeploymentRecordRepository repository) {
+        this.repository = repository;
+    }
+
+    public static String host(PipelineContext context) {
+        return context.getDeploymentHost() != null && context.getSshUser() != null ? context.getDeploymentHost() : LOCAL_HOST;
+    }
+
+    /**
+     * Déploiement actuellement en service sur l'hôte et le port
+     */
+    public Optional<DeploymentRecord> active(String host, String port) {
+        try {
+            return repository.findFirstByHostAndPortAndStatusOrderByDeployedAtDesc(host, port, DeploymentStatus.ACTIVE);
+        } catch (Exception e) {
+            log.warn("Historique des déploiements indisponible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Déploiement d'une exécution sur un hôte et un port
+     */
+    public Optional<DeploymentRecord> find(String pipelineId, String host, String port) {
+        return forPipeline(pipelineId).stream()
+                .filter(record -> host.equals(record.getHost()) && port.equals(record.getPort()))
+                .findFirst();
+    }
+
+    public List<DeploymentRecord> forPipeline(String pipelineId) {
+        try {
+            return repository.findByPipelineId(pipelineId);
+        } catch (Exception e) {
+            log.warn("Historique des déploiements indisponible: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Déploiements d'une exécution; les enregistrements sans executionId sont retrouvés par leur pipelineId
+     */
+    public List<DeploymentRecord> forExecution(String executionId) {
+        try {
+            List<DeploymentRecord> records = repository.findByExecutionId(executionId);
+            return !records.isEmpty() ? records : repository.findByPipelineId(executionId);
+        } catch (Exception e) {
+            log.warn("Historique des déploiements indisponible: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Mesures de performance de référence: celles du dernier déploiement de l'hôte et du port
+     * qui n'a pas été annulé, hors exécution courante
+     */
+    public Optional<DeploymentRecord> performanceBaseline(String host, String port, String pipelineId) {
+        try {
+            return repository.findByHostAndPortOrderByDeployedAtDesc(host, port).stream()
+                    .filter(record -> !Objects.equals(record.getPipelineId(), pipelineId))
+                    .filter(record -> record.getStatus() != DeploymentStatus.ROLLED_BACK)
+                    .filter(record -> record.getPerformance() != null)
+                    .findFirst();
+        } catch (Exception e) {
+            log.warn("Historique des déploiements indisponible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Associe les mesures du smoke test au déploiement de l'exécution sur l'hôte et le port
+     */
+    public void recordPerformance(String pipelineId, String host, String port, PerformanceSnapshot performance) {
+        try {
+            find(pipelineId, host, port).ifPresent(record -> {
+                record.setPerformance(performance);
+                repository.save(record);
+            });
+        } catch (Exception e) {
+            log.warn("Impossible d'enregistrer les mesures de performance sur {}:{}: {}", host, port, e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistre un déploiement réussi: il devient la version en service et remplace la précédente
+     */
+    public void record(DeploymentRecord record) {
+        try {
+            active(record.getHost(), record.getPort()).ifPresent(previous -> {
+                previous.setStatus(DeploymentStatus.SUPERSEDED);
+                repository.save(previous);
+            });
+            record.setStatus(DeploymentStatus.ACTIVE);
+            record.setDeployedAt(LocalDateTime.now());
+            repository.save(record);
+            log.info("Déploiement enregistré: {} sur {}:{}", record.getImage(), record.getHost(), record.getPort());
+        } catch (Exception e) {
+            log.warn("Impossible d'enregistrer le déploiement de {}: {}", record.getImage(), e.getMessage());
+        }
+    }
+
+    /**
+     * Marque le déploiement annulé et remet en service la version qu'il avait remplacée
+     */
+    public void markRolledBack(DeploymentRecord record) {
+        try {
+            boolean wasActive = record.getStatus() == DeploymentStatus.ACTIVE;
+            record.setStatus(DeploymentStatus.ROLLED_BACK);
+            record.setRolledBackAt(LocalDateTime.now());
+            repository.save(record);
+
+            if (wasActive) {
+                repository.findByHostAndPortOrderByDeployedAtDesc(record.getHost(), record.getPort()).stream()
+                        .filter(previous -> previous.getStatus() == DeploymentStatus.SUPERSEDED)
+                        .filter(previous -> previous.getDeployedAt().isBefore(record.getDeployedAt()))
+                        .findFirst()
+                        .ifPresent(previous -> {
+                            previous.setStatus(DeploymentStatus.ACTIVE);
+                            repository.save(previous);
+                        });
+            }
+        } catch (Exception e) {
+            log.warn("Impossible de mettre à jour l'historique après le rollback de {}: {}", record.getImage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.imt.demo.deploy;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Sonde d'indisponibilité: interroge le port public en continu pendant un déploiement
+ * et mesure la durée cumulée pendant laquelle le service ne répondait pas
+ * (connexion refusée, délai dépassé, ou 502/503/504 renvoyé par le proxy).
+ */
+@Slf4j
+@Component
+public class DowntimeProbe {
+
+    private static final long INTERVAL_MS = 50;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    /**
+     * Mesure d'indisponibilité sur la durée de la sonde
+     */
+    @Value
+    public static class Result {
+        long requests;
+        long failures;
+        long downtimeMs;
+        long longestOutageMs;
+    }
+
+    /**
+     * Démarre la sonde en tâche de fond
+     */
+    public Probe start(String host, String port) {
+        Probe probe = new Probe(URI.create("http://" + host + ":" + port + "/"));
+        probe.thread = Thread.ofVirtual().name("downtime-probe-" + port).start(probe::loop);
+        return probe;
+    }
+
+    public class Probe {
+        private final URI uri;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private long requests;
+        private long failures;
+        private long downtimeNanos;
+        private long longestOutageNanos;
+        private long downSince = -1;
+
+        private Probe(URI uri) {
+            this.uri = uri;
+        }
+
+        /**
+         * Arrête la sonde et renvoie la mesure (une indisponibilité en cours compte jusqu'à l'arrêt)
+         */
+        public Result stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            if (downSince >= 0) {
+                recordOutage(System.nanoTime());
+            }
+            return new Result(requests, failures, downtimeNanos / 1_000_000, longestOutageNanos / 1_000_000);
+        }
+
+        private void loop() {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(1))
+                    .GET()
+                    .build();
+            while (running) {
+                boolean up;
+                try {
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    up = status != 502 && status != 503 && status != 504;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    up = false;
+                }
+
+                long now = System.nanoTime();
+                requests++;
+                if (!up) {
+                    failures++;
+                    if (downSince < 0) {
+                        downSince = now;
+                    }
+                } else if (downSince >= 0) {
+                    recordOutage(now);
+                }
+
+                try {
+                    Thread.sleep(INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void recordOutage(long now) {
+            long outage = now - downSince;
+            downtimeNanos += outage;
+            longestOutageNanos = Math.max(longestOutageNanos, outage);
+            downSince = -1;
+            log.debug("Indisponibilité de {} ms sur {}", outage / 1_000_000, uri);
+        }
+    }
+}
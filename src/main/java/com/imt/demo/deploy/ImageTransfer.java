@@ -0,0 +1,166 @@
+package com.imt.demo.deploy;
+
+import com.imt.demo.docker.DockerEngineClient;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transfert d'une image Docker vers un hôte distant en un seul flux:
+ * l'archive produite par docker save est compressée à la volée et écrite sur l'entrée standard
+ * d'un ssh qui exécute docker load (qui reconnaît le gzip). Export, envoi et chargement se recouvrent,
+ * sans fichier tar ni sur l'hôte local ni sur l'hôte distant.
+ */
+@Slf4j
+@Component
+public class ImageTransfer {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final DeployProperties properties;
+    private final DockerEngineClient dockerEngineClient;
+
+    public ImageTransfer(DeployProperties properties, DockerEngineClient dockerEngineClient) {
+        this.properties = properties;
+        this.dockerEngineClient = dockerEngineClient;
+    }
+
+    /**
+     * Résultat d'un transfert
+     */
+    @Value
+    public static class Transfer {
+        boolean success;
+        long rawBytes;
+        long compressedBytes;
+        long durationMs;
+        List<String> output;
+        String error;
+
+        /**
+         * Débit en Mo/s de l'image (non compressée) traversant le flux
+         */
+        public double getMegabytesPerSecond() {
+            return durationMs == 0 ? 0.0 : rawBytes / 1_048_576.0 / (durationMs / 1000.0);
+        }
+    }
+
+    /**
+     * Envoie l'image sur l'entrée standard de la commande distante (ex: ssh user@host docker load)
+     *
+     * @param image L'image et son tag
+     * @param loadCommand La commande qui lit l'archive compressée sur son entrée standard
+     */
+    public Transfer stream(String image, List<String> loadCommand) throws InterruptedException {
+        long start = System.nanoTime();
+        List<String> output = new CopyOnWriteArrayList<>();
+
+        Process load;
+        try {
+            load = new ProcessBuilder(loadCommand).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            return new Transfer(false, 0, 0, 0, output, "Impossible de lancer " + loadCommand.get(0) + ": " + e.getMessage());
+        }
+        Thread loadOutput = Thread.ofVirtual().start(() -> collect(load.getInputStream(), output));
+
+        CountingOutputStream compressed = new CountingOutputStream(load.getOutputStream());
+        CountingOutputStream raw = null;
+        String error = null;
+        try (OutputStream gzip = new LeveledGzipOutputStream(compressed, properties.getCompressionLevel())) {
+            raw = new CountingOutputStream(gzip);
+            save(image, raw);
+        } catch (IOException | RuntimeException e) {
+            // Flux coupé (ssh terminé, authentification refusée...): le code de sortie et la sortie distante expliquent l'échec
+            error = e.getMessage();
+        }
+
+        int exitCode = load.waitFor();
+        loadOutput.join();
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        long rawBytes = raw != null ? raw.count : 0;
+
+        if (exitCode != 0) {
+            error = "Chargement distant échoué (code " + exitCode + ")" + (error != null ? ": " + error : "");
+        }
+        log.info("Transfert de {}: {} octets ({} compressés) en {} ms", image, rawBytes, compressed.count, durationMs);
+        return new Transfer(error == null, rawBytes, compressed.count, durationMs, output, error);
+    }
+
+    /**
+     * Archive de l'image via l'API Docker Engine, ou docker save si le socket n'est pas disponible
+     */
+    private void save(String image, OutputStream target) throws IOException, InterruptedException {
+        if (dockerEngineClient.isAvailable()) {
+            dockerEngineClient.saveImage(image, target);
+            return;
+        }
+
+        Process save = new ProcessBuilder("docker", "save", image).start();
+        List<String> errors = new CopyOnWriteArrayList<>();
+        Thread saveErrors = Thread.ofVirtual().start(() -> collect(save.getErrorStream(), errors));
+        try (InputStream archive = save.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = archive.read(buffer)) >= 0) {
+                target.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            save.destroy();
+            throw e;
+        }
+        int exitCode = save.waitFor();
+        saveErrors.join();
+        if (exitCode != 0) {
+            throw new IOException("docker save a échoué (code " + exitCode + "): " + String.join(" ", errors));
+        }
+    }
+
+    private void collect(InputStream stream, List<String> lines) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            log.debug("Lecture de la sortie interrompue: {}", e.getMessage());
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        private LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.imt.demo.deploy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imt.demo.docker.ImageReference;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registre Docker local servant de relais pour les déploiements distants:
+ * l'image est poussée dans le registre (seules les couches nouvelles sont écrites), puis l'hôte distant
+ * la tire à travers un tunnel ssh -R. docker pull compare les digests des couches avec celles déjà présentes
+ * sur l'hôte et ne télécharge que les manquantes: pour une image Spring Boot en couches, seule la couche
+ * application voyage d'un déploiement au suivant.
+ */
+@Slf4j
+@Component
+public class RegistryRelay {
+
+    private static final Pattern PULL_PROGRESS = Pattern.compile("^([0-9a-f]{12}): (Already exists|Pull complete)$");
+    private static final String MANIFEST_TYPES = String.join(", ",
+            "application/vnd.docker.distribution.manifest.v2+json",
+            "application/vnd.oci.image.manifest.v1+json",
+            "application/vnd.docker.distribution.manifest.list.v2+json",
+            "application/vnd.oci.image.index.v1+json");
+
+    private final DeployProperties properties;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RegistryRelay(DeployProperties properties) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    /**
+     * Couches envoyées à l'hôte distant lors d'un docker pull depuis le relais
+     */
+    @Value
+    public static class Delta {
+        int layers;
+        int layersTransferred;
+        long imageBytes;
+        long transferredBytes;
+    }
+
+    public boolean isEnabled() {
+        return properties.isLayerDelta();
+    }
+
+    /**
+     * Pousse l'image dans le registre relais (démarré si besoin)
+     *
+     * @param output reçoit la sortie des commandes docker
+     * @return la référence de l'image dans le relais, ou empty si le relais est indisponible
+     */
+    public Optional<String> push(String image, List<String> output) {
+        if (!ensureRegistry(output)) {
+            return Optional.empty();
+        }
+        String relayImage = relayReference(image);
+        if (run(List.of("docker", "tag", image, relayImage), output) != 0
+                || run(List.of("docker", "push", relayImage), output) != 0) {
+            log.warn("Impossible de pousser {} dans le registre relais", image);
+            return Optional.empty();
+        }
+        return Optional.of(relayImage);
+    }
+
+    /**
+     * Option ssh -R exposant le registre relais sur le même port de l'hôte distant
+     */
+    public String tunnel() {
+        return properties.getRegistryPort() + ":127.0.0.1:" + properties.getRegistryPort();
+    }
+
+    /**
+     * Commande distante: tirer l'image depuis le relais (via le tunnel) puis lui redonner son nom d'origine
+     */
+    public String pullCommand(String relayImage, String image) {
+        return String.format("docker pull %1$s && docker tag %1$s %2$s && docker rmi %1$s", relayImage, image);
+    }
+
+    /**
+     * Couches réellement téléchargées par l'hôte distant, d'après la sortie de docker pull et les tailles du manifeste
+     */
+    public Delta delta(String relayImage, List<String> pullOutput) {
+        Map<String, Long> sizes = layerSizes(relayImage);
+        int transferred = 0;
+        long transferredBytes = 0;
+        for (String line : pullOutput) {
+            Matcher matcher = PULL_PROGRESS.matcher(line.trim());
+            if (matcher.matches() && "Pull complete".equals(matcher.group(2))) {
+                transferred++;
+                transferredBytes += sizes.getOrDefault(matcher.group(1), 0L);
+            }
+        }
+        long imageBytes = sizes.values().stream().mapToLong(Long::longValue).sum();
+        return new Delta(sizes.size(), transferred, imageBytes, transferredBytes);
+    }
+
+    private String relayReference(String image) {
+        return "localhost:" + properties.getRegistryPort() + "/" + image;
+    }
+
+    /**
+     * Démarre le registre relais s'il ne répond pas (container réutilisé d'un déploiement à l'autre)
+     */
+    private synchronized boolean ensureRegistry(List<String> output) {
+        if (registryResponds()) {
+            return true;
+        }
+        String container = properties.getRegistryContainer();
+        if (run(List.of("docker", "start", container), new ArrayList<>()) != 0) {
+            run(List.of("docker", "run", "-d", "--name", container, "--restart=always",
+                    "-p", "127.0.0.1:" + properties.getRegistryPort() + ":5000", properties.getRegistryImage()), output);
+        }
+        for (int attempt = 0; attempt < 20; attempt++) {
+            if (registryResponds()) {
+                log.info("Registre relais démarré sur le port {}", properties.getRegistryPort());
+                return true;
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        log.warn("Registre relais indisponible sur le port {}", properties.getRegistryPort());
+        return false;
+    }
+
+    private boolean registryResponds() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(registryUri("/v2/"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Taille compressée de chaque couche, indexée par l'identifiant court affiché par docker pull
+     */
+    private Map<String, Long> layerSizes(String relayImage) {
+        Map<String, Long> sizes = new HashMap<>();
+        ImageReference reference = ImageReference.parse(relayImage.substring(relayImage.indexOf('/') + 1));
+        try {
+            JsonNode manifest = manifest(reference.getRepository(), reference.getTag());
+            if (manifest.has("manifests")) {
+                // Index multi-plateformes: manifeste de la première plateforme
+                manifest = manifest(reference.getRepository(), manifest.path("manifests").path(0).path("digest").asText());
+            }
+            for (JsonNode layer : manifest.path("layers")) {
+                String digest = layer.path("digest").asText();
+                String hex = digest.substring(digest.indexOf(':') + 1);
+                sizes.put(hex.substring(0, Math.min(12, hex.length())), layer.path("size").asLong());
+            }
+        } catch (Exception e) {
+            log.debug("Manifeste de {} illisible: {}", relayImage, e.getMessage());
+        }
+        return sizes;
+    }
+
+    private JsonNode manifest(String repository, String reference) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(registryUri("/v2/" + repository + "/manifests/" + reference))
+                .timeout(Duration.ofSeconds(5))
+                .header("Accept", MANIFEST_TYPES)
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Manifeste " + repository + ":" + reference + " introuvable: " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private URI registryUri(String path) {
+        return URI.create("http://127.0.0.1:" + properties.getRegistryPort() + path);
+    }
+
+    private int run(List<String> command, List<String> output) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            output.addAll(lines);
+            return process.waitFor();
+        } catch (IOException e) {
+            output.add("✗ " + command.get(0) + ": " + e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
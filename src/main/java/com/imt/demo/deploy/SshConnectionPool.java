@@ -0,0 +1,200 @@
+package com.imt.demo.deploy;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connexions SSH maîtresses par hôte de déploiement (multiplexage OpenSSH ControlMaster):
+ * la poignée de main et l'authentification ne sont faites qu'une fois, puis chaque commande ssh,
+ * transfert d'image ou copie scp ouvre un simple canal sur la connexion déjà établie.
+ * La connexion reste ouverte ControlPersist après sa dernière utilisation.
+ */
+@Slf4j
+@Component
+public class SshConnectionPool {
+
+    private final DeployProperties properties;
+
+    private final Map<SshTarget, Object> locks = new ConcurrentHashMap<>();
+    private final Map<SshTarget, AtomicLong> channelsByTarget = new ConcurrentHashMap<>();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong handshakeFailures = new AtomicLong();
+    private final AtomicLong handshakeMillis = new AtomicLong();
+
+    public SshConnectionPool(DeployProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Commande ssh exécutant remoteCommand sur un canal de la connexion maîtresse de la cible
+     *
+     * @param options options ssh supplémentaires (ex: -R pour un tunnel)
+     */
+    public List<String> ssh(SshTarget target, String remoteCommand, String... options) {
+        List<String> command = new ArrayList<>(List.of("ssh"));
+        command.addAll(connectionOptions(target));
+        command.addAll(List.of(options));
+        command.add(target.toString());
+        command.add(remoteCommand);
+        return command;
+    }
+
+    /**
+     * Commande scp copiant un fichier local dans remoteDirectory, sur la connexion maîtresse de la cible
+     */
+    public List<String> scp(SshTarget target, String localFile, String remoteDirectory) {
+        List<String> command = new ArrayList<>(List.of("scp"));
+        command.addAll(connectionOptions(target));
+        command.add(localFile);
+        command.add(target + ":" + remoteDirectory);
+        return command;
+    }
+
+    public Map<String, Object> stats() {
+        long acquired = acquisitions.get();
+        long opened = handshakes.get();
+        Map<String, Long> channels = new LinkedHashMap<>();
+        channelsByTarget.forEach((target, count) -> channels.merge(target.toString(), count.get(), Long::sum));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isSshMultiplexing());
+        stats.put("acquisitions", acquired);
+        stats.put("reuses", reuses.get());
+        stats.put("reuseRate", acquired == 0 ? 0.0 : (double) reuses.get() / acquired);
+        stats.put("handshakes", opened);
+        stats.put("handshakeFailures", handshakeFailures.get());
+        stats.put("averageHandshakeMs", opened == 0 ? 0.0 : (double) handshakeMillis.get() / opened);
+        stats.put("channelsByTarget", channels);
+        return stats;
+    }
+
+    /**
+     * Ferme les connexions maîtresses à l'arrêt du moteur
+     */
+    @PreDestroy
+    void closeAll() {
+        if (!properties.isSshMultiplexing()) {
+            return;
+        }
+        for (SshTarget target : channelsByTarget.keySet()) {
+            List<String> command = new ArrayList<>(List.of("ssh", "-o", "ControlPath=" + controlPath(target), "-O", "exit"));
+            command.add(target.toString());
+            run(command, properties.getSshConnectTimeout().toMillis());
+        }
+    }
+
+    /**
+     * Options communes: clé, vérification de l'hôte et, si le multiplexage est actif, connexion maîtresse
+     * (ouverte ici si elle n'existe pas encore)
+     */
+    private List<String> connectionOptions(SshTarget target) {
+        List<String> options = new ArrayList<>();
+        if (target.getKeyPath() != null) {
+            options.addAll(List.of("-i", target.getKeyPath()));
+        }
+        options.addAll(List.of(
+                "-o", "StrictHostKeyChecking=" + properties.getSshStrictHostKeyChecking(),
+                "-o", "UserKnownHostsFile=" + Path.of(properties.getSshControlDirectory(), "known_hosts"),
+                "-o", "BatchMode=yes",
+                "-o", "ConnectTimeout=" + properties.getSshConnectTimeout().toSeconds()));
+        if (properties.isSshMultiplexing()) {
+            acquire(target);
+            // ControlMaster=auto: si la connexion maîtresse a expiré entre-temps, ssh la recrée lui-même
+            options.addAll(List.of(
+                    "-o", "ControlMaster=auto",
+                    "-o", "ControlPath=" + controlPath(target),
+                    "-o", "ControlPersist=" + properties.getSshControlPersist().toSeconds()));
+        }
+        return options;
+    }
+
+    /**
+     * Vérifie que la connexion maîtresse de la cible est ouverte, sinon l'établit (authentification comprise)
+     */
+    private void acquire(SshTarget target) {
+        acquisitions.incrementAndGet();
+        channelsByTarget.computeIfAbsent(target, key -> new AtomicLong()).incrementAndGet();
+        synchronized (locks.computeIfAbsent(target, key -> new Object())) {
+            String controlPath = controlPath(target).toString();
+            if (run(List.of("ssh", "-o", "ControlPath=" + controlPath, "-O", "check", target.toString()),
+                    properties.getSshConnectTimeout().toMillis()) == 0) {
+                reuses.incrementAndGet();
+                return;
+            }
+
+            try {
+                Files.createDirectories(Path.of(properties.getSshControlDirectory()));
+            } catch (IOException e) {
+                log.warn("Impossible de créer le répertoire des sockets SSH: {}", e.getMessage());
+            }
+            List<String> master = new ArrayList<>(List.of("ssh", "-M", "-N", "-f"));
+            if (target.getKeyPath() != null) {
+                master.addAll(List.of("-i", target.getKeyPath()));
+            }
+            master.addAll(List.of(
+                    "-o", "StrictHostKeyChecking=" + properties.getSshStrictHostKeyChecking(),
+                    "-o", "UserKnownHostsFile=" + Path.of(properties.getSshControlDirectory(), "known_hosts"),
+                    "-o", "BatchMode=yes",
+                    "-o", "ConnectTimeout=" + properties.getSshConnectTimeout().toSeconds(),
+                    "-o", "ServerAliveInterval=30",
+                    "-o", "ControlPath=" + controlPath,
+                    "-o", "ControlPersist=" + properties.getSshControlPersist().toSeconds(),
+                    target.toString()));
+
+            long start = System.nanoTime();
+            int exitCode = run(master, properties.getSshConnectTimeout().toMillis() * 2);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (exitCode == 0) {
+                handshakes.incrementAndGet();
+                handshakeMillis.addAndGet(elapsed);
+                log.info("Connexion SSH maîtresse ouverte vers {} en {} ms", target, elapsed);
+            } else {
+                handshakeFailures.incrementAndGet();
+                log.warn("Connexion SSH maîtresse vers {} impossible (code {})", target, exitCode);
+            }
+        }
+    }
+
+    /**
+     * Socket de contrôle de la cible (chemin court: les sockets Unix sont limités à ~100 caractères)
+     */
+    private Path controlPath(SshTarget target) {
+        return Path.of(properties.getSshControlDirectory(),
+                WorkspaceFiles.slug(target + "|" + target.getKeyPath()) + ".sock");
+    }
+
+    private int run(List<String> command, long timeoutMillis) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                return -1;
+            }
+            return process.exitValue();
+        } catch (IOException e) {
+            log.debug("Commande {} impossible: {}", command.get(0), e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.imt.demo.deploy;
+
+import lombok.Value;
+
+/**
+ * Hôte de déploiement joint en SSH (une connexion maîtresse par cible)
+ */
+@Value
+public class SshTarget {
+    String user;
+    String host;
+    String keyPath;
+
+    @Override
+    public String toString() {
+        return user + "@" + host;
+    }
+}
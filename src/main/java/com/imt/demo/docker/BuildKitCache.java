@@ -0,0 +1,168 @@
+package com.imt.demo.docker;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache BuildKit exporté sur disque, un répertoire par dépôt Git.
+ * Les builds passent par un builder buildx dédié (driver docker-container, seul à exporter un cache local):
+ * le cache du build précédent est importé (--cache-from), celui du build courant est exporté dans un
+ * répertoire temporaire (--cache-to) puis remplace l'ancien si le build réussit.
+ * Les montages --mount=type=cache des Dockerfiles générés persistent dans l'état de ce builder.
+ */
+@Slf4j
+@Component
+public class BuildKitCache {
+
+    private static final String INDEX = "index.json";
+
+    private final DockerProperties properties;
+
+    /**
+     * Builder disponible: null tant que non vérifié
+     */
+    private volatile Boolean builderReady;
+
+    private final Map<String, Object> repositoryLocks = new ConcurrentHashMap<>();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong cacheImports = new AtomicLong();
+    private final AtomicLong cacheExports = new AtomicLong();
+
+    public BuildKitCache(DockerProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Vérifie (une seule fois) que buildx est installé et que le builder existe, en le créant si besoin
+     */
+    public boolean isAvailable() {
+        if (!properties.isBuildCache()) {
+            return false;
+        }
+        Boolean ready = builderReady;
+        if (ready == null) {
+            synchronized (this) {
+                if (builderReady == null) {
+                    builderReady = run("docker", "buildx", "inspect", properties.getBuilder())
+                            || run("docker", "buildx", "create", "--name", properties.getBuilder(), "--driver", "docker-container");
+                    if (builderReady) {
+                        log.info("Builder BuildKit '{}' prêt, cache local dans {}", properties.getBuilder(), properties.getCacheDirectory());
+                    } else {
+                        log.warn("docker buildx indisponible: builds Docker sans import/export du cache");
+                    }
+                }
+                ready = builderReady;
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Arguments de docker buildx build pour un pipeline: builder dédié, image chargée dans le démon local,
+     * import du cache du dépôt s'il existe et export dans un répertoire propre au pipeline
+     */
+    public List<String> buildArguments(String gitUrl, String pipelineId) {
+        builds.incrementAndGet();
+        Path cache = directory(gitUrl);
+        try {
+            Files.createDirectories(cache.getParent());
+        } catch (IOException e) {
+            log.warn("Impossible de créer le répertoire des caches BuildKit {}: {}", cache.getParent(), e.getMessage());
+        }
+        List<String> arguments = new ArrayList<>(List.of("--builder", properties.getBuilder(), "--load"));
+        if (Files.exists(cache.resolve(INDEX))) {
+            cacheImports.incrementAndGet();
+            arguments.add("--cache-from");
+            arguments.add("type=local,src=" + cache);
+        }
+        arguments.add("--cache-to");
+        arguments.add("type=local,mode=max,dest=" + pending(gitUrl, pipelineId));
+        return arguments;
+    }
+
+    /**
+     * true si un cache exporté par un build précédent existe pour le dépôt
+     */
+    public boolean hasCache(String gitUrl) {
+        return Files.exists(directory(gitUrl).resolve(INDEX));
+    }
+
+    /**
+     * Remplace le cache du dépôt par celui exporté par le build (ou l'abandonne si le build a échoué).
+     * L'export local n'élague pas les anciennes entrées: repartir du dernier export borne la taille du cache.
+     */
+    public void complete(String gitUrl, String pipelineId, boolean success) {
+        Path pending = pending(gitUrl, pipelineId);
+        if (!success || !Files.exists(pending.resolve(INDEX))) {
+            WorkspaceFiles.deleteRecursively(pending);
+            return;
+        }
+        Path cache = directory(gitUrl);
+        synchronized (repositoryLocks.computeIfAbsent(cache.toString(), key -> new Object())) {
+            Path previous = cache.resolveSibling(cache.getFileName() + ".old-" + pipelineId);
+            try {
+                if (Files.exists(cache)) {
+                    Files.move(cache, previous, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.move(pending, cache, StandardCopyOption.ATOMIC_MOVE);
+                cacheExports.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("Impossible de remplacer le cache BuildKit {}: {}", cache, e.getMessage());
+                WorkspaceFiles.deleteRecursively(pending);
+            } finally {
+                WorkspaceFiles.deleteRecursively(previous);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "available", Boolean.TRUE.equals(builderReady),
+                "builder", properties.getBuilder(),
+                "builds", builds.get(),
+                "cacheImports", cacheImports.get(),
+                "cacheExports", cacheExports.get()
+        );
+    }
+
+    private Path directory(String gitUrl) {
+        return Path.of(properties.getCacheDirectory()).resolve(WorkspaceFiles.slug(gitUrl != null ? gitUrl : "local"));
+    }
+
+    private Path pending(String gitUrl, String pipelineId) {
+        Path cache = directory(gitUrl);
+        return cache.resolveSibling(cache.getFileName() + ".new-" + pipelineId);
+    }
+
+    private boolean run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            log.debug("Commande {} impossible: {}", command[0], e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
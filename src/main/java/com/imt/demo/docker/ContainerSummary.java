@@ -0,0 +1,25 @@
+package com.imt.demo.docker;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Container tel que retourné par l'API Docker Engine (GET /containers/json)
+ */
+@Value
+public class ContainerSummary {
+    String id;
+    String name;
+    String image;
+    String state;
+    List<Integer> publicPorts;
+    /**
+     * État du HEALTHCHECK (starting, healthy, unhealthy), null si l'image n'en définit pas
+     */
+    String health;
+
+    public boolean isRunning() {
+        return "running".equals(state);
+    }
+}
@@ -0,0 +1,581 @@
+package com.imt.demo.docker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client de l'API Docker Engine sur le socket Unix du démon, sans lancer de processus docker.
+ * Les connexions HTTP/1.1 sont conservées (keep-alive) et réutilisées d'une requête à l'autre.
+ */
+@Slf4j
+@Component
+public class DockerEngineClient {
+
+    private static final Pattern HEALTH = Pattern.compile("\\((?:health: )?(starting|healthy|unhealthy)\\)");
+
+    private final DockerProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingDeque<Connection> idleConnections = new LinkedBlockingDeque<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong requestNanos = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    public DockerEngineClient(DockerProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * true si l'API est activée et que le socket du démon est présent
+     */
+    public boolean isAvailable() {
+        return properties.isEngineApi() && Files.exists(Path.of(properties.getSocket()));
+    }
+
+    /**
+     * Containers du démon, filtrés côté serveur (ex: name, publish, label)
+     *
+     * @param all true pour inclure les containers arrêtés
+     */
+    public List<ContainerSummary> listContainers(boolean all, Map<String, List<String>> filters) {
+        String path = "/containers/json?all=" + all;
+        if (filters != null && !filters.isEmpty()) {
+            path += "&filters=" + encode(toJson(filters));
+        }
+        List<ContainerSummary> containers = new ArrayList<>();
+        for (JsonNode container : readJson(call("GET", path, null, null, 200))) {
+            containers.add(toContainer(container));
+        }
+        return containers;
+    }
+
+    /**
+     * Container (en cours d'exécution ou arrêté) portant exactement ce nom
+     */
+    public Optional<ContainerSummary> findContainer(String name) {
+        return listContainers(true, Map.of("name", List.of("^/" + name + "$"))).stream()
+                .filter(container -> name.equals(container.getName()))
+                .findFirst();
+    }
+
+    /**
+     * Container en cours d'exécution qui publie ce port de l'hôte
+     */
+    public Optional<ContainerSummary> findContainerUsingPort(String port) {
+        return listContainers(false, Map.of("publish", List.of(port))).stream().findFirst();
+    }
+
+    /**
+     * Crée un container publiant containerPort sur hostPort
+     *
+     * @return l'identifiant du container créé
+     */
+    public String createContainer(String name, String image, String hostPort, int containerPort) {
+        String exposed = containerPort + "/tcp";
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("Image", image);
+        body.putObject("ExposedPorts").putObject(exposed);
+        body.putObject("HostConfig").putObject("PortBindings").putArray(exposed).addObject().put("HostPort", hostPort);
+
+        Response response = call("POST", "/containers/create?name=" + encode(name), toJson(body), null, 201);
+        return readJson(response).path("Id").asText();
+    }
+
+    public void startContainer(String id) {
+        call("POST", "/containers/" + encode(id) + "/start", null, null, 204, 304);
+    }
+
+    /**
+     * Arrête un container (sans erreur s'il est déjà arrêté)
+     *
+     * @return false si le container n'existe pas
+     */
+    public boolean stopContainer(String id, int timeoutSeconds) {
+        return call("POST", "/containers/" + encode(id) + "/stop?t=" + timeoutSeconds, null, null, 204, 304, 404).status != 404;
+    }
+
+    /**
+     * Supprime un container
+     *
+     * @return false si le container n'existe pas
+     */
+    public boolean removeContainer(String id, boolean force) {
+        return call("DELETE", "/containers/" + encode(id) + "?force=" + force, null, null, 204, 404).status != 404;
+    }
+
+    public void renameContainer(String id, String name) {
+        call("POST", "/containers/" + encode(id) + "/rename?name=" + encode(name), null, null, 204);
+    }
+
+    public Optional<ImageSummary> inspectImage(String image) {
+        Response response = call("GET", "/images/" + encode(image) + "/json", null, null, 200, 404);
+        if (response.status == 404) {
+            return Optional.empty();
+        }
+        JsonNode json = readJson(response);
+        List<String> tags = new ArrayList<>();
+        json.path("RepoTags").forEach(tag -> tags.add(tag.asText()));
+        return Optional.of(new ImageSummary(json.path("Id").asText(), json.path("Size").asLong(), tags));
+    }
+
+    /**
+     * Écrit l'archive tar de l'image (équivalent de docker save) dans target, au fil de l'eau
+     *
+     * @return le nombre d'octets écrits
+     */
+    public long saveImage(String image, OutputStream target) {
+        return call("GET", "/images/get?names=" + encode(image), null, target, 200).bodyBytes;
+    }
+
+    public List<ImageSummary> listImages() {
+        List<ImageSummary> images = new ArrayList<>();
+        for (JsonNode image : readJson(call("GET", "/images/json", null, null, 200))) {
+            List<String> tags = new ArrayList<>();
+            image.path("RepoTags").forEach(tag -> tags.add(tag.asText()));
+            images.add(new ImageSummary(image.path("Id").asText(), image.path("Size").asLong(), tags));
+        }
+        return images;
+    }
+
+    /**
+     * Ouvre le flux des événements du démon à partir de maintenant (container, image...)
+     */
+    public EventStream events(Map<String, List<String>> filters) {
+        String path = "/" + properties.getApiVersion() + "/events";
+        if (filters != null && !filters.isEmpty()) {
+            path += "?filters=" + encode(toJson(filters));
+        }
+        try {
+            Connection connection = open();
+            try {
+                Head head = connection.send("GET", path, null);
+                if (head.status != 200) {
+                    throw new IllegalStateException("Docker API GET /events failed: " + head.status);
+                }
+                return new EventStream(connection, connection.openBody(head));
+            } catch (IOException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Docker API GET /events error: " + e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long count = requests.get();
+        return Map.of(
+                "available", isAvailable(),
+                "requests", count,
+                "averageLatencyMs", count == 0 ? 0.0 : requestNanos.get() / 1_000_000.0 / count,
+                "connectionsOpened", connectionsOpened.get(),
+                "idleConnections", idleConnections.size()
+        );
+    }
+
+    private Response call(String method, String path, String body, OutputStream sink, int... expected) {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        byte[] content = body != null ? body.getBytes(StandardCharsets.UTF_8) : null;
+        String fullPath = "/" + properties.getApiVersion() + path;
+        try {
+            Response response = exchange(method, fullPath, content, sink);
+            for (int status : expected) {
+                if (response.status == status) {
+                    return response;
+                }
+            }
+            throw new IllegalStateException("Docker API " + method + " " + path + " failed: " + response.status
+                    + " - " + errorMessage(response));
+        } catch (IOException e) {
+            throw new IllegalStateException("Docker API " + method + " " + path + " error: " + e.getMessage(), e);
+        } finally {
+            requestNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Envoie la requête sur une connexion du pool; une connexion conservée que le démon a fermée entre-temps
+     * est écartée et la requête renvoyée sur une nouvelle connexion
+     */
+    private Response exchange(String method, String path, byte[] body, OutputStream sink) throws IOException {
+        Connection pooled = idleConnections.pollFirst();
+        if (pooled != null) {
+            try {
+                return pooled.exchange(method, path, body, sink);
+            } catch (StaleConnectionException e) {
+                log.debug("Connexion Docker fermée par le démon, nouvelle connexion");
+            }
+        }
+        return open().exchange(method, path, body, sink);
+    }
+
+    private Connection open() throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(properties.getSocket()));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        connectionsOpened.incrementAndGet();
+        return new Connection(channel);
+    }
+
+    private void release(Connection connection) {
+        if (idleConnections.size() < properties.getMaxConnections()) {
+            idleConnections.offerFirst(connection);
+        } else {
+            connection.close();
+        }
+    }
+
+    private JsonNode readJson(Response response) {
+        try {
+            return objectMapper.readTree(response.body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Réponse Docker API illisible: " + e.getMessage(), e);
+        }
+    }
+
+    private String errorMessage(Response response) {
+        try {
+            return objectMapper.readTree(response.body).path("message").asText(new String(response.body, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return new String(response.body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Sérialisation JSON impossible: " + e.getMessage(), e);
+        }
+    }
+
+    private ContainerSummary toContainer(JsonNode container) {
+        String name = container.path("Names").path(0).asText("");
+        List<Integer> ports = new ArrayList<>();
+        container.path("Ports").forEach(port -> {
+            if (port.has("PublicPort") && !ports.contains(port.path("PublicPort").asInt())) {
+                ports.add(port.path("PublicPort").asInt());
+            }
+        });
+        return new ContainerSummary(container.path("Id").asText(), name.startsWith("/") ? name.substring(1) : name,
+                container.path("Image").asText(), container.path("State").asText(), ports,
+                health(container.path("Status").asText("")));
+    }
+
+    /**
+     * État du HEALTHCHECK lu dans le statut du container (ex: "Up 5 seconds (health: starting)")
+     */
+    private static String health(String status) {
+        Matcher matcher = HEALTH.matcher(status);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static class Response {
+        private final int status;
+        private final byte[] body;
+        private final long bodyBytes;
+
+        private Response(int status, byte[] body, long bodyBytes) {
+            this.status = status;
+            this.body = body;
+            this.bodyBytes = bodyBytes;
+        }
+    }
+
+    /**
+     * Le démon a fermé une connexion conservée avant d'y répondre
+     */
+    private static class StaleConnectionException extends IOException {
+        private StaleConnectionException() {
+            super("connexion fermée par le démon");
+        }
+
+        private StaleConnectionException(IOException cause) {
+            super("connexion fermée par le démon", cause);
+        }
+    }
+
+    /**
+     * Flux d'événements du démon (GET /events), un objet JSON par ligne, sur une connexion dédiée.
+     * close() depuis un autre thread interrompt la lecture en cours.
+     */
+    public class EventStream implements Closeable {
+        private final Connection connection;
+        private final BufferedReader reader;
+
+        private EventStream(Connection connection, InputStream body) {
+            this.connection = connection;
+            this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Événement suivant (bloquant)
+         *
+         * @return null quand le démon ferme le flux
+         */
+        public JsonNode next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    return objectMapper.readTree(line);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+        }
+    }
+
+    /**
+     * Connexion HTTP/1.1 sur le socket Unix (réponses Content-Length, chunked ou jusqu'à la fermeture)
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final InputStream input;
+        private final OutputStream output;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.input = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            this.output = Channels.newOutputStream(channel);
+        }
+
+        private Response exchange(String method, String path, byte[] body, OutputStream sink) throws IOException {
+            boolean released = false;
+            try {
+                Head head = send(method, path, body);
+
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                OutputStream target = sink != null && head.status / 100 == 2 ? sink : buffer;
+                long bodyBytes;
+                boolean keepAlive = head.keepAlive;
+                if (head.status == 204 || head.status == 304 || head.status / 100 == 1) {
+                    bodyBytes = 0;
+                } else if (head.chunked) {
+                    bodyBytes = new ChunkedInputStream().transferTo(target);
+                } else if (head.contentLength >= 0) {
+                    bodyBytes = copy(target, head.contentLength);
+                } else {
+                    bodyBytes = input.transferTo(target);
+                    keepAlive = false;
+                }
+
+                if (keepAlive) {
+                    release(this);
+                    released = true;
+                }
+                return new Response(head.status, buffer.toByteArray(), bodyBytes);
+            } finally {
+                if (!released) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Envoie la requête et lit la ligne de statut et les en-têtes de la réponse
+         */
+        private Head send(String method, String path, byte[] body) throws IOException {
+            StringBuilder request = new StringBuilder()
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: docker\r\n");
+            if (body != null) {
+                request.append("Content-Type: application/json\r\n")
+                        .append("Content-Length: ").append(body.length).append("\r\n");
+            } else if (!"GET".equals(method)) {
+                request.append("Content-Length: 0\r\n");
+            }
+            request.append("\r\n");
+            try {
+                output.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+                if (body != null) {
+                    output.write(body);
+                }
+                output.flush();
+            } catch (IOException e) {
+                // Connexion conservée fermée par le démon (Broken pipe): la requête n'a pas été reçue
+                throw new StaleConnectionException(e);
+            }
+
+            String statusLine = readLine();
+            if (statusLine == null) {
+                throw new StaleConnectionException();
+            }
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/1.")) {
+                throw new IOException("Réponse HTTP invalide: " + statusLine);
+            }
+
+            Head head = new Head(Integer.parseInt(parts[1]));
+            String header;
+            while ((header = readLine()) != null && !header.isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String value = header.substring(colon + 1).trim();
+                switch (header.substring(0, colon).trim().toLowerCase(Locale.ROOT)) {
+                    case "content-length" -> head.contentLength = Long.parseLong(value);
+                    case "transfer-encoding" -> head.chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                    case "connection" -> head.keepAlive = !"close".equalsIgnoreCase(value);
+                    default -> {
+                    }
+                }
+            }
+            if (header == null) {
+                throw new EOFException("En-têtes HTTP incomplets");
+            }
+            return head;
+        }
+
+        /**
+         * Corps de réponse en flux (événements): chunked, ou jusqu'à la fermeture de la connexion
+         */
+        private InputStream openBody(Head head) {
+            return head.chunked ? new ChunkedInputStream() : input;
+        }
+
+        private long copy(OutputStream target, long length) throws IOException {
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Réponse HTTP tronquée");
+                }
+                target.write(buffer, 0, read);
+                remaining -= read;
+            }
+            return length;
+        }
+
+        /**
+         * Ligne terminée par CRLF (null si la connexion est fermée avant le premier octet)
+         */
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int previous = -1;
+            int current;
+            while ((current = input.read()) >= 0) {
+                if (previous == '\r' && current == '\n') {
+                    byte[] bytes = line.toByteArray();
+                    return new String(bytes, 0, bytes.length - 1, StandardCharsets.US_ASCII);
+                }
+                line.write(current);
+                previous = current;
+            }
+            if (line.size() == 0) {
+                return null;
+            }
+            throw new EOFException("Ligne HTTP incomplète");
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Fermeture de la connexion Docker: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * Décodage du transfert chunked: la fin du flux correspond au chunk de taille nulle
+         */
+        private class ChunkedInputStream extends InputStream {
+            private long remaining;
+            private boolean finished;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (finished) {
+                    return -1;
+                }
+                if (remaining == 0) {
+                    String sizeLine = readLine();
+                    if (sizeLine == null) {
+                        throw new EOFException("Réponse chunked incomplète");
+                    }
+                    int extension = sizeLine.indexOf(';');
+                    remaining = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+                    if (remaining == 0) {
+                        String trailer;
+                        while ((trailer = readLine()) != null && !trailer.isEmpty()) {
+                            // en-têtes de fin ignorés
+                        }
+                        finished = true;
+                        return -1;
+                    }
+                }
+                int read = input.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Réponse chunked tronquée");
+                }
+                remaining -= read;
+                if (remaining == 0) {
+                    readLine();
+                }
+                return read;
+            }
+        }
+    }
+
+    private static class Head {
+        private final int status;
+        private long contentLength = -1;
+        private boolean chunked;
+        private boolean keepAlive = true;
+
+        private Head(int status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.imt.demo.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture du .dockerignore d'un contexte de build, avec la sémantique du CLI Docker:
+ * motifs évalués dans l'ordre (le dernier motif qui correspond l'emporte), négation par '!',
+ * '**' pour un nombre quelconque de répertoires, et un répertoire exclu exclut tout son contenu.
+ */
+public final class DockerIgnore {
+
+    public static final String FILE_NAME = ".dockerignore";
+
+    private DockerIgnore() {
+    }
+
+    private record Rule(Pattern pattern, boolean negated) {
+    }
+
+    /**
+     * Indique si le .dockerignore du contexte exclut un chemin (relatif au contexte)
+     *
+     * @return false si le contexte n'a pas de .dockerignore
+     */
+    public static boolean excludes(Path contextDir, String relativePath) throws IOException {
+        Path file = contextDir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        return excludes(Files.readAllLines(file, StandardCharsets.UTF_8), relativePath);
+    }
+
+    static boolean excludes(List<String> lines, String relativePath) {
+        String path = normalize(relativePath);
+        List<String> candidates = new ArrayList<>();
+        for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+            candidates.add(path.substring(0, slash));
+        }
+        candidates.add(path);
+
+        boolean excluded = false;
+        for (Rule rule : parse(lines)) {
+            if (candidates.stream().anyMatch(candidate -> rule.pattern().matcher(candidate).matches())) {
+                excluded = !rule.negated();
+            }
+        }
+        return excluded;
+    }
+
+    private static List<Rule> parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : lines) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+            boolean negated = pattern.startsWith("!");
+            if (negated) {
+                pattern = pattern.substring(1).trim();
+            }
+            pattern = normalize(pattern);
+            if (!pattern.isEmpty()) {
+                rules.add(new Rule(Pattern.compile(toRegex(pattern)), negated));
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Chemin relatif au contexte, séparateurs '/', sans './' ni '/' de tête ou de fin
+     */
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("./") || normalized.startsWith("/")) {
+            normalized = normalized.substring(normalized.startsWith("./") ? 2 : 1);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized.replaceAll("/+", "/");
+    }
+
+    /**
+     * Motif filepath.Match de Go (plus '**') -> expression régulière
+     */
+    private static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '/') {
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '[' -> {
+                    int end = pattern.indexOf(']', i + 1);
+                    if (end < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String range = pattern.substring(i + 1, end);
+                        if (range.startsWith("!")) {
+                            range = "^" + range.substring(1);
+                        }
+                        regex.append('[').append(range.replace("\\", "\\\\")).append(']');
+                        i = end;
+                    }
+                }
+                case '\\' -> {
+                    if (i + 1 < pattern.length()) {
+                        regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+                    }
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.imt.demo.docker;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.docker")
+public class DockerProperties {
+
+    /**
+     * Dockerfile généré: copier le jar déjà construit par le pipeline dans une image de runtime,
+     * au lieu de reconstruire le projet dans une étape Maven/Gradle du Dockerfile.
+     * Désactivé par défaut: un .dockerignore du projet qui exclut target/ fait repasser le build en multi-stage.
+     */
+    private boolean hostArtifact = false;
+
+    /**
+     * Image en couches: le jar Spring Boot est extrait selon son layers.idx et copié couche par couche,
+     * pour ne reconstruire et retransférer que la couche application quand les dépendances n'ont pas changé.
+     * Désactivé par défaut; n'a d'effet qu'avec hostArtifact.
+     */
+    private boolean layered = false;
+
+    /**
+     * Import/export du cache BuildKit dans un répertoire local par dépôt (docker buildx, driver docker-container).
+     * Désactivé par défaut: nécessite buildx, et --load recopie l'image du builder vers le démon à chaque build.
+     */
+    private boolean buildCache = false;
+
+    /**
+     * Nom du builder buildx utilisé (créé au premier build s'il n'existe pas)
+     */
+    private String builder = "jonk";
+
+    /**
+     * Répertoire des caches BuildKit exportés, un sous-répertoire par dépôt
+     */
+    private String cacheDirectory = System.getProperty("user.home") + "/.jonk/docker-cache";
+
+    /**
+     * Opérations sur les containers et images via l'API Docker Engine (socket Unix) plutôt que la CLI docker.
+     * Désactivé par défaut: la CLI docker reste le chemin standard.
+     */
+    private boolean engineApi = false;
+
+    /**
+     * Socket Unix du démon Docker
+     */
+    private String socket = "/var/run/docker.sock";
+
+    /**
+     * Version de l'API Docker Engine utilisée dans les chemins des requêtes
+     */
+    private String apiVersion = "v1.41";
+
+    /**
+     * Connexions conservées ouvertes vers le démon
+     */
+    private int maxConnections = 4;
+
+    /**
+     * Index en mémoire des containers, ports et images, tenu à jour par le flux d'événements du démon
+     */
+    private boolean stateIndex = true;
+
+    /**
+     * Délai avant de rouvrir le flux d'événements après une interruption
+     */
+    private Duration eventsReconnectDelay = Duration.ofSeconds(5);
+
+    public boolean isHostArtifact() {
+        return hostArtifact;
+    }
+
+    public void setHostArtifact(boolean hostArtifact) {
+        this.hostArtifact = hostArtifact;
+    }
+
+    public boolean isLayered() {
+        return layered;
+    }
+
+    public void setLayered(boolean layered) {
+        this.layered = layered;
+    }
+
+    public boolean isBuildCache() {
+        return buildCache;
+    }
+
+    public void setBuildCache(boolean buildCache) {
+        this.buildCache = buildCache;
+    }
+
+    public String getBuilder() {
+        return builder;
+    }
+
+    public void setBuilder(String builder) {
+        this.builder = builder;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public boolean isEngineApi() {
+        return engineApi;
+    }
+
+    public void setEngineApi(boolean engineApi) {
+        this.engineApi = engineApi;
+    }
+
+    public String getSocket() {
+        return socket;
+    }
+
+    public void setSocket(String socket) {
+        this.socket = socket;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public void setApiVersion(String apiVersion) {
+        this.apiVersion = apiVersion;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public boolean isStateIndex() {
+        return stateIndex;
+    }
+
+    public void setStateIndex(boolean stateIndex) {
+        this.stateIndex = stateIndex;
+    }
+
+    public Duration getEventsReconnectDelay() {
+        return eventsReconnectDelay;
+    }
+
+    public void setEventsReconnectDelay(Duration eventsReconnectDelay) {
+        this.eventsReconnectDelay = eventsReconnectDelay;
+    }
+}
@@ -0,0 +1,296 @@
+package com.imt.demo.docker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index en mémoire des containers, ports publiés et tags d'images du démon Docker local.
+ * Rempli en tâche de fond au démarrage puis tenu à jour par le flux d'événements du démon (GET /events):
+ * les étapes de déploiement le consultent sans requête vers Docker.
+ * Tant qu'il n'est pas synchronisé (démon absent, flux interrompu), isSynced() est false
+ * et les appelants interrogent l'API directement.
+ */
+@Slf4j
+@Component
+public class DockerStateIndex {
+
+    private static final Map<String, List<String>> EVENT_FILTERS = Map.of("type", List.of("container", "image"));
+    private static final String HEALTH_STATUS = "health_status: ";
+
+    private final DockerEngineClient dockerEngineClient;
+    private final DockerProperties properties;
+
+    private final Map<String, ContainerSummary> containersById = new ConcurrentHashMap<>();
+    private final Map<String, String> containerIdsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> containerIdsByPort = new ConcurrentHashMap<>();
+    private final Map<String, String> healthById = new ConcurrentHashMap<>();
+    private final Map<String, String> imageIdsByTag = new ConcurrentHashMap<>();
+    private final Map<String, List<CompletableFuture<Integer>>> dieWaiters = new ConcurrentHashMap<>();
+    private final Map<String, List<CompletableFuture<String>>> changeWaiters = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean synced;
+    private volatile Thread worker;
+    private volatile DockerEngineClient.EventStream eventStream;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    public DockerStateIndex(DockerEngineClient dockerEngineClient, DockerProperties properties) {
+        this.dockerEngineClient = dockerEngineClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Démarre le suivi en tâche de fond: le démarrage de l'application n'attend pas le démon Docker
+     */
+    @PostConstruct
+    void start() {
+        if (!properties.isStateIndex()) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("docker-state-index").start(this::follow);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        DockerEngineClient.EventStream stream = eventStream;
+        if (stream != null) {
+            stream.close();
+        }
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * true si l'index reflète l'état du démon (chargement initial fait et flux d'événements ouvert)
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Container (en cours d'exécution ou arrêté) portant ce nom
+     */
+    public Optional<ContainerSummary> container(String name) {
+        lookups.incrementAndGet();
+        String id = name != null ? containerIdsByName.get(name) : null;
+        return Optional.ofNullable(id != null ? containersById.get(id) : null);
+    }
+
+    /**
+     * Container en cours d'exécution qui publie ce port de l'hôte
+     */
+    public Optional<ContainerSummary> containerUsingPort(String port) {
+        lookups.incrementAndGet();
+        try {
+            String id = containerIdsByPort.get(Integer.parseInt(port));
+            return Optional.ofNullable(id != null ? containersById.get(id) : null);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Identifiant de l'image portant ce tag (ex: app:latest)
+     */
+    public Optional<String> imageId(String tag) {
+        lookups.incrementAndGet();
+        return Optional.ofNullable(tag != null ? imageIdsByTag.get(tag) : null);
+    }
+
+    /**
+     * Dernier état du HEALTHCHECK du container (starting, healthy, unhealthy), s'il en définit un
+     */
+    public Optional<String> health(String name) {
+        return container(name).map(container -> healthById.get(container.getId()));
+    }
+
+    /**
+     * Complété avec le code de sortie au prochain arrêt (événement die) du container.
+     * L'appelant annule le future lorsqu'il n'attend plus.
+     */
+    public CompletableFuture<Integer> awaitDie(String name) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        List<CompletableFuture<Integer>> waiters = dieWaiters.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>());
+        waiters.removeIf(CompletableFuture::isDone);
+        waiters.add(future);
+        return future;
+    }
+
+    /**
+     * Complété au prochain changement d'état du container: démarrage ("start"), arrêt ("die")
+     * ou nouvel état du HEALTHCHECK ("healthy", "unhealthy"). L'appelant annule le future lorsqu'il n'attend plus.
+     */
+    public CompletableFuture<String> awaitStateChange(String name) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        List<CompletableFuture<String>> waiters = changeWaiters.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>());
+        waiters.removeIf(CompletableFuture::isDone);
+        waiters.add(future);
+        return future;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "synced", synced,
+                "containers", containersById.size(),
+                "publishedPorts", containerIdsByPort.size(),
+                "imageTags", imageIdsByTag.size(),
+                "events", events.get(),
+                "resyncs", resyncs.get(),
+                "lookups", lookups.get()
+        );
+    }
+
+    /**
+     * Boucle de suivi: le flux est ouvert avant le chargement complet pour ne perdre aucun événement,
+     * puis rouvert (avec un nouveau chargement) s'il est interrompu
+     */
+    private void follow() {
+        while (running) {
+            if (dockerEngineClient.isAvailable()) {
+                try (DockerEngineClient.EventStream stream = dockerEngineClient.events(EVENT_FILTERS)) {
+                    eventStream = stream;
+                    resync();
+                    synced = true;
+                    log.info("Index Docker synchronisé: {} containers, {} tags d'images", containersById.size(), imageIdsByTag.size());
+
+                    JsonNode event;
+                    while (running && (event = stream.next()) != null) {
+                        apply(event);
+                    }
+                } catch (Exception e) {
+                    if (running) {
+                        log.warn("Flux d'événements Docker interrompu: {}", e.getMessage());
+                    }
+                } finally {
+                    synced = false;
+                    eventStream = null;
+                }
+            }
+            try {
+                Thread.sleep(properties.getEventsReconnectDelay().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void resync() {
+        resyncs.incrementAndGet();
+        List<ContainerSummary> containers = dockerEngineClient.listContainers(true, Map.of());
+        synchronized (this) {
+            containersById.clear();
+            containerIdsByName.clear();
+            containerIdsByPort.clear();
+            containers.forEach(this::put);
+        }
+        refreshImages();
+    }
+
+    private void apply(JsonNode event) {
+        events.incrementAndGet();
+        String type = event.path("Type").asText();
+        String action = event.path("Action").asText();
+        if ("image".equals(type)) {
+            refreshImages();
+            return;
+        }
+        if (!"container".equals(type) || action.startsWith("exec_")) {
+            return;
+        }
+
+        String id = event.path("Actor").path("ID").asText();
+        JsonNode attributes = event.path("Actor").path("Attributes");
+        if (action.startsWith(HEALTH_STATUS)) {
+            String health = action.substring(HEALTH_STATUS.length());
+            healthById.put(id, health);
+            notifyChange(attributes.path("name").asText(), health);
+            return;
+        }
+        if ("destroy".equals(action)) {
+            synchronized (this) {
+                remove(id);
+            }
+            healthById.remove(id);
+            return;
+        }
+
+        refresh(id);
+        if ("die".equals(action)) {
+            List<CompletableFuture<Integer>> waiters = dieWaiters.remove(attributes.path("name").asText());
+            if (waiters != null) {
+                int exitCode = attributes.path("exitCode").asInt(-1);
+                waiters.forEach(waiter -> waiter.complete(exitCode));
+            }
+        }
+        if ("start".equals(action) || "die".equals(action)) {
+            notifyChange(attributes.path("name").asText(), action);
+        }
+    }
+
+    private void notifyChange(String name, String change) {
+        List<CompletableFuture<String>> waiters = changeWaiters.remove(name);
+        if (waiters != null) {
+            waiters.forEach(waiter -> waiter.complete(change));
+        }
+    }
+
+    /**
+     * Relit un container après un événement (les ports publiés ne figurent pas dans les événements)
+     */
+    private void refresh(String id) {
+        List<ContainerSummary> containers = dockerEngineClient.listContainers(true, Map.of("id", List.of(id)));
+        synchronized (this) {
+            remove(id);
+            containers.stream().filter(container -> container.getId().equals(id)).forEach(this::put);
+        }
+    }
+
+    private void refreshImages() {
+        Map<String, String> tags = new ConcurrentHashMap<>();
+        for (ImageSummary image : dockerEngineClient.listImages()) {
+            image.getTags().stream()
+                    .filter(tag -> !"<none>:<none>".equals(tag))
+                    .forEach(tag -> tags.put(tag, image.getId()));
+        }
+        imageIdsByTag.keySet().retainAll(tags.keySet());
+        imageIdsByTag.putAll(tags);
+    }
+
+    private void put(ContainerSummary container) {
+        containersById.put(container.getId(), container);
+        if (container.getHealth() != null) {
+            healthById.put(container.getId(), container.getHealth());
+        }
+        containerIdsByName.put(container.getName(), container.getId());
+        if (container.isRunning()) {
+            container.getPublicPorts().forEach(port -> containerIdsByPort.put(port, container.getId()));
+        }
+    }
+
+    private void remove(String id) {
+        ContainerSummary previous = containersById.remove(id);
+        if (previous != null) {
+            containerIdsByName.remove(previous.getName(), id);
+            previous.getPublicPorts().forEach(port -> containerIdsByPort.remove(port, id));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.imt.demo.docker;
+
+import lombok.Value;
+
+/**
+ * Référence d'image découpée en dépôt et tag. Un ':' n'est un séparateur de tag qu'après le dernier '/'
+ * (registry:5000/app est un dépôt sans tag); sans tag, Docker utilise latest.
+ */
+@Value
+public class ImageReference {
+
+    public static final String DEFAULT_TAG = "latest";
+
+    String repository;
+    String tag;
+
+    public static ImageReference parse(String reference) {
+        int colon = reference.lastIndexOf(':');
+        if (colon > reference.lastIndexOf('/')) {
+            return new ImageReference(reference.substring(0, colon), reference.substring(colon + 1));
+        }
+        return new ImageReference(reference, DEFAULT_TAG);
+    }
+
+    @Override
+    public String toString() {
+        return repository + ":" + tag;
+    }
+}
@@ -0,0 +1,15 @@
+package com.imt.demo.docker;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Image telle que retournée par l'API Docker Engine (GET /images/{name}/json)
+ */
+@Value
+public class ImageSummary {
+    String id;
+    long size;
+    List<String> tags;
+}
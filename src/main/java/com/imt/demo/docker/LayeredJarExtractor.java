@@ -0,0 +1,146 @@
+package com.imt.demo.docker;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Extraction d'un jar Spring Boot en couches selon son BOOT-INF/layers.idx
+ * (équivalent de java -Djarmode=layertools -jar app.jar extract, sans lancer de JVM ni dépendre de la version de Boot).
+ * Les fichiers extraits reçoivent une date fixe: une couche au contenu inchangé produit le même digest d'image,
+ * et n'est donc ni reconstruite ni retransférée.
+ */
+public final class LayeredJarExtractor {
+
+    private static final String LAYERS_INDEX = "BOOT-INF/layers.idx";
+    private static final Pattern LAYER = Pattern.compile("^- \"(.+)\":$");
+    private static final Pattern LAYER_ENTRY = Pattern.compile("^ {2}- \"(.+)\"$");
+    private static final FileTime FIXED_TIME = FileTime.fromMillis(315532800000L); // 1980-01-01, minimum du format zip
+
+    private LayeredJarExtractor() {
+    }
+
+    /**
+     * Couches extraites, dans l'ordre de l'index (de la moins à la plus changeante)
+     */
+    @Value
+    public static class Layers {
+        Map<String, Long> sizes;
+        String launcher;
+
+        public List<String> getNames() {
+            return new ArrayList<>(sizes.keySet());
+        }
+
+        public long getTotalBytes() {
+            return sizes.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * Extrait le jar dans destination/&lt;couche&gt;/
+     *
+     * @return empty si le jar n'est pas un jar Spring Boot en couches
+     */
+    public static Optional<Layers> extract(Path jar, Path destination) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            ZipEntry index = jarFile.getEntry(LAYERS_INDEX);
+            Manifest manifest = jarFile.getManifest();
+            String launcher = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS) : null;
+            if (index == null || launcher == null) {
+                return Optional.empty();
+            }
+
+            Map<String, List<String>> layers;
+            try (InputStream input = jarFile.getInputStream(index)) {
+                layers = parseIndex(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            if (layers.isEmpty()) {
+                return Optional.empty();
+            }
+
+            WorkspaceFiles.deleteRecursively(destination);
+            Map<String, Long> sizes = new LinkedHashMap<>();
+            for (String layer : layers.keySet()) {
+                Files.createDirectories(destination.resolve(layer));
+                sizes.put(layer, 0L);
+            }
+
+            String lastLayer = new ArrayList<>(layers.keySet()).get(layers.size() - 1);
+            for (ZipEntry entry : jarFile.stream().toList()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String layer = layerOf(entry.getName(), layers, lastLayer);
+                Path target = destination.resolve(layer).resolve(entry.getName()).normalize();
+                if (!target.startsWith(destination)) {
+                    throw new IOException("Entrée de jar invalide: " + entry.getName());
+                }
+                Files.createDirectories(target.getParent());
+                try (InputStream input = jarFile.getInputStream(entry)) {
+                    sizes.merge(layer, Files.copy(input, target), Long::sum);
+                }
+                Files.setLastModifiedTime(target, FIXED_TIME);
+            }
+            // Les dates des répertoires entrent aussi dans le contenu des couches
+            try (Stream<Path> paths = Files.walk(destination)) {
+                for (Path directory : paths.filter(Files::isDirectory).toList()) {
+                    Files.setLastModifiedTime(directory, FIXED_TIME);
+                }
+            }
+            return Optional.of(new Layers(sizes, launcher));
+        }
+    }
+
+    /**
+     * Couche d'une entrée: l'entrée de l'index la plus spécifique (égalité, ou préfixe se terminant par /)
+     */
+    private static String layerOf(String name, Map<String, List<String>> layers, String fallback) {
+        String match = fallback;
+        int longest = -1;
+        for (Map.Entry<String, List<String>> layer : layers.entrySet()) {
+            for (String indexed : layer.getValue()) {
+                boolean matches = indexed.endsWith("/") ? name.startsWith(indexed) : name.equals(indexed);
+                if (matches && indexed.length() > longest) {
+                    match = layer.getKey();
+                    longest = indexed.length();
+                }
+            }
+        }
+        return match;
+    }
+
+    private static Map<String, List<String>> parseIndex(String content) {
+        Map<String, List<String>> layers = new LinkedHashMap<>();
+        List<String> current = null;
+        for (String line : content.split("\n")) {
+            Matcher layer = LAYER.matcher(line.stripTrailing());
+            Matcher entry = LAYER_ENTRY.matcher(line.stripTrailing());
+            if (layer.matches()) {
+                current = new ArrayList<>();
+                layers.put(layer.group(1), current);
+            } else if (entry.matches() && current != null) {
+                current.add(entry.group(1));
+            }
+        }
+        return layers;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,6 +23,12 @@ public class PipelineRequest {
 
     // === Configuration Build ===
     private String buildTool; // maven, gradle (défaut: maven)
+    private Boolean affectedModules; // optionnel: multi-module, ne construire que les modules affectés (Maven)
+    private Boolean testImpactAnalysis; // optionnel: n'exécuter que les tests impactés (Maven)
+    private Integer testShards; // optionnel: nombre de shards de tests parallèles (Maven, défaut: 1)
+    private Boolean testPrioritization; // optionnel: tests en échec récemment ou impactés en premier (Maven)
+    private Boolean failFast; // optionnel: arrêter les tests au premier échec (Maven)
+    private Integer testRetries; // optionnel: relances des tests en échec (Maven, défaut: jonk.testing.default-retries)
 
     // === Configuration Docker (obligatoire) ===
     private String dockerImageName;
@@ -39,9 +46,15 @@ public class PipelineRequest {
 
     // === Configuration Déploiement (optionnel) ===
     private String deploymentHost; // null = déploiement local
+    private Boolean blueGreen; // optionnel: déploiement local bleu/vert sans interruption (défaut: jonk.deploy.blue-green)
+    private List<String> deploymentHosts; // optionnel: plusieurs hôtes déployés depuis la même image
+    private Integer deploymentParallelism; // optionnel: hôtes déployés simultanément (défaut: jonk.deploy.host-parallelism)
+    private String deploymentStrategy; // optionnel: rolling, batch (défaut: jonk.deploy.strategy)
     private String deploymentUser;
     private String deploymentPort; // ex: "8080"
     private String sshKeyPath;
+    private Boolean performanceTest; // optionnel: smoke test de performance après le health check (défaut: jonk.deploy.smoke-test)
+    private List<String> performanceRequests; // optionnel: requêtes du smoke test, ex: "GET /api/items 3" (défaut: jonk.deploy.smoke-requests)
 
     // === Variables d'environnement personnalisées ===
     private Map<String, String> environmentVariables;
@@ -1,7 +1,11 @@
 package com.imt.demo.engine;
 
+import com.imt.demo.cache.MavenRepositoryCache;
 import com.imt.demo.model.*;
 import com.imt.demo.steps.PipelineStep;
+import com.imt.demo.workspace.WorkspaceLease;
+import com.imt.demo.workspace.WorkspacePool;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -11,6 +15,7 @@ import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -19,8 +24,13 @@ import java.util.UUID;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class PipelineEngine {
 
+    private final WorkspacePool workspacePool;
+    private final WorkspaceSnapshotter workspaceSnapshotter;
+    private final MavenRepositoryCache mavenRepositoryCache;
+
     /**
      * Exécute un pipeline complet avec gestion des erreurs et rollback automatique
      */
@@ -131,8 +141,14 @@ public class PipelineEngine {
             }
         }
 
-        // Nettoyer le workspace
-        cleanupWorkspace(context);
+        // Promouvoir les artefacts Maven téléchargés dans le cache partagé
+        mavenRepositoryCache.release(context.getExecutionId());
+
+        // Supprimer les copies du workspace, puis le rendre au pool (dépôt fréquemment construit) ou le nettoyer
+        workspaceSnapshotter.discardAll(context);
+        if (!pipelineSuccess || !workspacePool.offer(context)) {
+            cleanupWorkspace(context);
+        }
 
         return execution;
     }
@@ -141,6 +157,18 @@ public class PipelineEngine {
      * Prépare le workspace temporaire pour l'exécution du pipeline
      */
     private void prepareWorkspace(PipelineContext context) throws Exception {
+        // Emprunter un workspace pré-cloné si le dépôt fait partie des plus construits
+        Optional<WorkspaceLease> lease = workspacePool.lease(context.getGitUrl(), context.getBranch());
+        if (lease.isPresent()) {
+            context.setWorkspaceDirectory(lease.get().getDirectory().toString());
+            context.setWorkspaceDir(lease.get().getDirectory().toFile());
+            context.setWorkspaceLeased(true);
+            context.setWorkspaceLeaseMs(lease.get().getLatencyMs());
+
+            log.info("📂 Workspace emprunté au pool en {}ms: {}", lease.get().getLatencyMs(), lease.get().getDirectory());
+            return;
+        }
+
         String workspaceBase = System.getProperty("java.io.tmpdir") + "/jonk-pipelines";
         String workspaceDir = workspaceBase + "/" + UUID.randomUUID().toString();
 
@@ -234,5 +262,8 @@ public class PipelineEngine {
         if (context.getDockerImageName() == null || context.getDockerImageName().isEmpty()) {
             throw new IllegalArgumentException("Le nom de l'image Docker est obligatoire");
         }
+        if (context.getDeploymentHosts() != null && !context.getDeploymentHosts().isEmpty() && context.getSshUser() == null) {
+            throw new IllegalArgumentException("L'utilisateur SSH est obligatoire pour un déploiement sur plusieurs hôtes");
+        }
     }
 }
@@ -0,0 +1,233 @@
+package com.imt.demo.engine;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Duplique un workspace à moindre coût pour les étapes parallèles et les variantes d'un même commit.
+ * Stratégies, de la plus économique à la plus coûteuse:
+ * - REFLINK: copie en reflink (extents partagés par le système de fichiers, copie à l'écriture native)
+ * - COPY: copie complète, si le système de fichiers ne sait pas cloner
+ * Pas de liens physiques: une écriture en place dans une copie (filtrage de ressources, formateur,
+ * git checkout) modifierait le workspace source et toutes les autres copies.
+ */
+@Slf4j
+@Component
+public class WorkspaceSnapshotter {
+
+    public enum Strategy {
+        REFLINK,
+        COPY
+    }
+
+    private final Map<Strategy, AtomicLong> forksByStrategy = new ConcurrentHashMap<>();
+    private final AtomicLong totalForkMillis = new AtomicLong();
+    private final AtomicLong totalBytesCopied = new AtomicLong();
+    private final AtomicLong totalBytesShared = new AtomicLong();
+    private final AtomicLong reflinkFailures = new AtomicLong();
+
+    /**
+     * Crée un contexte de pipeline travaillant sur une copie du workspace courant.
+     * Les copies sont rangées à côté du workspace et supprimées avec lui.
+     */
+    public ForkedContext fork(PipelineContext context, String label) throws IOException {
+        Path source = Path.of(context.getWorkspaceDirectory());
+        Path target = forksDirectory(context).resolve(label);
+        Snapshot snapshot = fork(source, target);
+
+        PipelineContext forked = context.toBuilder()
+                .workspaceDirectory(target.toString())
+                .workspaceDir(target.toFile())
+                .environmentVariables(context.getEnvironmentVariables() != null
+                        ? new HashMap<>(context.getEnvironmentVariables())
+                        : new HashMap<>())
+                .build();
+
+        return new ForkedContext(forked, snapshot);
+    }
+
+    /**
+     * Duplique un répertoire avec la stratégie la plus économique disponible
+     */
+    public Snapshot fork(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            WorkspaceFiles.deleteRecursively(target);
+        }
+        Files.createDirectories(target.getParent());
+
+        // Reflink retenté à chaque copie: un échec ponctuel (fichier verrouillé, disque plein)
+        // ne doit pas condamner le système de fichiers à la copie complète
+        long start = System.nanoTime();
+        Snapshot snapshot = reflink(source, target, start);
+        if (snapshot == null) {
+            reflinkFailures.incrementAndGet();
+            snapshot = copyTree(source, target, start);
+        }
+
+        forksByStrategy.computeIfAbsent(snapshot.getStrategy(), s -> new AtomicLong()).incrementAndGet();
+        totalForkMillis.addAndGet(snapshot.getDurationMs());
+        totalBytesCopied.addAndGet(snapshot.getBytesCopied());
+        totalBytesShared.addAndGet(snapshot.getBytesShared());
+
+        log.info("Workspace dupliqué ({}) en {}ms: {} fichiers, {} octets copiés, {} octets partagés",
+                snapshot.getStrategy(), snapshot.getDurationMs(), snapshot.getFiles(),
+                snapshot.getBytesCopied(), snapshot.getBytesShared());
+        return snapshot;
+    }
+
+    /**
+     * Supprime toutes les copies d'un workspace
+     */
+    public void discardAll(PipelineContext context) {
+        if (context.getWorkspaceDirectory() != null) {
+            WorkspaceFiles.deleteRecursively(forksDirectory(context));
+        }
+    }
+
+    /**
+     * Statistiques des duplications (nombre par stratégie, durée moyenne, volume disque)
+     */
+    public Map<String, Object> stats() {
+        long forks = forksByStrategy.values().stream().mapToLong(AtomicLong::get).sum();
+
+        Map<String, Object> byStrategy = new LinkedHashMap<>();
+        for (Strategy strategy : Strategy.values()) {
+            byStrategy.put(strategy.name(), forksByStrategy.getOrDefault(strategy, new AtomicLong()).get());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("forks", forks);
+        stats.put("forksByStrategy", byStrategy);
+        stats.put("avgForkMs", forks == 0 ? 0.0 : (double) totalForkMillis.get() / forks);
+        stats.put("bytesCopied", totalBytesCopied.get());
+        stats.put("bytesShared", totalBytesShared.get());
+        stats.put("reflinkFailures", reflinkFailures.get());
+        return stats;
+    }
+
+    private Path forksDirectory(PipelineContext context) {
+        return Path.of(context.getWorkspaceDirectory() + ".forks");
+    }
+
+    /**
+     * Copie reflink via cp (GNU coreutils: --reflink=always, macOS: clonefile via -c)
+     */
+    private Snapshot reflink(Path source, Path target, long start) {
+        boolean mac = System.getProperty("os.name", "").toLowerCase().contains("mac");
+        String[] command = mac
+                ? new String[]{"cp", "-c", "-R", source.toString(), target.toString()}
+                : new String[]{"cp", "-a", "--reflink=always", source.toString(), target.toString()};
+
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(10, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+            } else if (process.exitValue() == 0) {
+                TreeSize size = TreeSize.of(target);
+                return new Snapshot(target, Strategy.REFLINK, elapsedMs(start), size.files, 0, size.bytes);
+            }
+        } catch (Exception e) {
+            log.debug("Copie reflink impossible: {}", e.getMessage());
+        }
+
+        WorkspaceFiles.deleteRecursively(target);
+        return null;
+    }
+
+    /**
+     * Copie complète de l'arbre
+     */
+    private Snapshot copyTree(Path source, Path target, long start) throws IOException {
+        TreeSize copied = new TreeSize();
+
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file).toString()),
+                        StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                copied.add(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return new Snapshot(target, Strategy.COPY, elapsedMs(start), copied.files, copied.bytes, 0);
+    }
+
+    private long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Copie d'un workspace
+     */
+    @Value
+    public static class Snapshot {
+        Path directory;
+        Strategy strategy;
+        long durationMs;
+        long files;
+        long bytesCopied;   // octets physiquement dupliqués
+        long bytesShared;   // octets partagés avec le workspace source
+    }
+
+    /**
+     * Contexte de pipeline associé à une copie du workspace
+     */
+    @Value
+    public static class ForkedContext {
+        PipelineContext context;
+        Snapshot snapshot;
+    }
+
+    /**
+     * Compteur de fichiers et d'octets
+     */
+    private static class TreeSize {
+        private long files;
+        private long bytes;
+
+        void add(long size) {
+            files++;
+            bytes += size;
+        }
+
+        static TreeSize of(Path root) throws IOException {
+            TreeSize size = new TreeSize();
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    size.add(attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return size;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.imt.demo.gradle;
+
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pool de daemons Gradle partagé entre les pipelines.
+ * Gradle réutilise un daemon inactif dès que le GRADLE_USER_HOME, la version de Gradle et les options JVM
+ * sont compatibles: tous les builds passent donc par le même GRADLE_USER_HOME, et un sémaphore borne le
+ * nombre de builds simultanés (un build = un daemon occupé) pour que le pool ne grossisse pas sans limite.
+ * Les options JVM restent celles du projet (org.gradle.jvmargs de son gradle.properties): les daemons sont
+ * partagés entre projets aux options identiques, les options par défaut ne s'appliquent qu'aux autres.
+ */
+@Slf4j
+@Component
+public class GradleDaemonPool {
+
+    private static final String FROM_CACHE = " FROM-CACHE";
+    private static final String UP_TO_DATE = " UP-TO-DATE";
+
+    private final GradleProperties properties;
+    private final Semaphore slots;
+
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong waitedBuilds = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong tasksExecuted = new AtomicLong();
+    private final AtomicLong tasksFromCache = new AtomicLong();
+    private final AtomicLong tasksUpToDate = new AtomicLong();
+    private final AtomicLong configurationCacheFallbacks = new AtomicLong();
+
+    private volatile boolean userHomePrepared;
+
+    public GradleDaemonPool(GradleProperties properties) {
+        this.properties = properties;
+        this.slots = new Semaphore(Math.max(1, properties.getMaxDaemons()), true);
+    }
+
+    /**
+     * Exécute des tâches Gradle sur un daemon du pool.
+     * Si le configuration cache est activé et que le projet n'y est pas compatible (plugins), le build
+     * est relancé une fois sans lui.
+     *
+     * @param executor lance la ligne de commande dans le workspace et retourne son résultat
+     */
+    public StepResult run(Path workspace, List<String> tasks, Function<List<String>, StepResult> executor) throws InterruptedException {
+        StepResult result;
+        try (Slot ignored = acquire()) {
+            result = executor.apply(command(workspace, tasks, properties.isConfigurationCache()));
+            if (properties.isConfigurationCache() && isConfigurationCacheFailure(result)) {
+                configurationCacheFallbacks.incrementAndGet();
+                log.warn("Projet incompatible avec le configuration cache Gradle, nouvelle tentative sans --configuration-cache");
+                StepResult retry = executor.apply(command(workspace, tasks, false));
+                List<String> logs = new ArrayList<>(result.getLogs());
+                logs.add("⚠ Configuration cache incompatible avec ce projet: build relancé sans --configuration-cache");
+                logs.addAll(retry.getLogs());
+                retry.setLogs(logs);
+                retry.setStartTime(result.getStartTime());
+                retry.calculateDuration();
+                retry.addMetric("gradleConfigurationCacheFallback", true);
+                result = retry;
+            }
+        }
+        recordOutcomes(result);
+        return result;
+    }
+
+    /**
+     * Construit la ligne de commande Gradle pour un workspace: wrapper du projet s'il existe, sinon gradle du PATH
+     */
+    public List<String> command(Path workspace, List<String> tasks) {
+        return command(workspace, tasks, properties.isConfigurationCache());
+    }
+
+    public List<String> command(Path workspace, List<String> tasks, boolean configurationCache) {
+        prepareUserHome();
+
+        List<String> command = new ArrayList<>();
+        Path wrapper = workspace.resolve("gradlew");
+        if (Files.isRegularFile(wrapper)) {
+            wrapper.toFile().setExecutable(true);
+            command.add(wrapper.toAbsolutePath().toString());
+        } else {
+            command.add("gradle");
+        }
+        command.addAll(tasks);
+        command.add("--gradle-user-home");
+        command.add(properties.getUserHome());
+        command.add("--daemon");
+        command.add("--console=plain");
+        String defaultJvmArgs = properties.getDaemonJvmArgs();
+        if (defaultJvmArgs != null && !defaultJvmArgs.isBlank() && projectJvmArgs(workspace).isEmpty()) {
+            command.add("-Dorg.gradle.jvmargs=" + defaultJvmArgs);
+        }
+        if (properties.isBuildCache()) {
+            command.add("--build-cache");
+        }
+        if (configurationCache) {
+            command.add("--configuration-cache");
+        }
+        if (properties.isParallel()) {
+            command.add("--parallel");
+        }
+        return command;
+    }
+
+    /**
+     * Options JVM déclarées par le projet (org.gradle.jvmargs de son gradle.properties)
+     */
+    Optional<String> projectJvmArgs(Path workspace) {
+        Path file = workspace.resolve("gradle.properties");
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        Properties projectProperties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            projectProperties.load(reader);
+        } catch (IOException e) {
+            log.debug("gradle.properties illisible: {}", e.getMessage());
+            return Optional.empty();
+        }
+        return Optional.ofNullable(projectProperties.getProperty("org.gradle.jvmargs")).filter(value -> !value.isBlank());
+    }
+
+    /**
+     * Échec dû au configuration cache (plugin ou tâche incompatible), et non au build lui-même
+     */
+    boolean isConfigurationCacheFailure(StepResult result) {
+        return result.getStatus() == StepStatus.FAILED && result.getLogs().stream()
+                .map(line -> line.toLowerCase(Locale.ROOT))
+                .anyMatch(line -> line.contains("configuration cache") && (line.contains("problem")
+                        || line.contains("could not") || line.contains("discarded") || line.contains("not supported")));
+    }
+
+    /**
+     * Réserve un daemon du pool; bloque tant que tous les daemons sont occupés
+     */
+    public Slot acquire() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        if (!slots.tryAcquire()) {
+            log.info("Pool Gradle: tous les daemons sont occupés, attente d'un daemon libre");
+            waitedBuilds.incrementAndGet();
+            slots.acquire();
+        }
+        totalWaitMs.addAndGet(System.currentTimeMillis() - start);
+        builds.incrementAndGet();
+        return new Slot();
+    }
+
+    /**
+     * Compte les tâches exécutées, restaurées du build cache ou à jour dans la sortie d'un build
+     */
+    public void recordOutcomes(StepResult result) {
+        long executed = 0;
+        long fromCache = 0;
+        long upToDate = 0;
+        for (String line : result.getLogs()) {
+            if (!line.startsWith("> Task ")) {
+                continue;
+            }
+            if (line.endsWith(FROM_CACHE)) {
+                fromCache++;
+            } else if (line.endsWith(UP_TO_DATE)) {
+                upToDate++;
+            } else if (!line.endsWith(" NO-SOURCE") && !line.endsWith(" SKIPPED")) {
+                executed++;
+            }
+        }
+        tasksExecuted.addAndGet(executed);
+        tasksFromCache.addAndGet(fromCache);
+        tasksUpToDate.addAndGet(upToDate);
+
+        result.addMetric("gradleTasksExecuted", executed);
+        result.addMetric("gradleTasksFromCache", fromCache);
+        result.addMetric("gradleTasksUpToDate", upToDate);
+        result.addMetric("gradleConfigurationCacheReused",
+                result.getLogs().stream().anyMatch(line -> line.startsWith("Reusing configuration cache")));
+    }
+
+    public Map<String, Object> stats() {
+        long total = tasksExecuted.get() + tasksFromCache.get() + tasksUpToDate.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userHome", properties.getUserHome());
+        stats.put("maxDaemons", properties.getMaxDaemons());
+        stats.put("busyDaemons", properties.getMaxDaemons() - slots.availablePermits());
+        stats.put("builds", builds.get());
+        stats.put("buildsWaitingForDaemon", waitedBuilds.get());
+        stats.put("totalWaitMs", totalWaitMs.get());
+        stats.put("tasksExecuted", tasksExecuted.get());
+        stats.put("tasksFromCache", tasksFromCache.get());
+        stats.put("tasksUpToDate", tasksUpToDate.get());
+        stats.put("configurationCacheFallbacks", configurationCacheFallbacks.get());
+        stats.put("avoidanceRate", total == 0 ? 0.0 : (double) (tasksFromCache.get() + tasksUpToDate.get()) / total);
+        return stats;
+    }
+
+    /**
+     * Écrit le gradle.properties du GRADLE_USER_HOME partagé (prioritaire sur celui des projets).
+     * Il ne fixe que la durée de vie des daemons: y mettre org.gradle.jvmargs écraserait les options
+     * JVM (taille du tas...) de chaque projet.
+     */
+    private void prepareUserHome() {
+        if (userHomePrepared) {
+            return;
+        }
+        synchronized (this) {
+            if (userHomePrepared) {
+                return;
+            }
+            try {
+                Path home = Path.of(properties.getUserHome());
+                Files.createDirectories(home);
+
+                StringBuilder content = new StringBuilder("# Généré par Jonk\n");
+                content.append("org.gradle.daemon=true\n");
+                content.append("org.gradle.daemon.idletimeout=").append(properties.getDaemonIdleTimeout().toMillis()).append('\n');
+                Files.writeString(home.resolve("gradle.properties"), content);
+            } catch (IOException e) {
+                log.warn("Impossible de préparer le GRADLE_USER_HOME partagé: {}", e.getMessage());
+            }
+            userHomePrepared = true;
+        }
+    }
+
+    /**
+     * Daemon réservé pour la durée d'un build
+     */
+    public class Slot implements AutoCloseable {
+
+        private boolean released;
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.imt.demo.gradle;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.gradle")
+public class GradleProperties {
+
+    /**
+     * GRADLE_USER_HOME partagé: daemons, cache de dépendances et build cache local communs à tous les pipelines
+     */
+    private String userHome = System.getProperty("user.home") + "/.jonk/gradle";
+
+    /**
+     * Nombre maximal de builds Gradle simultanés (chaque build occupe un daemon, borne donc la taille du pool)
+     */
+    private int maxDaemons = 2;
+
+    /**
+     * Durée d'inactivité avant l'arrêt d'un daemon
+     */
+    private Duration daemonIdleTimeout = Duration.ofHours(3);
+
+    /**
+     * Options JVM des daemons (org.gradle.jvmargs) pour les projets qui n'en déclarent pas dans leur
+     * gradle.properties, vide = valeur par défaut de Gradle
+     */
+    private String daemonJvmArgs = "-Xmx2g -XX:+UseParallelGC";
+
+    /**
+     * Active le build cache local (--build-cache)
+     */
+    private boolean buildCache = true;
+
+    /**
+     * Active le configuration cache (--configuration-cache). Désactivé par défaut: de nombreux plugins
+     * n'y sont pas compatibles (un build en échec pour cette raison est relancé sans lui)
+     */
+    private boolean configurationCache = false;
+
+    /**
+     * Exécute les sous-projets en parallèle (--parallel)
+     */
+    private boolean parallel = true;
+
+    public String getUserHome() {
+        return userHome;
+    }
+
+    public void setUserHome(String userHome) {
+        this.userHome = userHome;
+    }
+
+    public int getMaxDaemons() {
+        return maxDaemons;
+    }
+
+    public void setMaxDaemons(int maxDaemons) {
+        this.maxDaemons = maxDaemons;
+    }
+
+    public Duration getDaemonIdleTimeout() {
+        return daemonIdleTimeout;
+    }
+
+    public void setDaemonIdleTimeout(Duration daemonIdleTimeout) {
+        this.daemonIdleTimeout = daemonIdleTimeout;
+    }
+
+    public String getDaemonJvmArgs() {
+        return daemonJvmArgs;
+    }
+
+    public void setDaemonJvmArgs(String daemonJvmArgs) {
+        this.daemonJvmArgs = daemonJvmArgs;
+    }
+
+    public boolean isBuildCache() {
+        return buildCache;
+    }
+
+    public void setBuildCache(boolean buildCache) {
+        this.buildCache = buildCache;
+    }
+
+    public boolean isConfigurationCache() {
+        return configurationCache;
+    }
+
+    public void setConfigurationCache(boolean configurationCache) {
+        this.configurationCache = configurationCache;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+}
@@ -0,0 +1,330 @@
+package com.imt.demo.maven;
+
+import com.imt.demo.cache.BuildOutputCache;
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import com.imt.demo.testing.GitChangeDetector;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Build des seuls modules affectés d'un projet Maven multi-module: les fichiers modifiés depuis le dernier
+ * commit construit avec succès sont rattachés à leur module, et seuls ces modules et leurs dépendants sont
+ * construits (-pl ... -amd). Les sorties des autres modules sont restaurées depuis le cache de build
+ * (clé par module) et installées dans l'overlay Maven du pipeline pour que le réacteur partiel les résolve.
+ */
+@Slf4j
+@Component
+public class AffectedModulePlanner {
+
+    private final GitChangeDetector gitChangeDetector;
+    private final BuildOutputCache buildOutputCache;
+    private final MavenRepositoryCache mavenRepositoryCache;
+
+    private final AtomicLong partialBuilds = new AtomicLong();
+    private final AtomicLong fullBuilds = new AtomicLong();
+    private final AtomicLong modulesBuilt = new AtomicLong();
+    private final AtomicLong modulesSkipped = new AtomicLong();
+
+    public AffectedModulePlanner(GitChangeDetector gitChangeDetector, BuildOutputCache buildOutputCache,
+                                 MavenRepositoryCache mavenRepositoryCache) {
+        this.gitChangeDetector = gitChangeDetector;
+        this.buildOutputCache = buildOutputCache;
+        this.mavenRepositoryCache = mavenRepositoryCache;
+    }
+
+    /**
+     * Modules à construire pour un pipeline
+     */
+    @Value
+    public static class ModulePlan {
+        boolean fullBuild;
+        String reason;
+        List<String> builtModules;
+        List<String> skippedModules;
+
+        /**
+         * Arguments de sélection du réacteur (-pl ... -amd), vides pour un build complet
+         */
+        List<String> mavenArguments;
+
+        /**
+         * Clés du cache de build des modules construits (chemin du module -> clé), pour y publier leurs sorties
+         */
+        Map<String, String> moduleKeys;
+
+        static ModulePlan full(String reason, Map<String, String> moduleKeys) {
+            return new ModulePlan(true, reason, List.of(), List.of(), List.of(), moduleKeys);
+        }
+
+        /**
+         * Tous les modules ont été restaurés: aucune commande Maven à lancer
+         */
+        public boolean isNothingToBuild() {
+            return !fullBuild && builtModules.isEmpty();
+        }
+    }
+
+    /**
+     * Détermine les modules à construire, restaure et installe les autres
+     *
+     * @return empty si le projet n'est pas multi-module
+     */
+    public Optional<ModulePlan> plan(PipelineContext context, Path workspace) {
+        Optional<MavenReactor> parsed = MavenReactor.parse(workspace);
+        if (parsed.isEmpty() || !parsed.get().isMultiModule()) {
+            return Optional.empty();
+        }
+        MavenReactor reactor = parsed.get();
+
+        if (!buildOutputCache.isEnabled()) {
+            return Optional.of(full("cache de build désactivé", Map.of()));
+        }
+        Map<String, String> keys;
+        try {
+            keys = computeKeys(reactor, workspace);
+        } catch (IOException e) {
+            return Optional.of(full("clés de cache des modules incalculables: " + e.getMessage(), Map.of()));
+        }
+
+        Optional<String> baseCommit = gitChangeDetector.lastSuccessfulCommit(context.getGitUrl(), context.getBranch());
+        if (baseCommit.isEmpty()) {
+            return Optional.of(full("aucun commit construit avec succès sur la branche", keys));
+        }
+        Optional<List<String>> changedFiles = gitChangeDetector.changedFiles(workspace, baseCommit.get());
+        if (changedFiles.isEmpty()) {
+            return Optional.of(full("diff impossible avec " + abbreviate(baseCommit.get()), keys));
+        }
+
+        Set<String> changedModules = new LinkedHashSet<>();
+        for (String file : changedFiles.get()) {
+            if (file.equals("pom.xml") || file.startsWith(".mvn/")) {
+                return Optional.of(full("fichier de build racine modifié: " + file, keys));
+            }
+            MavenReactor.Module module = reactor.moduleOf(file);
+            // Dans un module agrégateur, seul le pom.xml participe au build (README, Dockerfile...)
+            if (module.isAggregator() && !file.equals(module.getPath() + "/pom.xml")) {
+                continue;
+            }
+            changedModules.add(module.getPath());
+        }
+
+        // Modules non affectés: sorties restaurées depuis le cache, sinon reconstruits avec leurs dépendants
+        Set<String> affected = new LinkedHashSet<>(reactor.withDependents(changedModules));
+        for (MavenReactor.Module module : reactor.buildOrder()) {
+            if (affected.contains(module.getPath()) || module.isAggregator()) {
+                continue;
+            }
+            Path directory = workspace.resolve(module.getPath());
+            if (!buildOutputCache.restore(keys.get(module.getPath()), directory) || findArtifact(module, directory) == null) {
+                log.info("Module {} absent du cache de build: reconstruit", module.getArtifactId());
+                affected.addAll(reactor.withDependents(List.of(module.getPath())));
+            }
+        }
+
+        boolean buildsEverything = reactor.getModules().values().stream()
+                .filter(module -> !module.isAggregator())
+                .allMatch(module -> affected.contains(module.getPath()));
+        if (buildsEverything) {
+            return Optional.of(full("tous les modules sont affectés", keys));
+        }
+
+        // Sans overlay isolé, les modules amont sont reconstruits (-am) au lieu d'être installés
+        Set<String> built = affected;
+        List<String> arguments = new ArrayList<>();
+        if (!affected.isEmpty()) {
+            arguments.add("-pl");
+            arguments.add(String.join(",", reactor.buildOrder().stream()
+                    .filter(module -> affected.contains(module.getPath()))
+                    .map(MavenReactor.Module::getSelector)
+                    .toList()));
+            arguments.add("-amd");
+            try {
+                if (!installSkippedModules(context, reactor, workspace, affected)) {
+                    arguments.add("-am");
+                    built = reactor.withUpstream(affected);
+                }
+            } catch (IOException e) {
+                log.warn("Installation des modules non affectés impossible: {}", e.getMessage());
+                arguments.add("-am");
+                built = reactor.withUpstream(affected);
+            }
+        }
+
+        Set<String> builtPaths = built;
+        List<String> builtModules = new ArrayList<>();
+        List<String> skippedModules = new ArrayList<>();
+        Map<String, String> builtKeys = new LinkedHashMap<>();
+        for (MavenReactor.Module module : reactor.buildOrder()) {
+            if (builtPaths.contains(module.getPath())) {
+                builtModules.add(module.getArtifactId());
+                builtKeys.put(module.getPath(), keys.get(module.getPath()));
+            } else {
+                skippedModules.add(module.getArtifactId());
+            }
+        }
+
+        return Optional.of(new ModulePlan(false, "changements depuis " + abbreviate(baseCommit.get()),
+                builtModules, skippedModules, arguments, builtKeys));
+    }
+
+    /**
+     * Publie les sorties des modules construits dans le cache et ajoute la sélection au résultat de l'étape
+     */
+    public void record(PipelineContext context, ModulePlan plan, Path workspace, StepResult result) {
+        if (plan.isFullBuild()) {
+            fullBuilds.incrementAndGet();
+            result.addMetric("affectedModules", false);
+            result.addLog(" Build de tous les modules: " + plan.getReason());
+        } else {
+            partialBuilds.incrementAndGet();
+            modulesBuilt.addAndGet(plan.getBuiltModules().size());
+            modulesSkipped.addAndGet(plan.getSkippedModules().size());
+            result.addMetric("affectedModules", true);
+            result.addMetric("builtModules", plan.getBuiltModules());
+            result.addMetric("skippedModules", plan.getSkippedModules());
+            result.addLog(" Modules affectés (" + plan.getReason() + "): " + plan.getBuiltModules().size()
+                    + " construit(s) " + plan.getBuiltModules() + ", " + plan.getSkippedModules().size()
+                    + " restauré(s) depuis le cache " + plan.getSkippedModules());
+        }
+
+        if (result.getStatus() != StepStatus.SUCCESS) {
+            return;
+        }
+        plan.getModuleKeys().forEach((path, key) -> {
+            if (buildOutputCache.find(key).isPresent()) {
+                return;
+            }
+            Path directory = workspace.resolve(path);
+            try {
+                buildOutputCache.store(key, directory, moduleOutputs(directory));
+            } catch (IOException e) {
+                log.warn("Impossible de stocker les sorties du module {}: {}", path, e.getMessage());
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        long built = modulesBuilt.get();
+        long skipped = modulesSkipped.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partialBuilds", partialBuilds.get());
+        stats.put("fullBuilds", fullBuilds.get());
+        stats.put("modulesBuilt", built);
+        stats.put("modulesSkipped", skipped);
+        stats.put("skipRate", built + skipped == 0 ? 0.0 : (double) skipped / (built + skipped));
+        return stats;
+    }
+
+    private ModulePlan full(String reason, Map<String, String> keys) {
+        log.info("Build de tous les modules: {}", reason);
+        return ModulePlan.full(reason, keys);
+    }
+
+    /**
+     * Clé de cache de chaque module: ses sources (hors sous-modules) et les clés des modules dont il dépend.
+     * Un agrégateur n'a pas de sorties: sa clé ne porte que sur son pom.xml.
+     */
+    private Map<String, String> computeKeys(MavenReactor reactor, Path workspace) throws IOException {
+        Map<String, String> keys = new HashMap<>();
+        for (MavenReactor.Module module : reactor.buildOrder()) {
+            Path directory = workspace.resolve(module.getPath());
+            List<String> salt = module.getUpstream().stream().map(keys::get).toList();
+            if (module.isAggregator()) {
+                keys.put(module.getPath(), hash(Files.readAllBytes(directory.resolve("pom.xml")), salt));
+            } else {
+                List<Path> children = module.getChildren().stream().map(workspace::resolve).toList();
+                keys.put(module.getPath(), buildOutputCache.computeKey(directory, children, salt));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Installe les modules non construits dans l'overlay Maven du pipeline
+     *
+     * @return false si l'overlay n'est pas disponible
+     */
+    private boolean installSkippedModules(PipelineContext context, MavenReactor reactor, Path workspace,
+                                          Set<String> affected) throws IOException {
+        for (MavenReactor.Module module : reactor.buildOrder()) {
+            if (affected.contains(module.getPath())) {
+                continue;
+            }
+            Path directory = workspace.resolve(module.getPath());
+            Path artifact = module.isAggregator() ? null : findArtifact(module, directory);
+            if (!mavenRepositoryCache.installArtifact(context.getExecutionId(), module.getGroupId(), module.getArtifactId(),
+                    module.getVersion(), directory.resolve("pom.xml"), artifact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Archive principale du module dans target/, ou null si absente
+     */
+    private static Path findArtifact(MavenReactor.Module module, Path directory) {
+        String extension = "war".equals(module.getPackaging()) ? ".war" : ".jar";
+        Path artifact = directory.resolve("target").resolve(module.getArtifactId() + "-" + module.getVersion() + extension);
+        return Files.isRegularFile(artifact) ? artifact : null;
+    }
+
+    /**
+     * Sorties d'un module à mettre en cache: target/classes et les archives packagées
+     */
+    private static List<Path> moduleOutputs(Path directory) throws IOException {
+        Path target = directory.resolve("target");
+        List<Path> outputs = new ArrayList<>();
+        if (Files.isDirectory(target.resolve("classes"))) {
+            outputs.add(Path.of("target", "classes"));
+        }
+        if (Files.isDirectory(target)) {
+            try (Stream<Path> files = Files.list(target)) {
+                files.filter(f -> f.toString().endsWith(".jar") || f.toString().endsWith(".war"))
+                        .forEach(f -> outputs.add(Path.of("target", f.getFileName().toString())));
+            }
+        }
+        return outputs;
+    }
+
+    private static String hash(byte[] content, List<String> salt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : salt) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update(content);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String abbreviate(String commit) {
+        return commit.length() > 8 ? commit.substring(0, 8) : commit;
+    }
+}
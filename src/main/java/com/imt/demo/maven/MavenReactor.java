@@ -0,0 +1,319 @@
+package com.imt.demo.maven;
+
+import lombok.Value;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Réacteur d'un projet Maven multi-module: modules déclarés par les balises &lt;modules&gt; (récursivement)
+ * et dépendances entre modules (parent et &lt;dependencies&gt; pointant vers un autre module du réacteur)
+ */
+@Value
+public class MavenReactor {
+
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * Modules indexés par chemin relatif à la racine ("" pour le pom racine), dans l'ordre de déclaration
+     */
+    Map<String, Module> modules;
+
+    @Value
+    public static class Module {
+        String path;
+        String groupId;
+        String artifactId;
+        String version;
+        String packaging;
+        List<String> children;
+
+        /**
+         * Modules du réacteur dont celui-ci dépend (chemins): parent et dépendances
+         */
+        Set<String> upstream;
+
+        /**
+         * Sélecteur pour -pl
+         */
+        public String getSelector() {
+            return groupId + ":" + artifactId;
+        }
+
+        public boolean isAggregator() {
+            return "pom".equals(packaging);
+        }
+    }
+
+    /**
+     * Analyse le réacteur à partir du pom.xml racine
+     *
+     * @return empty si le pom est absent ou illisible, ou si une coordonnée ne peut pas être résolue
+     */
+    public static Optional<MavenReactor> parse(Path root) {
+        Map<String, PomFile> poms = new LinkedHashMap<>();
+        Deque<String> queue = new ArrayDeque<>(List.of(""));
+        try {
+            while (!queue.isEmpty()) {
+                String path = queue.poll();
+                Path pom = root.resolve(path).resolve("pom.xml");
+                if (poms.containsKey(path) || !Files.isRegularFile(pom)) {
+                    continue;
+                }
+                PomFile file = PomFile.read(pom);
+                poms.put(path, file);
+                for (String child : file.modules) {
+                    queue.add(normalize(path.isEmpty() ? child : path + "/" + child));
+                }
+            }
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        if (poms.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Parent de chaque module: le module qui le déclare
+        Map<String, String> declaringParent = new HashMap<>();
+        poms.forEach((path, file) -> file.modules.forEach(child ->
+                declaringParent.put(normalize(path.isEmpty() ? child : path + "/" + child), path)));
+
+        Map<String, Map<String, String>> properties = new HashMap<>();
+        Map<String, String[]> coordinates = new HashMap<>();
+        for (String path : poms.keySet()) {
+            PomFile file = poms.get(path);
+            String parentPath = declaringParent.get(path);
+            Map<String, String> inherited = parentPath != null ? properties.get(parentPath) : Map.of();
+            Map<String, String> own = new HashMap<>(inherited);
+            own.putAll(file.properties);
+
+            String groupId = file.groupId != null ? file.groupId : file.parentGroupId;
+            String version = file.version != null ? file.version : file.parentVersion;
+            own.put("project.groupId", groupId);
+            own.put("project.artifactId", file.artifactId);
+            own.put("project.version", version);
+            own.put("project.parent.version", file.parentVersion);
+            properties.put(path, own);
+
+            String[] resolved = {resolve(groupId, own), resolve(file.artifactId, own), resolve(version, own)};
+            for (String value : resolved) {
+                if (value == null || value.contains("${")) {
+                    return Optional.empty();
+                }
+            }
+            coordinates.put(path, resolved);
+        }
+
+        Map<String, String> pathByKey = new HashMap<>();
+        coordinates.forEach((path, gav) -> pathByKey.put(gav[0] + ":" + gav[1], path));
+
+        Map<String, Module> modules = new LinkedHashMap<>();
+        for (String path : poms.keySet()) {
+            PomFile file = poms.get(path);
+            String[] gav = coordinates.get(path);
+            Set<String> upstream = new LinkedHashSet<>();
+            if (file.parentGroupId != null) {
+                Optional.ofNullable(pathByKey.get(resolve(file.parentGroupId, properties.get(path)) + ":" + file.parentArtifactId))
+                        .ifPresent(upstream::add);
+            }
+            for (String dependency : file.dependencies) {
+                String key = resolve(dependency, properties.get(path));
+                Optional.ofNullable(pathByKey.get(key)).filter(p -> !p.equals(path)).ifPresent(upstream::add);
+            }
+            List<String> children = file.modules.stream()
+                    .map(child -> normalize(path.isEmpty() ? child : path + "/" + child))
+                    .filter(poms::containsKey)
+                    .toList();
+            modules.put(path, new Module(path, gav[0], gav[1], gav[2], file.packaging, children, upstream));
+        }
+        return Optional.of(new MavenReactor(modules));
+    }
+
+    public boolean isMultiModule() {
+        return modules.size() > 1;
+    }
+
+    /**
+     * Module contenant un fichier (chemin relatif à la racine): le module dont le répertoire est le plus profond
+     */
+    public Module moduleOf(String file) {
+        Module owner = modules.get("");
+        int depth = -1;
+        for (Module module : modules.values()) {
+            String path = module.getPath();
+            if ((path.isEmpty() || file.startsWith(path + "/")) && path.length() > depth) {
+                owner = module;
+                depth = path.length();
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Modules donnés et tous les modules qui en dépendent transitivement (équivalent de -amd)
+     */
+    public Set<String> withDependents(Collection<String> paths) {
+        Set<String> result = new LinkedHashSet<>(paths);
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (Module module : modules.values()) {
+                if (!result.contains(module.getPath()) && module.getUpstream().stream().anyMatch(result::contains)) {
+                    result.add(module.getPath());
+                    grown = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modules donnés et tous ceux dont ils dépendent transitivement (équivalent de -am)
+     */
+    public Set<String> withUpstream(Collection<String> paths) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(paths);
+        while (!queue.isEmpty()) {
+            String path = queue.poll();
+            if (result.add(path)) {
+                queue.addAll(modules.get(path).getUpstream());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modules dans l'ordre de build: chaque module après ceux dont il dépend
+     */
+    public List<Module> buildOrder() {
+        List<Module> ordered = new ArrayList<>();
+        Set<String> visited = new LinkedHashSet<>();
+        for (String path : modules.keySet()) {
+            visit(path, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private void visit(String path, Set<String> visited, List<Module> ordered) {
+        if (!visited.add(path)) {
+            return;
+        }
+        Module module = modules.get(path);
+        module.getUpstream().forEach(upstream -> visit(upstream, visited, ordered));
+        ordered.add(module);
+    }
+
+    private static String resolve(String value, Map<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        String current = value;
+        // Quelques passes suffisent pour les propriétés imbriquées (${revision} -> ${major}.${minor})
+        for (int pass = 0; pass < 5 && current.contains("${"); pass++) {
+            Matcher matcher = PROPERTY.matcher(current);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                String replacement = properties.get(matcher.group(1));
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+            }
+            matcher.appendTail(resolved);
+            current = resolved.toString();
+        }
+        return current;
+    }
+
+    private static String normalize(String path) {
+        return Path.of(path).normalize().toString().replace('\\', '/');
+    }
+
+    /**
+     * Contenu utile d'un pom.xml (sans héritage ni interpolation)
+     */
+    private static class PomFile {
+        String groupId;
+        String artifactId;
+        String version;
+        String packaging = "jar";
+        String parentGroupId;
+        String parentArtifactId;
+        String parentVersion;
+        final List<String> modules = new ArrayList<>();
+        final List<String> dependencies = new ArrayList<>();
+        final Map<String, String> properties = new HashMap<>();
+
+        static PomFile read(Path pom) throws Exception {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            Document document = factory.newDocumentBuilder().parse(pom.toFile());
+            Element project = document.getDocumentElement();
+
+            PomFile file = new PomFile();
+            file.groupId = childText(project, "groupId");
+            file.artifactId = childText(project, "artifactId");
+            file.version = childText(project, "version");
+            Optional.ofNullable(childText(project, "packaging")).ifPresent(packaging -> file.packaging = packaging);
+
+            Element parent = child(project, "parent");
+            if (parent != null) {
+                file.parentGroupId = childText(parent, "groupId");
+                file.parentArtifactId = childText(parent, "artifactId");
+                file.parentVersion = childText(parent, "version");
+            }
+
+            Element modules = child(project, "modules");
+            if (modules != null) {
+                children(modules, "module").forEach(module -> file.modules.add(module.getTextContent().trim()));
+            }
+
+            Element dependencies = child(project, "dependencies");
+            if (dependencies != null) {
+                children(dependencies, "dependency").forEach(dependency ->
+                        file.dependencies.add(childText(dependency, "groupId") + ":" + childText(dependency, "artifactId")));
+            }
+
+            Element properties = child(project, "properties");
+            if (properties != null) {
+                children(properties, null).forEach(property ->
+                        file.properties.put(property.getTagName(), property.getTextContent().trim()));
+            }
+            return file;
+        }
+
+        private static Element child(Element parent, String name) {
+            List<Element> matches = children(parent, name);
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+
+        private static String childText(Element parent, String name) {
+            Element child = child(parent, name);
+            return child != null ? child.getTextContent().trim() : null;
+        }
+
+        private static List<Element> children(Element parent, String name) {
+            List<Element> result = new ArrayList<>();
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof Element element && (name == null || element.getTagName().equals(name))) {
+                    result.add(element);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.imt.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Document MongoDB retraçant un déploiement réussi sur un hôte et un port,
+ * avec l'ancien container conservé arrêté pour un rollback immédiat
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "deployment_records")
+public class DeploymentRecord {
+
+    @Id
+    private String id;
+
+    private String pipelineId;
+
+    /**
+     * Exécution ayant produit le déploiement (absent des enregistrements antérieurs: pipelineId en tient lieu)
+     */
+    private String executionId;
+
+    /**
+     * Hôte de déploiement (localhost pour un déploiement local)
+     */
+    private String host;
+    private String port;
+    private String containerName;
+
+    /**
+     * Image déployée (nom:tag) et son identifiant (sha256:...)
+     */
+    private String image;
+    private String imageId;
+
+    /**
+     * Container remplacé, son nom pendant qu'il est conservé arrêté, et l'image qu'il exécutait
+     */
+    private String previousContainer;
+    private String retainedContainer;
+    private String previousImage;
+
+    /**
+     * Déploiement bleu/vert: ports de service du nouveau container et de l'ancien
+     */
+    private Boolean blueGreen;
+    private Integer servicePort;
+    private Integer previousServicePort;
+
+    // Accès SSH de l'hôte distant (pour un rollback déclenché depuis l'API)
+    private String sshUser;
+    private String sshKeyPath;
+
+    /**
+     * Mesures du smoke test de performance (référence du déploiement suivant sur le même hôte et port)
+     */
+    private PerformanceSnapshot performance;
+
+    @Builder.Default
+    private DeploymentStatus status = DeploymentStatus.ACTIVE;
+
+    private LocalDateTime deployedAt;
+    private LocalDateTime rolledBackAt;
+}
@@ -0,0 +1,10 @@
+package com.imt.demo.model;
+
+/**
+ * Statuts possibles d'un déploiement enregistré dans l'historique
+ */
+public enum DeploymentStatus {
+    ACTIVE,       // Version en service sur l'hôte et le port
+    SUPERSEDED,   // Remplacée par un déploiement plus récent
+    ROLLED_BACK   // Annulée: la version précédente a été restaurée
+}
@@ -0,0 +1,32 @@
+package com.imt.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mesures du smoke test de performance d'un déploiement (latences en millisecondes),
+ * conservées dans l'historique pour servir de référence au déploiement suivant
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerformanceSnapshot {
+
+    private long requests;
+    private long errors;
+    private double throughputRps;
+
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+
+    private int concurrency;
+    private long durationMs;
+    private LocalDateTime measuredAt;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,7 +15,7 @@ import java.util.Map;
  * Contient les informations nécessaires à l'exécution du pipeline.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PipelineContext {
@@ -27,10 +28,19 @@ public class PipelineContext {
     // === Workspace ===
     private String workspaceDirectory;
     private File workspaceDir;
+    private Boolean workspaceLeased; // Workspace emprunté au pool (déjà cloné, target/ chaud)
+    private Long workspaceLeaseMs;
+    private Boolean workspaceNeedsClean; // Sources supprimées/renommées depuis le dernier build du workspace emprunté
 
     // === Configuration Build ===
     private String buildTool; // maven, gradle
     private String javaVersion;
+    private Boolean affectedModules; // Multi-module: ne construire que les modules affectés et leurs dépendants
+    private Boolean testImpactAnalysis; // N'exécuter que les tests impactés par les changements
+    private Integer testShards; // Nombre de shards de tests exécutés en parallèle (1 = pas de sharding)
+    private Boolean testPrioritization; // Exécuter d'abord les tests en échec récemment ou impactés
+    private Boolean failFast; // Arrêter les tests au premier échec
+    private Integer testRetries; // Relances des seuls tests en échec avant de faire échouer l'étape
 
     // === Configuration Docker ===
     private String dockerImageName;
@@ -55,6 +65,14 @@ public class PipelineContext {
     private Integer applicationPort;
     private String sshUser;
     private String containerName;
+    private Boolean blueGreen; // Déploiement local bleu/vert derrière le proxy (défaut: jonk.deploy.blue-green)
+    private List<String> deploymentHosts; // Déploiement multi-hôtes de la même image (remplace deploymentHost)
+    private Integer deploymentParallelism; // Hôtes déployés simultanément
+    private String deploymentStrategy; // rolling (vagues validées par health check), batch (tous les hôtes en une vague)
+    private List<String> deployedHosts; // Hôtes touchés par le déploiement multi-hôtes (pour le rollback)
+    private Map<String, String> previousHostImageTags; // Tag exécuté par chaque hôte avant le déploiement (pour le rollback)
+    private Boolean performanceTest; // Smoke test de performance après le health check (défaut: jonk.deploy.smoke-test)
+    private List<String> performanceRequests; // Requêtes du smoke test, "MÉTHODE /chemin [poids]" (défaut: jonk.deploy.smoke-requests)
 
     // === Métadonnées et tracking ===
     private String pipelineId;
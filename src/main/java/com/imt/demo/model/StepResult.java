@@ -7,7 +7,9 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Résultat de l'exécution d'une étape
@@ -33,6 +35,10 @@ public class StepResult {
 
     private Long durationMs;
 
+    // Indicateurs chiffrés de l'étape (cache, durées, volumes...)
+    @Builder.Default
+    private Map<String, Object> metrics = new LinkedHashMap<>();
+
     /**
      * Ajoute une ligne de log
      */
@@ -40,6 +46,16 @@ public class StepResult {
         this.logs.add(log);
     }
 
+    /**
+     * Enregistre un indicateur chiffré de l'étape
+     */
+    public void addMetric(String key, Object value) {
+        if (this.metrics == null) {
+            this.metrics = new LinkedHashMap<>();
+        }
+        this.metrics.put(key, value);
+    }
+
     /**
      * Calcule la durée d'exécution
      */
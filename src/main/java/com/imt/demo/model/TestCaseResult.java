@@ -0,0 +1,43 @@
+package com.imt.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Document MongoDB représentant le résultat d'une méthode de test lors d'une exécution de pipeline.
+ * Index créés à la première ingestion par TestReportService (pas au démarrage, qui ne doit pas dépendre de MongoDB).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "test_case_results")
+public class TestCaseResult {
+
+    @Id
+    private String id;
+
+    private String executionId;
+
+    private String gitRepoUrl;
+    private String gitBranch;
+    private String commitHash;
+
+    private String testClass;
+    private String testName;
+
+    private Long durationMs;
+    private TestOutcome outcome;
+    private String failureMessage;
+
+    private Integer attempts; // Nombre d'exécutions (relances comprises)
+    private Boolean flaky; // En échec puis passé lors d'une relance
+
+    private LocalDateTime recordedAt;
+}
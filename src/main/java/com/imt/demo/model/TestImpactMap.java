@@ -0,0 +1,61 @@
+package com.imt.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document MongoDB associant chaque classe de test d'un dépôt/branche aux classes du projet dont elle dépend
+ * (fermeture transitive calculée par analyse du bytecode)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "test_impact_maps")
+public class TestImpactMap {
+
+    @Id
+    private String id;
+
+    private String gitRepoUrl;
+    private String gitBranch;
+
+    /**
+     * Commit dont le bytecode a servi à construire la carte
+     */
+    private String commitHash;
+
+    @Builder.Default
+    private List<TestDependencies> tests = new ArrayList<>();
+
+    /**
+     * Exécutions sélectives depuis la dernière exécution complète
+     */
+    @Builder.Default
+    private Integer runsSinceFullRun = 0;
+
+    private LocalDateTime lastFullRun;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Classe de test et classes du projet qu'elle atteint (directement ou transitivement)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TestDependencies {
+        private String testClass;
+
+        @Builder.Default
+        private List<String> dependencies = new ArrayList<>();
+    }
+}
@@ -0,0 +1,11 @@
+package com.imt.demo.model;
+
+/**
+ * Issue d'une méthode de test dans un rapport Surefire/JUnit
+ */
+public enum TestOutcome {
+    PASSED,   // Succès
+    FAILED,   // Assertion en échec
+    ERROR,    // Exception inattendue
+    SKIPPED   // Ignoré (@Disabled, assumption)
+}
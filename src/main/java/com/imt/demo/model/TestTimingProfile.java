@@ -0,0 +1,48 @@
+package com.imt.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document MongoDB conservant la durée historique de chaque classe de test d'un dépôt/branche,
+ * utilisée pour équilibrer les shards de tests
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "test_timing_profiles")
+public class TestTimingProfile {
+
+    @Id
+    private String id;
+
+    private String gitRepoUrl;
+    private String gitBranch;
+
+    @Builder.Default
+    private List<ClassTiming> classes = new ArrayList<>();
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * Durée lissée d'une classe de test (moyenne exponentielle des dernières exécutions)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassTiming {
+        private String testClass;
+        private Long durationMs;
+        private Integer samples;
+    }
+}
@@ -0,0 +1,36 @@
+package com.imt.demo.repository;
+
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.DeploymentStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository de l'historique des déploiements
+ */
+@Repository
+public interface DeploymentRecordRepository extends MongoRepository<DeploymentRecord, String> {
+
+    /**
+     * Déploiements d'une exécution de pipeline (un par hôte)
+     */
+    List<DeploymentRecord> findByPipelineId(String pipelineId);
+
+    /**
+     * Déploiements produits par une exécution
+     */
+    List<DeploymentRecord> findByExecutionId(String executionId);
+
+    /**
+     * Dernier déploiement d'un hôte et d'un port ayant un statut donné
+     */
+    Optional<DeploymentRecord> findFirstByHostAndPortAndStatusOrderByDeployedAtDesc(String host, String port, DeploymentStatus status);
+
+    /**
+     * Historique d'un hôte et d'un port (plus récents en premier)
+     */
+    List<DeploymentRecord> findByHostAndPortOrderByDeployedAtDesc(String host, String port);
+}
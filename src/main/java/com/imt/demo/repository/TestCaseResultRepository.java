@@ -0,0 +1,50 @@
+package com.imt.demo.repository;
+
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.model.TestOutcome;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository des résultats de tests par méthode
+ */
+@Repository
+public interface TestCaseResultRepository extends MongoRepository<TestCaseResult, String> {
+
+    /**
+     * Résultats d'une exécution de pipeline
+     */
+    List<TestCaseResult> findByExecutionId(String executionId);
+
+    /**
+     * Résultats d'un dépôt et d'une branche depuis une date
+     */
+    List<TestCaseResult> findByGitRepoUrlAndGitBranchAndRecordedAtAfter(String gitRepoUrl, String gitBranch, LocalDateTime since);
+
+    /**
+     * Résultats d'un dépôt et d'une branche ayant une issue donnée depuis une date (plus récents en premier)
+     */
+    List<TestCaseResult> findByGitRepoUrlAndGitBranchAndOutcomeInAndRecordedAtAfterOrderByRecordedAtDesc(
+            String gitRepoUrl, String gitBranch, List<TestOutcome> outcomes, LocalDateTime since);
+
+    /**
+     * Résultats instables (passés après relance) d'un dépôt et d'une branche depuis une date
+     */
+    List<TestCaseResult> findByGitRepoUrlAndGitBranchAndFlakyTrueAndRecordedAtAfter(String gitRepoUrl, String gitBranch, LocalDateTime since);
+
+    /**
+     * Historique d'une méthode de test sur un dépôt et une branche (plus récents en premier)
+     */
+    List<TestCaseResult> findByGitRepoUrlAndGitBranchAndTestClassAndTestNameOrderByRecordedAtDesc(
+            String gitRepoUrl, String gitBranch, String testClass, String testName, Pageable pageable);
+
+    /**
+     * Historique d'une méthode de test sur un dépôt et une branche pour une issue donnée (plus récents en premier)
+     */
+    List<TestCaseResult> findByGitRepoUrlAndGitBranchAndTestClassAndTestNameAndOutcomeInOrderByRecordedAtDesc(
+            String gitRepoUrl, String gitBranch, String testClass, String testName, List<TestOutcome> outcomes, Pageable pageable);
+}
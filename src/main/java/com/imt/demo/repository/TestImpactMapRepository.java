@@ -0,0 +1,12 @@
+package com.imt.demo.repository;
+
+import com.imt.demo.model.TestImpactMap;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository des cartes d'impact des tests (une par dépôt et branche)
+ */
+@Repository
+public interface TestImpactMapRepository extends MongoRepository<TestImpactMap, String> {
+}
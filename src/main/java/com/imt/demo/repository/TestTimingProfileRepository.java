@@ -0,0 +1,12 @@
+package com.imt.demo.repository;
+
+import com.imt.demo.model.TestTimingProfile;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository des durées historiques des classes de test (une par dépôt et branche)
+ */
+@Repository
+public interface TestTimingProfileRepository extends MongoRepository<TestTimingProfile, String> {
+}
@@ -1,5 +1,8 @@
 package com.imt.demo.service;
 
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.deploy.DeploymentHistory;
+import com.imt.demo.docker.ImageReference;
 import com.imt.demo.engine.PipelineEngine;
 import com.imt.demo.model.*;
 import com.imt.demo.repository.PipelineExecutionRepository;
@@ -26,16 +29,22 @@ public class PipelineService {
 
     private final PipelineEngine pipelineEngine;
     private final PipelineExecutionRepository executionRepository;
+    private final DeploymentHistory deploymentHistory;
 
     // Injection des étapes du pipeline
     private final GitCloneStep gitCloneStep;
     private final MavenBuildStep mavenBuildStep;
     private final MavenTestStep mavenTestStep;
+    private final GradleBuildStep gradleBuildStep;
+    private final GradleTestStep gradleTestStep;
     private final SonarQubeStep sonarQubeStep;
     private final DockerBuildStep dockerBuildStep;
     private final DockerScanStep dockerScanStep;
     private final DockerDeployStep dockerDeployStep;
     private final HealthCheckStep healthCheckStep;
+    private final MultiHostDeployStep multiHostDeployStep;
+    private final PerformanceSmokeTestStep performanceSmokeTestStep;
+    private final DeployProperties deployProperties;
 
     /**
      * Lance un pipeline de manière asynchrone
@@ -139,11 +148,14 @@ public class PipelineService {
         // 1. Clone du repository Git
         steps.add(gitCloneStep);
 
-        // 2. Build Maven
-        steps.add(mavenBuildStep);
-
-        // 3. Tests unitaires
-        steps.add(mavenTestStep);
+        // 2. Build et 3. Tests unitaires, selon l'outil de build du projet
+        if ("gradle".equalsIgnoreCase(context.getBuildTool())) {
+            steps.add(gradleBuildStep);
+            steps.add(gradleTestStep);
+        } else {
+            steps.add(mavenBuildStep);
+            steps.add(mavenTestStep);
+        }
 
         // 4. Analyse SonarQube (optionnelle)
         if (Boolean.TRUE.equals(context.getSonarEnabled())) {
@@ -156,12 +168,20 @@ public class PipelineService {
         // 6. Scan de sécurité (optionnel)
         steps.add(dockerScanStep);
 
-        // 7. Déploiement
-        if (context.getDeploymentPort() != null) {
+        // 7. à 9. Déploiement sur plusieurs hôtes, par vagues validées par le health check (et le smoke test s'il est demandé)
+        if (context.getDeploymentPort() != null && context.getDeploymentHosts() != null && !context.getDeploymentHosts().isEmpty()) {
+            steps.add(multiHostDeployStep);
+        } else if (context.getDeploymentPort() != null) {
+            // 7. Déploiement
             steps.add(dockerDeployStep);
 
             // 8. Health check
             steps.add(healthCheckStep);
+
+            // 9. Smoke test de performance (optionnel), comparé au déploiement précédent
+            if (context.getPerformanceTest() != null ? context.getPerformanceTest() : deployProperties.isSmokeTest()) {
+                steps.add(performanceSmokeTestStep);
+            }
         }
 
         log.info(" Pipeline configuré avec {} étapes", steps.size());
@@ -265,4 +285,67 @@ public class PipelineService {
 
         return false;
     }
+
+    /**
+     * Récupère les déploiements enregistrés d'une exécution (un par hôte)
+     */
+    public List<DeploymentRecord> getDeployments(String executionId) {
+        return deploymentHistory.forExecution(executionId);
+    }
+
+    /**
+     * Annule les déploiements d'une exécution encore en service: sur chaque hôte, le container remplacé
+     * (conservé arrêté) est redémarré à la place du container déployé
+     *
+     * @return les déploiements traités, avec leur statut après le rollback (vide si aucun n'est en service):
+     * ceux restés ACTIVE n'ont pas pu être annulés
+     */
+    public List<DeploymentRecord> rollbackDeployment(String executionId) {
+        List<DeploymentRecord> active = deploymentHistory.forExecution(executionId).stream()
+                .filter(record -> record.getStatus() == DeploymentStatus.ACTIVE)
+                .toList();
+
+        for (DeploymentRecord record : active) {
+            log.warn("  Rollback du déploiement {} sur {}:{}", executionId, record.getHost(), record.getPort());
+            try {
+                dockerDeployStep.rollback(contextFromDeployment(record));
+            } catch (Exception e) {
+                log.error(" Erreur lors du rollback sur {}:{}", record.getHost(), record.getPort(), e);
+            }
+        }
+
+        List<String> ids = active.stream().map(DeploymentRecord::getId).toList();
+        List<DeploymentRecord> processed = deploymentHistory.forExecution(executionId).stream()
+                .filter(record -> ids.contains(record.getId()))
+                .toList();
+
+        // L'exécution n'est annulée que si au moins un hôte a effectivement retrouvé sa version précédente
+        if (processed.stream().anyMatch(record -> record.getStatus() == DeploymentStatus.ROLLED_BACK)) {
+            executionRepository.findById(executionId).ifPresent(execution -> {
+                execution.setStatus(PipelineStatus.ROLLED_BACK);
+                executionRepository.save(execution);
+            });
+        }
+        return processed;
+    }
+
+    /**
+     * Contexte minimal permettant à l'étape de déploiement d'annuler un déploiement enregistré
+     */
+    private PipelineContext contextFromDeployment(DeploymentRecord record) {
+        ImageReference image = ImageReference.parse(record.getImage());
+        return PipelineContext.builder()
+                .pipelineId(record.getPipelineId())
+                .executionId(record.getExecutionId() != null ? record.getExecutionId() : record.getPipelineId())
+                .dockerImageName(image.getRepository())
+                .dockerImageTag(image.getTag())
+                .previousDockerImageTag(record.getPreviousImage() != null ? ImageReference.parse(record.getPreviousImage()).getTag() : null)
+                .deploymentHost(DeploymentHistory.LOCAL_HOST.equals(record.getHost()) ? null : record.getHost())
+                .deploymentPort(record.getPort())
+                .sshUser(record.getSshUser())
+                .sshKeyPath(record.getSshKeyPath())
+                .containerName(record.getContainerName())
+                .blueGreen(record.getBlueGreen())
+                .build();
+    }
 }
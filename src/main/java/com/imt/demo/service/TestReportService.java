@@ -0,0 +1,280 @@
+package com.imt.demo.service;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.model.TestOutcome;
+import com.imt.demo.repository.TestCaseResultRepository;
+import com.imt.demo.testing.SurefireReportParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Service d'ingestion et d'interrogation des résultats de tests par méthode
+ * (durées, issues, historique des échecs)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TestReportService {
+
+    /**
+     * Nombre minimal de mesures pour évaluer la tendance d'un test
+     */
+    private static final int MIN_TREND_SAMPLES = 4;
+
+    /**
+     * Hausse relative et absolue minimales pour qu'un test soit signalé comme ralentissant
+     */
+    private static final double TREND_MIN_RATIO = 1.2;
+    private static final long TREND_MIN_INCREASE_MS = 50;
+
+    private final TestCaseResultRepository testCaseResultRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private final AtomicBoolean indexesEnsured = new AtomicBoolean();
+
+    /**
+     * Enregistre les résultats par méthode des rapports d'une exécution
+     */
+    public void ingest(PipelineContext context, List<SurefireReportParser.SuiteReport> reports) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TestCaseResult> results = new ArrayList<>();
+        for (SurefireReportParser.SuiteReport report : reports) {
+            for (SurefireReportParser.CaseReport testCase : report.getCases()) {
+                results.add(TestCaseResult.builder()
+                        .executionId(context.getExecutionId())
+                        .gitRepoUrl(context.getGitUrl())
+                        .gitBranch(context.getBranch())
+                        .commitHash(context.getCommitHash())
+                        .testClass(testCase.getTestClass())
+                        .testName(testCase.getTestName())
+                        .durationMs(testCase.getDurationMs())
+                        .outcome(testCase.getOutcome())
+                        .failureMessage(testCase.getMessage())
+                        .attempts(testCase.getAttempts())
+                        .flaky(testCase.isFlaky())
+                        .recordedAt(now)
+                        .build());
+            }
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+
+        try {
+            ensureIndexes();
+            testCaseResultRepository.saveAll(results);
+            log.info("{} résultats de tests enregistrés pour l'exécution {}", results.size(), context.getExecutionId());
+        } catch (Exception e) {
+            log.warn("Impossible d'enregistrer les résultats de tests: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests les plus lents d'un dépôt/branche sur une période (durée moyenne des exécutions non ignorées).
+     * Regroupement, tri et limite sont faits par MongoDB: seuls les {@code limit} tests retenus sont chargés.
+     */
+    public List<Map<String, Object>> slowestTests(String gitUrl, String branch, int days, int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(executedCriteria(gitUrl, branch, days)),
+                Aggregation.sort(Sort.Direction.ASC, "recordedAt"),
+                Aggregation.group("testClass", "testName")
+                        .count().as("runs")
+                        .avg("durationMs").as("averageMs")
+                        .max("durationMs").as("maxMs")
+                        .last("durationMs").as("lastMs"),
+                Aggregation.sort(Sort.Direction.DESC, "averageMs"),
+                Aggregation.limit(limit));
+
+        return aggregate(aggregation).stream()
+                .map(row -> {
+                    Map<String, Object> test = describe(row);
+                    test.put("runs", row.get("runs", Number.class).intValue());
+                    test.put("averageMs", Math.round(row.get("averageMs", Number.class).doubleValue()));
+                    test.put("maxMs", row.get("maxMs", Number.class).longValue());
+                    test.put("lastMs", row.get("lastMs", Number.class).longValue());
+                    return test;
+                })
+                .toList();
+    }
+
+    /**
+     * Tests dont la durée augmente: médiane de la moitié récente des mesures comparée à celle de la moitié ancienne.
+     * Médianes, seuils, tri et limite sont calculés par MongoDB ($sortArray: MongoDB 5.2 minimum).
+     */
+    public List<Map<String, Object>> trendingSlower(String gitUrl, String branch, int days, int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(executedCriteria(gitUrl, branch, days)),
+                Aggregation.sort(Sort.Direction.ASC, "recordedAt"),
+                Aggregation.group("testClass", "testName")
+                        .count().as("runs")
+                        .push("durationMs").as("durations"),
+                Aggregation.match(Criteria.where("runs").gte(MIN_TREND_SAMPLES)),
+                stage("$addFields", new Document("half", new Document("$floor", new Document("$divide", List.of("$runs", 2))))),
+                stage("$addFields", new Document()
+                        .append("before", sortedSlice("$half"))
+                        .append("recent", sortedSlice(new Document("$multiply", List.of(-1, "$half"))))
+                        .append("middle", new Document("$floor", new Document("$divide", List.of("$half", 2))))),
+                stage("$addFields", new Document()
+                        .append("previousMedianMs", new Document("$arrayElemAt", List.of("$before", "$middle")))
+                        .append("recentMedianMs", new Document("$arrayElemAt", List.of("$recent", "$middle")))),
+                stage("$addFields", new Document("increaseMs", new Document("$subtract", List.of("$recentMedianMs", "$previousMedianMs")))),
+                stage("$match", new Document("$expr", new Document("$and", List.of(
+                        new Document("$gte", List.of("$recentMedianMs", new Document("$multiply", List.of("$previousMedianMs", TREND_MIN_RATIO)))),
+                        new Document("$gte", List.of("$increaseMs", TREND_MIN_INCREASE_MS)))))),
+                stage("$sort", new Document("increaseMs", -1)),
+                Aggregation.limit(limit));
+
+        return aggregate(aggregation).stream()
+                .map(row -> {
+                    long before = row.get("previousMedianMs", Number.class).longValue();
+                    long recent = row.get("recentMedianMs", Number.class).longValue();
+                    Map<String, Object> test = describe(row);
+                    test.put("runs", row.get("runs", Number.class).intValue());
+                    test.put("previousMedianMs", before);
+                    test.put("recentMedianMs", recent);
+                    test.put("increaseMs", recent - before);
+                    test.put("ratio", before == 0 ? null : (double) recent / before);
+                    return test;
+                })
+                .toList();
+    }
+
+    /**
+     * Tests instables d'un dépôt/branche: passés seulement après relance sur la période
+     */
+    public List<Map<String, Object>> flakyTests(String gitUrl, String branch, int days, int limit) {
+        return testCaseResultRepository
+                .findByGitRepoUrlAndGitBranchAndFlakyTrueAndRecordedAtAfter(gitUrl, branch, LocalDateTime.now().minusDays(days)).stream()
+                .collect(Collectors.groupingBy(result -> result.getTestClass() + "#" + result.getTestName(),
+                        LinkedHashMap::new, Collectors.toList()))
+                .values().stream()
+                .map(runs -> {
+                    TestCaseResult last = runs.stream().max(Comparator.comparing(TestCaseResult::getRecordedAt)).orElseThrow();
+                    Map<String, Object> test = describe(last);
+                    test.put("flakyRuns", runs.size());
+                    test.put("lastSeen", last.getRecordedAt());
+                    test.put("lastFailureMessage", last.getFailureMessage());
+                    return test;
+                })
+                .sorted(Comparator.comparingInt((Map<String, Object> test) -> (Integer) test.get("flakyRuns")).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Historique d'une méthode de test sur un dépôt/branche: dernières exécutions, taux d'échec et derniers échecs
+     */
+    public Map<String, Object> history(String gitUrl, String branch, String testClass, String testName, int limit) {
+        List<TestCaseResult> runs = testCaseResultRepository.findByGitRepoUrlAndGitBranchAndTestClassAndTestNameOrderByRecordedAtDesc(
+                gitUrl, branch, testClass, testName, PageRequest.of(0, limit));
+        List<TestCaseResult> failures = testCaseResultRepository.findByGitRepoUrlAndGitBranchAndTestClassAndTestNameAndOutcomeInOrderByRecordedAtDesc(
+                gitUrl, branch, testClass, testName, List.of(TestOutcome.FAILED, TestOutcome.ERROR), PageRequest.of(0, limit));
+
+        long failed = runs.stream().filter(run -> run.getOutcome() == TestOutcome.FAILED || run.getOutcome() == TestOutcome.ERROR).count();
+        long executed = runs.stream().filter(run -> run.getOutcome() != TestOutcome.SKIPPED).count();
+
+        Map<String, Object> history = new LinkedHashMap<>();
+        history.put("gitUrl", gitUrl);
+        history.put("branch", branch);
+        history.put("testClass", testClass);
+        history.put("testName", testName);
+        history.put("runs", runs.size());
+        history.put("failures", failed);
+        history.put("flakyRuns", runs.stream().filter(run -> Boolean.TRUE.equals(run.getFlaky())).count());
+        history.put("failureRate", executed == 0 ? 0.0 : (double) failed / executed);
+        history.put("lastFailure", failures.isEmpty() ? null : failures.get(0).getRecordedAt());
+        history.put("recentRuns", runs);
+        history.put("recentFailures", failures);
+        return history;
+    }
+
+    /**
+     * Résultats de tests d'une exécution de pipeline
+     */
+    public List<TestCaseResult> executionResults(String executionId) {
+        return testCaseResultRepository.findByExecutionId(executionId);
+    }
+
+    /**
+     * Index des requêtes par dépôt/branche, par méthode de test et par exécution
+     */
+    private void ensureIndexes() {
+        if (indexesEnsured.get()) {
+            return;
+        }
+        IndexOperations indexes = mongoTemplate.indexOps(TestCaseResult.class);
+        indexes.createIndex(new Index().named("repository_time")
+                .on("gitRepoUrl", Sort.Direction.ASC).on("gitBranch", Sort.Direction.ASC).on("recordedAt", Sort.Direction.DESC));
+        indexes.createIndex(new Index().named("repository_test_time")
+                .on("gitRepoUrl", Sort.Direction.ASC).on("gitBranch", Sort.Direction.ASC)
+                .on("testClass", Sort.Direction.ASC).on("testName", Sort.Direction.ASC).on("recordedAt", Sort.Direction.DESC));
+        indexes.createIndex(new Index().named("execution").on("executionId", Sort.Direction.ASC));
+        indexesEnsured.set(true);
+    }
+
+    /**
+     * Mesures non ignorées d'un dépôt/branche sur la période
+     */
+    private Criteria executedCriteria(String gitUrl, String branch, int days) {
+        return Criteria.where("gitRepoUrl").is(gitUrl)
+                .and("gitBranch").is(branch)
+                .and("recordedAt").gt(LocalDateTime.now().minusDays(days))
+                .and("outcome").ne(TestOutcome.SKIPPED)
+                .and("durationMs").ne(null);
+    }
+
+    private List<Document> aggregate(Aggregation aggregation) {
+        return mongoTemplate.aggregate(aggregation, TestCaseResult.class, Document.class).getMappedResults();
+    }
+
+    /**
+     * Étape d'agrégation brute: champs calculés ($addFields), $match sur $expr, et étapes suivantes
+     * (Spring Data ne résout pas les champs ajoutés par une étape brute)
+     */
+    private static AggregationOperation stage(String operator, Document definition) {
+        return context -> new Document(operator, definition);
+    }
+
+    /**
+     * Premières (count positif) ou dernières (count négatif) durées, triées pour en extraire la médiane
+     */
+    private static Document sortedSlice(Object count) {
+        return new Document("$sortArray", new Document("input", new Document("$slice", List.of("$durations", count)))
+                .append("sortBy", 1));
+    }
+
+    private Map<String, Object> describe(Document row) {
+        Document id = row.get("_id", Document.class);
+        Map<String, Object> test = new LinkedHashMap<>();
+        test.put("testClass", id.getString("testClass"));
+        test.put("testName", id.getString("testName"));
+        return test;
+    }
+
+    private Map<String, Object> describe(TestCaseResult result) {
+        Map<String, Object> test = new LinkedHashMap<>();
+        test.put("testClass", result.getTestClass());
+        test.put("testName", result.getTestName());
+        return test;
+    }
+}
@@ -1,5 +1,12 @@
 package com.imt.demo.steps;
 
+import com.imt.demo.cache.DependencyPrefetcher;
+import com.imt.demo.docker.BuildKitCache;
+import com.imt.demo.docker.DockerEngineClient;
+import com.imt.demo.docker.DockerIgnore;
+import com.imt.demo.docker.DockerProperties;
+import com.imt.demo.docker.ImageSummary;
+import com.imt.demo.docker.LayeredJarExtractor;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.StepResult;
 import com.imt.demo.model.StepStatus;
@@ -12,10 +19,18 @@ import org.w3c.dom.NodeList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Étape 5: Build de l'image Docker
@@ -25,6 +40,45 @@ import java.time.LocalDateTime;
 @Component
 public class DockerBuildStep extends AbstractPipelineStep {
 
+    private static final List<Pattern> GRADLE_JAVA_VERSION_PATTERNS = List.of(
+            Pattern.compile("JavaLanguageVersion\\.of\\(\\s*(\\d+)\\s*\\)"),
+            Pattern.compile("JavaVersion\\.VERSION_(?:1_)?(\\d+)"),
+            Pattern.compile("sourceCompatibility\\s*=\\s*['\"]?(?:1\\.)?(\\d+)")
+    );
+
+    /**
+     * Jars annexes produits à côté du jar exécutable
+     */
+    private static final Pattern SECONDARY_JAR = Pattern.compile(".*-(plain|sources|javadoc|tests)\\.jar");
+
+    /**
+     * Nom du contexte de build BuildKit qui expose le dépôt Maven préchargé au Dockerfile généré
+     */
+    private static final String MAVEN_REPOSITORY_CONTEXT = "maven-repository";
+
+    /**
+     * Répertoire (à côté du jar) recevant les couches extraites du jar Spring Boot
+     */
+    private static final String LAYERS_DIRECTORY = "docker-layers";
+
+    /**
+     * Première ligne du .dockerignore généré pour le mode host-artifact (remplaçable, contrairement à celui du projet)
+     */
+    private static final String GENERATED_DOCKERIGNORE_HEADER = "# Généré par le moteur: seul le jar est envoyé au démon Docker";
+
+    private final DependencyPrefetcher dependencyPrefetcher;
+    private final DockerProperties dockerProperties;
+    private final BuildKitCache buildKitCache;
+    private final DockerEngineClient dockerEngineClient;
+
+    public DockerBuildStep(DependencyPrefetcher dependencyPrefetcher, DockerProperties dockerProperties,
+                           BuildKitCache buildKitCache, DockerEngineClient dockerEngineClient) {
+        this.dependencyPrefetcher = dependencyPrefetcher;
+        this.dockerProperties = dockerProperties;
+        this.buildKitCache = buildKitCache;
+        this.dockerEngineClient = dockerEngineClient;
+    }
+
     @Override
     public String getName() {
         return "Docker Build";
@@ -41,11 +95,38 @@ public class DockerBuildStep extends AbstractPipelineStep {
         try {
             // Vérifier et générer le Dockerfile si nécessaire
             File dockerfileFile = new File(context.getWorkspaceDir(), "Dockerfile");
+            Optional<Path> prefetchedRepository = Optional.empty();
+            boolean buildx = buildKitCache.isAvailable();
             if (!dockerfileFile.exists() || dockerfileFile.length() == 0) {
                 log.info("Dockerfile absent ou vide, génération automatique en cours...");
                 result.addLog("⚠ Dockerfile absent ou vide, génération automatique en cours...");
-                
-                boolean generated = generateDockerfile(context.getWorkspaceDir(), result);
+
+                boolean gradle = "gradle".equalsIgnoreCase(context.getBuildTool());
+                Optional<Path> hostArtifact = dockerProperties.isHostArtifact() ? findHostArtifact(context) : Optional.empty();
+                if (hostArtifact.isPresent() && excludedByDockerignore(context.getWorkspaceDir(), hostArtifact.get(), result)) {
+                    hostArtifact = Optional.empty();
+                }
+                boolean generated;
+                if (hostArtifact.isPresent()) {
+                    // Jar déjà construit par l'étape de build: image de runtime seule, sans second build dans Docker
+                    Optional<LayeredJarExtractor.Layers> layers = dockerProperties.isLayered()
+                            ? extractLayers(context.getWorkspaceDir(), hostArtifact.get(), result)
+                            : Optional.empty();
+                    generated = generateHostArtifactDockerfile(context.getWorkspaceDir(), hostArtifact.get(),
+                            layers.orElse(null), gradle, result);
+                    result.addMetric("dockerfileMode", layers.isPresent() ? "host-artifact-layered" : "host-artifact");
+                } else {
+                    // Un .dockerignore host-artifact laissé par un build précédent exclurait les sources
+                    removeGeneratedDockerignore(context.getWorkspaceDir());
+                    // Le contexte de build nommé (--build-context) n'est passé qu'au builder buildx
+                    if (!gradle && buildx) {
+                        prefetchedRepository = dependencyPrefetcher.dockerRepository(Path.of(context.getWorkspaceDir()));
+                    }
+                    generated = gradle
+                            ? generateGradleDockerfile(context.getWorkspaceDir(), result)
+                            : generateDockerfile(context.getWorkspaceDir(), result, prefetchedRepository.isPresent());
+                    result.addMetric("dockerfileMode", "multi-stage");
+                }
                 if (!generated) {
                     result.setStatus(StepStatus.FAILED);
                     result.setErrorMessage("Échec de la génération du Dockerfile");
@@ -72,13 +153,27 @@ public class DockerBuildStep extends AbstractPipelineStep {
             result.addLog(" Construction de l'image Docker: " + fullImageName);
 
             // Commande Docker build
-            String[] command = {
-                "docker", "build",
-                "-t", fullImageName,
-                "."
-            };
+            List<String> command = new ArrayList<>();
+            if (buildx) {
+                // Builder BuildKit dédié: cache du dernier build du dépôt importé, cache de ce build exporté
+                boolean warm = buildKitCache.hasCache(context.getGitUrl());
+                command.addAll(List.of("docker", "buildx", "build", "-t", fullImageName));
+                command.addAll(buildKitCache.buildArguments(context.getGitUrl(), context.getPipelineId()));
+                result.addMetric("buildCacheImported", warm);
+                result.addLog(warm ? " Cache BuildKit du dépôt importé" : " Aucun cache BuildKit pour ce dépôt (premier build)");
+            } else {
+                command.addAll(List.of("docker", "build", "-t", fullImageName));
+            }
+            if (prefetchedRepository.isPresent()) {
+                // Dépendances préchargées: exposées au Dockerfile généré sans passer par le contexte principal
+                command.add("--build-context");
+                command.add(MAVEN_REPOSITORY_CONTEXT + "=" + prefetchedRepository.get());
+                result.addLog(" Dépôt Maven préchargé monté dans le build: " + prefetchedRepository.get());
+            }
+            command.add(".");
 
-            StepResult buildResult = executeCommand(command, context.getWorkspaceDir());
+            StepResult buildResult = executeCommand(command.toArray(String[]::new), context.getWorkspaceDir(),
+                    Map.of("DOCKER_BUILDKIT", "1"));
             
             // Fusionner les résultats
             result.getLogs().addAll(buildResult.getLogs());
@@ -87,8 +182,17 @@ public class DockerBuildStep extends AbstractPipelineStep {
             result.setEndTime(LocalDateTime.now());
             result.calculateDuration();
 
+            result.addMetric("dockerBuildMs", buildResult.getDurationMs());
+            if (buildx) {
+                buildKitCache.complete(context.getGitUrl(), context.getPipelineId(), result.getStatus() == StepStatus.SUCCESS);
+            }
+
             if (result.getStatus() == StepStatus.SUCCESS) {
                 result.addLog("✓ Image Docker créée: " + fullImageName);
+                imageSize(fullImageName).ifPresent(size -> {
+                    result.addMetric("imageSizeBytes", size);
+                    result.addLog(String.format("  Taille de l'image: %.1f Mo", size / 1_048_576.0));
+                });
             }
 
         } catch (Exception e) {
@@ -108,16 +212,19 @@ public class DockerBuildStep extends AbstractPipelineStep {
      * 
      * @param workspaceDir Le répertoire de travail du projet
      * @param result Le résultat de l'étape pour ajouter des logs
+     * @param prefetched true si le dépôt Maven préchargé est fourni comme contexte de build
      * @return true si la génération a réussi, false sinon
      */
-    private boolean generateDockerfile(String workspaceDir, StepResult result) {
+    private boolean generateDockerfile(String workspaceDir, StepResult result, boolean prefetched) {
         try {
             // Détecter la version Java du projet
             String javaVersion = detectJavaVersion(workspaceDir);
             result.addLog("  Version Java détectée: " + javaVersion);
             
             // Générer le contenu du Dockerfile
-            String dockerfileContent = generateDockerfileContent(javaVersion);
+            String dockerfileContent = prefetched
+                    ? generatePrefetchedDockerfileContent(javaVersion)
+                    : generateDockerfileContent(javaVersion);
             
             // Écrire le Dockerfile
             Path dockerfilePath = Paths.get(workspaceDir, "Dockerfile");
@@ -133,6 +240,240 @@ public class DockerBuildStep extends AbstractPipelineStep {
         }
     }
 
+    /**
+     * Jar exécutable produit par l'étape de build (motif context.getArtifactPath(), ex: target/*.jar).
+     * Les jars annexes (-plain, -sources, -javadoc, -tests) sont ignorés.
+     *
+     * @return le chemin du jar relatif au workspace, ou empty si aucun jar n'a été construit
+     */
+    private Optional<Path> findHostArtifact(PipelineContext context) {
+        if (context.getArtifactPath() == null) {
+            return Optional.empty();
+        }
+
+        Path workspace = Path.of(context.getWorkspaceDir());
+        Path pattern = Path.of(context.getArtifactPath());
+        Path directory = pattern.getParent();
+        if (directory == null || !Files.isDirectory(directory) || !directory.startsWith(workspace)) {
+            return Optional.empty();
+        }
+
+        List<Path> jars = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, pattern.getFileName().toString())) {
+            for (Path jar : stream) {
+                if (Files.isRegularFile(jar) && !SECONDARY_JAR.matcher(jar.getFileName().toString()).matches()) {
+                    jars.add(jar);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Impossible de rechercher l'artifact {}: {}", context.getArtifactPath(), e.getMessage());
+            return Optional.empty();
+        }
+        if (jars.size() != 1) {
+            if (jars.size() > 1) {
+                log.warn("Plusieurs jars correspondent à {}: build multi-stage", context.getArtifactPath());
+            }
+            return Optional.empty();
+        }
+        return Optional.of(workspace.relativize(jars.get(0)));
+    }
+
+    /**
+     * Le .dockerignore du projet exclut-il le jar (ou ses couches extraites) du contexte de build?
+     * Dans ce cas le COPY du Dockerfile de runtime échouerait: le build repasse en multi-stage.
+     */
+    private boolean excludedByDockerignore(String workspaceDir, Path jar, StepResult result) {
+        Path workspace = Path.of(workspaceDir);
+        if (isGeneratedDockerignore(workspace)) {
+            return false;
+        }
+        List<String> copied = new ArrayList<>();
+        copied.add(jar.toString());
+        if (dockerProperties.isLayered()) {
+            copied.add(jar.resolveSibling(LAYERS_DIRECTORY).resolve("application").toString());
+        }
+        try {
+            for (String path : copied) {
+                if (DockerIgnore.excludes(workspace, path)) {
+                    log.warn("Le .dockerignore du projet exclut {}: build multi-stage", path);
+                    result.addLog("⚠ Le .dockerignore du projet exclut " + path.replace('\\', '/') + ": build multi-stage");
+                    result.addMetric("hostArtifactFallback", "dockerignore");
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            log.warn("Lecture du .dockerignore impossible: {}", e.getMessage());
+            result.addLog("⚠ .dockerignore illisible, build multi-stage: " + e.getMessage());
+            return true;
+        }
+    }
+
+    private static boolean isGeneratedDockerignore(Path workspace) {
+        Path dockerignore = workspace.resolve(DockerIgnore.FILE_NAME);
+        try {
+            return Files.isRegularFile(dockerignore)
+                    && Files.readString(dockerignore, StandardCharsets.UTF_8).startsWith(GENERATED_DOCKERIGNORE_HEADER);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void removeGeneratedDockerignore(String workspaceDir) {
+        Path workspace = Path.of(workspaceDir);
+        if (isGeneratedDockerignore(workspace)) {
+            try {
+                Files.deleteIfExists(workspace.resolve(DockerIgnore.FILE_NAME));
+            } catch (Exception e) {
+                log.warn("Impossible de supprimer le .dockerignore généré: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Extrait le jar Spring Boot en couches (dependencies, spring-boot-loader, snapshot-dependencies, application)
+     * dans le répertoire docker-layers voisin du jar
+     *
+     * @param workspaceDir Le répertoire de travail du projet
+     * @param jar Le jar exécutable, relatif au workspace
+     * @param result Le résultat de l'étape pour ajouter des logs et les tailles de couches
+     * @return les couches extraites, ou empty si le jar n'est pas en couches (Dockerfile avec le jar complet)
+     */
+    private Optional<LayeredJarExtractor.Layers> extractLayers(String workspaceDir, Path jar, StepResult result) {
+        Path workspace = Path.of(workspaceDir);
+        try {
+            Optional<LayeredJarExtractor.Layers> layers = LayeredJarExtractor.extract(
+                    workspace.resolve(jar), workspace.resolve(jar.resolveSibling(LAYERS_DIRECTORY)));
+            if (layers.isEmpty()) {
+                result.addLog("  Jar sans BOOT-INF/layers.idx: image avec le jar complet");
+                return Optional.empty();
+            }
+
+            long jarBytes = Files.size(workspace.resolve(jar));
+            long applicationBytes = layers.get().getSizes().getOrDefault("application", 0L);
+            result.addMetric("layerBytes", layers.get().getSizes());
+            result.addMetric("applicationLayerBytes", applicationBytes);
+            result.addMetric("jarBytes", jarBytes);
+            layers.get().getSizes().forEach((name, bytes) ->
+                    result.addLog(String.format("  Couche %s: %.1f Ko", name, bytes / 1024.0)));
+            result.addLog(String.format("  Couche application: %.1f Ko sur %.1f Ko pour le jar complet",
+                    applicationBytes / 1024.0, jarBytes / 1024.0));
+            return layers;
+
+        } catch (Exception e) {
+            log.warn("Extraction des couches du jar {} impossible: {}", jar, e.getMessage());
+            result.addLog("⚠ Extraction des couches impossible, image avec le jar complet: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Génère un Dockerfile de runtime qui copie le jar construit sur l'hôte (ou ses couches extraites),
+     * et un .dockerignore (si le projet n'en a pas, ou si le moteur l'a généré) pour n'envoyer que ce jar au démon Docker
+     *
+     * @param workspaceDir Le répertoire de travail du projet
+     * @param jar Le jar exécutable, relatif au workspace
+     * @param layers Les couches extraites du jar, ou null pour copier le jar complet
+     * @param gradle true pour un projet Gradle (détection de la version Java)
+     * @param result Le résultat de l'étape pour ajouter des logs
+     * @return true si la génération a réussi, false sinon
+     */
+    private boolean generateHostArtifactDockerfile(String workspaceDir, Path jar, LayeredJarExtractor.Layers layers,
+                                                   boolean gradle, StepResult result) {
+        try {
+            String javaVersion = gradle ? detectGradleJavaVersion(workspaceDir) : detectJavaVersion(workspaceDir);
+            String jarPath = jar.toString().replace('\\', '/');
+            String contextPath = layers != null
+                    ? jar.resolveSibling(LAYERS_DIRECTORY).toString().replace('\\', '/')
+                    : jarPath;
+            result.addLog("  Version Java détectée: " + javaVersion);
+            result.addLog("  Jar construit par le pipeline réutilisé: " + jarPath);
+
+            String dockerfileContent = layers != null
+                    ? generateLayeredDockerfileContent(javaVersion, contextPath, layers)
+                    : generateHostArtifactDockerfileContent(javaVersion, jarPath);
+            Files.writeString(Paths.get(workspaceDir, "Dockerfile"), dockerfileContent);
+
+            Path dockerignore = Paths.get(workspaceDir, DockerIgnore.FILE_NAME);
+            if (!Files.exists(dockerignore) || isGeneratedDockerignore(Path.of(workspaceDir))) {
+                Files.writeString(dockerignore, GENERATED_DOCKERIGNORE_HEADER + "\n*\n!" + contextPath + "\n");
+            }
+
+            log.info("Dockerfile de runtime généré pour le jar {}", jarPath);
+            return true;
+
+        } catch (Exception e) {
+            log.error("Erreur lors de la génération du Dockerfile de runtime", e);
+            result.addLog("✗ Erreur lors de la génération du Dockerfile: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Génère un Dockerfile pour un projet Gradle Spring Boot
+     *
+     * @param workspaceDir Le répertoire de travail du projet
+     * @param result Le résultat de l'étape pour ajouter des logs
+     * @return true si la génération a réussi, false sinon
+     */
+    private boolean generateGradleDockerfile(String workspaceDir, StepResult result) {
+        try {
+            String javaVersion = detectGradleJavaVersion(workspaceDir);
+            result.addLog("  Version Java détectée: " + javaVersion);
+
+            boolean wrapper = new File(workspaceDir, "gradlew").exists();
+            result.addLog("  Gradle: " + (wrapper ? "wrapper du projet (gradlew)" : "image " + getGradleImage(javaVersion)));
+
+            String dockerfileContent = generateGradleDockerfileContent(javaVersion, wrapper);
+
+            Path dockerfilePath = Paths.get(workspaceDir, "Dockerfile");
+            Files.writeString(dockerfilePath, dockerfileContent);
+
+            log.info("Dockerfile Gradle généré avec succès dans: {}", dockerfilePath);
+            return true;
+
+        } catch (Exception e) {
+            log.error("Erreur lors de la génération du Dockerfile Gradle", e);
+            result.addLog("✗ Erreur lors de la génération du Dockerfile: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Détecte la version Java configurée dans build.gradle ou build.gradle.kts
+     * (toolchain, sourceCompatibility ou JavaVersion.VERSION_x)
+     *
+     * @param workspaceDir Le répertoire de travail du projet
+     * @return La version Java (par défaut "17" si non trouvée)
+     */
+    private String detectGradleJavaVersion(String workspaceDir) {
+        try {
+            Path buildFile = Paths.get(workspaceDir, "build.gradle.kts");
+            if (!Files.exists(buildFile)) {
+                buildFile = Paths.get(workspaceDir, "build.gradle");
+            }
+            if (!Files.exists(buildFile)) {
+                log.warn("build.gradle non trouvé, utilisation de Java 17 par défaut");
+                return "17";
+            }
+
+            String content = Files.readString(buildFile);
+            for (Pattern pattern : GRADLE_JAVA_VERSION_PATTERNS) {
+                Matcher matcher = pattern.matcher(content);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+            }
+
+            log.warn("Version Java non trouvée dans {}, utilisation de Java 17 par défaut", buildFile.getFileName());
+            return "17";
+
+        } catch (Exception e) {
+            log.error("Erreur lors de la lecture du build Gradle", e);
+            return "17";
+        }
+    }
+
     /**
      * Détecte la version Java configurée dans le pom.xml
      * 
@@ -197,6 +538,7 @@ public class DockerBuildStep extends AbstractPipelineStep {
         String runtimeImage = getRuntimeImage(javaVersion);
 
         return String.format("""
+            # syntax=docker/dockerfile:1
             # Étape de build avec Maven
             FROM %s as build
             
@@ -207,14 +549,14 @@ public class DockerBuildStep extends AbstractPipelineStep {
             # Copier le fichier pom.xml pour récupérer les dépendances
             COPY pom.xml /api
             
-            # Précharger les dépendances Maven pour un build plus rapide
-            RUN mvn dependency:go-offline -B
+            # Précharger les dépendances Maven (dépôt local persistant d'un build à l'autre via le cache BuildKit)
+            RUN --mount=type=cache,target=/root/.m2 mvn dependency:go-offline -B
             
             # Copier le code source
             COPY src /api/src
             
             # Compiler le projet et créer le package
-            RUN mvn -f /api/pom.xml clean package -DskipTests
+            RUN --mount=type=cache,target=/root/.m2 mvn -f /api/pom.xml clean package -DskipTests
             
             # Étape finale avec l'image de runtime
             FROM %s
@@ -230,6 +572,199 @@ public class DockerBuildStep extends AbstractPipelineStep {
             """, mavenImage, runtimeImage);
     }
 
+    /**
+     * Génère le contenu du Dockerfile de runtime pour un jar construit par le pipeline
+     *
+     * @param javaVersion La version Java du projet
+     * @param jarPath Le chemin du jar, relatif au contexte de build
+     * @return Le contenu du Dockerfile
+     */
+    private String generateHostArtifactDockerfileContent(String javaVersion, String jarPath) {
+        String runtimeImage = getRuntimeImage(javaVersion);
+
+        return String.format("""
+            # Image de runtime uniquement: le jar a été construit par l'étape de build du pipeline
+            FROM %s
+            
+            # Copier le jar exécutable construit sur l'hôte
+            COPY %s app.jar
+            
+            # Exposer le port utilisé par Spring Boot
+            EXPOSE 8080/tcp
+            
+            # Commande d'entrée pour démarrer l'application
+            ENTRYPOINT ["java", "-Dspring.profiles.active=docker", "-jar", "/app.jar"]
+            """, runtimeImage, jarPath);
+    }
+
+    /**
+     * Génère le contenu du Dockerfile de runtime à partir des couches extraites du jar: une instruction COPY
+     * par couche, de la moins à la plus changeante, pour que seule la couche application soit reconstruite
+     * et retransférée lorsque les dépendances n'ont pas changé
+     *
+     * @param javaVersion La version Java du projet
+     * @param layersPath Le répertoire des couches, relatif au contexte de build
+     * @param layers Les couches extraites du jar
+     * @return Le contenu du Dockerfile
+     */
+    private String generateLayeredDockerfileContent(String javaVersion, String layersPath, LayeredJarExtractor.Layers layers) {
+        String runtimeImage = getRuntimeImage(javaVersion);
+        StringBuilder copies = new StringBuilder();
+        for (String layer : layers.getNames()) {
+            copies.append("COPY ").append(layersPath).append('/').append(layer).append("/ ./\n");
+        }
+
+        return String.format("""
+            # Image de runtime uniquement: le jar construit par le pipeline est copié couche par couche
+            FROM %s
+            
+            WORKDIR /application
+            
+            # Une couche d'image par couche Spring Boot (dépendances d'abord, code de l'application en dernier)
+            %s
+            # Exposer le port utilisé par Spring Boot
+            EXPOSE 8080/tcp
+            
+            # Commande d'entrée pour démarrer l'application (lanceur Spring Boot sur le jar éclaté)
+            ENTRYPOINT ["java", "-Dspring.profiles.active=docker", "%s"]
+            """, runtimeImage, copies, layers.getLauncher());
+    }
+
+    /**
+     * Taille de l'image construite (API Docker Engine, ou docker image inspect)
+     *
+     * @param fullImageName L'image et son tag
+     * @return la taille en octets, ou empty si elle n'a pas pu être lue
+     */
+    private Optional<Long> imageSize(String fullImageName) {
+        if (dockerEngineClient.isAvailable()) {
+            try {
+                return dockerEngineClient.inspectImage(fullImageName).map(ImageSummary::getSize);
+            } catch (Exception e) {
+                log.debug("Inspection de l'image {} via l'API impossible: {}", fullImageName, e.getMessage());
+            }
+        }
+        try {
+            Process process = new ProcessBuilder("docker", "image", "inspect", "-f", "{{.Size}}", fullImageName)
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return process.waitFor() == 0 ? Optional.of(Long.parseLong(output)) : Optional.empty();
+        } catch (Exception e) {
+            log.debug("Taille de l'image {} non disponible: {}", fullImageName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Génère le contenu du Dockerfile Maven lorsque les dépendances ont été préchargées sur l'hôte:
+     * le dépôt partagé est monté en lecture seule (contexte de build nommé) et chaîné derrière le dépôt local
+     * du conteneur, ce qui remplace l'étape dependency:go-offline
+     *
+     * @param javaVersion La version Java du projet
+     * @return Le contenu du Dockerfile
+     */
+    private String generatePrefetchedDockerfileContent(String javaVersion) {
+        String mavenImage = getMavenImage(javaVersion);
+        String runtimeImage = getRuntimeImage(javaVersion);
+
+        return String.format("""
+            # syntax=docker/dockerfile:1
+            # Étape de build avec Maven
+            FROM %s as build
+            
+            # Créer le répertoire de l'application et définir le répertoire de travail
+            RUN mkdir -p /api
+            WORKDIR /api
+            
+            # Copier le pom.xml et le code source
+            COPY pom.xml /api
+            COPY src /api/src
+            
+            # Compiler avec les dépendances préchargées par le moteur (dépôt partagé monté en lecture seule)
+            RUN --mount=type=bind,from=%s,target=/prefetched-repository \\
+                --mount=type=cache,target=/root/.m2 \\
+                mvn -f /api/pom.xml clean package -DskipTests -B \\
+                -Dmaven.repo.local.tail=/prefetched-repository -Daether.enhancedLocalRepository.split=true
+            
+            # Étape finale avec l'image de runtime
+            FROM %s
+            
+            # Copier le fichier .jar généré à partir de l'étape précédente
+            COPY --from=build /api/target/*.jar app.jar
+            
+            # Exposer le port utilisé par Spring Boot
+            EXPOSE 8080/tcp
+            
+            # Commande d'entrée pour démarrer l'application
+            ENTRYPOINT ["java", "-Dspring.profiles.active=docker", "-jar", "/app.jar"]
+            """, mavenImage, MAVEN_REPOSITORY_CONTEXT, runtimeImage);
+    }
+
+    /**
+     * Génère le contenu du Dockerfile pour Gradle et Spring Boot.
+     * Le jar exécutable est isolé des jars "-plain" produits à côté par le plugin Spring Boot.
+     *
+     * @param javaVersion La version Java du projet
+     * @param wrapper true si le projet fournit un wrapper Gradle (version de Gradle imposée par le projet)
+     * @return Le contenu du Dockerfile
+     */
+    private String generateGradleDockerfileContent(String javaVersion, boolean wrapper) {
+        String gradleImage = getGradleImage(javaVersion);
+        String runtimeImage = getRuntimeImage(javaVersion);
+        String gradle = wrapper ? "./gradlew" : "gradle";
+
+        return String.format("""
+            # syntax=docker/dockerfile:1
+            # Étape de build avec Gradle
+            FROM %1$s as build
+            
+            # Créer le répertoire de l'application et définir le répertoire de travail
+            RUN mkdir -p /api
+            WORKDIR /api
+            
+            # Copier le projet (scripts de build, wrapper, catalogue de versions et sources)
+            COPY . /api
+            
+            # Compiler le projet et créer le package
+            RUN --mount=type=cache,target=/root/.gradle %2$s assemble --no-daemon --console=plain
+            
+            # Isoler le jar exécutable (le plugin Spring Boot produit aussi un jar "-plain")
+            RUN find build/libs -maxdepth 1 -name '*.jar' ! -name '*-plain.jar' -exec cp {} /api/app.jar \\;
+            
+            # Étape finale avec l'image de runtime
+            FROM %3$s
+            
+            # Copier le fichier .jar généré à partir de l'étape précédente
+            COPY --from=build /api/app.jar app.jar
+            
+            # Exposer le port utilisé par Spring Boot
+            EXPOSE 8080/tcp
+            
+            # Commande d'entrée pour démarrer l'application
+            ENTRYPOINT ["java", "-Dspring.profiles.active=docker", "-jar", "/app.jar"]
+            """, gradleImage, gradle, runtimeImage);
+    }
+
+    /**
+     * Obtient l'image Gradle appropriée selon la version Java
+     *
+     * @param javaVersion La version Java
+     * @return Le nom de l'image Gradle Docker
+     */
+    private String getGradleImage(String javaVersion) {
+        return switch (javaVersion) {
+            case "21" -> "gradle:8.10.2-jdk21";
+            case "17" -> "gradle:8.10.2-jdk17";
+            case "11" -> "gradle:8.10.2-jdk11";
+            case "8" -> "gradle:8.10.2-jdk8";
+            default -> {
+                log.warn("Version Java non standard: {}, utilisation de Java 17", javaVersion);
+                yield "gradle:8.10.2-jdk17";
+            }
+        };
+    }
+
     /**
      * Obtient l'image Maven appropriée selon la version Java
      * 
@@ -1,12 +1,34 @@
 package com.imt.demo.steps;
 
+import com.imt.demo.deploy.BlueGreenProxy;
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.deploy.DeploymentHistory;
+import com.imt.demo.deploy.DowntimeProbe;
+import com.imt.demo.deploy.ImageTransfer;
+import com.imt.demo.deploy.RegistryRelay;
+import com.imt.demo.deploy.SshConnectionPool;
+import com.imt.demo.deploy.SshTarget;
+import com.imt.demo.docker.ContainerSummary;
+import com.imt.demo.docker.DockerEngineClient;
+import com.imt.demo.docker.DockerStateIndex;
+import com.imt.demo.docker.ImageSummary;
+import com.imt.demo.model.DeploymentRecord;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Étape 7: Déploiement de l'image Docker sur un serveur distant via SSH
@@ -15,6 +37,48 @@ import java.util.List;
 @Component
 public class DockerDeployStep extends AbstractPipelineStep {
 
+    /**
+     * Délai laissé au container pour s'arrêter avant SIGKILL (valeur par défaut de docker stop)
+     */
+    private static final int STOP_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Préfixe du container remplacé, conservé arrêté (un par port) pour un rollback immédiat
+     */
+    private static final String RETAINED_PREFIX = "jonk-previous-";
+
+    /**
+     * Ligne émise par la commande distante pour signaler le container conservé
+     */
+    private static final String RETAINED_MARKER = "jonk-retained: ";
+
+    private final DockerEngineClient dockerEngineClient;
+    private final DockerStateIndex dockerStateIndex;
+    private final DeployProperties deployProperties;
+    private final ImageTransfer imageTransfer;
+    private final RegistryRelay registryRelay;
+    private final SshConnectionPool sshConnectionPool;
+    private final BlueGreenProxy blueGreenProxy;
+    private final DowntimeProbe downtimeProbe;
+    private final HealthCheckStep healthCheckStep;
+    private final DeploymentHistory deploymentHistory;
+
+    public DockerDeployStep(DockerEngineClient dockerEngineClient, DockerStateIndex dockerStateIndex,
+                            DeployProperties deployProperties, ImageTransfer imageTransfer, RegistryRelay registryRelay,
+                            SshConnectionPool sshConnectionPool, BlueGreenProxy blueGreenProxy, DowntimeProbe downtimeProbe,
+                            HealthCheckStep healthCheckStep, DeploymentHistory deploymentHistory) {
+        this.dockerEngineClient = dockerEngineClient;
+        this.dockerStateIndex = dockerStateIndex;
+        this.deployProperties = deployProperties;
+        this.imageTransfer = imageTransfer;
+        this.registryRelay = registryRelay;
+        this.sshConnectionPool = sshConnectionPool;
+        this.blueGreenProxy = blueGreenProxy;
+        this.downtimeProbe = downtimeProbe;
+        this.healthCheckStep = healthCheckStep;
+        this.deploymentHistory = deploymentHistory;
+    }
+
     @Override
     public String getName() {
         return "Docker Deploy";
@@ -30,9 +94,21 @@ public class DockerDeployStep extends AbstractPipelineStep {
         // Sauvegarder le nom du container pour le rollback
         context.setContainerName(containerName);
 
+        // Version en service avant ce déploiement, d'après l'historique
+        if (context.getPreviousDockerImageTag() == null) {
+            String prefix = context.getDockerImageName() + ":";
+            deploymentHistory.active(DeploymentHistory.host(context), context.getDeploymentPort())
+                    .map(DeploymentRecord::getImage)
+                    .filter(image -> image.startsWith(prefix) && !image.equals(fullImageName))
+                    .ifPresent(image -> context.setPreviousDockerImageTag(image.substring(prefix.length())));
+        }
+
         // Si déploiement distant (SSH)
         if (context.getDeploymentHost() != null && context.getSshUser() != null) {
             return deployRemote(context, fullImageName, containerName);
+        } else if (isBlueGreen(context)) {
+            // Déploiement local sans interruption: bascule via le proxy
+            return deployBlueGreen(context, fullImageName, containerName);
         } else {
             // Déploiement local
             return deployLocal(context, fullImageName, containerName);
@@ -43,31 +119,33 @@ public class DockerDeployStep extends AbstractPipelineStep {
      * Déploiement local (sur la même machine)
      */
     private StepResult deployLocal(PipelineContext context, String imageName, String containerName) {
+        if (dockerEngineClient.isAvailable()) {
+            return deployLocalWithEngineApi(context, imageName, containerName);
+        }
+
         List<String[]> commands = new ArrayList<>();
+        String retained = retainedName(context.getDeploymentPort());
 
-        // Vérifier et nettoyer le container existant si nécessaire
-        if (containerExists(containerName)) {
+        // Le container qui tient le port est conservé arrêté (rollback immédiat) à la place du précédent conservé
+        String portInUse = findContainerUsingPort(context.getDeploymentPort());
+        if (portInUse != null) {
+            log.info("Port {} utilisé par le container '{}', conservé arrêté sous le nom {}", context.getDeploymentPort(), portInUse, retained);
+            if (containerExists(retained)) {
+                commands.add(new String[]{"docker", "rm", "-f", retained});
+            }
+            commands.add(new String[]{"docker", "stop", portInUse});
+            commands.add(new String[]{"docker", "rename", portInUse, retained});
+        }
+
+        // Vérifier et nettoyer un container homonyme arrêté
+        if (!containerName.equals(portInUse) && containerExists(containerName)) {
             log.info("Container existant détecté ({}), nettoyage en cours...", containerName);
-            
+
             // Arrêter le container existant
             commands.add(new String[]{"docker", "stop", containerName});
-            
-            // Supprimer le container
-            commands.add(new String[]{"docker", "rm", containerName});
-        } else {
-            log.info("Aucun container existant nommé '{}', vérification du port...", containerName);
-        }
 
-        // Vérifier si le port est déjà utilisé et nettoyer si nécessaire
-        String portInUse = findContainerUsingPort(context.getDeploymentPort());
-        if (portInUse != null && !portInUse.equals(containerName)) {
-            log.info("Port {} déjà utilisé par le container '{}', nettoyage...", context.getDeploymentPort(), portInUse);
-            
-            // Arrêter le container qui utilise le port
-            commands.add(new String[]{"docker", "stop", portInUse});
-            
             // Supprimer le container
-            commands.add(new String[]{"docker", "rm", portInUse});
+            commands.add(new String[]{"docker", "rm", containerName});
         }
 
         // Démarrer le nouveau container
@@ -82,87 +160,340 @@ public class DockerDeployStep extends AbstractPipelineStep {
 
         StepResult result = executeCommands(commands, null, null);
 
-        if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
+        if (result.getStatus() == StepStatus.SUCCESS) {
+            recordDeployment(context, imageName, portInUse, null, null);
+            result.addLog("✓ Application déployée localement");
+            result.addLog("  Container: " + containerName);
+            result.addLog("  Port: " + context.getDeploymentPort());
+            result.addLog("  Image: " + imageName);
+        }
+
+        return result;
+    }
+
+    /**
+     * Déploiement local via l'API Docker Engine: mêmes opérations que la CLI, sans processus docker
+     */
+    private StepResult deployLocalWithEngineApi(PipelineContext context, String imageName, String containerName) {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+        result.addMetric("dockerEngineApi", true);
+
+        try {
+            // Le container qui tient le port est conservé arrêté (rollback immédiat) à la place du précédent conservé
+            String retained = retainedName(context.getDeploymentPort());
+            Optional<ContainerSummary> portOwner = lookupContainerUsingPort(context.getDeploymentPort());
+            if (portOwner.isPresent()) {
+                log.info("Port {} utilisé par le container '{}', conservé arrêté sous le nom {}",
+                        context.getDeploymentPort(), portOwner.get().getName(), retained);
+                lookupContainer(retained).ifPresent(container -> dockerEngineClient.removeContainer(container.getId(), true));
+                dockerEngineClient.stopContainer(portOwner.get().getId(), STOP_TIMEOUT_SECONDS);
+                dockerEngineClient.renameContainer(portOwner.get().getId(), retained);
+                result.addLog(" Container conservé arrêté: " + portOwner.get().getName() + " → " + retained);
+            }
+
+            // Vérifier et nettoyer un container homonyme arrêté
+            Optional<ContainerSummary> existing = lookupContainer(containerName);
+            if (existing.isPresent() && portOwner.map(owner -> !owner.getId().equals(existing.get().getId())).orElse(true)) {
+                log.info("Container existant détecté ({}), nettoyage en cours...", containerName);
+                removeContainer(existing.get(), result);
+            }
+
+            // Démarrer le nouveau container
+            String containerId = createContainer(containerName, imageName, context.getDeploymentPort());
+            dockerEngineClient.startContainer(containerId);
+            result.addLog(" Container démarré: " + containerId);
+            recordDeployment(context, imageName, portOwner.map(ContainerSummary::getName).orElse(null), null, null);
+
+            result.setStatus(StepStatus.SUCCESS);
             result.addLog("✓ Application déployée localement");
             result.addLog("  Container: " + containerName);
             result.addLog("  Port: " + context.getDeploymentPort());
             result.addLog("  Image: " + imageName);
+
+        } catch (Exception e) {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage("Exception: " + e.getMessage());
+            result.addLog("✗ Exception: " + e.getMessage());
+            log.error("Erreur lors du déploiement via l'API Docker", e);
         }
 
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
         return result;
     }
 
+    private boolean isBlueGreen(PipelineContext context) {
+        return context.getBlueGreen() != null ? context.getBlueGreen() : deployProperties.isBlueGreen();
+    }
+
+    /**
+     * Déploiement local bleu/vert: le nouveau container démarre sur un port de service libre et y passe le health check
+     * pendant que l'ancien continue de servir. Le proxy du port public bascule ensuite vers lui (nginx -s reload),
+     * puis l'ancien est arrêté après un délai de drainage. Une sonde mesure l'indisponibilité vue sur le port public.
+     * Au premier passage en bleu/vert, le port public est encore tenu par l'ancien container: il est libéré
+     * pour démarrer le proxy, seule coupure (brève) du mode.
+     */
+    private StepResult deployBlueGreen(PipelineContext context, String imageName, String containerName) throws Exception {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+        result.addMetric("deployMode", "blue-green");
+        String publicPort = context.getDeploymentPort();
+
+        // Container qui sert le trafic: derrière le proxy, ou publiant directement le port public
+        Optional<Integer> upstream = blueGreenProxy.activeUpstream(publicPort);
+        String active = findContainerUsingPort(upstream.map(String::valueOf).orElse(publicPort));
+        DowntimeProbe.Probe probe = active != null ? downtimeProbe.start("localhost", publicPort) : null;
+
+        String retained = retainedName(publicPort);
+        int servicePort;
+        try {
+            // L'ancien container sera conservé arrêté: il prend dès maintenant le nom de conservation
+            if (active != null) {
+                removeLocalContainer(retained, result);
+                renameLocalContainer(active, retained);
+            }
+            if (!containerName.equals(active)) {
+                removeLocalContainer(containerName, result);
+            }
+
+            servicePort = freePort();
+            startLocalContainer(containerName, imageName, String.valueOf(servicePort));
+            result.addLog(" Container " + containerName + " démarré sur le port de service " + servicePort
+                    + (active != null ? " (" + active + " sert toujours le port " + publicPort + ")" : ""));
+        } catch (Exception e) {
+            return finishBlueGreen(result, probe, "Démarrage du nouveau container impossible: " + e.getMessage());
+        }
+        result.addMetric("servicePort", servicePort);
+
+        // Health check sur le port de service, avant que le moindre trafic n'y soit envoyé
+        StepResult health = healthCheckStep.execute(context.toBuilder()
+                .deploymentPort(String.valueOf(servicePort))
+                .containerName(containerName)
+                .build());
+        health.getLogs().forEach(line -> result.addLog("  " + line));
+        if (health.getStatus() != StepStatus.SUCCESS) {
+            removeLocalContainer(containerName, result);
+            if (active != null) {
+                renameLocalContainer(retained, active);
+            }
+            return finishBlueGreen(result, probe, "Nouveau container en échec au health check, trafic laissé sur "
+                    + (active != null ? active : "aucun container") + ": " + health.getErrorMessage());
+        }
+
+        // Bascule du port public
+        List<String> output = new ArrayList<>();
+        boolean switched;
+        if (upstream.isPresent()) {
+            switched = blueGreenProxy.switchTo(publicPort, servicePort, output);
+        } else {
+            if (active != null) {
+                stopLocalContainer(retained);
+            }
+            switched = blueGreenProxy.start(publicPort, servicePort, output);
+        }
+        output.forEach(result::addLog);
+        if (!switched) {
+            return finishBlueGreen(result, probe, "Bascule du proxy " + blueGreenProxy.containerName(publicPort) + " échouée");
+        }
+        result.addLog(" Port " + publicPort + " basculé vers " + containerName + " (port " + servicePort + ")");
+
+        // Les requêtes en cours sur l'ancien container se terminent avant son arrêt (il reste conservé)
+        if (active != null) {
+            Thread.sleep(deployProperties.getDrainDelay().toMillis());
+            stopLocalContainer(retained);
+            result.addLog(" Container conservé arrêté: " + active + " → " + retained);
+        }
+        recordDeployment(context, imageName, active, servicePort, upstream.orElse(null));
+
+        result.addLog("✓ Application déployée localement (bleu/vert)");
+        result.addLog("  Container: " + containerName);
+        result.addLog("  Port: " + publicPort + " → " + servicePort);
+        result.addLog("  Image: " + imageName);
+        return finishBlueGreen(result, probe, null);
+    }
+
+    private StepResult finishBlueGreen(StepResult result, DowntimeProbe.Probe probe, String error) throws InterruptedException {
+        if (probe != null) {
+            DowntimeProbe.Result downtime = probe.stop();
+            result.addMetric("downtimeMs", downtime.getDowntimeMs());
+            result.addMetric("longestOutageMs", downtime.getLongestOutageMs());
+            result.addMetric("probeRequests", downtime.getRequests());
+            result.addMetric("probeFailures", downtime.getFailures());
+            result.addLog(String.format("  Indisponibilité mesurée: %d ms (%d/%d requêtes en échec)",
+                    downtime.getDowntimeMs(), downtime.getFailures(), downtime.getRequests()));
+        }
+        if (error != null) {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage(error);
+            result.addLog("✗ " + error);
+        } else {
+            result.setStatus(StepStatus.SUCCESS);
+        }
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+        return result;
+    }
+
+    /**
+     * Démarre un container publiant le port 8080 de l'application sur hostPort
+     */
+    private void startLocalContainer(String containerName, String imageName, String hostPort) {
+        if (dockerEngineClient.isAvailable()) {
+            dockerEngineClient.startContainer(createContainer(containerName, imageName, hostPort));
+            return;
+        }
+        StepResult run = executeCommand(new String[]{"docker", "run", "-d", "--name", containerName, "-p", hostPort + ":8080", imageName}, null);
+        if (run.getStatus() != StepStatus.SUCCESS) {
+            throw new IllegalStateException(run.getErrorMessage());
+        }
+    }
+
+    /**
+     * Arrête et supprime le container s'il existe
+     */
+    private void removeLocalContainer(String containerName, StepResult result) {
+        if (dockerEngineClient.isAvailable()) {
+            lookupContainer(containerName).ifPresent(container -> removeContainer(container, result));
+        } else if (containerExists(containerName)) {
+            executeCommand(new String[]{"docker", "stop", containerName}, null);
+            executeCommand(new String[]{"docker", "rm", containerName}, null);
+            result.addLog(" Container supprimé: " + containerName);
+        }
+    }
+
+    private void stopLocalContainer(String containerName) {
+        if (dockerEngineClient.isAvailable()) {
+            lookupContainer(containerName).ifPresent(container -> dockerEngineClient.stopContainer(container.getId(), STOP_TIMEOUT_SECONDS));
+        } else {
+            executeCommand(new String[]{"docker", "stop", containerName}, null);
+        }
+    }
+
+    private void startLocalContainer(String containerName) {
+        if (dockerEngineClient.isAvailable()) {
+            lookupContainer(containerName).ifPresent(container -> dockerEngineClient.startContainer(container.getId()));
+        } else {
+            executeCommand(new String[]{"docker", "start", containerName}, null);
+        }
+    }
+
+    private void renameLocalContainer(String containerName, String newName) {
+        if (dockerEngineClient.isAvailable()) {
+            lookupContainer(containerName).ifPresent(container -> dockerEngineClient.renameContainer(container.getId(), newName));
+        } else {
+            executeCommand(new String[]{"docker", "rename", containerName, newName}, null);
+        }
+    }
+
+    /**
+     * Port libre de l'hôte pour le port de service du nouveau container
+     */
+    private int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Crée le container. L'index peut ne pas encore refléter un container créé à l'instant par un autre
+     * déploiement: en cas d'échec, l'état est relu auprès du démon, le container homonyme supprimé
+     * et la création retentée une fois.
+     */
+    private String createContainer(String containerName, String imageName, String port) {
+        try {
+            return dockerEngineClient.createContainer(containerName, imageName, port, 8080);
+        } catch (IllegalStateException e) {
+            Optional<ContainerSummary> existing = dockerEngineClient.findContainer(containerName);
+            if (existing.isEmpty()) {
+                throw e;
+            }
+            log.info("Container '{}' créé entre-temps, suppression avant nouvelle tentative", containerName);
+            dockerEngineClient.stopContainer(existing.get().getId(), STOP_TIMEOUT_SECONDS);
+            dockerEngineClient.removeContainer(existing.get().getId(), false);
+            return dockerEngineClient.createContainer(containerName, imageName, port, 8080);
+        }
+    }
+
+    /**
+     * Container portant ce nom: index en mémoire s'il est synchronisé, sinon requête au démon
+     */
+    private Optional<ContainerSummary> lookupContainer(String containerName) {
+        return dockerStateIndex.isSynced()
+                ? dockerStateIndex.container(containerName)
+                : dockerEngineClient.findContainer(containerName);
+    }
+
+    /**
+     * Container qui publie ce port: index en mémoire s'il est synchronisé, sinon requête au démon
+     */
+    private Optional<ContainerSummary> lookupContainerUsingPort(String port) {
+        return dockerStateIndex.isSynced()
+                ? dockerStateIndex.containerUsingPort(port)
+                : dockerEngineClient.findContainerUsingPort(port);
+    }
+
+    /**
+     * Arrête puis supprime un container via l'API Docker Engine
+     */
+    private void removeContainer(ContainerSummary container, StepResult result) {
+        dockerEngineClient.stopContainer(container.getId(), STOP_TIMEOUT_SECONDS);
+        dockerEngineClient.removeContainer(container.getId(), false);
+        result.addLog(" Container supprimé: " + container.getName());
+    }
+
     /**
      * Déploiement distant via SSH
      */
-    private StepResult deployRemote(PipelineContext context, String imageName, String containerName) {
-        String sshTarget = context.getSshUser() + "@" + context.getDeploymentHost();
+    private StepResult deployRemote(PipelineContext context, String imageName, String containerName) throws InterruptedException {
+        recordRemotePreviousImage(context);
+
+        if (deployProperties.isLayerDelta() || deployProperties.isStreaming()) {
+            return deployRemoteStreaming(context, imageName, containerName);
+        }
 
         List<String[]> commands = new ArrayList<>();
 
         // 1. Exporter l'image Docker vers un fichier tar
         String imageTarFile = "/tmp/" + context.getPipelineId() + ".tar";
-        commands.add(new String[]{"docker", "save", "-o", imageTarFile, imageName});
+        if (dockerEngineClient.isAvailable()) {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(Path.of(imageTarFile)))) {
+                long bytes = dockerEngineClient.saveImage(imageName, output);
+                log.info("Image {} exportée via l'API Docker ({} octets)", imageName, bytes);
+            } catch (Exception e) {
+                log.warn("Export de l'image via l'API Docker impossible, utilisation de docker save: {}", e.getMessage());
+                commands.add(new String[]{"docker", "save", "-o", imageTarFile, imageName});
+            }
+        } else {
+            commands.add(new String[]{"docker", "save", "-o", imageTarFile, imageName});
+        }
 
         // 2. Copier l'image vers le serveur distant
-        String[] scpCommand = {
-            "scp",
-            "-o", "StrictHostKeyChecking=no",
-            imageTarFile,
-            sshTarget + ":/tmp/"
-        };
-
-        if (context.getSshKeyPath() != null) {
-            scpCommand = new String[]{
-                "scp",
-                "-i", context.getSshKeyPath(),
-                "-o", "StrictHostKeyChecking=no",
-                imageTarFile,
-                sshTarget + ":/tmp/"
-            };
-        }
-        commands.add(scpCommand);
+        commands.add(sshConnectionPool.scp(sshTarget(context), imageTarFile, "/tmp/").toArray(String[]::new));
 
         // 3. Charger l'image sur le serveur distant et déployer
         String remoteCommands = String.format(
-            "docker load -i /tmp/%s.tar && " +
-            "docker stop %s || true && " +
-            "docker rm %s || true && " +
-            "docker run -d --name %s -p %d:8080 %s && " +
-            "rm /tmp/%s.tar",
+            "docker load -i /tmp/%s.tar && { %s; } && rm /tmp/%s.tar",
             context.getPipelineId(),
-            containerName,
-            containerName,
-            containerName,
-            context.getDeploymentPort(),
-            imageName,
+            remoteReplaceCommand(containerName, context.getDeploymentPort(), imageName),
             context.getPipelineId()
         );
 
-        String[] sshCommand = {
-            "ssh",
-            "-o", "StrictHostKeyChecking=no",
-            sshTarget,
-            remoteCommands
-        };
-
-        if (context.getSshKeyPath() != null) {
-            sshCommand = new String[]{
-                "ssh",
-                "-i", context.getSshKeyPath(),
-                "-o", "StrictHostKeyChecking=no",
-                sshTarget,
-                remoteCommands
-            };
-        }
-        commands.add(sshCommand);
+        commands.add(sshCommand(context, remoteCommands));
 
         // 4. Nettoyer le fichier tar local
         commands.add(new String[]{"rm", imageTarFile});
 
         StepResult result = executeCommands(commands, null, null);
 
-        if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
+        if (result.getStatus() == StepStatus.SUCCESS) {
+            recordDeployment(context, imageName, remoteRetained(result), null, null);
             result.addLog("✓ Application déployée sur " + context.getDeploymentHost());
             result.addLog("  Container: " + containerName);
             result.addLog("  Port: " + context.getDeploymentPort());
@@ -172,6 +503,169 @@ public class DockerDeployStep extends AbstractPipelineStep {
         return result;
     }
 
+    /**
+     * Déploiement distant sans archive intermédiaire: l'image est envoyée couche par couche via le registre relais
+     * (seules les couches absentes de l'hôte voyagent) ou, à défaut, compressée et chargée au fil de son export
+     * (docker save | gzip | ssh docker load). Le container est ensuite remplacé par une seconde commande ssh.
+     */
+    private StepResult deployRemoteStreaming(PipelineContext context, String imageName, String containerName) throws InterruptedException {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+
+        // 1. Envoyer uniquement les couches manquantes, sinon transférer et charger l'image complète en un seul flux
+        if (registryRelay.isEnabled() && shipLayerDelta(context, imageName, result)) {
+            return runRemoteContainer(context, imageName, containerName, result);
+        }
+
+        result.addLog(" Transfert de l'image en flux vers " + context.getDeploymentHost() + " (docker save | gzip | docker load)");
+        ImageTransfer.Transfer transfer = imageTransfer.stream(imageName, List.of(sshCommand(context, "docker load")));
+        transfer.getOutput().forEach(result::addLog);
+        result.addMetric("transferMode", "stream");
+        result.addMetric("transferRawBytes", transfer.getRawBytes());
+        result.addMetric("transferCompressedBytes", transfer.getCompressedBytes());
+        result.addMetric("transferMs", transfer.getDurationMs());
+        result.addMetric("transferMBps", Math.round(transfer.getMegabytesPerSecond() * 10) / 10.0);
+        result.addLog(String.format("  %.1f Mo transférés en %.1f s (%.1f Mo/s, %.1f Mo compressés)",
+                transfer.getRawBytes() / 1_048_576.0, transfer.getDurationMs() / 1000.0,
+                transfer.getMegabytesPerSecond(), transfer.getCompressedBytes() / 1_048_576.0));
+
+        if (!transfer.isSuccess()) {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage("Transfert de l'image échoué: " + transfer.getError());
+            result.addLog("✗ " + result.getErrorMessage());
+            result.setEndTime(LocalDateTime.now());
+            result.calculateDuration();
+            return result;
+        }
+
+        return runRemoteContainer(context, imageName, containerName, result);
+    }
+
+    /**
+     * Envoie l'image via le registre relais: push local, puis docker pull distant à travers un tunnel ssh -R
+     *
+     * @return false si le relais ou le pull distant a échoué (l'image complète doit alors être transférée)
+     */
+    private boolean shipLayerDelta(PipelineContext context, String imageName, StepResult result) {
+        long start = System.nanoTime();
+        List<String> pushOutput = new ArrayList<>();
+        Optional<String> relayImage = registryRelay.push(imageName, pushOutput);
+        pushOutput.forEach(result::addLog);
+        if (relayImage.isEmpty()) {
+            result.addLog("⚠ Registre relais indisponible, transfert de l'image complète");
+            return false;
+        }
+
+        result.addLog(" Envoi des couches manquantes vers " + context.getDeploymentHost() + " (docker pull via tunnel ssh)");
+        String[] pullCommand = sshCommand(context, registryRelay.pullCommand(relayImage.get(), imageName),
+                "-o", "ExitOnForwardFailure=yes", "-R", registryRelay.tunnel());
+        StepResult pullResult = executeCommand(pullCommand, null);
+        result.getLogs().addAll(pullResult.getLogs());
+        if (pullResult.getStatus() != StepStatus.SUCCESS) {
+            result.addLog("⚠ docker pull distant via le relais échoué, transfert de l'image complète");
+            return false;
+        }
+
+        RegistryRelay.Delta delta = registryRelay.delta(relayImage.get(), pullResult.getLogs());
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        result.addMetric("transferMode", "layer-delta");
+        result.addMetric("layers", delta.getLayers());
+        result.addMetric("layersTransferred", delta.getLayersTransferred());
+        result.addMetric("transferCompressedBytes", delta.getTransferredBytes());
+        result.addMetric("imageCompressedBytes", delta.getImageBytes());
+        result.addMetric("transferMs", durationMs);
+        result.addLog(String.format("  %d/%d couches envoyées: %.1f Mo sur %.1f Mo (image compressée) en %.1f s",
+                delta.getLayersTransferred(), delta.getLayers(), delta.getTransferredBytes() / 1_048_576.0,
+                delta.getImageBytes() / 1_048_576.0, durationMs / 1000.0));
+        return true;
+    }
+
+    /**
+     * Remplace le container sur le serveur distant par un container de la nouvelle image
+     */
+    private StepResult runRemoteContainer(PipelineContext context, String imageName, String containerName, StepResult result) {
+        String remoteCommands = remoteReplaceCommand(containerName, context.getDeploymentPort(), imageName);
+        StepResult runResult = executeCommand(sshCommand(context, remoteCommands), null);
+        result.getLogs().addAll(runResult.getLogs());
+        result.setStatus(runResult.getStatus());
+        result.setErrorMessage(runResult.getErrorMessage());
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+
+        if (result.getStatus() == StepStatus.SUCCESS) {
+            recordDeployment(context, imageName, remoteRetained(runResult), null, null);
+            result.addLog("✓ Application déployée sur " + context.getDeploymentHost());
+            result.addLog("  Container: " + containerName);
+            result.addLog("  Port: " + context.getDeploymentPort());
+            result.addLog("  Image: " + imageName);
+        }
+
+        return result;
+    }
+
+    /**
+     * Commande distante remplaçant le container qui publie le port: il est arrêté et conservé sous le nom
+     * de conservation (signalé par une ligne RETAINED_MARKER), puis le nouveau container est démarré
+     */
+    private String remoteReplaceCommand(String containerName, String port, String imageName) {
+        return String.format(
+            "docker rm -f %1$s >/dev/null 2>&1; " +
+            "OLD=$(docker ps --filter publish=%2$s --format '{{.Names}}' | head -n 1); " +
+            "if [ -n \"$OLD\" ]; then docker stop \"$OLD\" >/dev/null && docker rename \"$OLD\" %1$s && echo \"%3$s$OLD\"; fi; " +
+            "docker rm -f %4$s >/dev/null 2>&1; " +
+            "docker run -d --name %4$s -p %2$s:8080 %5$s",
+            retainedName(port),
+            port,
+            RETAINED_MARKER,
+            containerName,
+            imageName
+        );
+    }
+
+    /**
+     * Container distant conservé par remoteReplaceCommand, d'après la sortie de la commande
+     */
+    private String remoteRetained(StepResult result) {
+        return result.getLogs().stream()
+                .filter(line -> line.startsWith(RETAINED_MARKER))
+                .map(line -> line.substring(RETAINED_MARKER.length()).trim())
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Retient le tag de l'image que le container publiant le port exécute sur l'hôte distant avant son remplacement
+     * (pour le rollback, quand l'historique ne le connaît pas)
+     */
+    private void recordRemotePreviousImage(PipelineContext context) {
+        if (context.getPreviousDockerImageTag() != null) {
+            return;
+        }
+        String prefix = context.getDockerImageName() + ":";
+        StepResult inspect = executeCommand(sshCommand(context, String.format(
+                "docker inspect -f '{{.Config.Image}}' $(docker ps -q --filter publish=%s) 2>/dev/null || true",
+                context.getDeploymentPort())), null);
+        inspect.getLogs().stream()
+                .map(String::trim)
+                .filter(line -> line.startsWith(prefix) && !line.equals(prefix + context.getDockerImageTag()))
+                .findFirst()
+                .ifPresent(image -> context.setPreviousDockerImageTag(image.substring(prefix.length())));
+    }
+
+    /**
+     * Commande ssh exécutant remoteCommand sur l'hôte de déploiement, via la connexion SSH partagée de l'hôte
+     */
+    private String[] sshCommand(PipelineContext context, String remoteCommand, String... options) {
+        return sshConnectionPool.ssh(sshTarget(context), remoteCommand, options).toArray(String[]::new);
+    }
+
+    private SshTarget sshTarget(PipelineContext context) {
+        return new SshTarget(context.getSshUser(), context.getDeploymentHost(), context.getSshKeyPath());
+    }
+
     /**
      * Vérifie si un container Docker existe (en cours d'exécution ou arrêté)
      * 
@@ -179,6 +673,13 @@ public class DockerDeployStep extends AbstractPipelineStep {
      * @return true si le container existe, false sinon
      */
     private boolean containerExists(String containerName) {
+        if (dockerEngineClient.isAvailable()) {
+            try {
+                return lookupContainer(containerName).isPresent();
+            } catch (Exception e) {
+                log.debug("API Docker indisponible, vérification via la CLI: {}", e.getMessage());
+            }
+        }
         try {
             ProcessBuilder processBuilder = new ProcessBuilder(
                 "docker", "ps", "-a", "--filter", "name=" + containerName, "--format", "{{.Names}}"
@@ -206,6 +707,13 @@ public class DockerDeployStep extends AbstractPipelineStep {
      * @return Le nom du container utilisant le port, ou null si aucun
      */
     private String findContainerUsingPort(String port) {
+        if (dockerEngineClient.isAvailable()) {
+            try {
+                return lookupContainerUsingPort(port).map(ContainerSummary::getName).orElse(null);
+            } catch (Exception e) {
+                log.debug("API Docker indisponible, recherche via la CLI: {}", e.getMessage());
+            }
+        }
         try {
             // Commande pour trouver les containers utilisant le port
             // Format: docker ps --filter "publish=8082" --format "{{.Names}}"
@@ -230,33 +738,242 @@ public class DockerDeployStep extends AbstractPipelineStep {
         }
     }
 
+    /**
+     * Nom du container conservé arrêté pour un port
+     */
+    private String retainedName(String port) {
+        return RETAINED_PREFIX + port;
+    }
+
+    /**
+     * Enregistre le déploiement réussi dans l'historique
+     *
+     * @param previousContainer container remplacé, conservé arrêté sous retainedName(port) (null si aucun)
+     */
+    private void recordDeployment(PipelineContext context, String imageName, String previousContainer,
+                                  Integer servicePort, Integer previousServicePort) {
+        boolean remote = context.getDeploymentHost() != null && context.getSshUser() != null;
+        deploymentHistory.record(DeploymentRecord.builder()
+                .pipelineId(context.getPipelineId())
+                .executionId(context.getExecutionId())
+                .host(DeploymentHistory.host(context))
+                .port(context.getDeploymentPort())
+                .containerName(context.getContainerName())
+                .image(imageName)
+                .imageId(imageId(imageName))
+                .previousContainer(previousContainer)
+                .retainedContainer(previousContainer != null ? retainedName(context.getDeploymentPort()) : null)
+                .previousImage(context.getPreviousDockerImageTag() != null
+                        ? context.getDockerImageName() + ":" + context.getPreviousDockerImageTag()
+                        : null)
+                .blueGreen(servicePort != null)
+                .servicePort(servicePort)
+                .previousServicePort(previousServicePort)
+                .sshUser(remote ? context.getSshUser() : null)
+                .sshKeyPath(remote ? context.getSshKeyPath() : null)
+                .build());
+    }
+
+    /**
+     * Identifiant (sha256:...) de l'image locale: index en mémoire, API Docker, ou CLI
+     */
+    private String imageId(String imageName) {
+        if (dockerStateIndex.isSynced()) {
+            Optional<String> id = dockerStateIndex.imageId(imageName);
+            if (id.isPresent()) {
+                return id.get();
+            }
+        }
+        if (dockerEngineClient.isAvailable()) {
+            try {
+                return dockerEngineClient.inspectImage(imageName).map(ImageSummary::getId).orElse(null);
+            } catch (Exception e) {
+                log.debug("Inspection de l'image {} via l'API impossible: {}", imageName, e.getMessage());
+            }
+        }
+        return executeCommand(new String[]{"docker", "image", "inspect", "-f", "{{.Id}}", imageName}, null).getLogs().stream()
+                .map(String::trim)
+                .filter(line -> line.startsWith("sha256:"))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Rollback: le container remplacé, conservé arrêté, est redémarré (quelques secondes au plus, sans recréer de container).
+     * À défaut de container conservé, l'image précédente est redéployée.
+     */
     @Override
     public void rollback(PipelineContext context) throws Exception {
         log.info("Rollback du déploiement...");
 
-        if (context.getPreviousDockerImageTag() != null) {
-            // Redéployer la version précédente
-            String previousImage = context.getDockerImageName() + ":" + context.getPreviousDockerImageTag();
-            String containerName = context.getContainerName();
-
-            if (containerExists(containerName)) {
-                // Arrêter le container actuel
-                executeCommand(new String[]{"docker", "stop", containerName}, null);
-                executeCommand(new String[]{"docker", "rm", containerName}, null);
+        String host = DeploymentHistory.host(context);
+        Optional<DeploymentRecord> record = deploymentHistory.find(context.getPipelineId(), host, context.getDeploymentPort());
+        String restoredName = record.map(DeploymentRecord::getPreviousContainer).orElse(context.getContainerName());
+
+        long start = System.currentTimeMillis();
+        boolean restored;
+        if (context.getDeploymentHost() != null && context.getSshUser() != null) {
+            restored = restoreRemote(context, restoredName);
+        } else if (blueGreenProxy.activeUpstream(context.getDeploymentPort()).isPresent()) {
+            restored = restoreBlueGreen(context, restoredName, record.map(DeploymentRecord::getPreviousServicePort).orElse(null));
+        } else {
+            restored = restoreLocal(context, restoredName);
+        }
+
+        if (restored) {
+            log.info("Rollback terminé sur {}: container {} redémarré en {} ms", host, restoredName, System.currentTimeMillis() - start);
+        } else {
+            restored = redeployPreviousImage(context);
+        }
+
+        if (restored) {
+            record.ifPresent(deploymentHistory::markRolledBack);
+        } else {
+            log.warn("Rollback impossible sur {}:{}: aucune version précédente conservée ni redémarrée", host, context.getDeploymentPort());
+        }
+    }
+
+    /**
+     * Remplace le container courant par le container conservé arrêté
+     */
+    private boolean restoreLocal(PipelineContext context, String restoredName) {
+        String retained = retainedName(context.getDeploymentPort());
+        StepResult result = StepResult.builder().build();
+        if (dockerEngineClient.isAvailable()) {
+            Optional<ContainerSummary> kept = lookupContainer(retained);
+            if (kept.isEmpty()) {
+                return false;
             }
+            lookupContainer(context.getContainerName()).ifPresent(container -> removeContainer(container, result));
+            dockerEngineClient.renameContainer(kept.get().getId(), restoredName);
+            dockerEngineClient.startContainer(kept.get().getId());
+            return true;
+        }
 
-            // Redémarrer avec l'ancienne image
-            String[] rollbackCommand = {
-                "docker", "run",
-                "-d",
-                "--name", containerName,
-                "-p", context.getDeploymentPort() + ":8080",
-                previousImage
-            };
+        if (!containerExists(retained)) {
+            return false;
+        }
+        removeLocalContainer(context.getContainerName(), result);
+        return executeCommands(List.of(
+                new String[]{"docker", "rename", retained, restoredName},
+                new String[]{"docker", "start", restoredName}), null, null).getStatus() == StepStatus.SUCCESS;
+    }
 
-            executeCommand(rollbackCommand, null);
+    /**
+     * Bleu/vert: le container conservé redémarre sur son port de service, est vérifié,
+     * puis le proxy bascule vers lui avant la suppression du container courant
+     */
+    private boolean restoreBlueGreen(PipelineContext context, String restoredName, Integer servicePort) throws Exception {
+        String retained = retainedName(context.getDeploymentPort());
+        if (servicePort == null || !containerExists(retained)) {
+            return false;
+        }
+
+        startLocalContainer(retained);
+        StepResult health = healthCheckStep.execute(context.toBuilder()
+                .deploymentPort(String.valueOf(servicePort))
+                .containerName(retained)
+                .build());
+        if (health.getStatus() != StepStatus.SUCCESS) {
+            stopLocalContainer(retained);
+            return false;
+        }
+
+        List<String> output = new ArrayList<>();
+        if (!blueGreenProxy.switchTo(context.getDeploymentPort(), servicePort, output)) {
+            output.forEach(line -> log.warn("[proxy] {}", line));
+            stopLocalContainer(retained);
+            return false;
+        }
+        StepResult result = StepResult.builder().build();
+        removeLocalContainer(context.getContainerName(), result);
+        renameLocalContainer(retained, restoredName);
+        return true;
+    }
+
+    /**
+     * Remplace le container courant de l'hôte distant par le container conservé arrêté
+     */
+    private boolean restoreRemote(PipelineContext context, String restoredName) {
+        String remoteCommands = String.format(
+            "docker inspect %1$s >/dev/null 2>&1 || exit 3; " +
+            "docker rm -f %2$s >/dev/null 2>&1; " +
+            "docker rename %1$s %3$s && docker start %3$s",
+            retainedName(context.getDeploymentPort()),
+            context.getContainerName(),
+            restoredName
+        );
+        return executeCommand(sshCommand(context, remoteCommands), null).getStatus() == StepStatus.SUCCESS;
+    }
+
+    /**
+     * Redéploie l'image précédente (démarrage à froid), faute de container conservé
+     *
+     * @return false si l'image précédente est inconnue ou si son container n'a pas pu être démarré
+     */
+    private boolean redeployPreviousImage(PipelineContext context) throws Exception {
+        if (context.getPreviousDockerImageTag() == null) {
+            return false;
+        }
+
+        // Redéployer la version précédente
+        String previousImage = context.getDockerImageName() + ":" + context.getPreviousDockerImageTag();
+        String containerName = context.getContainerName();
+
+        if (context.getDeploymentHost() != null && context.getSshUser() != null) {
+            String remoteCommands = String.format(
+                "docker stop %1$s || true && docker rm %1$s || true && docker run -d --name %1$s -p %2$s:8080 %3$s",
+                containerName, context.getDeploymentPort(), previousImage);
+            StepResult result = executeCommand(sshCommand(context, remoteCommands), null);
+            if (result.getStatus() != StepStatus.SUCCESS) {
+                log.warn("Rollback en échec sur {}: image {} non redémarrée ({})", context.getDeploymentHost(),
+                        previousImage, result.getErrorMessage());
+                return false;
+            }
+            log.info("Rollback terminé sur {}: image {} restaurée", context.getDeploymentHost(), previousImage);
+            return true;
+        }
+
+        if (blueGreenProxy.activeUpstream(context.getDeploymentPort()).isPresent()) {
+            // Même bascule sans interruption, vers l'image précédente
+            StepResult result = deployBlueGreen(context, previousImage, containerName);
+            log.info("Rollback bleu/vert {}: image {}", result.getStatus(), previousImage);
+            return result.getStatus() == StepStatus.SUCCESS;
+        }
+
+        if (dockerEngineClient.isAvailable()) {
+            Optional<ContainerSummary> current = lookupContainer(containerName);
+            if (current.isPresent()) {
+                dockerEngineClient.stopContainer(current.get().getId(), STOP_TIMEOUT_SECONDS);
+                dockerEngineClient.removeContainer(current.get().getId(), false);
+            }
+            String containerId = createContainer(containerName, previousImage, context.getDeploymentPort());
+            dockerEngineClient.startContainer(containerId);
             log.info("Rollback terminé: image {} restaurée", previousImage);
+            return true;
         }
+
+        if (containerExists(containerName)) {
+            // Arrêter le container actuel
+            executeCommand(new String[]{"docker", "stop", containerName}, null);
+            executeCommand(new String[]{"docker", "rm", containerName}, null);
+        }
+
+        // Redémarrer avec l'ancienne image
+        String[] rollbackCommand = {
+            "docker", "run",
+            "-d",
+            "--name", containerName,
+            "-p", context.getDeploymentPort() + ":8080",
+            previousImage
+        };
+
+        StepResult result = executeCommand(rollbackCommand, null);
+        if (result.getStatus() != StepStatus.SUCCESS) {
+            log.warn("Rollback en échec: image {} non redémarrée ({})", previousImage, result.getErrorMessage());
+            return false;
+        }
+        log.info("Rollback terminé: image {} restaurée", previousImage);
+        return true;
     }
 }
-
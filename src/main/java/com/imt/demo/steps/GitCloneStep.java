@@ -6,9 +6,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Étape 1: Clone du dépôt Git
@@ -24,6 +28,16 @@ public class GitCloneStep extends AbstractPipelineStep {
 
     @Override
     public StepResult execute(PipelineContext context) throws Exception {
+        // Workspace emprunté au pool: déjà cloné, il suffit de l'avancer sur la pointe de la branche
+        if (Boolean.TRUE.equals(context.getWorkspaceLeased())) {
+            StepResult result = fastForward(context);
+            if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
+                return result;
+            }
+            log.warn("Avance du workspace emprunté impossible, clone complet");
+            context.setWorkspaceLeased(false);
+        }
+
         // Créer le workspace s'il n'existe pas
         Path workspacePath = Paths.get(context.getWorkspaceDir());
         if (!Files.exists(workspacePath)) {
@@ -49,22 +63,94 @@ public class GitCloneStep extends AbstractPipelineStep {
         };
 
         StepResult result = executeCommand(command, context.getWorkspaceDir());
+        result.addMetric("workspacePoolHit", false);
 
         // Récupérer le hash du commit
         if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
-            String[] getCommitHash = {"git", "rev-parse", "HEAD"};
-            StepResult hashResult = executeCommand(getCommitHash, context.getWorkspaceDir());
+            readCommitHash(context, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Avance un workspace emprunté au pool sur le dernier commit de la branche.
+     * Le clone étant superficiel, l'avance se fait par reset sur le commit récupéré;
+     * git clean sans -x conserve les fichiers ignorés (target/).
+     * Si des sources ont été supprimées ou renommées depuis le commit précédent du workspace,
+     * leurs sorties compilées sont périmées: le build devra repartir d'un clean.
+     */
+    private StepResult fastForward(PipelineContext context) {
+        String previousCommit = gitOutput(context.getWorkspaceDir(), "rev-parse", "HEAD");
+        List<String[]> commands = List.of(
+            new String[]{"git", "fetch", "--depth", "1", "origin", context.getGitBranch()},
+            new String[]{"git", "reset", "--hard", "FETCH_HEAD"},
+            new String[]{"git", "clean", "-fd"}
+        );
+
+        StepResult result = executeCommands(commands, context.getWorkspaceDir(), null);
+        result.setStepName(getName());
 
-            if (!hashResult.getLogs().isEmpty()) {
-                String commitHash = hashResult.getLogs().get(hashResult.getLogs().size() - 1).trim();
-                context.setCommitHash(commitHash);
-                result.addLog(" Commit hash: " + commitHash);
+        if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
+            result.addLog(" Workspace emprunté au pool (bail obtenu en " + context.getWorkspaceLeaseMs() + "ms), clone évité");
+            result.addMetric("workspacePoolHit", true);
+            result.addMetric("workspaceLeaseMs", context.getWorkspaceLeaseMs());
+            readCommitHash(context, result);
+
+            String removed = previousCommit != null
+                    ? gitOutput(context.getWorkspaceDir(), "diff", "--name-only", "--diff-filter=DR", previousCommit.trim(), "HEAD")
+                    : null;
+            boolean needsClean = removed == null || !removed.isBlank();
+            context.setWorkspaceNeedsClean(needsClean);
+            result.addMetric("workspaceNeedsClean", needsClean);
+            if (needsClean) {
+                result.addLog(" Fichiers supprimés ou renommés depuis le dernier build du workspace: clean requis");
             }
         }
 
         return result;
     }
 
+    /**
+     * Récupère le hash du commit courant du workspace
+     */
+    private void readCommitHash(PipelineContext context, StepResult result) {
+        String[] getCommitHash = {"git", "rev-parse", "HEAD"};
+        StepResult hashResult = executeCommand(getCommitHash, context.getWorkspaceDir());
+
+        // La sortie capturée contient aussi les lignes de statut: ne retenir que le hash
+        hashResult.getLogs().stream()
+                .map(String::trim)
+                .filter(line -> line.matches("[0-9a-f]{40}"))
+                .findFirst()
+                .ifPresent(commitHash -> {
+                    context.setCommitHash(commitHash);
+                    result.addLog(" Commit hash: " + commitHash);
+                });
+    }
+
+    /**
+     * Sortie standard d'une commande git, ou null en cas d'échec
+     */
+    private String gitOutput(String directory, String... arguments) {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(new File(directory))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException e) {
+            log.debug("git {} impossible: {}", arguments[0], e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     @Override
     public void rollback(PipelineContext context) throws Exception {
         // Nettoyer le workspace
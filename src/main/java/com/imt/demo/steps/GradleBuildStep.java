@@ -0,0 +1,70 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.gradle.GradleDaemonPool;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Étape 2 (projets Gradle): Build Gradle
+ */
+@Slf4j
+@Component
+public class GradleBuildStep extends AbstractPipelineStep {
+
+    private final GradleDaemonPool gradleDaemonPool;
+
+    public GradleBuildStep(GradleDaemonPool gradleDaemonPool) {
+        this.gradleDaemonPool = gradleDaemonPool;
+    }
+
+    @Override
+    public String getName() {
+        return "Gradle Build";
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) throws Exception {
+        // assemble produit les archives sans exécuter les tests (exécutés à l'étape suivante).
+        // Pas de clean: le build cache et la détection UP-TO-DATE de Gradle évitent le travail déjà fait.
+        // Seules les archives d'un build précédent sont supprimées: un artifact renommé laisserait
+        // l'ancien jar à côté du nouveau dans build/libs.
+        Path workspace = Path.of(context.getWorkspaceDir());
+        deleteArchives(workspace);
+        StepResult result = gradleDaemonPool.run(workspace, List.of("assemble"),
+                command -> executeCommand(command.toArray(String[]::new), context.getWorkspaceDir(), context.getEnvironmentVariables()));
+
+        // Si le build réussit, stocker le chemin de l'artifact
+        if (result.getStatus() == StepStatus.SUCCESS) {
+            String artifactPath = context.getWorkspaceDir() + "/build/libs/*.jar";
+            context.setArtifactPath(artifactPath);
+            result.addLog(" Artifact généré: " + artifactPath);
+        }
+
+        return result;
+    }
+
+    /**
+     * Supprime les jar/war des répertoires build/libs du projet et de ses sous-projets
+     */
+    private void deleteArchives(Path workspace) throws IOException {
+        try (Stream<Path> files = Files.walk(workspace)) {
+            List<Path> archives = files
+                    .filter(file -> file.getParent() != null && file.getParent().endsWith(Path.of("build", "libs")))
+                    .filter(file -> file.toString().endsWith(".jar") || file.toString().endsWith(".war"))
+                    .filter(file -> !file.startsWith(workspace.resolve(".gradle")) && !file.startsWith(workspace.resolve(".git")))
+                    .toList();
+            for (Path archive : archives) {
+                Files.deleteIfExists(archive);
+            }
+        }
+    }
+}
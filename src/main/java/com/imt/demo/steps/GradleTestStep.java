@@ -0,0 +1,50 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.gradle.GradleDaemonPool;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.service.TestReportService;
+import com.imt.demo.testing.SurefireReportParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Étape 3 (projets Gradle): Exécution des tests unitaires Gradle
+ */
+@Slf4j
+@Component
+public class GradleTestStep extends AbstractPipelineStep {
+
+    private final GradleDaemonPool gradleDaemonPool;
+    private final TestReportService testReportService;
+
+    public GradleTestStep(GradleDaemonPool gradleDaemonPool, TestReportService testReportService) {
+        this.gradleDaemonPool = gradleDaemonPool;
+        this.testReportService = testReportService;
+    }
+
+    @Override
+    public String getName() {
+        return "Gradle Test";
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) throws Exception {
+        // --continue: exécuter les tests de tous les sous-projets même si l'un d'eux échoue
+        StepResult result = gradleDaemonPool.run(Path.of(context.getWorkspaceDir()), List.of("test", "--continue"),
+                command -> executeCommand(command.toArray(String[]::new), context.getWorkspaceDir(), context.getEnvironmentVariables()));
+
+        // build/test-results/<tâche>/TEST-*.xml suit le même format que les rapports Surefire
+        testReportService.ingest(context, SurefireReportParser.parseWorkspace(Path.of(context.getWorkspaceDir())));
+        return result;
+    }
+
+    @Override
+    public boolean isCritical() {
+        // Les tests sont critiques - le pipeline s'arrête si les tests échouent
+        return true;
+    }
+}
@@ -1,27 +1,62 @@
 package com.imt.demo.steps;
 
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.docker.ContainerSummary;
+import com.imt.demo.docker.DockerStateIndex;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.StepResult;
 import com.imt.demo.model.StepStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.net.HttpURLConnection;
-import java.net.Socket;
+import java.io.IOException;
+import java.net.ConnectException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Étape 8: Vérification de la santé de l'application déployée
+ * Étape 8: Vérification de la santé de l'application déployée.
+ * Les endpoints sont sondés en parallèle (client HTTP asynchrone partagé), avec une attente exponentielle
+ * et aléatoire entre deux tentatives. Pour un container local, les événements Docker réveillent l'attente
+ * (redémarrage, HEALTHCHECK healthy) ou l'interrompent (arrêt du container, HEALTHCHECK unhealthy).
  */
 @Slf4j
 @Component
 public class HealthCheckStep extends AbstractPipelineStep {
 
-    private static final int MAX_RETRIES = 15;
-    private static final int RETRY_DELAY_MS = 4000;
+    /**
+     * Endpoints testés, par ordre de priorité
+     */
+    private static final List<String> ENDPOINTS = List.of(
+            "/actuator/health",  // Spring Boot Actuator
+            "/health",           // Alternative simple
+            "/"                  // Page d'accueil
+    );
+
+    private final DockerStateIndex dockerStateIndex;
+    private final DeployProperties deployProperties;
+    private final HttpClient httpClient;
+
+    public HealthCheckStep(DockerStateIndex dockerStateIndex, DeployProperties deployProperties) {
+        this.dockerStateIndex = dockerStateIndex;
+        this.deployProperties = deployProperties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(deployProperties.getHealthRequestTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
 
     @Override
     public String getName() {
@@ -42,81 +77,104 @@ public class HealthCheckStep extends AbstractPipelineStep {
 
         result.addLog(String.format("🔍 Vérification de l'application sur %s:%d", host, port));
 
-        // Liste des endpoints à tester par ordre de priorité
-        List<String> endpointsToTest = new ArrayList<>();
-        endpointsToTest.add("/actuator/health");  // Spring Boot Actuator
-        endpointsToTest.add("/health");           // Alternative simple
-        endpointsToTest.add("/");                 // Page d'accueil
-
-        boolean isHealthy = false;
-        String successfulEndpoint = null;
-        int successfulStatusCode = -1;
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            result.addLog(String.format("⏳ Tentative %d/%d...", attempt, MAX_RETRIES));
-
-            // D'abord, vérifier que le port est ouvert (connexion TCP)
-            if (isPortOpen(host, port)) {
-                result.addLog(String.format("  ✓ Port %d accessible", port));
-
-                // Tester les différents endpoints HTTP
-                for (String endpoint : endpointsToTest) {
-                    String url = String.format("http://%s:%d%s", host, port, endpoint);
-                    HealthCheckResult checkResult = checkEndpoint(url);
-
-                    if (checkResult.isSuccess()) {
-                        isHealthy = true;
-                        successfulEndpoint = endpoint;
-                        successfulStatusCode = checkResult.getStatusCode();
-                        result.addLog(String.format("  ✓ Endpoint '%s' répond avec code %d", endpoint, checkResult.getStatusCode()));
-                        result.addLog("✓ Application en ligne et opérationnelle!");
-                        result.setStatus(StepStatus.SUCCESS);
-                        break;
-                    } else if (checkResult.getStatusCode() >= 400 && checkResult.getStatusCode() < 600) {
-                        // Si l'application répond avec un code 4xx ou 5xx, elle est vivante
-                        // On considère cela comme un succès car l'application répond
-                        isHealthy = true;
-                        successfulEndpoint = endpoint;
-                        successfulStatusCode = checkResult.getStatusCode();
-                        result.addLog(String.format("  ✓ Endpoint '%s' répond avec code %d (application vivante)", endpoint, checkResult.getStatusCode()));
-                        result.addLog("✓ Application en ligne et opérationnelle!");
-                        result.setStatus(StepStatus.SUCCESS);
-                        break;
-                    } else if (checkResult.getStatusCode() == -3) {
-                        // Connection reset - application en cours de démarrage
-                        result.addLog(String.format("  ⏳ Endpoint '%s': Connection reset (démarrage en cours...)", endpoint));
-                    } else if (checkResult.getStatusCode() != -1) {
-                        result.addLog(String.format("  ⚠ Endpoint '%s' code: %d", endpoint, checkResult.getStatusCode()));
-                    }
-                }
+        // Déploiement local: les événements Docker du container pilotent l'attente
+        boolean local = context.getDeploymentHost() == null || context.getSshUser() == null;
+        boolean watched = local && context.getContainerName() != null && dockerStateIndex.isSynced();
+        String containerName = context.getContainerName();
+        CompletableFuture<Integer> died = watched
+                ? dockerStateIndex.awaitDie(containerName)
+                : new CompletableFuture<>();
+        if (watched) {
+            Optional<ContainerSummary> container = dockerStateIndex.container(containerName);
+            if (container.isPresent() && !container.get().isRunning() && !"restarting".equals(container.get().getState())) {
+                died.complete(-1);
+            }
+        }
 
-                if (isHealthy) {
-                    break;
-                }
-            } else {
-                result.addLog(String.format("  ⏳ Port %d non accessible, l'application démarre...", port));
+        long start = System.nanoTime();
+        long deadline = start + deployProperties.getHealthTimeout().toNanos();
+        ProbeResult healthy = null;
+        String dockerHealth = null;
+        int attempt = 0;
+        CompletableFuture<String> changed = new CompletableFuture<>();
+
+        while (!died.isDone()) {
+            attempt++;
+            // Abonnement avant la lecture de l'état: aucun événement n'est perdu entre les deux
+            changed.cancel(false);
+            changed = watched ? dockerStateIndex.awaitStateChange(containerName) : new CompletableFuture<>();
+            dockerHealth = watched ? dockerStateIndex.health(containerName).orElse(null) : null;
+            if ("unhealthy".equals(dockerHealth)) {
+                break;
+            }
+
+            List<ProbeResult> probes = probeAll(host, port);
+            healthy = probes.stream().filter(ProbeResult::isAlive).findFirst().orElse(null);
+            if (healthy != null) {
+                break;
             }
+            result.addLog(String.format("⏳ Tentative %d: %s%s", attempt, describe(probes),
+                    dockerHealth != null ? " (HEALTHCHECK Docker: " + dockerHealth + ")" : ""));
 
-            if (attempt < MAX_RETRIES) {
-                Thread.sleep(RETRY_DELAY_MS);
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            long delay = Math.min(backoff(attempt), TimeUnit.NANOSECONDS.toMillis(remaining));
+            try {
+                CompletableFuture.anyOf(died, changed).get(delay, TimeUnit.MILLISECONDS);
+                if (changed.isDone()) {
+                    result.addLog("  ↻ Événement Docker: " + changed.join());
+                }
+            } catch (TimeoutException e) {
+                // Aucun événement: tentative suivante après l'attente
             }
         }
+        died.cancel(false);
+        changed.cancel(false);
 
-        if (!isHealthy) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        result.addMetric("attempts", attempt);
+        result.addMetric("elapsedMs", elapsedMs);
+        if (dockerHealth != null) {
+            result.addMetric("dockerHealth", dockerHealth);
+        }
+
+        if (healthy != null) {
+            result.setStatus(StepStatus.SUCCESS);
+            result.addLog(String.format("  ✓ Endpoint '%s' répond avec code %d%s", healthy.getEndpoint(), healthy.getStatusCode(),
+                    healthy.getStatusCode() >= 400 ? " (application vivante)" : ""));
+            result.addLog("✓ Application en ligne et opérationnelle!");
+            result.addLog(String.format("📊 Health check validé via: %s (code %d) en %d ms",
+                    healthy.getEndpoint(), healthy.getStatusCode(), elapsedMs));
+            result.addMetric("endpoint", healthy.getEndpoint());
+        } else if (died.isDone() && !died.isCancelled()) {
+            int exitCode = died.join();
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage(exitCode >= 0
+                    ? String.format("Le container %s s'est arrêté pendant le health check (code de sortie %d)", containerName, exitCode)
+                    : String.format("Le container %s n'est pas en cours d'exécution", containerName));
+            result.addMetric("containerDied", true);
+            result.addLog("✗ " + result.getErrorMessage());
+            result.addLog("💡 Vérifier les logs du container: docker logs " + containerName);
+        } else if ("unhealthy".equals(dockerHealth)) {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage(String.format("Le HEALTHCHECK Docker du container %s signale unhealthy", containerName));
+            result.addLog("✗ " + result.getErrorMessage());
+            result.addLog("💡 Détail des sondes: docker inspect --format '{{json .State.Health}}' " + containerName);
+        } else {
             result.setStatus(StepStatus.FAILED);
             result.setErrorMessage(String.format(
                 "L'application n'a pas démarré correctement après %d tentatives (%.1f secondes)",
-                MAX_RETRIES,
-                (MAX_RETRIES * RETRY_DELAY_MS) / 1000.0
+                attempt,
+                elapsedMs / 1000.0
             ));
             result.addLog("✗ Échec du health check");
             result.addLog("");
             result.addLog("💡 Suggestions de débogage:");
-            result.addLog("   1. Vérifier les logs du container: docker logs " + context.getContainerName());
+            result.addLog("   1. Vérifier les logs du container: docker logs " + containerName);
             result.addLog("   2. Vérifier que l'application démarre correctement");
             result.addLog("   3. Vérifier que le port 8080 est exposé dans le container");
-        } else {
-            result.addLog(String.format("📊 Health check validé via: %s (code %d)", successfulEndpoint, successfulStatusCode));
         }
 
         result.setEndTime(LocalDateTime.now());
@@ -125,87 +183,90 @@ public class HealthCheckStep extends AbstractPipelineStep {
         return result;
     }
 
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
     /**
-     * Vérifie si un port est ouvert sur un hôte donné
-     * 
-     * @param host L'hôte à tester
-     * @param port Le port à tester
-     * @return true si le port est ouvert, false sinon
+     * Sonde tous les endpoints en parallèle; résultats dans l'ordre de priorité des endpoints
      */
-    private boolean isPortOpen(String host, int port) {
-        try (Socket socket = new Socket()) {
-            socket.connect(new java.net.InetSocketAddress(host, port), 5000);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+    private List<ProbeResult> probeAll(String host, int port) {
+        List<CompletableFuture<ProbeResult>> probes = ENDPOINTS.stream()
+                .map(endpoint -> probe(host, port, endpoint))
+                .toList();
+        return probes.stream().map(CompletableFuture::join).toList();
     }
 
     /**
-     * Vérifie un endpoint HTTP
-     * 
-     * @param urlString L'URL de l'endpoint à tester
-     * @return Le résultat du health check
+     * Vérifie un endpoint HTTP.
+     * Codes négatifs: -1 connexion refusée, -2 délai dépassé, -3 connexion réinitialisée (démarrage en cours)
      */
-    private HealthCheckResult checkEndpoint(String urlString) {
-        try {
-            URI uri = URI.create(urlString);
-            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(15000);  // Augmenté à 15 secondes
-            connection.setReadTimeout(15000);     // Augmenté à 15 secondes
-            connection.setInstanceFollowRedirects(true);
-
-            int responseCode = connection.getResponseCode();
-
-            // Considérer 2xx et 3xx comme succès optimal
-            boolean success = (responseCode >= 200 && responseCode < 400);
-
-            connection.disconnect();
-
-            return new HealthCheckResult(success, responseCode);
-
-        } catch (java.net.ConnectException e) {
-            // Port fermé ou application pas encore prête
-            log.debug("Connexion refusée pour {}: {}", urlString, e.getMessage());
-            return new HealthCheckResult(false, -1);
-        } catch (java.net.SocketTimeoutException e) {
-            // Timeout - l'application est peut-être lente à répondre
-            log.debug("Timeout pour {}: {}", urlString, e.getMessage());
-            return new HealthCheckResult(false, -2);
-        } catch (java.io.IOException e) {
-            // Connection reset - l'application démarre mais n'est pas encore complètement prête
-            if (e.getMessage() != null && e.getMessage().contains("Connection reset")) {
-                log.debug("Connection reset pour {} - application en cours de démarrage", urlString);
-                return new HealthCheckResult(false, -3);
-            }
-            log.debug("IOException pour {}: {}", urlString, e.getMessage());
-            return new HealthCheckResult(false, -1);
-        } catch (Exception e) {
-            log.debug("Erreur lors du test de l'endpoint {}: {}", urlString, e.getMessage());
-            return new HealthCheckResult(false, -1);
-        }
+    private CompletableFuture<ProbeResult> probe(String host, int port, String endpoint) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(String.format("http://%s:%d%s", host, port, endpoint)))
+                .timeout(deployProperties.getHealthRequestTimeout())
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return new ProbeResult(endpoint, response.statusCode());
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    log.debug("Sonde {} sur {}:{}: {}", endpoint, host, port, cause.toString());
+                    if (cause instanceof HttpTimeoutException) {
+                        return new ProbeResult(endpoint, -2);
+                    }
+                    if (cause instanceof ConnectException) {
+                        return new ProbeResult(endpoint, -1);
+                    }
+                    return new ProbeResult(endpoint, cause instanceof IOException ? -3 : -1);
+                });
     }
 
-    @Override
-    public boolean isCritical() {
-        return true;
+    /**
+     * Attente avant la tentative suivante: initialBackoff * 2^(n-1) plafonnée à maxBackoff,
+     * dont une moitié aléatoire pour désynchroniser les sondes de plusieurs hôtes
+     */
+    private long backoff(int attempt) {
+        long initial = deployProperties.getHealthInitialBackoff().toMillis();
+        long base = Math.min(deployProperties.getHealthMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 20));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private String describe(List<ProbeResult> probes) {
+        if (probes.stream().allMatch(probe -> probe.getStatusCode() == -1)) {
+            return "port non accessible, l'application démarre...";
+        }
+        return String.join(", ", probes.stream().map(probe -> switch (probe.getStatusCode()) {
+            case -1 -> probe.getEndpoint() + " refusé";
+            case -2 -> probe.getEndpoint() + " délai dépassé";
+            case -3 -> probe.getEndpoint() + " connexion réinitialisée (démarrage en cours...)";
+            default -> probe.getEndpoint() + " code " + probe.getStatusCode();
+        }).toList());
     }
 
     /**
-     * Classe interne pour stocker le résultat d'un health check
+     * Classe interne pour stocker le résultat d'une sonde
      */
-    private static class HealthCheckResult {
-        private final boolean success;
+    private static class ProbeResult {
+        private final String endpoint;
         private final int statusCode;
 
-        public HealthCheckResult(boolean success, int statusCode) {
-            this.success = success;
+        public ProbeResult(String endpoint, int statusCode) {
+            this.endpoint = endpoint;
             this.statusCode = statusCode;
         }
 
-        public boolean isSuccess() {
-            return success;
+        /**
+         * Toute réponse HTTP (2xx/3xx, mais aussi 4xx/5xx) prouve que l'application est vivante
+         */
+        public boolean isAlive() {
+            return statusCode >= 200 && statusCode < 600;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
         }
 
         public int getStatusCode() {
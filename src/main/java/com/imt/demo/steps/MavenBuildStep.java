@@ -1,10 +1,28 @@
 package com.imt.demo.steps;
 
+import com.imt.demo.cache.BuildOutputCache;
+import com.imt.demo.cache.DependencyPrefetcher;
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.maven.AffectedModulePlanner;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
 /**
  * Étape 2: Build Maven
  */
@@ -12,6 +30,19 @@ import org.springframework.stereotype.Component;
 @Component
 public class MavenBuildStep extends AbstractPipelineStep {
 
+    private final MavenRepositoryCache mavenRepositoryCache;
+    private final BuildOutputCache buildOutputCache;
+    private final AffectedModulePlanner affectedModulePlanner;
+    private final DependencyPrefetcher dependencyPrefetcher;
+
+    public MavenBuildStep(MavenRepositoryCache mavenRepositoryCache, BuildOutputCache buildOutputCache,
+                          AffectedModulePlanner affectedModulePlanner, DependencyPrefetcher dependencyPrefetcher) {
+        this.mavenRepositoryCache = mavenRepositoryCache;
+        this.buildOutputCache = buildOutputCache;
+        this.affectedModulePlanner = affectedModulePlanner;
+        this.dependencyPrefetcher = dependencyPrefetcher;
+    }
+
     @Override
     public String getName() {
         return "Maven Build";
@@ -19,23 +50,173 @@ public class MavenBuildStep extends AbstractPipelineStep {
 
     @Override
     public StepResult execute(PipelineContext context) throws Exception {
+        Path workspace = Path.of(context.getWorkspaceDir());
+
+        // Sources, pom.xml et chaîne d'outils inchangés: restaurer les sorties au lieu de recompiler
+        String cacheKey = computeCacheKey(workspace);
+        if (cacheKey != null) {
+            StepResult restored = restoreFromCache(context, workspace, cacheKey);
+            if (restored != null) {
+                return restored;
+            }
+        }
+
+        // Projet multi-module: ne construire que les modules affectés par les changements et leurs dépendants
+        Optional<AffectedModulePlanner.ModulePlan> modulePlan = Boolean.TRUE.equals(context.getAffectedModules())
+                ? affectedModulePlanner.plan(context, workspace)
+                : Optional.empty();
+        if (modulePlan.isPresent() && modulePlan.get().isNothingToBuild()) {
+            return restoredModules(context, workspace, modulePlan.get());
+        }
+
+        // Dépendances préchargées pendant l'attente en file: ne pas les télécharger une seconde fois en parallèle
+        Optional<DependencyPrefetcher.Prefetch> prefetch = dependencyPrefetcher.await(context);
+        boolean dependenciesWarm = dependencyPrefetcher.isWarm(workspace);
+
         // Commande Maven: clean package (sans les tests, qui seront exécutés séparément)
-        String[] command = {
-            "mvn", "clean", "package",
-            "-DskipTests",
-            "-B"  // Mode batch (non-interactif)
-        };
+        // Un workspace emprunté au pool garde son target/ chaud: pas de clean, la compilation
+        // incrémentale de Maven ne recompile que ce qui a changé depuis le dernier build.
+        // Elle ne supprime pas les classes des sources effacées: clean dès qu'une source a disparu.
+        boolean incremental = Boolean.TRUE.equals(context.getWorkspaceLeased())
+                && !Boolean.TRUE.equals(context.getWorkspaceNeedsClean());
+        List<String> command = new ArrayList<>();
+        command.add("mvn");
+        if (!incremental) {
+            command.add("clean");
+        } else {
+            // Une archive d'un build précédent (artifact renommé) ferait correspondre target/*.jar à deux fichiers
+            deleteArchives(workspace);
+        }
+        command.add("package");
+        command.add("-DskipTests");
+        command.add("-B"); // Mode batch (non-interactif)
+        command.addAll(mavenRepositoryCache.mavenArguments(context.getExecutionId()));
+        modulePlan.ifPresent(plan -> command.addAll(plan.getMavenArguments()));
 
-        StepResult result = executeCommand(command, context.getWorkspaceDir(), context.getEnvironmentVariables());
+        StepResult result = executeCommand(command.toArray(String[]::new), context.getWorkspaceDir(), context.getEnvironmentVariables());
+        mavenRepositoryCache.recordInvocation(context.getExecutionId(), result);
+        modulePlan.ifPresent(plan -> affectedModulePlanner.record(context, plan, workspace, result));
+        prefetch.ifPresent(p -> result.addLog(String.format(" Préchargement des dépendances (pom %s, %dms): %s",
+                p.getPomHash() != null ? p.getPomHash().substring(0, 12) : "?", p.getDurationMs(), p.getMessage())));
+        result.addMetric("dependencyPrefetchHit", dependenciesWarm);
 
         // Si le build réussit, stocker le chemin de l'artifact
-        if (result.getStatus() == com.imt.demo.model.StepStatus.SUCCESS) {
+        if (result.getStatus() == StepStatus.SUCCESS) {
             String artifactPath = context.getWorkspaceDir() + "/target/*.jar";
             context.setArtifactPath(artifactPath);
             result.addLog(" Artifact généré: " + artifactPath);
+
+            if (cacheKey != null) {
+                buildOutputCache.store(cacheKey, workspace, collectOutputs(workspace));
+                result.addMetric("buildCacheHit", false);
+                result.addMetric("buildCacheKey", cacheKey);
+                result.addLog(" Sorties de build stockées dans le cache (clé " + cacheKey.substring(0, 12) + ")");
+            }
         }
 
         return result;
     }
-}
 
+    private String computeCacheKey(Path workspace) {
+        if (!buildOutputCache.isEnabled()) {
+            return null;
+        }
+        try {
+            return buildOutputCache.computeKey(workspace, Set.of(), List.of());
+        } catch (IOException e) {
+            log.warn("Impossible de calculer la clé du cache de build: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Restaure target/classes et le jar depuis le cache
+     *
+     * @return le résultat de l'étape en cas de hit, null sinon
+     */
+    private StepResult restoreFromCache(PipelineContext context, Path workspace, String cacheKey) {
+        LocalDateTime start = LocalDateTime.now();
+        if (!buildOutputCache.restore(cacheKey, workspace)) {
+            return null;
+        }
+
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.SUCCESS)
+                .startTime(start)
+                .endTime(LocalDateTime.now())
+                .build();
+        result.calculateDuration();
+
+        String artifactPath = context.getWorkspaceDir() + "/target/*.jar";
+        context.setArtifactPath(artifactPath);
+
+        result.addLog("✓ Sources inchangées: sorties restaurées depuis le cache de build (clé " + cacheKey.substring(0, 12) + ")");
+        result.addLog(" Artifact restauré: " + artifactPath);
+        result.addMetric("buildCacheHit", true);
+        result.addMetric("buildCacheKey", cacheKey);
+        log.info("Build Maven évité: sorties restaurées depuis le cache ({})", cacheKey);
+        return result;
+    }
+
+    /**
+     * Aucun module affecté: toutes les sorties ont été restaurées module par module depuis le cache
+     */
+    private StepResult restoredModules(PipelineContext context, Path workspace, AffectedModulePlanner.ModulePlan plan) {
+        LocalDateTime start = LocalDateTime.now();
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.SUCCESS)
+                .startTime(start)
+                .endTime(LocalDateTime.now())
+                .build();
+        result.calculateDuration();
+
+        String artifactPath = context.getWorkspaceDir() + "/target/*.jar";
+        context.setArtifactPath(artifactPath);
+
+        affectedModulePlanner.record(context, plan, workspace, result);
+        result.addLog("✓ Aucun module affecté par les changements: build Maven évité");
+        log.info("Build Maven évité: aucun module affecté ({})", plan.getReason());
+        return result;
+    }
+
+    /**
+     * Supprime les jar/war des répertoires target/ avant un build incrémental
+     */
+    private void deleteArchives(Path workspace) throws IOException {
+        for (Path output : collectOutputs(workspace)) {
+            if (output.toString().endsWith(".jar") || output.toString().endsWith(".war")) {
+                Files.deleteIfExists(workspace.resolve(output));
+            }
+        }
+    }
+
+    /**
+     * Sorties à mettre en cache: target/classes et les archives packagées de chaque module
+     */
+    private List<Path> collectOutputs(Path workspace) throws IOException {
+        List<Path> outputs = new ArrayList<>();
+        Files.walkFileTree(workspace, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                String name = dir.getFileName().toString();
+                if (name.equals(".git")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (name.equals("target")) {
+                    if (Files.isDirectory(dir.resolve("classes"))) {
+                        outputs.add(workspace.relativize(dir.resolve("classes")));
+                    }
+                    try (Stream<Path> files = Files.list(dir)) {
+                        files.filter(f -> f.toString().endsWith(".jar") || f.toString().endsWith(".war"))
+                                .forEach(f -> outputs.add(workspace.relativize(f)));
+                    }
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return outputs;
+    }
+}
@@ -1,10 +1,37 @@
 package com.imt.demo.steps;
 
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.engine.WorkspaceSnapshotter;
 import com.imt.demo.model.PipelineContext;
 import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import com.imt.demo.service.TestReportService;
+import com.imt.demo.testing.FailedTestReruns;
+import com.imt.demo.testing.SurefireReportParser;
+import com.imt.demo.testing.TestClassLocator;
+import com.imt.demo.testing.TestImpactAnalyzer;
+import com.imt.demo.testing.TestPrioritizer;
+import com.imt.demo.testing.TestShardScheduler;
+import com.imt.demo.testing.TestingProperties;
+import com.imt.demo.workspace.WorkspaceFiles;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * Étape 3: Exécution des tests unitaires Maven
  */
@@ -12,6 +39,27 @@ import org.springframework.stereotype.Component;
 @Component
 public class MavenTestStep extends AbstractPipelineStep {
 
+    private final MavenRepositoryCache mavenRepositoryCache;
+    private final TestImpactAnalyzer testImpactAnalyzer;
+    private final TestShardScheduler testShardScheduler;
+    private final WorkspaceSnapshotter workspaceSnapshotter;
+    private final TestReportService testReportService;
+    private final TestPrioritizer testPrioritizer;
+    private final TestingProperties testingProperties;
+
+    public MavenTestStep(MavenRepositoryCache mavenRepositoryCache, TestImpactAnalyzer testImpactAnalyzer,
+                         TestShardScheduler testShardScheduler, WorkspaceSnapshotter workspaceSnapshotter,
+                         TestReportService testReportService, TestPrioritizer testPrioritizer,
+                         TestingProperties testingProperties) {
+        this.mavenRepositoryCache = mavenRepositoryCache;
+        this.testImpactAnalyzer = testImpactAnalyzer;
+        this.testShardScheduler = testShardScheduler;
+        this.workspaceSnapshotter = workspaceSnapshotter;
+        this.testReportService = testReportService;
+        this.testPrioritizer = testPrioritizer;
+        this.testingProperties = testingProperties;
+    }
+
     @Override
     public String getName() {
         return "Maven Test";
@@ -19,13 +67,376 @@ public class MavenTestStep extends AbstractPipelineStep {
 
     @Override
     public StepResult execute(PipelineContext context) throws Exception {
-        // Commande Maven: exécution des tests
-        String[] command = {
-            "mvn", "test",
-            "-B"  // Mode batch (non-interactif)
-        };
+        // Un workspace emprunté au pool garde les rapports du build précédent
+        deleteReports(Path.of(context.getWorkspaceDir()));
+
+        // Analyse d'impact: seuls les tests dépendant des classes modifiées sont passés à Surefire
+        TestImpactAnalyzer.TestSelection selection = null;
+        if (Boolean.TRUE.equals(context.getTestImpactAnalysis())) {
+            selection = testImpactAnalyzer.plan(context);
+            log.info("Analyse d'impact des tests: {} ({})", selection.isFullRun() ? "exécution complète" : "sélective", selection.getReason());
+            if (!selection.isFullRun() && selection.getTests().isEmpty()) {
+                return noImpactedTests(context, selection);
+            }
+        }
+
+        // Priorisation: tests en échec récemment et tests impactés d'abord, pour échouer au plus tôt
+        boolean failFast = Boolean.TRUE.equals(context.getFailFast());
+        List<String> priority = new ArrayList<>();
+        if (Boolean.TRUE.equals(context.getTestPrioritization())) {
+            TestPrioritizer.Priority prioritized = testPrioritizer.prioritize(context);
+            priority.addAll(TestPrioritizer.priorityTests(prioritized, selection));
+            log.info("Tests prioritaires: {} en échec récemment, {} impactés", prioritized.getRecentlyFailed().size(), prioritized.getImpacted().size());
+        }
+
+        long start = System.currentTimeMillis();
+        StepResult result;
+        if (priority.isEmpty()) {
+            result = runRemaining(context, selection, Set.of(), failFast, "test");
+            if (result.getStatus() == StepStatus.FAILED) {
+                testPrioritizer.recordTimeToFailure(System.currentTimeMillis() - start, false, failFast);
+            }
+        } else {
+            StepResult first = runMaven(context, "test", String.join(",", priority), failFast, context.getWorkspaceDir());
+            long timeToFailure = System.currentTimeMillis() - start;
+            if (first.getStatus() == StepStatus.FAILED && failFast) {
+                testPrioritizer.recordTimeToFailure(timeToFailure, true, true);
+                first.addLog("✗ Échec parmi les " + priority.size() + " classes prioritaires: arrêt immédiat (fail-fast), tests restants non exécutés");
+                first.addMetric("timeToFirstFailureMs", timeToFailure);
+                result = first;
+            } else {
+                StepResult rest = runRemaining(context, selection, new HashSet<>(priority), failFast, "surefire:test");
+                result = mergePhases(first, rest, priority.size());
+                if (first.getStatus() == StepStatus.FAILED) {
+                    result.addMetric("timeToFirstFailureMs", timeToFailure);
+                    testPrioritizer.recordTimeToFailure(timeToFailure, true, false);
+                } else if (rest.getStatus() == StepStatus.FAILED) {
+                    testPrioritizer.recordTimeToFailure(System.currentTimeMillis() - start, true, failFast);
+                }
+            }
+            result.addMetric("priorityTestClasses", priority.size());
+        }
+
+        List<SurefireReportParser.SuiteReport> reports = SurefireReportParser.parseWorkspace(Path.of(context.getWorkspaceDir()));
+
+        // Relance des seuls tests en échec: un test instable ne fait pas échouer tout le pipeline
+        int retries = context.getTestRetries() != null ? context.getTestRetries() : testingProperties.getDefaultRetries();
+        if (result.getStatus() == StepStatus.FAILED && FailedTestReruns.isEnabled(retries, failFast)) {
+            reports = rerunFailedTests(context, result, reports, retries);
+        } else if (result.getStatus() == StepStatus.FAILED && retries > 0) {
+            result.addLog(" Relance des tests en échec désactivée en mode fail-fast");
+        }
+
+        // Résultats par méthode (base de durées et d'échecs) et durées par classe pour l'équilibrage des shards
+        testReportService.ingest(context, reports);
+        testShardScheduler.recordTimings(context, reports);
+        result.addMetric("testsRun", reports.stream().mapToInt(SurefireReportParser.SuiteReport::getTests).sum());
+        result.addMetric("testsFailed", reports.stream().mapToInt(report -> report.getFailures() + report.getErrors()).sum());
+
+        if (selection != null) {
+            reportSelection(result, selection);
+            testImpactAnalyzer.record(context, selection, result);
+        }
+        return result;
+    }
+
+    /**
+     * Relance jusqu'à maxRetries fois les seules méthodes en échec, dans le même workspace (tests déjà compilés).
+     * L'étape passe si toutes les méthodes en échec finissent par passer; elles sont alors signalées instables.
+     * Sans méthode en échec dans les rapports (erreur de compilation, JVM interrompue), rien n'est relancé.
+     *
+     * @return les rapports de l'exécution initiale, avec l'issue finale de chaque test relancé
+     */
+    private List<SurefireReportParser.SuiteReport> rerunFailedTests(PipelineContext context, StepResult result,
+                                                                    List<SurefireReportParser.SuiteReport> reports,
+                                                                    int maxRetries) throws IOException {
+        Map<String, Set<String>> failed = FailedTestReruns.failedMethods(reports);
+        if (failed.isEmpty()) {
+            result.addLog(" Aucun test en échec dans les rapports Surefire: pas de relance");
+            return reports;
+        }
+
+        int attempt = 0;
+        while (!failed.isEmpty() && attempt < maxRetries) {
+            attempt++;
+            String filter = FailedTestReruns.filter(failed);
+            result.addLog("── Relance " + attempt + "/" + maxRetries + " de " + failed.values().stream().mapToInt(Set::size).sum()
+                    + " test(s) en échec: " + filter);
+
+            StepResult rerun = runMaven(context, "surefire:test", filter, false, context.getWorkspaceDir());
+            String prefix = "[relance " + attempt + "] ";
+            rerun.getLogs().forEach(line -> result.addLog(prefix + line));
+
+            reports = FailedTestReruns.applyRerun(reports, SurefireReportParser.parseWorkspace(Path.of(context.getWorkspaceDir())));
+            failed = FailedTestReruns.failedMethods(reports);
+        }
+
+        List<String> flaky = FailedTestReruns.flakyTests(reports);
+        result.addMetric("testRetries", attempt);
+        result.addMetric("flakyTests", flaky);
+        if (failed.isEmpty()) {
+            result.setStatus(StepStatus.SUCCESS);
+            result.setErrorMessage(null);
+            result.addLog("✓ Tests passés après relance, signalés instables: " + String.join(", ", flaky));
+            log.warn("Tests instables détectés: {}", flaky);
+        } else {
+            result.addLog("✗ Tests toujours en échec après " + attempt + " relance(s): " + FailedTestReruns.filter(failed));
+        }
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+        return reports;
+    }
+
+    /**
+     * Exécute les tests (hors classes exclues), en un seul processus Maven ou répartis en shards
+     *
+     * @param goal "test" (cycle complet) ou "surefire:test" (tests déjà compilés par une phase précédente)
+     */
+    private StepResult runRemaining(PipelineContext context, TestImpactAnalyzer.TestSelection selection,
+                                    Set<String> excluded, boolean failFast, String goal) throws Exception {
+        if (context.getTestShards() != null && context.getTestShards() > 1) {
+            return executeSharded(context, selection, context.getTestShards(), excluded, failFast);
+        }
+
+        String filter = TestPrioritizer.remainderFilter(selection, excluded);
+        if (filter != null && filter.isEmpty()) {
+            StepResult result = StepResult.builder()
+                    .stepName(getName())
+                    .status(StepStatus.RUNNING)
+                    .startTime(LocalDateTime.now())
+                    .build();
+            result.addLog("✓ Aucune classe de test restante");
+            return finish(result, StepStatus.SUCCESS, null);
+        }
+        return runMaven(context, goal, filter, failFast, context.getWorkspaceDir());
+    }
+
+    /**
+     * Lance Surefire, éventuellement restreint à un filtre -Dtest
+     */
+    private StepResult runMaven(PipelineContext context, String goal, String testFilter, boolean failFast, String directory) {
+        List<String> command = new ArrayList<>();
+        command.add("mvn");
+        command.add(goal);
+        command.add("-B"); // Mode batch (non-interactif)
+        if (testFilter != null) {
+            command.add("-Dtest=" + testFilter);
+            // Modules sans test sélectionné: ne pas échouer
+            command.add("-Dsurefire.failIfNoSpecifiedTests=false");
+        }
+        if (failFast) {
+            // Surefire ignore les tests restants de la JVM après le premier échec
+            command.add("-Dsurefire.skipAfterFailureCount=1");
+        }
+        command.addAll(mavenRepositoryCache.mavenArguments(context.getExecutionId()));
+
+        StepResult result = executeCommand(command.toArray(String[]::new), directory, context.getEnvironmentVariables());
+        mavenRepositoryCache.recordInvocation(context.getExecutionId(), result);
+        return result;
+    }
+
+    /**
+     * Fusionne la phase des tests prioritaires et celle des tests restants
+     */
+    private StepResult mergePhases(StepResult first, StepResult rest, int priorityClasses) {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(first.getStartTime())
+                .build();
+        result.addLog("── Tests prioritaires (" + priorityClasses + " classes): " + first.getDurationMs() + "ms");
+        result.getLogs().addAll(first.getLogs());
+        result.addLog("── Tests restants: " + rest.getDurationMs() + "ms");
+        result.getLogs().addAll(rest.getLogs());
+        if (rest.getMetrics() != null) {
+            rest.getMetrics().forEach(result::addMetric);
+        }
+        result.addMetric("priorityPhaseMs", first.getDurationMs());
+
+        StepResult failed = first.getStatus() == StepStatus.FAILED ? first : rest;
+        return failed.getStatus() == StepStatus.FAILED
+                ? finish(result, StepStatus.FAILED, failed.getErrorMessage())
+                : finish(result, StepStatus.SUCCESS, null);
+    }
+
+    /**
+     * Exécution des tests répartie en shards parallèles.
+     * Les tests sont compilés une fois dans le workspace, puis chaque shard lance surefire:test sur sa propre
+     * copie du workspace (le shard 1 utilise le workspace lui-même). Les rapports Surefire des copies sont
+     * rapatriés dans le workspace avant leur suppression.
+     */
+    private StepResult executeSharded(PipelineContext context, TestImpactAnalyzer.TestSelection selection,
+                                      int shardCount, Set<String> excluded, boolean failFast) throws Exception {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+        Path workspace = Path.of(context.getWorkspaceDir());
+
+        List<String> compile = new ArrayList<>(List.of("mvn", "test-compile", "-B"));
+        compile.addAll(mavenRepositoryCache.mavenArguments(context.getExecutionId()));
+        StepResult compileResult = executeCommand(compile.toArray(String[]::new), context.getWorkspaceDir(), context.getEnvironmentVariables());
+        mavenRepositoryCache.recordInvocation(context.getExecutionId(), compileResult);
+        result.getLogs().addAll(compileResult.getLogs());
+        if (compileResult.getStatus() == StepStatus.FAILED) {
+            return finish(result, StepStatus.FAILED, compileResult.getErrorMessage());
+        }
+
+        Set<String> testClasses = TestClassLocator.findTestClasses(workspace);
+        if (selection != null && !selection.isFullRun()) {
+            testClasses.retainAll(selection.getTests());
+        }
+        testClasses.removeAll(excluded);
+        if (testClasses.isEmpty()) {
+            result.addLog("✓ Aucune classe de test à exécuter");
+            return finish(result, StepStatus.SUCCESS, null);
+        }
+
+        List<TestShardScheduler.Shard> shards = testShardScheduler.plan(context, testClasses, shardCount);
+        result.addLog(" Tests répartis en " + shards.size() + " shards (" + testClasses.size() + " classes)");
+
+        // Copies du workspace préparées avant tout lancement: le workspace source ne bouge plus
+        List<Path> directories = new ArrayList<>();
+        directories.add(workspace);
+        for (TestShardScheduler.Shard shard : shards.subList(1, shards.size())) {
+            directories.add(workspaceSnapshotter.fork(context, "shard-" + shard.getIndex()).getSnapshot().getDirectory());
+        }
+
+        long start = System.currentTimeMillis();
+        List<StepResult> shardResults = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<StepResult>> futures = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                TestShardScheduler.Shard shard = shards.get(i);
+                Path directory = directories.get(i);
+                futures.add(executor.submit(() -> runShard(context, shard, directory, failFast)));
+            }
+            for (Future<StepResult> future : futures) {
+                shardResults.add(future.get());
+            }
+        }
+        long wallClockMs = System.currentTimeMillis() - start;
+
+        // Fusion des résultats dans un seul StepResult
+        List<Map<String, Object>> shardMetrics = new ArrayList<>();
+        long shardMs = 0;
+        String failure = null;
+        for (int i = 0; i < shards.size(); i++) {
+            TestShardScheduler.Shard shard = shards.get(i);
+            StepResult shardResult = shardResults.get(i);
+            mavenRepositoryCache.recordInvocation(context.getExecutionId(), shardResult);
+
+            String prefix = "[shard " + shard.getIndex() + "/" + shards.size() + "] ";
+            result.addLog("── Shard " + shard.getIndex() + ": " + shard.getTests().size() + " classes, estimé "
+                    + shard.getEstimatedMs() + "ms, réel " + shardResult.getDurationMs() + "ms");
+            shardResult.getLogs().forEach(line -> result.addLog(prefix + line));
+
+            long duration = shardResult.getDurationMs() != null ? shardResult.getDurationMs() : 0;
+            shardMs += duration;
+            if (shardResult.getStatus() != StepStatus.SUCCESS && failure == null) {
+                failure = "Shard " + shard.getIndex() + ": " + shardResult.getErrorMessage();
+            }
+
+            Map<String, Object> metric = new LinkedHashMap<>();
+            metric.put("shard", shard.getIndex());
+            metric.put("testClasses", shard.getTests().size());
+            metric.put("estimatedMs", shard.getEstimatedMs());
+            metric.put("durationMs", duration);
+            metric.put("status", shardResult.getStatus().name());
+            shardMetrics.add(metric);
+        }
+
+        for (int i = 1; i < directories.size(); i++) {
+            collectReports(directories.get(i), workspace);
+            WorkspaceFiles.deleteRecursively(directories.get(i));
+        }
+
+        testShardScheduler.recordRun(shards.size(), wallClockMs, shardMs);
+        result.addMetric("testShards", shards.size());
+        result.addMetric("shards", shardMetrics);
+        result.addMetric("testWallClockMs", wallClockMs);
+        result.addMetric("testCumulativeMs", shardMs);
+        result.addMetric("parallelSpeedup", wallClockMs == 0 ? 1.0 : (double) shardMs / wallClockMs);
+        result.addLog(" Temps mur des tests: " + wallClockMs + "ms (cumulé sur les shards: " + shardMs + "ms)");
 
-        return executeCommand(command, context.getWorkspaceDir(), context.getEnvironmentVariables());
+        return finish(result, failure == null ? StepStatus.SUCCESS : StepStatus.FAILED, failure);
+    }
+
+    /**
+     * Exécute un shard dans un créneau d'exécution partagé
+     */
+    private StepResult runShard(PipelineContext context, TestShardScheduler.Shard shard, Path directory,
+                                boolean failFast) throws InterruptedException {
+        testShardScheduler.acquireSlot();
+        try {
+            return runMaven(context, "surefire:test", String.join(",", shard.getTests()), failFast, directory.toString());
+        } finally {
+            testShardScheduler.releaseSlot();
+        }
+    }
+
+    /**
+     * Rapatrie les rapports Surefire d'une copie du workspace (même chemin relatif, module par module)
+     */
+    private void collectReports(Path shardDirectory, Path workspace) {
+        try {
+            for (Path report : SurefireReportParser.findReports(shardDirectory)) {
+                Path target = workspace.resolve(shardDirectory.relativize(report));
+                Files.createDirectories(target.getParent());
+                Files.copy(report, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Impossible de rapatrier les rapports Surefire de {}: {}", shardDirectory, e.getMessage());
+        }
+    }
+
+    private void deleteReports(Path workspace) throws IOException {
+        for (Path target : TestClassLocator.findTargetDirectories(workspace)) {
+            WorkspaceFiles.deleteRecursively(target.resolve(SurefireReportParser.REPORTS_DIRECTORY));
+        }
+    }
+
+    private StepResult finish(StepResult result, StepStatus status, String errorMessage) {
+        result.setStatus(status);
+        result.setErrorMessage(errorMessage);
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+        result.addLog(status == StepStatus.SUCCESS ? "✓ Étape terminée avec succès" : "✗ Échec de l'étape: " + errorMessage);
+        return result;
+    }
+
+    /**
+     * Aucun test ne dépend des fichiers modifiés: l'étape réussit sans lancer Maven.
+     * La carte d'impact n'est pas reconstruite (le bytecode n'a pas changé).
+     */
+    private StepResult noImpactedTests(PipelineContext context, TestImpactAnalyzer.TestSelection selection) {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.SUCCESS)
+                .startTime(LocalDateTime.now())
+                .endTime(LocalDateTime.now())
+                .build();
+        result.calculateDuration();
+        result.addLog("✓ Aucun test impacté par les changements (" + selection.getReason() + ")");
+        reportSelection(result, selection);
+        // Exécution sélective vide: compte pour le filet de sécurité de l'exécution complète périodique
+        testImpactAnalyzer.record(context, selection, result);
+        return result;
+    }
+
+    private void reportSelection(StepResult result, TestImpactAnalyzer.TestSelection selection) {
+        if (selection.isFullRun()) {
+            result.addLog(" Analyse d'impact: exécution complète (" + selection.getReason() + ")");
+        } else {
+            result.addLog(" Analyse d'impact: " + selection.getTests().size() + " classe(s) de test exécutée(s), "
+                    + selection.getSkippedTests() + " ignorée(s) sur " + selection.getKnownTests()
+                    + " (" + selection.getChangedClasses() + " classe(s) modifiée(s))");
+        }
+        result.addMetric("testImpactMode", selection.isFullRun() ? "full" : "selective");
+        result.addMetric("testImpactReason", selection.getReason());
+        result.addMetric("testClassesSelected", selection.isFullRun() ? selection.getKnownTests() : selection.getTests().size());
+        result.addMetric("testClassesSkipped", selection.getSkippedTests());
     }
 
     @Override
@@ -34,4 +445,3 @@ public class MavenTestStep extends AbstractPipelineStep {
         return true;
     }
 }
-
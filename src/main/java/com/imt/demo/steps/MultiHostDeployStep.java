@@ -0,0 +1,222 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Étapes 7 et 8 pour plusieurs hôtes: la même image est déployée sur chaque hôte de deploymentHosts,
+ * par vagues dont les hôtes sont traités en parallèle (déploiement, health check puis, s'il est demandé,
+ * smoke test de performance de l'hôte). Une vague ne démarre que si tous les hôtes de la précédente
+ * ont passé ces vérifications; en cas d'échec, seuls les hôtes déjà touchés reviennent à leur image précédente.
+ */
+@Slf4j
+@Component
+public class MultiHostDeployStep extends AbstractPipelineStep {
+
+    private static final String BATCH = "batch";
+
+    private final DockerDeployStep dockerDeployStep;
+    private final HealthCheckStep healthCheckStep;
+    private final PerformanceSmokeTestStep performanceSmokeTestStep;
+    private final DeployProperties deployProperties;
+
+    public MultiHostDeployStep(DockerDeployStep dockerDeployStep, HealthCheckStep healthCheckStep,
+                               PerformanceSmokeTestStep performanceSmokeTestStep, DeployProperties deployProperties) {
+        this.dockerDeployStep = dockerDeployStep;
+        this.healthCheckStep = healthCheckStep;
+        this.performanceSmokeTestStep = performanceSmokeTestStep;
+        this.deployProperties = deployProperties;
+    }
+
+    @Override
+    public String getName() {
+        return "Multi-Host Deploy";
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) throws Exception {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+
+        List<String> hosts = context.getDeploymentHosts();
+        int parallelism = Math.max(1, context.getDeploymentParallelism() != null
+                ? context.getDeploymentParallelism()
+                : deployProperties.getHostParallelism());
+        String strategy = context.getDeploymentStrategy() != null ? context.getDeploymentStrategy() : deployProperties.getStrategy();
+        List<List<String>> waves = waves(hosts, BATCH.equalsIgnoreCase(strategy) ? hosts.size() : parallelism);
+        boolean smokeTest = context.getPerformanceTest() != null ? context.getPerformanceTest() : deployProperties.isSmokeTest();
+
+        // Même nom de container sur tous les hôtes
+        if (context.getContainerName() == null) {
+            context.setContainerName("jonk-app-" + context.getPipelineId());
+        }
+        context.setDeployedHosts(Collections.synchronizedList(new ArrayList<>()));
+        context.setPreviousHostImageTags(new ConcurrentHashMap<>());
+
+        result.addLog(String.format(" Déploiement de %s sur %d hôtes: %d vague(s), %d hôte(s) en parallèle (%s)",
+                context.getFullDockerImageName(), hosts.size(), waves.size(), parallelism, strategy));
+
+        List<Long> waveDurations = new ArrayList<>();
+        String failure = null;
+        Semaphore slots = new Semaphore(parallelism);
+        for (int index = 0; index < waves.size() && failure == null; index++) {
+            List<String> wave = waves.get(index);
+            result.addLog(String.format("── Vague %d/%d: %s", index + 1, waves.size(), String.join(", ", wave)));
+
+            long start = System.currentTimeMillis();
+            List<StepResult> hostResults = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<StepResult>> futures = new ArrayList<>();
+                for (String host : wave) {
+                    futures.add(executor.submit(() -> {
+                        slots.acquire();
+                        try {
+                            return deployHost(context, host, smokeTest);
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                }
+                for (Future<StepResult> future : futures) {
+                    hostResults.add(future.get());
+                }
+            }
+            waveDurations.add(System.currentTimeMillis() - start);
+
+            for (int i = 0; i < wave.size(); i++) {
+                StepResult hostResult = hostResults.get(i);
+                String prefix = "[" + wave.get(i) + "] ";
+                hostResult.getLogs().forEach(line -> result.addLog(prefix + line));
+                if (hostResult.getStatus() != StepStatus.SUCCESS && failure == null) {
+                    failure = wave.get(i) + ": " + hostResult.getErrorMessage();
+                }
+            }
+            result.addLog(String.format("  Vague %d terminée en %d ms", index + 1, waveDurations.get(index)));
+        }
+
+        result.addMetric("hosts", hosts.size());
+        result.addMetric("strategy", strategy.toLowerCase());
+        result.addMetric("parallelism", parallelism);
+        result.addMetric("waves", waves.size());
+        result.addMetric("smokeTest", smokeTest);
+        result.addMetric("waveDurationsMs", waveDurations);
+        result.addMetric("hostsDeployed", context.getDeployedHosts().size());
+
+        if (failure != null) {
+            result.addLog("✗ Vague en échec (" + failure + "), rollback des hôtes touchés");
+            rollback(context);
+            result.addMetric("hostsRolledBack", context.getDeployedHosts().size());
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage("Déploiement multi-hôtes échoué sur " + failure);
+        } else {
+            result.setStatus(StepStatus.SUCCESS);
+            result.addLog(String.format("✓ %s déployée et en bonne santé sur %d hôtes", context.getFullDockerImageName(), hosts.size()));
+        }
+
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+        return result;
+    }
+
+    /**
+     * Déploie l'image sur un hôte puis vérifie sa santé et, si demandé, ses performances
+     * (ces vérifications servent de porte à la vague)
+     */
+    private StepResult deployHost(PipelineContext context, String host, boolean smokeTest) throws Exception {
+        PipelineContext hostContext = hostContext(context, host, null);
+        context.getDeployedHosts().add(host);
+
+        StepResult deploy = dockerDeployStep.execute(hostContext);
+        if (hostContext.getPreviousDockerImageTag() != null) {
+            context.getPreviousHostImageTags().put(host, hostContext.getPreviousDockerImageTag());
+        }
+        if (deploy.getStatus() != StepStatus.SUCCESS) {
+            return deploy;
+        }
+
+        StepResult health = healthCheckStep.execute(hostContext);
+        deploy.getLogs().addAll(health.getLogs());
+        deploy.setStatus(health.getStatus());
+        deploy.setErrorMessage(health.getErrorMessage());
+        if (!smokeTest || health.getStatus() != StepStatus.SUCCESS) {
+            return deploy;
+        }
+
+        // Smoke test sur l'hôte lui-même: la référence est le déploiement précédent de cet hôte et de ce port
+        StepResult smoke = performanceSmokeTestStep.execute(hostContext);
+        deploy.getLogs().addAll(smoke.getLogs());
+        deploy.setStatus(smoke.getStatus());
+        deploy.setErrorMessage(smoke.getErrorMessage());
+        return deploy;
+    }
+
+    /**
+     * Ramène les seuls hôtes touchés à l'image qu'ils exécutaient avant le déploiement
+     */
+    @Override
+    public void rollback(PipelineContext context) throws Exception {
+        List<String> touched = context.getDeployedHosts() != null ? List.copyOf(context.getDeployedHosts()) : List.of();
+        if (touched.isEmpty()) {
+            return;
+        }
+        log.info("Rollback de {} hôte(s): {}", touched.size(), touched);
+        Map<String, String> previousTags = context.getPreviousHostImageTags() != null
+                ? context.getPreviousHostImageTags()
+                : Map.of();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String host : touched) {
+                PipelineContext hostContext = hostContext(context, host, previousTags.get(host));
+                executor.submit(() -> {
+                    try {
+                        dockerDeployStep.rollback(hostContext);
+                    } catch (Exception e) {
+                        log.error("Rollback de l'hôte {} échoué: {}", host, e.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    private PipelineContext hostContext(PipelineContext context, String host, String previousImageTag) {
+        return context.toBuilder()
+                .deploymentHost(host)
+                .deploymentHosts(null)
+                .previousDockerImageTag(previousImageTag != null ? previousImageTag : context.getPreviousDockerImageTag())
+                .build();
+    }
+
+    /**
+     * Découpe la liste des hôtes en vagues successives de taille size
+     */
+    private List<List<String>> waves(List<String> hosts, int size) {
+        List<List<String>> waves = new ArrayList<>();
+        for (int i = 0; i < hosts.size(); i += size) {
+            waves.add(hosts.subList(i, Math.min(hosts.size(), i + size)));
+        }
+        return waves;
+    }
+}
@@ -0,0 +1,297 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.deploy.DeploymentHistory;
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.PerformanceSnapshot;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Étape 9 (optionnelle): smoke test de performance de l'application déployée.
+ * Des clients concurrents (un virtual thread chacun) envoient le mélange de requêtes configuré pendant
+ * une durée fixe, après un échauffement non mesuré. Débit et latences p50/p95/p99 sont comparés
+ * à ceux du déploiement précédent sur le même hôte et port: une régression fait échouer l'étape,
+ * ce qui déclenche le rollback du déploiement.
+ */
+@Slf4j
+@Component
+public class PerformanceSmokeTestStep extends AbstractPipelineStep {
+
+    private final DeployProperties deployProperties;
+    private final DeploymentHistory deploymentHistory;
+    private final HttpClient httpClient;
+
+    public PerformanceSmokeTestStep(DeployProperties deployProperties, DeploymentHistory deploymentHistory) {
+        this.deployProperties = deployProperties;
+        this.deploymentHistory = deploymentHistory;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(deployProperties.getSmokeRequestTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "Performance Smoke Test";
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) throws Exception {
+        StepResult result = StepResult.builder()
+                .stepName(getName())
+                .status(StepStatus.RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+
+        String host = context.getDeploymentHost() != null ? context.getDeploymentHost() : "localhost";
+        String port = context.getDeploymentPort() != null ? context.getDeploymentPort() : "8080";
+        List<String> definitions = context.getPerformanceRequests() != null && !context.getPerformanceRequests().isEmpty()
+                ? context.getPerformanceRequests()
+                : deployProperties.getSmokeRequests();
+        int concurrency = Math.max(1, deployProperties.getSmokeConcurrency());
+
+        List<HttpRequest> mix;
+        try {
+            mix = requestMix(host, port, definitions);
+        } catch (IllegalArgumentException e) {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage("Requêtes du smoke test invalides: " + e.getMessage());
+            result.addLog("✗ " + result.getErrorMessage());
+            result.setEndTime(LocalDateTime.now());
+            result.calculateDuration();
+            return result;
+        }
+
+        result.addLog(String.format("🚀 Smoke test de performance sur %s:%s: %d clients, %.1f s (+%.1f s d'échauffement)",
+                host, port, concurrency, deployProperties.getSmokeDuration().toMillis() / 1000.0,
+                deployProperties.getSmokeWarmup().toMillis() / 1000.0));
+        definitions.forEach(definition -> result.addLog("   " + definition));
+
+        PerformanceSnapshot snapshot = run(mix, concurrency);
+        double errorRate = snapshot.getRequests() == 0 ? 1.0 : (double) snapshot.getErrors() / snapshot.getRequests();
+
+        result.addLog(String.format("📊 %d requêtes, %.1f req/s, %d erreurs (%.2f %%)",
+                snapshot.getRequests(), snapshot.getThroughputRps(), snapshot.getErrors(), errorRate * 100));
+        result.addLog(String.format("📊 Latences: p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms",
+                snapshot.getP50Ms(), snapshot.getP95Ms(), snapshot.getP99Ms(), snapshot.getMaxMs()));
+        result.addMetric("requests", snapshot.getRequests());
+        result.addMetric("errors", snapshot.getErrors());
+        result.addMetric("errorRate", errorRate);
+        result.addMetric("throughputRps", snapshot.getThroughputRps());
+        result.addMetric("p50Ms", snapshot.getP50Ms());
+        result.addMetric("p95Ms", snapshot.getP95Ms());
+        result.addMetric("p99Ms", snapshot.getP99Ms());
+        result.addMetric("maxMs", snapshot.getMaxMs());
+
+        String historyHost = DeploymentHistory.host(context);
+        Optional<DeploymentRecord> baseline = deploymentHistory.performanceBaseline(historyHost, port, context.getPipelineId());
+        deploymentHistory.recordPerformance(context.getPipelineId(), historyHost, port, snapshot);
+
+        List<String> regressions = new ArrayList<>();
+        if (errorRate > deployProperties.getSmokeMaxErrorRate()) {
+            regressions.add(String.format("taux d'erreur %.2f %% (max %.2f %%)",
+                    errorRate * 100, deployProperties.getSmokeMaxErrorRate() * 100));
+        }
+        if (baseline.isPresent()) {
+            PerformanceSnapshot previous = baseline.get().getPerformance();
+            result.addLog(String.format("📊 Référence (%s): p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, %.1f req/s",
+                    baseline.get().getImage(), previous.getP50Ms(), previous.getP95Ms(), previous.getP99Ms(), previous.getThroughputRps()));
+            result.addMetric("baselineImage", baseline.get().getImage());
+            result.addMetric("baselineP95Ms", previous.getP95Ms());
+            result.addMetric("baselineP99Ms", previous.getP99Ms());
+            result.addMetric("baselineThroughputRps", previous.getThroughputRps());
+            checkLatency("p95", snapshot.getP95Ms(), previous.getP95Ms(), result, regressions);
+            checkLatency("p99", snapshot.getP99Ms(), previous.getP99Ms(), result, regressions);
+        } else {
+            result.addLog("ℹ Aucune mesure précédente sur cet hôte et ce port: ces valeurs serviront de référence");
+        }
+
+        if (regressions.isEmpty()) {
+            result.setStatus(StepStatus.SUCCESS);
+            result.addLog("✓ Performances conformes");
+        } else {
+            result.setStatus(StepStatus.FAILED);
+            result.setErrorMessage("Régression de performance: " + String.join(", ", regressions));
+            result.addLog("✗ " + result.getErrorMessage());
+        }
+
+        result.setEndTime(LocalDateTime.now());
+        result.calculateDuration();
+        return result;
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    /**
+     * Régression si la latence dépasse la référence de plus du pourcentage autorisé
+     * et d'au moins la tolérance absolue (les latences de quelques ms sont bruitées)
+     */
+    private void checkLatency(String percentile, double current, double previous, StepResult result, List<String> regressions) {
+        double change = previous > 0 ? (current - previous) / previous : 0.0;
+        result.addMetric(percentile + "Change", change);
+        if (current > previous * (1 + deployProperties.getSmokeMaxLatencyIncrease())
+                && current - previous > deployProperties.getSmokeLatencyTolerance().toMillis()) {
+            regressions.add(String.format("%s %.1f ms contre %.1f ms (%+.0f %%, max +%.0f %%)", percentile, current, previous,
+                    change * 100, deployProperties.getSmokeMaxLatencyIncrease() * 100));
+        }
+    }
+
+    /**
+     * Charge en boucle fermée: chaque client envoie sa requête suivante dès la réponse reçue.
+     * Les réponses de l'échauffement ne sont pas mesurées.
+     */
+    private PerformanceSnapshot run(List<HttpRequest> mix, int concurrency) throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + deployProperties.getSmokeWarmup().toNanos();
+        long end = measureFrom + deployProperties.getSmokeDuration().toNanos();
+
+        List<Client> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                // Décalage par client: toutes les requêtes du mélange sont en vol en même temps
+                Client client = new Client(mix, i, measureFrom, end);
+                clients.add(client);
+                futures.add(executor.submit(client::run));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long measuredNanos = Math.max(1, Math.max(System.nanoTime(), end) - measureFrom);
+
+        long errors = clients.stream().mapToLong(client -> client.errors).sum();
+        long[] latencies = new long[clients.stream().mapToInt(client -> client.count).sum()];
+        int offset = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        Arrays.sort(latencies);
+        long requests = latencies.length + errors;
+
+        return PerformanceSnapshot.builder()
+                .requests(requests)
+                .errors(errors)
+                .throughputRps(requests * 1_000_000_000.0 / measuredNanos)
+                .p50Ms(percentile(latencies, 0.50))
+                .p95Ms(percentile(latencies, 0.95))
+                .p99Ms(percentile(latencies, 0.99))
+                .maxMs(latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1_000_000.0)
+                .concurrency(concurrency)
+                .durationMs(deployProperties.getSmokeDuration().toMillis())
+                .measuredAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Percentile par rang (nearest-rank) des latences triées, en millisecondes
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    /**
+     * Requêtes du mélange, chacune répétée autant de fois que son poids ("GET /api/items 3")
+     */
+    private List<HttpRequest> requestMix(String host, String port, List<String> definitions) {
+        List<HttpRequest> mix = new ArrayList<>();
+        for (String definition : definitions) {
+            String[] parts = definition.trim().split("\\s+");
+            if (parts.length < 2 || parts.length > 3 || !parts[1].startsWith("/")) {
+                throw new IllegalArgumentException("'" + definition + "' (format attendu: MÉTHODE /chemin [poids])");
+            }
+            int weight;
+            try {
+                weight = parts.length == 3 ? Integer.parseInt(parts[2]) : 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + definition + "' (poids non numérique)");
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + host + ":" + port + parts[1]))
+                    .timeout(deployProperties.getSmokeRequestTimeout())
+                    .method(parts[0].toUpperCase(), HttpRequest.BodyPublishers.noBody())
+                    .build();
+            for (int i = 0; i < weight; i++) {
+                mix.add(request);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("aucune requête");
+        }
+        return mix;
+    }
+
+    /**
+     * Client de charge: parcourt le mélange de requêtes en boucle jusqu'à la fin de la mesure
+     */
+    private class Client {
+        private final List<HttpRequest> mix;
+        private final long measureFrom;
+        private final long end;
+        private int next;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Client(List<HttpRequest> mix, int offset, long measureFrom, long end) {
+            this.mix = mix;
+            this.next = offset;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        private void run() {
+            while (System.nanoTime() < end) {
+                HttpRequest request = mix.get(next++ % mix.size());
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.debug("Requête {} en erreur: {}", request.uri(), e.getMessage());
+                    ok = false;
+                }
+                long latency = System.nanoTime() - start;
+                if (start < measureFrom) {
+                    continue;
+                }
+                if (!ok) {
+                    errors++;
+                } else {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = latency;
+                }
+            }
+        }
+    }
+}
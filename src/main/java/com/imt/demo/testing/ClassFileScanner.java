@@ -0,0 +1,194 @@
+package com.imt.demo.testing;
+
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Lecture du constant pool des fichiers .class pour extraire les classes référencées.
+ * Les classes internes sont rattachées à leur classe englobante, qui correspond au fichier source.
+ */
+public final class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    /**
+     * Types référencés dans les descripteurs et signatures (ex: Lcom/acme/Foo; ou Lcom/acme/Foo<...>;)
+     */
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([A-Za-z_$][\\w$]*(?:/[A-Za-z_$][\\w$]*)+)[;<]");
+
+    /**
+     * Annotations Spring qui font d'une classe un bean ou une source de configuration (descripteur -> nom simple).
+     * Une classe qui les porte est chargée par le contexte Spring des tests sans y être référencée.
+     */
+    private static final Map<String, String> SPRING_ANNOTATIONS = Map.of(
+            "Lorg/springframework/stereotype/Component;", "Component",
+            "Lorg/springframework/stereotype/Service;", "Service",
+            "Lorg/springframework/stereotype/Repository;", "Repository",
+            "Lorg/springframework/stereotype/Controller;", "Controller",
+            "Lorg/springframework/web/bind/annotation/RestController;", "RestController",
+            "Lorg/springframework/context/annotation/Configuration;", "Configuration",
+            "Lorg/springframework/context/annotation/Bean;", "Bean",
+            "Lorg/springframework/context/annotation/ComponentScan;", "ComponentScan",
+            "Lorg/springframework/boot/autoconfigure/SpringBootApplication;", "SpringBootApplication",
+            "Lorg/springframework/boot/context/properties/ConfigurationProperties;", "ConfigurationProperties");
+
+    private ClassFileScanner() {
+    }
+
+    /**
+     * Classe compilée: nom (classe englobante), instanciable ou non, classes référencées
+     * et annotations Spring présentes dans son constant pool
+     */
+    @Value
+    public static class ClassInfo {
+        String name;
+        boolean concrete;
+        Set<String> references;
+        Set<String> springAnnotations;
+
+        /**
+         * Bean ou configuration Spring: chargé par tout test qui démarre le contexte
+         */
+        public boolean isSpringManaged() {
+            return !springAnnotations.isEmpty();
+        }
+
+        /**
+         * Point de départ d'un scan de composants (@SpringBootApplication, @ComponentScan)
+         */
+        public boolean isComponentScanRoot() {
+            return springAnnotations.contains("SpringBootApplication") || springAnnotations.contains("ComponentScan");
+        }
+    }
+
+    /**
+     * Scanne tous les .class d'un répertoire de sortie (target/classes, target/test-classes)
+     *
+     * @return les classes par nom, les classes internes fusionnées dans leur classe englobante
+     */
+    public static Map<String, ClassInfo> scanDirectory(Path directory) throws IOException {
+        Map<String, ClassInfo> classes = new LinkedHashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return classes;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".class"))::iterator) {
+                if (file.getFileName().toString().equals("module-info.class")) {
+                    continue;
+                }
+                ClassInfo info = scan(file);
+                classes.merge(info.getName(), info, (existing, inner) -> {
+                    // La classe englobante décide du caractère instanciable
+                    Set<String> references = new HashSet<>(existing.getReferences());
+                    references.addAll(inner.getReferences());
+                    Set<String> annotations = new HashSet<>(existing.getSpringAnnotations());
+                    annotations.addAll(inner.getSpringAnnotations());
+                    boolean concrete = file.getFileName().toString().contains("$") ? existing.isConcrete() : inner.isConcrete();
+                    return new ClassInfo(existing.getName(), concrete, references, annotations);
+                });
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Lit un fichier .class
+     */
+    public static ClassInfo scan(Path classFile) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(classFile))) {
+            return scan(in);
+        }
+    }
+
+    public static ClassInfo scan(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Fichier .class invalide");
+        }
+        in.readUnsignedShort(); // minor_version
+        in.readUnsignedShort(); // major_version
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNameIndex = new int[count];
+        boolean[] literal = new boolean[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();
+                case 7 -> classNameIndex[i] = in.readUnsignedShort();
+                case 8 -> literal[in.readUnsignedShort()] = true;
+                case 16, 19, 20 -> in.readUnsignedShort();
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.readInt();
+                case 15 -> {
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                }
+                case 5, 6 -> {
+                    // Long et Double occupent deux entrées du constant pool
+                    in.readLong();
+                    i++;
+                }
+                default -> throw new IOException("Tag de constant pool inconnu: " + tag);
+            }
+        }
+
+        int accessFlags = in.readUnsignedShort();
+        int thisClass = in.readUnsignedShort();
+        String name = outerClassName(utf8[classNameIndex[thisClass]]);
+
+        Set<String> references = new HashSet<>();
+        Set<String> springAnnotations = new HashSet<>();
+        for (int i = 1; i < count; i++) {
+            // Les chaînes littérales partagent les entrées Utf8: seuls les descripteurs comptent
+            if (utf8[i] != null && !literal[i] && SPRING_ANNOTATIONS.containsKey(utf8[i])) {
+                springAnnotations.add(SPRING_ANNOTATIONS.get(utf8[i]));
+            }
+            if (classNameIndex[i] != 0) {
+                String internal = utf8[classNameIndex[i]];
+                if (internal.startsWith("[")) {
+                    addDescriptorTypes(internal, references);
+                } else {
+                    references.add(outerClassName(internal));
+                }
+            } else if (utf8[i] != null && utf8[i].indexOf('L') >= 0) {
+                addDescriptorTypes(utf8[i], references);
+            }
+        }
+        references.remove(name);
+
+        boolean concrete = (accessFlags & (ACC_ABSTRACT | ACC_INTERFACE)) == 0;
+        return new ClassInfo(name, concrete, references, springAnnotations);
+    }
+
+    private static void addDescriptorTypes(String descriptor, Set<String> references) {
+        Matcher matcher = DESCRIPTOR_TYPE.matcher(descriptor);
+        while (matcher.find()) {
+            references.add(outerClassName(matcher.group(1)));
+        }
+    }
+
+    /**
+     * com/acme/Foo$Bar -> com.acme.Foo
+     */
+    static String outerClassName(String internalName) {
+        int inner = internalName.indexOf('$');
+        String outer = inner > 0 ? internalName.substring(0, inner) : internalName;
+        return outer.replace('/', '.');
+    }
+}
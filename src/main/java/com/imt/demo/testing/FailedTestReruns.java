@@ -0,0 +1,128 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.TestOutcome;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Relance ciblée des tests en échec: filtre Surefire des méthodes à relancer et fusion des résultats
+ * des relances avec ceux de l'exécution initiale
+ */
+public final class FailedTestReruns {
+
+    private FailedTestReruns() {
+    }
+
+    /**
+     * Relance autorisée: au moins une tentative configurée et pas de fail-fast
+     * (les tests ignorés après le premier échec ne seraient jamais exécutés)
+     */
+    public static boolean isEnabled(int retries, boolean failFast) {
+        return retries > 0 && !failFast;
+    }
+
+    /**
+     * Méthodes en échec, par classe de test
+     */
+    public static Map<String, Set<String>> failedMethods(List<SurefireReportParser.SuiteReport> reports) {
+        Map<String, Set<String>> failed = new LinkedHashMap<>();
+        for (SurefireReportParser.SuiteReport report : reports) {
+            for (SurefireReportParser.CaseReport testCase : report.getCases()) {
+                if (testCase.isFailed()) {
+                    failed.computeIfAbsent(testCase.getTestClass(), c -> new LinkedHashSet<>()).add(testCase.getTestName());
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Filtre -Dtest de Surefire: Classe#methode1+methode2,...
+     * Les noms de tests paramétrés ("test(int)[1]") sont ramenés au nom de la méthode; un échec au niveau
+     * de la classe (méthode de cycle de vie, nom vide) relance la classe entière.
+     */
+    public static String filter(Map<String, Set<String>> failedMethods) {
+        List<String> entries = new ArrayList<>();
+        failedMethods.forEach((testClass, names) -> {
+            Set<String> methods = names.stream().map(FailedTestReruns::methodName).collect(Collectors.toCollection(LinkedHashSet::new));
+            if (methods.contains("")) {
+                entries.add(testClass);
+            } else {
+                entries.add(testClass + "#" + String.join("+", methods));
+            }
+        });
+        return String.join(",", entries);
+    }
+
+    /**
+     * Reporte le résultat des relances sur les cas de test de l'exécution initiale.
+     * Les rapports initiaux sont conservés (durées de la première exécution), seules les issues changent.
+     * Un échec au niveau de la classe (relancée entière) prend l'issue de l'ensemble de ses méthodes relancées.
+     */
+    public static List<SurefireReportParser.SuiteReport> applyRerun(List<SurefireReportParser.SuiteReport> reports,
+                                                                    List<SurefireReportParser.SuiteReport> rerunReports) {
+        Map<String, SurefireReportParser.CaseReport> rerun = new LinkedHashMap<>();
+        Map<String, List<SurefireReportParser.CaseReport>> rerunByClass = new LinkedHashMap<>();
+        for (SurefireReportParser.SuiteReport report : rerunReports) {
+            for (SurefireReportParser.CaseReport testCase : report.getCases()) {
+                rerun.put(key(testCase), testCase);
+                rerunByClass.computeIfAbsent(testCase.getTestClass(), c -> new ArrayList<>()).add(testCase);
+            }
+        }
+        // Échecs au niveau de la classe: la relance ne produit pas de cas sans nom si la classe passe
+        rerunByClass.forEach((testClass, cases) -> rerun.computeIfAbsent(testClass + "#", key -> cases.stream()
+                .filter(SurefireReportParser.CaseReport::isFailed)
+                .findFirst()
+                .orElse(new SurefireReportParser.CaseReport(testClass, "", 0, TestOutcome.PASSED, null, 1, false))));
+
+        List<SurefireReportParser.SuiteReport> merged = new ArrayList<>();
+        for (SurefireReportParser.SuiteReport report : reports) {
+            List<SurefireReportParser.CaseReport> cases = new ArrayList<>();
+            for (SurefireReportParser.CaseReport testCase : report.getCases()) {
+                SurefireReportParser.CaseReport retried = testCase.isFailed() ? rerun.get(key(testCase)) : null;
+                cases.add(retried == null ? testCase : testCase.retried(retried.getOutcome(), retried.getMessage()));
+            }
+            int failures = (int) cases.stream().filter(c -> c.getOutcome() == TestOutcome.FAILED).count();
+            int errors = (int) cases.stream().filter(c -> c.getOutcome() == TestOutcome.ERROR).count();
+            merged.add(new SurefireReportParser.SuiteReport(report.getTestClass(), report.getDurationMs(), report.getTests(),
+                    failures, errors, report.getSkipped(), cases));
+        }
+        return merged;
+    }
+
+    /**
+     * Tests en échec lors de l'exécution initiale et passés lors d'une relance
+     */
+    public static List<String> flakyTests(List<SurefireReportParser.SuiteReport> reports) {
+        return reports.stream()
+                .flatMap(report -> report.getCases().stream())
+                .filter(SurefireReportParser.CaseReport::isFlaky)
+                .map(testCase -> testCase.getTestName().isEmpty()
+                        ? testCase.getTestClass()
+                        : testCase.getTestClass() + "#" + testCase.getTestName())
+                .toList();
+    }
+
+    private static String key(SurefireReportParser.CaseReport testCase) {
+        return testCase.getTestClass() + "#" + testCase.getTestName();
+    }
+
+    private static String methodName(String testName) {
+        int end = testName.length();
+        int parenthesis = testName.indexOf('(');
+        int bracket = testName.indexOf('[');
+        if (parenthesis >= 0) {
+            end = Math.min(end, parenthesis);
+        }
+        if (bracket >= 0) {
+            end = Math.min(end, bracket);
+        }
+        return testName.substring(0, end).trim();
+    }
+}
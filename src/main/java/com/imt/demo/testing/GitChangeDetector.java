@@ -0,0 +1,95 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineExecution;
+import com.imt.demo.model.PipelineStatus;
+import com.imt.demo.repository.PipelineExecutionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcule les fichiers modifiés entre le commit construit et le dernier commit construit avec succès sur la branche
+ */
+@Slf4j
+@Component
+public class GitChangeDetector {
+
+    private final TestingProperties properties;
+    private final PipelineExecutionRepository executionRepository;
+
+    public GitChangeDetector(TestingProperties properties, PipelineExecutionRepository executionRepository) {
+        this.properties = properties;
+        this.executionRepository = executionRepository;
+    }
+
+    /**
+     * Dernier commit de la branche dont le pipeline a réussi (historique PipelineExecution.commitHash)
+     */
+    public Optional<String> lastSuccessfulCommit(String gitUrl, String branch) {
+        return executionRepository.findByGitRepoUrlAndGitBranch(gitUrl, branch).stream()
+                .filter(execution -> execution.getStatus() == PipelineStatus.SUCCESS)
+                .filter(execution -> execution.getCommitHash() != null && execution.getStartTime() != null)
+                .max(Comparator.comparing(PipelineExecution::getStartTime))
+                .map(PipelineExecution::getCommitHash);
+    }
+
+    /**
+     * Fichiers modifiés entre un commit de référence et HEAD.
+     * Le workspace étant un clone superficiel, le commit de référence est récupéré seul (--depth 1):
+     * git diff compare les deux arbres sans avoir besoin de l'historique intermédiaire.
+     *
+     * @return chemins relatifs à la racine du dépôt, ou empty si le diff est impossible
+     */
+    public Optional<List<String>> changedFiles(Path workspace, String baseCommit) {
+        try {
+            if (run(workspace, "git", "cat-file", "-e", baseCommit + "^{commit}") == null
+                    && run(workspace, "git", "fetch", "--depth", "1", "origin", baseCommit) == null) {
+                log.warn("Commit de référence {} introuvable sur le remote", baseCommit);
+                return Optional.empty();
+            }
+
+            String diff = run(workspace, "git", "diff", "--name-only", baseCommit, "HEAD");
+            if (diff == null) {
+                return Optional.empty();
+            }
+            return Optional.of(Arrays.stream(diff.split("\n"))
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .toList());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Exécute une commande git et retourne sa sortie standard, ou null en cas d'échec
+     */
+    private String run(Path workspace, String... command) throws InterruptedException {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(workspace.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (!process.waitFor(properties.getGitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                log.warn("Timeout de la commande: {}", String.join(" ", command));
+                return null;
+            }
+            return process.exitValue() == 0 ? output : null;
+        } catch (IOException e) {
+            log.warn("Commande impossible ({}): {}", String.join(" ", command), e.getMessage());
+            return null;
+        }
+    }
+}
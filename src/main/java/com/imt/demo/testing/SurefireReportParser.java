@@ -0,0 +1,253 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.TestOutcome;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lecture des rapports XML au format JUnit de tous les modules d'un workspace:
+ * target/surefire-reports/TEST-*.xml (Maven) et build/test-results/<tâche>/TEST-*.xml (Gradle)
+ */
+@Slf4j
+public final class SurefireReportParser {
+
+    public static final String REPORTS_DIRECTORY = "surefire-reports";
+
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    private SurefireReportParser() {
+    }
+
+    /**
+     * Résultat d'une classe de test
+     */
+    @Value
+    public static class SuiteReport {
+        String testClass;
+        long durationMs;
+        int tests;
+        int failures;
+        int errors;
+        int skipped;
+        List<CaseReport> cases;
+    }
+
+    /**
+     * Résultat d'une méthode de test
+     */
+    @Value
+    public static class CaseReport {
+        String testClass;
+        String testName;
+        long durationMs;
+        TestOutcome outcome;
+        String message;
+        int attempts;
+        boolean flaky;
+
+        /**
+         * Même résultat après une nouvelle tentative
+         */
+        public CaseReport retried(TestOutcome outcome, String message) {
+            boolean recovered = outcome == TestOutcome.PASSED && (this.outcome == TestOutcome.FAILED || this.outcome == TestOutcome.ERROR);
+            return new CaseReport(testClass, testName, durationMs, outcome,
+                    recovered ? this.message : message, attempts + 1, flaky || recovered);
+        }
+
+        public boolean isFailed() {
+            return outcome == TestOutcome.FAILED || outcome == TestOutcome.ERROR;
+        }
+    }
+
+    /**
+     * Rapports de toutes les classes de test exécutées dans le workspace
+     */
+    public static List<SuiteReport> parseWorkspace(Path workspace) throws IOException {
+        List<SuiteReport> reports = new ArrayList<>();
+        for (Path report : findReports(workspace)) {
+            try {
+                reports.add(parse(report));
+            } catch (Exception e) {
+                log.warn("Rapport Surefire illisible {}: {}", report.getFileName(), e.getMessage());
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Fichiers TEST-*.xml de tous les modules du workspace
+     */
+    public static List<Path> findReports(Path workspace) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        for (Path target : TestClassLocator.findTargetDirectories(workspace)) {
+            directories.add(target.resolve(REPORTS_DIRECTORY));
+        }
+        directories.addAll(findGradleResultDirectories(workspace));
+
+        List<Path> reports = new ArrayList<>();
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(f -> f.getFileName().toString().startsWith("TEST-") && f.toString().endsWith(".xml"))
+                        .forEach(reports::add);
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Répertoires build/test-results/<tâche> des projets Gradle
+     */
+    private static List<Path> findGradleResultDirectories(Path workspace) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        try (Stream<Path> paths = Files.find(workspace, 8, (path, attrs) -> attrs.isDirectory()
+                && path.getFileName().toString().equals("test-results")
+                && path.getParent() != null && path.getParent().getFileName().toString().equals("build")
+                && !path.toString().contains("/.git/"))) {
+            for (Path results : (Iterable<Path>) paths::iterator) {
+                try (Stream<Path> tasks = Files.list(results)) {
+                    tasks.filter(Files::isDirectory).forEach(directories::add);
+                }
+            }
+        }
+        return directories;
+    }
+
+    public static SuiteReport parse(Path report) throws Exception {
+        Element suite = read(report).getDocumentElement();
+
+        List<CaseReport> cases = new ArrayList<>();
+        NodeList testCases = suite.getElementsByTagName("testcase");
+        for (int i = 0; i < testCases.getLength(); i++) {
+            Element testCase = (Element) testCases.item(i);
+            String testClass = testCase.getAttribute("classname");
+            // Relances internes de Surefire (rerunFailingTestsCount): flakyFailure si le test a fini par passer
+            int flakyRuns = children(testCase, "flakyFailure") + children(testCase, "flakyError");
+            int failedReruns = children(testCase, "rerunFailure") + children(testCase, "rerunError");
+            cases.add(new CaseReport(
+                    testClass.isEmpty() ? suite.getAttribute("name") : testClass,
+                    testCase.getAttribute("name"),
+                    seconds(testCase.getAttribute("time")),
+                    outcome(testCase),
+                    message(testCase),
+                    1 + flakyRuns + failedReruns,
+                    flakyRuns > 0));
+        }
+
+        return new SuiteReport(
+                suite.getAttribute("name"),
+                seconds(suite.getAttribute("time")),
+                integer(suite.getAttribute("tests")),
+                integer(suite.getAttribute("failures")),
+                integer(suite.getAttribute("errors")),
+                integer(suite.getAttribute("skipped")),
+                cases);
+    }
+
+    private static TestOutcome outcome(Element testCase) {
+        if (child(testCase, "failure") != null) {
+            return TestOutcome.FAILED;
+        }
+        if (child(testCase, "error") != null) {
+            return TestOutcome.ERROR;
+        }
+        if (child(testCase, "skipped") != null) {
+            return TestOutcome.SKIPPED;
+        }
+        return TestOutcome.PASSED;
+    }
+
+    /**
+     * Message d'échec (attribut message, sinon première ligne de la trace), tronqué
+     */
+    private static String message(Element testCase) {
+        Element failure = child(testCase, "failure");
+        if (failure == null) {
+            failure = child(testCase, "error");
+        }
+        if (failure == null) {
+            failure = child(testCase, "flakyFailure");
+        }
+        if (failure == null) {
+            failure = child(testCase, "flakyError");
+        }
+        if (failure == null) {
+            return null;
+        }
+        String message = failure.getAttribute("message");
+        if (message.isBlank()) {
+            message = failure.getTextContent().strip().lines().findFirst().orElse("");
+        }
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) + "…" : message;
+    }
+
+    private static int children(Element parent, String name) {
+        int count = 0;
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && element.getTagName().equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Element child(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && element.getTagName().equals(name)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    static Document read(Path report) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        // Rapports produits par les projets construits: pas de DTD ni d'entités externes
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setExpandEntityReferences(false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document document = builder.parse(report.toFile());
+        document.getDocumentElement().normalize();
+        return document;
+    }
+
+    /**
+     * Durée Surefire en secondes (avec séparateur de milliers au-delà de 999s: "1,234.5") vers millisecondes
+     */
+    static long seconds(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.round(Double.parseDouble(value.replace(",", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static int integer(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.imt.demo.testing;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Localisation des répertoires target/ d'un workspace (projet simple ou multi-modules) et des classes de test
+ */
+public final class TestClassLocator {
+
+    /**
+     * Classes de test exécutées par Surefire avec sa configuration par défaut
+     */
+    private static final Pattern SUREFIRE_TEST_NAME = Pattern.compile("^(Test.*|.*Test|.*Tests|.*TestCase)$");
+
+    private TestClassLocator() {
+    }
+
+    /**
+     * Répertoires target/ de tous les modules du workspace
+     */
+    public static List<Path> findTargetDirectories(Path workspace) throws IOException {
+        List<Path> targets = new ArrayList<>();
+        Files.walkFileTree(workspace, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String name = dir.getFileName().toString();
+                if (name.equals(".git") || name.equals("node_modules")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (name.equals("target")) {
+                    targets.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return targets;
+    }
+
+    /**
+     * Classes de test instanciables compilées dans les target/test-classes du workspace
+     */
+    public static Set<String> findTestClasses(Path workspace) throws IOException {
+        Set<String> tests = new TreeSet<>();
+        for (Path target : findTargetDirectories(workspace)) {
+            ClassFileScanner.scanDirectory(target.resolve("test-classes")).forEach((name, info) -> {
+                if (info.isConcrete() && isTestClassName(name)) {
+                    tests.add(name);
+                }
+            });
+        }
+        return tests;
+    }
+
+    public static boolean isTestClassName(String className) {
+        return SUREFIRE_TEST_NAME.matcher(className.substring(className.lastIndexOf('.') + 1)).matches();
+    }
+}
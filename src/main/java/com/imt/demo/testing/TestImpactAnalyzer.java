@@ -0,0 +1,318 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import com.imt.demo.model.TestImpactMap;
+import com.imt.demo.repository.TestImpactMapRepository;
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Analyse d'impact des tests: sélectionne les classes de test qui dépendent (transitivement) des classes
+ * modifiées depuis le dernier commit construit avec succès. La carte classe de test -> dépendances est
+ * reconstruite à chaque exécution à partir du bytecode de target/classes et target/test-classes.
+ * <p>
+ * Les références bytecode ne voient pas l'injection de dépendances: un test qui démarre le contexte Spring
+ * (@SpringBootTest) charge tous les beans du scan de composants sans les référencer. Toute modification d'un
+ * bean Spring, ou d'une classe située sous un package scanné (@SpringBootApplication, @ComponentScan),
+ * déclenche donc une exécution complète.
+ */
+@Slf4j
+@Component
+public class TestImpactAnalyzer {
+
+    private static final Pattern JAVA_SOURCE = Pattern.compile("(?:^|.*/)src/(?:main|test)/java/(.+)\\.java$");
+
+    private final TestingProperties properties;
+    private final GitChangeDetector gitChangeDetector;
+    private final TestImpactMapRepository impactMapRepository;
+
+    private final AtomicLong fullRuns = new AtomicLong();
+    private final AtomicLong selectiveRuns = new AtomicLong();
+    private final AtomicLong testsSelected = new AtomicLong();
+    private final AtomicLong testsSkipped = new AtomicLong();
+
+    public TestImpactAnalyzer(TestingProperties properties, GitChangeDetector gitChangeDetector,
+                              TestImpactMapRepository impactMapRepository) {
+        this.properties = properties;
+        this.gitChangeDetector = gitChangeDetector;
+        this.impactMapRepository = impactMapRepository;
+    }
+
+    /**
+     * Tests à exécuter pour un pipeline
+     */
+    @Value
+    public static class TestSelection {
+        boolean fullRun;
+        String reason;
+        List<String> tests;
+        int knownTests;
+        int changedClasses;
+
+        static TestSelection full(String reason, int knownTests) {
+            return new TestSelection(true, reason, List.of(), knownTests, 0);
+        }
+
+        public int getSkippedTests() {
+            return fullRun ? 0 : Math.max(0, knownTests - tests.size());
+        }
+    }
+
+    /**
+     * Détermine les tests impactés par les changements du commit construit
+     */
+    public TestSelection plan(PipelineContext context) {
+        Optional<TestImpactMap> stored = impactMapRepository.findById(mapId(context));
+        if (stored.isEmpty()) {
+            return TestSelection.full("aucune carte d'impact pour cette branche", 0);
+        }
+
+        TestImpactMap map = stored.get();
+        int knownTests = map.getTests().size();
+
+        if (map.getRunsSinceFullRun() != null && map.getRunsSinceFullRun() >= properties.getFullRunEvery()) {
+            return TestSelection.full("exécution complète périodique (" + map.getRunsSinceFullRun() + " exécutions sélectives)", knownTests);
+        }
+        if (map.getLastFullRun() == null
+                || map.getLastFullRun().isBefore(LocalDateTime.now().minus(properties.getFullRunInterval()))) {
+            return TestSelection.full("dernière exécution complète trop ancienne", knownTests);
+        }
+
+        return impact(context, map);
+    }
+
+    /**
+     * Tests impactés par les changements, sans tenir compte de l'exécution complète périodique
+     * (utilisé pour exécuter ces tests en priorité)
+     *
+     * @return les tests impactés, ou empty si l'impact ne peut pas être restreint
+     */
+    public Optional<List<String>> impactedTests(PipelineContext context) {
+        return impactMapRepository.findById(mapId(context))
+                .map(map -> impact(context, map))
+                .filter(selection -> !selection.isFullRun())
+                .map(TestSelection::getTests);
+    }
+
+    private TestSelection impact(PipelineContext context, TestImpactMap map) {
+        int knownTests = map.getTests().size();
+
+        Optional<String> baseCommit = gitChangeDetector.lastSuccessfulCommit(context.getGitUrl(), context.getBranch());
+        if (baseCommit.isEmpty()) {
+            return TestSelection.full("aucun commit construit avec succès sur la branche", knownTests);
+        }
+
+        Optional<List<String>> changedFiles = gitChangeDetector.changedFiles(Path.of(context.getWorkspaceDir()), baseCommit.get());
+        if (changedFiles.isEmpty()) {
+            return TestSelection.full("diff impossible avec " + abbreviate(baseCommit.get()), knownTests);
+        }
+
+        Set<String> changedClasses = new HashSet<>();
+        for (String file : changedFiles.get()) {
+            Matcher matcher = JAVA_SOURCE.matcher(file);
+            if (matcher.matches()) {
+                changedClasses.add(matcher.group(1).replace('/', '.'));
+            } else if (affectsWholeBuild(file)) {
+                return TestSelection.full("fichier de build ou ressource modifié: " + file, knownTests);
+            }
+        }
+
+        Optional<String> springChange = springManagedChange(Path.of(context.getWorkspaceDir()), changedClasses);
+        if (springChange.isPresent()) {
+            return TestSelection.full(springChange.get(), knownTests);
+        }
+
+        Set<String> tests = new TreeSet<>();
+        for (TestImpactMap.TestDependencies entry : map.getTests()) {
+            if (changedClasses.contains(entry.getTestClass())
+                    || entry.getDependencies().stream().anyMatch(changedClasses::contains)) {
+                tests.add(entry.getTestClass());
+            }
+        }
+        // Nouvelles classes de test, absentes de la carte
+        changedClasses.stream().filter(TestClassLocator::isTestClassName).forEach(tests::add);
+
+        return new TestSelection(false, "changements depuis " + abbreviate(baseCommit.get()),
+                new ArrayList<>(tests), knownTests, changedClasses.size());
+    }
+
+    /**
+     * Reconstruit la carte d'impact à partir du bytecode du workspace et met à jour le filet de sécurité
+     */
+    public void record(PipelineContext context, TestSelection selection, StepResult result) {
+        boolean success = result.getStatus() == StepStatus.SUCCESS;
+        if (selection.isFullRun()) {
+            fullRuns.incrementAndGet();
+        } else {
+            selectiveRuns.incrementAndGet();
+            testsSelected.addAndGet(selection.getTests().size());
+            testsSkipped.addAndGet(selection.getSkippedTests());
+        }
+
+        try {
+            List<TestImpactMap.TestDependencies> tests = buildDependencies(Path.of(context.getWorkspaceDir()));
+            if (tests.isEmpty()) {
+                return;
+            }
+
+            TestImpactMap map = impactMapRepository.findById(mapId(context))
+                    .orElseGet(() -> TestImpactMap.builder()
+                            .id(mapId(context))
+                            .gitRepoUrl(context.getGitUrl())
+                            .gitBranch(context.getBranch())
+                            .build());
+            map.setTests(tests);
+            map.setCommitHash(context.getCommitHash());
+            map.setUpdatedAt(LocalDateTime.now());
+            if (selection.isFullRun()) {
+                // Un échec de l'exécution complète laisse lastFullRun inchangé: la suivante sera complète aussi
+                map.setRunsSinceFullRun(0);
+                if (success) {
+                    map.setLastFullRun(LocalDateTime.now());
+                }
+            } else {
+                map.setRunsSinceFullRun((map.getRunsSinceFullRun() == null ? 0 : map.getRunsSinceFullRun()) + 1);
+            }
+            impactMapRepository.save(map);
+            log.info("Carte d'impact mise à jour pour {}#{}: {} classes de test", context.getGitUrl(), context.getBranch(), tests.size());
+
+        } catch (Exception e) {
+            log.warn("Impossible de mettre à jour la carte d'impact des tests: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long selected = testsSelected.get();
+        long skipped = testsSkipped.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fullRuns", fullRuns.get());
+        stats.put("selectiveRuns", selectiveRuns.get());
+        stats.put("testsSelected", selected);
+        stats.put("testsSkipped", skipped);
+        stats.put("skipRate", selected + skipped == 0 ? 0.0 : (double) skipped / (selected + skipped));
+        stats.put("fullRunEvery", properties.getFullRunEvery());
+        stats.put("fullRunInterval", properties.getFullRunInterval().toString());
+        return stats;
+    }
+
+    /**
+     * Pour chaque classe de test, classes du projet atteintes transitivement par ses références bytecode
+     */
+    private List<TestImpactMap.TestDependencies> buildDependencies(Path workspace) throws IOException {
+        Map<String, Set<String>> graph = new HashMap<>();
+        Set<String> testClasses = new TreeSet<>();
+
+        for (Path target : TestClassLocator.findTargetDirectories(workspace)) {
+            ClassFileScanner.scanDirectory(target.resolve("classes"))
+                    .forEach((name, info) -> graph.put(name, info.getReferences()));
+            ClassFileScanner.scanDirectory(target.resolve("test-classes")).forEach((name, info) -> {
+                graph.put(name, info.getReferences());
+                if (info.isConcrete() && TestClassLocator.isTestClassName(name)) {
+                    testClasses.add(name);
+                }
+            });
+        }
+
+        List<TestImpactMap.TestDependencies> tests = new ArrayList<>();
+        for (String testClass : testClasses) {
+            Set<String> reached = new TreeSet<>();
+            Deque<String> queue = new ArrayDeque<>(graph.getOrDefault(testClass, Set.of()));
+            while (!queue.isEmpty()) {
+                String current = queue.poll();
+                // Seules les classes du projet comptent: les dépendances externes sont couvertes par pom.xml
+                if (graph.containsKey(current) && !current.equals(testClass) && reached.add(current)) {
+                    queue.addAll(graph.get(current));
+                }
+            }
+            tests.add(TestImpactMap.TestDependencies.builder()
+                    .testClass(testClass)
+                    .dependencies(new ArrayList<>(reached))
+                    .build());
+        }
+        return tests;
+    }
+
+    /**
+     * Classe modifiée chargée par le contexte Spring: bean ou configuration, ou classe sous un package scanné
+     *
+     * @return la raison de l'exécution complète, ou empty si aucune classe modifiée ne concerne le contexte
+     */
+    private Optional<String> springManagedChange(Path workspace, Set<String> changedClasses) {
+        if (changedClasses.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, ClassFileScanner.ClassInfo> mainClasses = new HashMap<>();
+        try {
+            for (Path target : TestClassLocator.findTargetDirectories(workspace)) {
+                mainClasses.putAll(ClassFileScanner.scanDirectory(target.resolve("classes")));
+            }
+        } catch (IOException e) {
+            return Optional.of("bytecode illisible pour l'analyse des beans Spring: " + e.getMessage());
+        }
+
+        List<String> scanRoots = mainClasses.values().stream()
+                .filter(ClassFileScanner.ClassInfo::isComponentScanRoot)
+                .map(info -> packageOf(info.getName()))
+                .toList();
+        for (String changed : new TreeSet<>(changedClasses)) {
+            ClassFileScanner.ClassInfo info = mainClasses.get(changed);
+            if (info == null) {
+                continue;
+            }
+            if (info.isSpringManaged()) {
+                return Optional.of("composant Spring modifié: " + changed);
+            }
+            String changedPackage = packageOf(changed);
+            if (scanRoots.stream().anyMatch(root -> root.isEmpty() || changedPackage.equals(root) || changedPackage.startsWith(root + "."))) {
+                return Optional.of("classe sous le scan de composants Spring modifiée: " + changed);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot > 0 ? className.substring(0, dot) : "";
+    }
+
+    /**
+     * Les fichiers de build, la configuration Maven et les ressources peuvent affecter n'importe quel test
+     */
+    private static boolean affectsWholeBuild(String file) {
+        return file.endsWith("pom.xml")
+                || file.startsWith(".mvn/")
+                || file.contains("src/main/")
+                || file.contains("src/test/");
+    }
+
+    private static String mapId(PipelineContext context) {
+        return WorkspaceFiles.slug(context.getGitUrl() + "#" + context.getBranch());
+    }
+
+    private static String abbreviate(String commit) {
+        return commit.length() > 8 ? commit.substring(0, 8) : commit;
+    }
+}
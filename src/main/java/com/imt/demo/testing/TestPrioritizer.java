@@ -0,0 +1,164 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.model.TestOutcome;
+import com.imt.demo.repository.TestCaseResultRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Priorisation des tests les plus susceptibles d'échouer: classes en échec récemment sur la branche
+ * (historique test_case_results), puis classes impactées par les changements (carte d'impact)
+ */
+@Slf4j
+@Component
+public class TestPrioritizer {
+
+    /**
+     * Nombre de mesures conservées pour la médiane du temps avant premier échec
+     */
+    private static final int TIME_TO_FAILURE_SAMPLES = 100;
+
+    private final TestingProperties properties;
+    private final TestCaseResultRepository testCaseResultRepository;
+    private final TestImpactAnalyzer testImpactAnalyzer;
+
+    private final AtomicLong prioritizedRuns = new AtomicLong();
+    private final AtomicLong failFastAborts = new AtomicLong();
+    private final Deque<Long> prioritizedTimeToFailure = new ArrayDeque<>();
+    private final Deque<Long> standardTimeToFailure = new ArrayDeque<>();
+
+    public TestPrioritizer(TestingProperties properties, TestCaseResultRepository testCaseResultRepository,
+                           TestImpactAnalyzer testImpactAnalyzer) {
+        this.properties = properties;
+        this.testCaseResultRepository = testCaseResultRepository;
+        this.testImpactAnalyzer = testImpactAnalyzer;
+    }
+
+    /**
+     * Classes de test à exécuter en premier
+     */
+    @Value
+    public static class Priority {
+        List<String> recentlyFailed;
+        List<String> impacted;
+
+        /**
+         * Classes prioritaires, échecs récents d'abord, sans doublon
+         */
+        public List<String> getTests() {
+            Set<String> tests = new LinkedHashSet<>(recentlyFailed);
+            tests.addAll(impacted);
+            return new ArrayList<>(tests);
+        }
+    }
+
+    public Priority prioritize(PipelineContext context) {
+        prioritizedRuns.incrementAndGet();
+        int max = properties.getPriorityMaxClasses();
+
+        List<String> recentlyFailed = new ArrayList<>();
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(properties.getPriorityWindow());
+            testCaseResultRepository.findByGitRepoUrlAndGitBranchAndOutcomeInAndRecordedAtAfterOrderByRecordedAtDesc(
+                            context.getGitUrl(), context.getBranch(), List.of(TestOutcome.FAILED, TestOutcome.ERROR), since).stream()
+                    .map(TestCaseResult::getTestClass)
+                    .distinct()
+                    .limit(max)
+                    .forEach(recentlyFailed::add);
+        } catch (Exception e) {
+            log.warn("Historique des échecs indisponible: {}", e.getMessage());
+        }
+
+        List<String> impacted = testImpactAnalyzer.impactedTests(context).orElse(List.of()).stream()
+                .filter(test -> !recentlyFailed.contains(test))
+                .limit(Math.max(0, max - recentlyFailed.size()))
+                .toList();
+
+        return new Priority(recentlyFailed, impacted);
+    }
+
+    /**
+     * Classes à exécuter en premier: les classes prioritaires, restreintes aux tests retenus
+     * par l'analyse d'impact pour une exécution sélective
+     */
+    public static List<String> priorityTests(Priority priority, TestImpactAnalyzer.TestSelection selection) {
+        List<String> tests = priority.getTests();
+        if (selection != null && !selection.isFullRun()) {
+            tests.retainAll(selection.getTests());
+        }
+        return tests;
+    }
+
+    /**
+     * Filtre -Dtest de la phase exécutée après les classes prioritaires (excluded): tests retenus restants
+     * pour une exécution sélective, sinon syntaxe d'exclusion de Surefire ("!classe")
+     *
+     * @return null sans restriction (tous les tests), chaîne vide s'il ne reste aucun test
+     */
+    public static String remainderFilter(TestImpactAnalyzer.TestSelection selection, Set<String> excluded) {
+        if (selection != null && !selection.isFullRun()) {
+            return selection.getTests().stream()
+                    .filter(test -> !excluded.contains(test))
+                    .distinct()
+                    .collect(Collectors.joining(","));
+        }
+        if (excluded.isEmpty()) {
+            return null;
+        }
+        return excluded.stream().sorted().map(test -> "!" + test).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Enregistre le temps écoulé entre le début de l'étape de tests et le premier échec détecté
+     *
+     * @param prioritized true si l'exécution utilisait la priorisation
+     * @param aborted     true si l'exécution a été interrompue au premier échec (fail-fast)
+     */
+    public void recordTimeToFailure(long timeToFailureMs, boolean prioritized, boolean aborted) {
+        if (aborted) {
+            failFastAborts.incrementAndGet();
+        }
+        Deque<Long> samples = prioritized ? prioritizedTimeToFailure : standardTimeToFailure;
+        synchronized (samples) {
+            samples.addLast(timeToFailureMs);
+            if (samples.size() > TIME_TO_FAILURE_SAMPLES) {
+                samples.removeFirst();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("prioritizedRuns", prioritizedRuns.get());
+        stats.put("failFastAborts", failFastAborts.get());
+        stats.put("medianTimeToFailureMs", Map.of(
+                "prioritized", median(prioritizedTimeToFailure),
+                "standard", median(standardTimeToFailure)));
+        stats.put("priorityWindow", properties.getPriorityWindow().toString());
+        return stats;
+    }
+
+    private long median(Deque<Long> samples) {
+        synchronized (samples) {
+            if (samples.isEmpty()) {
+                return 0;
+            }
+            return samples.stream().sorted().skip(samples.size() / 2).findFirst().orElse(0L);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.TestTimingProfile;
+import com.imt.demo.repository.TestTimingProfileRepository;
+import com.imt.demo.workspace.WorkspaceFiles;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Répartition des classes de test en shards équilibrés selon leurs durées historiques, et créneaux
+ * d'exécution partagés entre pipelines pour borner le nombre de JVM de test simultanées
+ */
+@Slf4j
+@Component
+public class TestShardScheduler {
+
+    /**
+     * Poids de la dernière mesure dans la durée lissée d'une classe
+     */
+    private static final double SMOOTHING = 0.5;
+
+    /**
+     * Estimation d'une classe jamais mesurée quand le profil est vide
+     */
+    private static final long DEFAULT_CLASS_DURATION_MS = 1000;
+
+    private final TestingProperties properties;
+    private final TestTimingProfileRepository timingProfileRepository;
+    private final Semaphore slots;
+
+    private final AtomicLong shardedRuns = new AtomicLong();
+    private final AtomicLong shardsRun = new AtomicLong();
+    private final AtomicLong totalWallClockMs = new AtomicLong();
+    private final AtomicLong totalShardMs = new AtomicLong();
+
+    public TestShardScheduler(TestingProperties properties, TestTimingProfileRepository timingProfileRepository) {
+        this.properties = properties;
+        this.timingProfileRepository = timingProfileRepository;
+        this.slots = new Semaphore(Math.max(1, properties.getShardSlots()), true);
+    }
+
+    /**
+     * Shard de tests: classes à exécuter et durée estimée
+     */
+    @Value
+    public static class Shard {
+        int index;
+        List<String> tests;
+        long estimatedMs;
+    }
+
+    /**
+     * Répartit les classes de test en shards (heuristique LPT: la classe la plus longue restante
+     * va au shard le moins chargé)
+     */
+    public List<Shard> plan(PipelineContext context, Collection<String> testClasses, int shardCount) {
+        Map<String, Long> known = new HashMap<>();
+        timingProfileRepository.findById(profileId(context)).ifPresent(profile ->
+                profile.getClasses().forEach(timing -> known.put(timing.getTestClass(), timing.getDurationMs())));
+
+        long fallback = known.isEmpty() ? DEFAULT_CLASS_DURATION_MS
+                : known.values().stream().sorted().skip(known.size() / 2).findFirst().orElse(DEFAULT_CLASS_DURATION_MS);
+
+        List<String> ordered = new ArrayList<>(testClasses);
+        ordered.sort(Comparator.<String>comparingLong(test -> known.getOrDefault(test, fallback)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        int count = Math.max(1, Math.min(shardCount, ordered.size()));
+        List<List<String>> tests = new ArrayList<>();
+        long[] loads = new long[count];
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(Comparator.<Integer>comparingLong(i -> loads[i]).thenComparingInt(i -> i));
+        for (int i = 0; i < count; i++) {
+            tests.add(new ArrayList<>());
+            lightest.add(i);
+        }
+        for (String test : ordered) {
+            int shard = lightest.poll();
+            tests.get(shard).add(test);
+            loads[shard] += known.getOrDefault(test, fallback);
+            lightest.add(shard);
+        }
+
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shards.add(new Shard(i + 1, tests.get(i), loads[i]));
+        }
+        log.info("Tests répartis en {} shards ({} classes, {} durées connues)", count, ordered.size(), known.size());
+        return shards;
+    }
+
+    /**
+     * Réserve un créneau d'exécution; bloque tant que tous les créneaux sont occupés
+     */
+    public void acquireSlot() throws InterruptedException {
+        slots.acquire();
+    }
+
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    /**
+     * Met à jour les durées historiques à partir des rapports Surefire d'une exécution
+     */
+    public void recordTimings(PipelineContext context, List<SurefireReportParser.SuiteReport> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        try {
+            TestTimingProfile profile = timingProfileRepository.findById(profileId(context))
+                    .orElseGet(() -> TestTimingProfile.builder()
+                            .id(profileId(context))
+                            .gitRepoUrl(context.getGitUrl())
+                            .gitBranch(context.getBranch())
+                            .build());
+
+            Map<String, TestTimingProfile.ClassTiming> timings = new LinkedHashMap<>();
+            profile.getClasses().forEach(timing -> timings.put(timing.getTestClass(), timing));
+            for (SurefireReportParser.SuiteReport report : reports) {
+                timings.merge(report.getTestClass(),
+                        new TestTimingProfile.ClassTiming(report.getTestClass(), report.getDurationMs(), 1),
+                        (previous, measured) -> new TestTimingProfile.ClassTiming(previous.getTestClass(),
+                                Math.round(SMOOTHING * measured.getDurationMs() + (1 - SMOOTHING) * previous.getDurationMs()),
+                                previous.getSamples() + 1));
+            }
+
+            profile.setClasses(new ArrayList<>(timings.values()));
+            profile.setUpdatedAt(LocalDateTime.now());
+            timingProfileRepository.save(profile);
+        } catch (Exception e) {
+            log.warn("Impossible de mettre à jour les durées des tests: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Comptabilise une exécution shardée (temps mur et temps cumulé des shards)
+     */
+    public void recordRun(int shards, long wallClockMs, long shardMs) {
+        shardedRuns.incrementAndGet();
+        shardsRun.addAndGet(shards);
+        totalWallClockMs.addAndGet(wallClockMs);
+        totalShardMs.addAndGet(shardMs);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shardSlots", properties.getShardSlots());
+        stats.put("busySlots", properties.getShardSlots() - slots.availablePermits());
+        stats.put("shardedRuns", shardedRuns.get());
+        stats.put("shardsRun", shardsRun.get());
+        stats.put("totalWallClockMs", totalWallClockMs.get());
+        stats.put("totalShardMs", totalShardMs.get());
+        stats.put("averageSpeedup", totalWallClockMs.get() == 0 ? 0.0 : (double) totalShardMs.get() / totalWallClockMs.get());
+        return stats;
+    }
+
+    private static String profileId(PipelineContext context) {
+        return WorkspaceFiles.slug(context.getGitUrl() + "#" + context.getBranch());
+    }
+}
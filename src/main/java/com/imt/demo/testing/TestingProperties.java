@@ -0,0 +1,102 @@
+package com.imt.demo.testing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.testing")
+public class TestingProperties {
+
+    /**
+     * Analyse d'impact: une exécution complète de la suite est forcée toutes les N exécutions sélectives
+     */
+    private int fullRunEvery = 10;
+
+    /**
+     * Analyse d'impact: une exécution complète est forcée si la dernière date de plus que cet intervalle
+     */
+    private Duration fullRunInterval = Duration.ofHours(24);
+
+    /**
+     * Shards de tests exécutables simultanément, tous pipelines confondus (un shard = une JVM Maven)
+     */
+    private int shardSlots = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Priorisation: période d'historique des échecs prise en compte
+     */
+    private Duration priorityWindow = Duration.ofDays(14);
+
+    /**
+     * Priorisation: nombre maximal de classes de test exécutées en premier
+     */
+    private int priorityMaxClasses = 50;
+
+    /**
+     * Nombre de relances des tests en échec quand la requête n'en précise pas (0 = pas de relance)
+     */
+    private int defaultRetries = 0;
+
+    /**
+     * Timeout des commandes git utilisées pour calculer le diff
+     */
+    private Duration gitTimeout = Duration.ofMinutes(2);
+
+    public int getFullRunEvery() {
+        return fullRunEvery;
+    }
+
+    public void setFullRunEvery(int fullRunEvery) {
+        this.fullRunEvery = fullRunEvery;
+    }
+
+    public Duration getFullRunInterval() {
+        return fullRunInterval;
+    }
+
+    public void setFullRunInterval(Duration fullRunInterval) {
+        this.fullRunInterval = fullRunInterval;
+    }
+
+    public int getShardSlots() {
+        return shardSlots;
+    }
+
+    public void setShardSlots(int shardSlots) {
+        this.shardSlots = shardSlots;
+    }
+
+    public Duration getPriorityWindow() {
+        return priorityWindow;
+    }
+
+    public void setPriorityWindow(Duration priorityWindow) {
+        this.priorityWindow = priorityWindow;
+    }
+
+    public int getPriorityMaxClasses() {
+        return priorityMaxClasses;
+    }
+
+    public void setPriorityMaxClasses(int priorityMaxClasses) {
+        this.priorityMaxClasses = priorityMaxClasses;
+    }
+
+    public int getDefaultRetries() {
+        return defaultRetries;
+    }
+
+    public void setDefaultRetries(int defaultRetries) {
+        this.defaultRetries = defaultRetries;
+    }
+
+    public Duration getGitTimeout() {
+        return gitTimeout;
+    }
+
+    public void setGitTimeout(Duration gitTimeout) {
+        this.gitTimeout = gitTimeout;
+    }
+}
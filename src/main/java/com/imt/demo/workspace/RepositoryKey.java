@@ -0,0 +1,17 @@
+package com.imt.demo.workspace;
+
+import lombok.Value;
+
+/**
+ * Identifie un dépôt construit par le moteur (URL Git + branche)
+ */
+@Value
+public class RepositoryKey {
+    String gitUrl;
+    String branch;
+
+    @Override
+    public String toString() {
+        return gitUrl + "#" + branch;
+    }
+}
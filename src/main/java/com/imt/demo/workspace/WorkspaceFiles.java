@@ -0,0 +1,55 @@
+package com.imt.demo.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/**
+ * Utilitaires de manipulation des répertoires de travail
+ */
+@Slf4j
+public final class WorkspaceFiles {
+
+    private WorkspaceFiles() {
+    }
+
+    /**
+     * Supprime récursivement un répertoire (sans erreur s'il n'existe pas)
+     */
+    public static void deleteRecursively(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Impossible de supprimer {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le répertoire {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Calcule un identifiant court et stable utilisable comme nom de répertoire
+     */
+    public static String slug(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.imt.demo.workspace;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Workspace prêt à l'emploi emprunté au pool
+ */
+@Value
+public class WorkspaceLease {
+    Path directory;
+    long latencyMs;
+}
@@ -0,0 +1,349 @@
+package com.imt.demo.workspace;
+
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.gradle.GradleDaemonPool;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.PipelineExecution;
+import com.imt.demo.repository.PipelineExecutionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Pool de workspaces pré-clonés pour les dépôts les plus construits.
+ * Chaque workspace du pool est positionné sur la pointe de sa branche, avec target/ et ~/.m2 déjà chauds.
+ * Un pipeline emprunte un workspace et se contente de l'avancer sur le dernier commit.
+ */
+@Slf4j
+@Component
+public class WorkspacePool {
+
+    private final WorkspacePoolProperties properties;
+    private final PipelineExecutionRepository executionRepository;
+    private final MavenRepositoryCache mavenRepositoryCache;
+    private final GradleDaemonPool gradleDaemonPool;
+
+    private final Map<RepositoryKey, Deque<Path>> ready = new ConcurrentHashMap<>();
+    private volatile Set<RepositoryKey> hotRepositories = Set.of();
+
+    // === Statistiques ===
+    private final AtomicLong leaseRequests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong totalLeaseNanos = new AtomicLong();
+    private final AtomicLong maxLeaseNanos = new AtomicLong();
+    private final AtomicLong provisioned = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+
+    public WorkspacePool(WorkspacePoolProperties properties, PipelineExecutionRepository executionRepository,
+                         MavenRepositoryCache mavenRepositoryCache, GradleDaemonPool gradleDaemonPool) {
+        this.properties = properties;
+        this.executionRepository = executionRepository;
+        this.mavenRepositoryCache = mavenRepositoryCache;
+        this.gradleDaemonPool = gradleDaemonPool;
+    }
+
+    /**
+     * Les workspaces d'une exécution précédente du moteur ne sont plus suivis: on repart d'un pool vide
+     */
+    @PostConstruct
+    void purgeStaleWorkspaces() {
+        WorkspaceFiles.deleteRecursively(Path.of(properties.getDirectory()));
+    }
+
+    /**
+     * Emprunte un workspace prêt pour le dépôt et la branche demandés
+     *
+     * @return le workspace emprunté, ou vide si le pool n'en contient aucun (miss)
+     */
+    public Optional<WorkspaceLease> lease(String gitUrl, String branch) {
+        if (!properties.isEnabled() || gitUrl == null || branch == null) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        leaseRequests.incrementAndGet();
+
+        Deque<Path> deque = ready.get(new RepositoryKey(gitUrl, branch));
+        Path workspace = deque != null ? deque.pollFirst() : null;
+        while (workspace != null && !Files.isDirectory(workspace.resolve(".git"))) {
+            log.warn("Workspace du pool invalide, suppression: {}", workspace);
+            WorkspaceFiles.deleteRecursively(workspace);
+            workspace = deque.pollFirst();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        totalLeaseNanos.addAndGet(elapsed);
+        maxLeaseNanos.accumulateAndGet(elapsed, Math::max);
+
+        if (workspace == null) {
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(new WorkspaceLease(workspace, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+    /**
+     * Propose au pool le workspace d'un pipeline terminé avec succès.
+     * Il est conservé (avec son target/ chaud) si le dépôt fait partie des plus construits
+     * et que le pool n'est pas déjà plein pour ce dépôt.
+     *
+     * @return true si le workspace a été repris par le pool (il ne doit alors pas être supprimé)
+     */
+    public boolean offer(PipelineContext context) {
+        if (!properties.isEnabled() || context.getWorkspaceDirectory() == null) {
+            return false;
+        }
+
+        RepositoryKey key = new RepositoryKey(context.getGitUrl(), context.getBranch());
+        Path workspace = Path.of(context.getWorkspaceDirectory());
+        if (!hotRepositories.contains(key) || !Files.isDirectory(workspace.resolve(".git"))) {
+            return false;
+        }
+
+        Deque<Path> deque = ready.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        // Vérification de la place et ajout sous le même verrou: deux pipelines terminés ensemble
+        // ne peuvent pas dépasser workspacesPerRepository (le workspace en trop serait perdu sur le disque)
+        synchronized (deque) {
+            if (deque.size() >= properties.getWorkspacesPerRepository()) {
+                return false;
+            }
+
+            try {
+                Path target = workspace;
+                if (!workspace.startsWith(Path.of(properties.getDirectory()))) {
+                    target = newWorkspaceDirectory(key);
+                    Files.createDirectories(target.getParent());
+                    Files.move(workspace, target);
+                }
+                deque.addLast(target);
+                recycled.incrementAndGet();
+                log.info("♻ Workspace rendu au pool pour {}", key);
+                return true;
+            } catch (Exception e) {
+                log.warn("Impossible de rendre le workspace au pool: {}", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Rafraîchit périodiquement le pool: classement des dépôts les plus construits,
+     * mise à jour des workspaces prêts et provisionnement des workspaces manquants.
+     */
+    @Scheduled(initialDelayString = "${jonk.workspace.pool.initial-delay:PT2M}",
+            fixedDelayString = "${jonk.workspace.pool.refresh-interval:PT5M}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Set<RepositoryKey> hot;
+        try {
+            hot = computeHotRepositories();
+        } catch (Exception e) {
+            log.warn("Impossible de classer les dépôts pour le pool de workspaces: {}", e.getMessage());
+            return;
+        }
+        hotRepositories = hot;
+
+        // Libérer les dépôts qui ne sont plus parmi les plus construits
+        for (RepositoryKey key : new ArrayList<>(ready.keySet())) {
+            if (!hot.contains(key)) {
+                Deque<Path> evicted = ready.remove(key);
+                if (evicted != null) {
+                    evicted.forEach(WorkspaceFiles::deleteRecursively);
+                    log.info("Pool de workspaces: {} n'est plus suivi", key);
+                }
+            }
+        }
+
+        for (RepositoryKey key : hot) {
+            Deque<Path> deque = ready.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+
+            // Avancer les workspaces prêts sur la pointe de la branche
+            int idle = deque.size();
+            for (int i = 0; i < idle; i++) {
+                Path workspace = deque.pollFirst();
+                if (workspace == null) {
+                    break;
+                }
+                if (!fastForward(workspace, key.getBranch()) || !addIfRoom(deque, workspace)) {
+                    WorkspaceFiles.deleteRecursively(workspace);
+                }
+            }
+
+            while (deque.size() < properties.getWorkspacesPerRepository()) {
+                Path workspace = provision(key);
+                if (workspace == null) {
+                    break;
+                }
+                if (!addIfRoom(deque, workspace)) {
+                    // Un pipeline a rendu un workspace pendant le clone
+                    WorkspaceFiles.deleteRecursively(workspace);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Statistiques du pool (taux de hit et latence d'emprunt)
+     */
+    public Map<String, Object> stats() {
+        long requests = leaseRequests.get();
+        long hitCount = hits.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("hotRepositories", hotRepositories.stream().map(RepositoryKey::toString).toList());
+        stats.put("readyWorkspaces", ready.values().stream().mapToInt(Deque::size).sum());
+        stats.put("leaseRequests", requests);
+        stats.put("hits", hitCount);
+        stats.put("misses", requests - hitCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("avgLeaseLatencyMs", requests == 0 ? 0.0 : totalLeaseNanos.get() / 1_000_000.0 / requests);
+        stats.put("maxLeaseLatencyMs", maxLeaseNanos.get() / 1_000_000.0);
+        stats.put("provisioned", provisioned.get());
+        stats.put("recycled", recycled.get());
+        return stats;
+    }
+
+    /**
+     * Classe les couples (dépôt, branche) par nombre d'exécutions sur la fenêtre d'historique
+     */
+    private Set<RepositoryKey> computeHotRepositories() {
+        LocalDateTime since = LocalDateTime.now().minus(properties.getHistoryWindow());
+        List<PipelineExecution> executions = executionRepository.findByStartTimeAfter(since);
+
+        return executions.stream()
+                .filter(e -> e.getGitRepoUrl() != null && e.getGitBranch() != null)
+                .collect(Collectors.groupingBy(e -> new RepositoryKey(e.getGitRepoUrl(), e.getGitBranch()),
+                        Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<RepositoryKey, Long>comparingByValue().reversed())
+                .limit(properties.getMaxRepositories())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Clone le dépôt dans un nouveau workspace du pool et le chauffe avec un build Maven ou Gradle
+     */
+    private Path provision(RepositoryKey key) {
+        Path workspace = newWorkspaceDirectory(key);
+        try {
+            Files.createDirectories(workspace);
+        } catch (Exception e) {
+            log.warn("Impossible de créer le workspace du pool {}: {}", workspace, e.getMessage());
+            return null;
+        }
+
+        log.info("Pool de workspaces: préparation d'un workspace pour {}", key);
+        boolean cloned = run(List.of("git", "clone", "--branch", key.getBranch(), "--depth", "1",
+                key.getGitUrl(), "."), workspace);
+        if (!cloned) {
+            log.warn("Pool de workspaces: clone impossible pour {}", key);
+            WorkspaceFiles.deleteRecursively(workspace);
+            return null;
+        }
+
+        if (properties.isWarmBuild() && Files.exists(workspace.resolve("pom.xml"))) {
+            // Les dépendances téléchargées par le build de chauffe alimentent le cache Maven partagé
+            String cacheOwner = "pool-" + workspace.getFileName();
+            List<String> command = new ArrayList<>(List.of("mvn", "-B", "-q", "test-compile"));
+            command.addAll(mavenRepositoryCache.mavenArguments(cacheOwner));
+            if (!run(command, workspace)) {
+                // Le workspace reste utilisable, seul le cache de compilation est froid
+                log.warn("Pool de workspaces: build de chauffe échoué pour {}", key);
+            }
+            mavenRepositoryCache.release(cacheOwner);
+        } else if (properties.isWarmBuild() && isGradleProject(workspace)) {
+            // Démarre un daemon du pool et remplit le build cache et le configuration cache du workspace
+            try (GradleDaemonPool.Slot ignored = gradleDaemonPool.acquire()) {
+                if (!run(gradleDaemonPool.command(workspace, List.of("testClasses")), workspace)) {
+                    log.warn("Pool de workspaces: build de chauffe échoué pour {}", key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        provisioned.incrementAndGet();
+        return workspace;
+    }
+
+    /**
+     * Positionne un workspace du pool sur la pointe distante de la branche.
+     * Le clone étant superficiel (--depth 1), l'avance se fait par reset sur le commit récupéré;
+     * git clean sans -x conserve les fichiers ignorés (target/).
+     */
+    private boolean fastForward(Path workspace, String branch) {
+        return run(List.of("git", "fetch", "--depth", "1", "origin", branch), workspace)
+                && run(List.of("git", "reset", "--hard", "FETCH_HEAD"), workspace)
+                && run(List.of("git", "clean", "-fd"), workspace);
+    }
+
+    private boolean isGradleProject(Path workspace) {
+        return Files.exists(workspace.resolve("build.gradle")) || Files.exists(workspace.resolve("build.gradle.kts"));
+    }
+
+    /**
+     * Ajoute un workspace au pool du dépôt s'il reste de la place (même verrou que offer)
+     */
+    private boolean addIfRoom(Deque<Path> deque, Path workspace) {
+        synchronized (deque) {
+            if (deque.size() >= properties.getWorkspacesPerRepository()) {
+                return false;
+            }
+            deque.addLast(workspace);
+            return true;
+        }
+    }
+
+    private Path newWorkspaceDirectory(RepositoryKey key) {
+        return Path.of(properties.getDirectory(), WorkspaceFiles.slug(key.toString()), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exécute une commande de préparation du pool (sortie ignorée)
+     */
+    private boolean run(List<String> command, Path directory) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+
+            if (!process.waitFor(properties.getCommandTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                log.warn("Timeout de la commande '{}'", String.join(" ", command));
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (Exception e) {
+            log.debug("Erreur lors de l'exécution de '{}': {}", String.join(" ", command), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.imt.demo.workspace;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jonk.workspace.pool")
+public class WorkspacePoolProperties {
+
+    /**
+     * Active le pool de workspaces pré-clonés
+     */
+    private boolean enabled = true;
+
+    /**
+     * Répertoire racine des workspaces du pool
+     */
+    private String directory = System.getProperty("java.io.tmpdir") + "/jonk-workspace-pool";
+
+    /**
+     * Nombre de dépôts (gitUrl + branche) les plus construits gardés au chaud
+     */
+    private int maxRepositories = 3;
+
+    /**
+     * Nombre de workspaces prêts à l'emploi par dépôt
+     */
+    private int workspacesPerRepository = 1;
+
+    /**
+     * Fenêtre d'historique utilisée pour classer les dépôts les plus construits
+     */
+    private Duration historyWindow = Duration.ofDays(7);
+
+    /**
+     * Lance un build Maven (sans tests) après le clone pour chauffer target/ et ~/.m2
+     */
+    private boolean warmBuild = true;
+
+    /**
+     * Timeout d'une commande de préparation (clone, fetch, build de chauffe)
+     */
+    private Duration commandTimeout = Duration.ofMinutes(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getMaxRepositories() {
+        return maxRepositories;
+    }
+
+    public void setMaxRepositories(int maxRepositories) {
+        this.maxRepositories = maxRepositories;
+    }
+
+    public int getWorkspacesPerRepository() {
+        return workspacesPerRepository;
+    }
+
+    public void setWorkspacesPerRepository(int workspacesPerRepository) {
+        this.workspacesPerRepository = workspacesPerRepository;
+    }
+
+    public Duration getHistoryWindow() {
+        return historyWindow;
+    }
+
+    public void setHistoryWindow(Duration historyWindow) {
+        this.historyWindow = historyWindow;
+    }
+
+    public boolean isWarmBuild() {
+        return warmBuild;
+    }
+
+    public void setWarmBuild(boolean warmBuild) {
+        this.warmBuild = warmBuild;
+    }
+
+    public Duration getCommandTimeout() {
+        return commandTimeout;
+    }
+
+    public void setCommandTimeout(Duration commandTimeout) {
+        this.commandTimeout = commandTimeout;
+    }
+}
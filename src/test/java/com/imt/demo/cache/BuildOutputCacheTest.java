@@ -0,0 +1,162 @@
+package com.imt.demo.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildOutputCacheTest {
+
+    private static final String KEY = "a".repeat(64);
+
+    @TempDir
+    Path temp;
+
+    private BuildOutputCache cache;
+
+    @BeforeEach
+    void setUp() {
+        BuildCacheProperties properties = new BuildCacheProperties();
+        properties.setDirectory(temp.resolve("store").toString());
+        cache = new BuildOutputCache(properties);
+    }
+
+    @Test
+    void restoresStoredOutputsIntoAnotherWorkspace() throws Exception {
+        Path built = temp.resolve("built");
+        Files.createDirectories(built.resolve("target/classes/com/example"));
+        Files.writeString(built.resolve("target/classes/com/example/App.class"), "bytecode");
+        Files.writeString(built.resolve("target/app.jar"), "jar");
+
+        cache.store(KEY, built, List.of(Path.of("target/classes"), Path.of("target/app.jar")));
+        Path fresh = temp.resolve("fresh");
+
+        assertThat(cache.restore(KEY, fresh)).isTrue();
+        assertThat(fresh.resolve("target/classes/com/example/App.class")).hasContent("bytecode");
+        assertThat(fresh.resolve("target/app.jar")).hasContent("jar");
+        assertThat(cache.stats()).containsEntry("localHits", 1L);
+    }
+
+    @Test
+    void restoreRemovesStaleOutputsOfAWarmWorkspace() throws Exception {
+        Path built = temp.resolve("built");
+        Files.createDirectories(built.resolve("target/classes/com/example"));
+        Files.writeString(built.resolve("target/classes/com/example/App.class"), "bytecode");
+        cache.store(KEY, built, List.of(Path.of("target/classes")));
+
+        // Workspace emprunté au pool: classe d'une source supprimée depuis, fichier hors des sorties
+        Path warm = temp.resolve("warm");
+        Files.createDirectories(warm.resolve("target/classes/com/example"));
+        Files.writeString(warm.resolve("target/classes/com/example/Removed.class"), "stale");
+        Files.writeString(warm.resolve("target/classes/com/example/App.class"), "old bytecode");
+        Files.writeString(warm.resolve("target/build.log"), "log");
+
+        assertThat(cache.restore(KEY, warm)).isTrue();
+        assertThat(warm.resolve("target/classes/com/example/Removed.class")).doesNotExist();
+        assertThat(warm.resolve("target/classes/com/example/App.class")).hasContent("bytecode");
+        assertThat(warm.resolve("target/build.log")).exists();
+    }
+
+    @Test
+    void entriesWithoutOutputListClearTheirClassesDirectories() throws Exception {
+        cache.put(KEY, archive(Map.of("module/target/classes/App.class", "bytecode")));
+        Path warm = temp.resolve("warm");
+        Files.createDirectories(warm.resolve("module/target/classes"));
+        Files.writeString(warm.resolve("module/target/classes/Removed.class"), "stale");
+
+        assertThat(cache.restore(KEY, warm)).isTrue();
+        assertThat(warm.resolve("module/target/classes/Removed.class")).doesNotExist();
+        assertThat(warm.resolve("module/target/classes/App.class")).hasContent("bytecode");
+    }
+
+    @Test
+    void rejectsOutputListsEscapingTheWorkspace() throws Exception {
+        Path outside = temp.resolve("outside");
+        Files.createDirectories(outside);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("target/app.jar"));
+            zip.closeEntry();
+            zip.setComment("../outside");
+        }
+        cache.put(KEY, new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThat(cache.restore(KEY, temp.resolve("workspace"))).isFalse();
+        assertThat(outside).exists();
+    }
+
+    @Test
+    void unknownKeyIsAMiss() {
+        assertThat(cache.restore(KEY, temp.resolve("workspace"))).isFalse();
+        assertThat(cache.stats()).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void rejectsEntriesEscapingTheWorkspaceWithDotDot() throws Exception {
+        cache.put(KEY, archive(Map.of("../../escaped.txt", "pwned")));
+        Path workspace = temp.resolve("a/b/workspace");
+
+        assertThat(cache.restore(KEY, workspace)).isFalse();
+        assertThat(temp.resolve("a/escaped.txt")).doesNotExist();
+        assertThat(temp.resolve("escaped.txt")).doesNotExist();
+    }
+
+    @Test
+    void rejectsAbsoluteEntries() throws Exception {
+        Path outside = temp.resolve("outside.txt");
+        cache.put(KEY, archive(Map.of(outside.toString(), "pwned")));
+
+        assertThat(cache.restore(KEY, temp.resolve("workspace"))).isFalse();
+        assertThat(outside).doesNotExist();
+    }
+
+    @Test
+    void rejectsSiblingDirectoriesSharingTheWorkspacePrefix() throws Exception {
+        // "workspace-evil" commence par "workspace" en chaîne mais n'est pas sous le workspace
+        cache.put(KEY, archive(Map.of("../workspace-evil/x.txt", "pwned")));
+
+        assertThat(cache.restore(KEY, temp.resolve("workspace"))).isFalse();
+        assertThat(temp.resolve("workspace-evil/x.txt")).doesNotExist();
+    }
+
+    @Test
+    void keyChangesWithSourcesButIgnoresBuildOutputs() throws Exception {
+        Path project = temp.resolve("project");
+        Files.createDirectories(project.resolve("src/main/java"));
+        Files.createDirectories(project.resolve("target"));
+        Files.writeString(project.resolve("pom.xml"), "<project/>");
+        Files.writeString(project.resolve("src/main/java/App.java"), "class App {}");
+
+        String key = cache.computeKey(project, Set.of(), List.of());
+        Files.writeString(project.resolve("target/app.jar"), "jar");
+        Files.writeString(project.resolve("README.md"), "doc");
+        assertThat(cache.computeKey(project, Set.of(), List.of())).isEqualTo(key);
+
+        Files.writeString(project.resolve("src/main/java/App.java"), "class App { int x; }");
+        assertThat(cache.computeKey(project, Set.of(), List.of())).isNotEqualTo(key).matches(BuildOutputCache::isValidKey);
+    }
+
+    private ByteArrayInputStream archive(Map<String, String> entries) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
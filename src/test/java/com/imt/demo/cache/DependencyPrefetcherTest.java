@@ -0,0 +1,191 @@
+package com.imt.demo.cache;
+
+import com.imt.demo.maven.MavenReactor;
+import com.imt.demo.model.PipelineContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DependencyPrefetcherTest {
+
+    private static final String POM = """
+            <project>
+                <groupId>com.acme</groupId>
+                <artifactId>app</artifactId>
+                <version>1.0</version>
+            </project>
+            """;
+
+    @TempDir
+    Path temp;
+
+    private final AtomicInteger goOfflineRuns = new AtomicInteger();
+    private final CountDownLatch goOfflineStarted = new CountDownLatch(1);
+    private final CountDownLatch goOfflineRelease = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private Path origin;
+    private DependencyPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        origin = temp.resolve("origin");
+        Files.createDirectories(origin);
+        git(origin, "init", "-q", "-b", "main");
+        git(origin, "config", "uploadpack.allowFilter", "true");
+        Files.writeString(origin.resolve("pom.xml"), POM);
+        Files.createDirectories(origin.resolve("src/main/java"));
+        Files.writeString(origin.resolve("src/main/java/App.java"), "class App {}");
+        git(origin, "add", "-A");
+        git(origin, "-c", "user.name=jonk", "-c", "user.email=jonk@example.com", "commit", "-q", "-m", "v1");
+        git(origin, "branch", "feature");
+
+        DependencyPrefetchProperties properties = new DependencyPrefetchProperties();
+        properties.setDirectory(temp.resolve("prefetch").toString());
+        properties.setAwaitTimeout(Duration.ofSeconds(30));
+        MavenRepositoryCache mavenRepositoryCache = mock(MavenRepositoryCache.class);
+        when(mavenRepositoryCache.mavenArguments(any())).thenReturn(List.of());
+        when(mavenRepositoryCache.sharedBase()).thenReturn(Optional.of(temp.resolve("base")));
+
+        prefetcher = new DependencyPrefetcher(properties, mavenRepositoryCache, executor) {
+            @Override
+            boolean runMaven(List<String> command, Path directory, Path output) throws InterruptedException {
+                goOfflineRuns.incrementAndGet();
+                goOfflineStarted.countDown();
+                return goOfflineRelease.await(30, TimeUnit.SECONDS);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        goOfflineRelease.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pomHashCoversEveryReactorPomAndTheMavenConfiguration() throws Exception {
+        Path project = copyReactorFixture();
+        String hash = DependencyPrefetcher.pomHash(project);
+
+        // Sources et fichiers hors pom: même ensemble de dépendances
+        Files.createDirectories(project.resolve("core/src/main/java"));
+        Files.writeString(project.resolve("core/src/main/java/Money.java"), "class Money {}");
+        Files.writeString(project.resolve("services/README.md"), "# Services v2");
+        assertThat(DependencyPrefetcher.pomHash(project)).isEqualTo(hash);
+
+        Path nested = project.resolve("services/impl/pom.xml");
+        String original = Files.readString(nested);
+        Files.writeString(nested, original.replace("2.0.16", "2.0.17"));
+        assertThat(DependencyPrefetcher.pomHash(project)).isNotEqualTo(hash);
+        Files.writeString(nested, original);
+        assertThat(DependencyPrefetcher.pomHash(project)).isEqualTo(hash);
+
+        Files.writeString(project.resolve(".mvn/maven.config"), "-Pfast");
+        assertThat(DependencyPrefetcher.pomHash(project)).isNotEqualTo(hash);
+    }
+
+    @Test
+    void pomHashFallsBackToTheRootPomWhenTheReactorCannotBeParsed() throws Exception {
+        Files.writeString(temp.resolve("pom.xml"), POM.replace("1.0", "${undefined}"));
+        assertThat(MavenReactor.parse(temp)).isEmpty();
+
+        String hash = DependencyPrefetcher.pomHash(temp);
+
+        Files.writeString(temp.resolve("pom.xml"), POM);
+        assertThat(DependencyPrefetcher.pomHash(temp)).isNotEqualTo(hash).hasSize(64);
+    }
+
+    @Test
+    void pipelinesWithTheSamePomsShareOneInFlightPrefetch() throws Exception {
+        PipelineContext main = context("main");
+        PipelineContext feature = context("feature");
+
+        prefetcher.prefetch(main);
+        assertThat(goOfflineStarted.await(30, TimeUnit.SECONDS)).isTrue();
+        prefetcher.prefetch(feature);
+        // Le second préchargement a extrait ses pom.xml: il rejoint celui en cours au lieu de relancer Maven
+        awaitExtractedPoms(2);
+        Thread.sleep(200);
+        goOfflineRelease.countDown();
+
+        DependencyPrefetcher.Prefetch first = prefetcher.await(main).orElseThrow();
+        DependencyPrefetcher.Prefetch second = prefetcher.await(feature).orElseThrow();
+
+        assertThat(goOfflineRuns).hasValue(1);
+        assertThat(first.isSuccess()).isTrue();
+        assertThat(second).isSameAs(first);
+        assertThat(prefetcher.stats()).containsEntry("downloaded", 1L).containsEntry("inFlight", 0);
+
+        // Dépendances déjà dans le cache partagé: ni Maven, ni attente
+        prefetcher.prefetch(main);
+        assertThat(prefetcher.await(main).orElseThrow().isAlreadyWarm()).isTrue();
+        assertThat(goOfflineRuns).hasValue(1);
+
+        Path workspace = temp.resolve("workspace");
+        Files.createDirectories(workspace);
+        Files.writeString(workspace.resolve("pom.xml"), POM);
+        assertThat(prefetcher.isWarm(workspace)).isTrue();
+        assertThat(prefetcher.dockerRepository(workspace)).hasValue(temp.resolve("base"));
+    }
+
+    private PipelineContext context(String branch) {
+        return PipelineContext.builder().gitUrl(origin.toUri().toString()).branch(branch).build();
+    }
+
+    private void awaitExtractedPoms(int count) throws Exception {
+        Path poms = temp.resolve("prefetch/poms");
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            try (Stream<Path> directories = Files.list(poms)) {
+                if (directories.filter(directory -> Files.isRegularFile(directory.resolve("pom.xml"))).count() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError(count + " extractions de pom.xml attendues");
+    }
+
+    private Path copyReactorFixture() throws Exception {
+        Path fixture = Path.of(getClass().getResource("/maven/reactor").toURI());
+        Path project = temp.resolve("project");
+        try (Stream<Path> files = Files.walk(fixture)) {
+            for (Path source : files.toList()) {
+                Path target = project.resolve(fixture.relativize(source).toString());
+                if (Files.isDirectory(source)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(source, target);
+                }
+            }
+        }
+        return project;
+    }
+
+    private static void git(Path directory, String... arguments) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertThat(process.waitFor()).as(String.join(" ", command)).isZero();
+    }
+}
@@ -0,0 +1,153 @@
+package com.imt.demo.cache;
+
+import com.imt.demo.model.StepResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenRepositoryCacheTest {
+
+    @TempDir
+    Path temp;
+
+    private MavenCacheProperties properties;
+    private MavenRepositoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MavenCacheProperties();
+        properties.setDirectory(temp.toString());
+        cache = new MavenRepositoryCache(properties) {
+            @Override
+            boolean detectLayeredRepositorySupport() {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    void mavenArgumentsChainThePipelineOverlayToTheSharedBase() {
+        assertThat(cache.mavenArguments("e1")).containsExactly(
+                "-Dmaven.repo.local=" + temp.resolve("overlays/e1"),
+                "-Dmaven.repo.local.tail=" + temp.resolve("base"),
+                "-Daether.enhancedLocalRepository.split=true",
+                "-Daether.syncContext.named.factory=file-lock",
+                "-Daether.syncContext.named.nameMapper=file-gav");
+        assertThat(cache.mavenArguments(null)).isEmpty();
+        assertThat(cache.sharedBase()).hasValue(temp.resolve("base"));
+
+        properties.setEnabled(false);
+        assertThat(cache.mavenArguments("e2")).isEmpty();
+        assertThat(cache.sharedBase()).isEmpty();
+    }
+
+    @Test
+    void releasePromotesDownloadedArtifactsAndDropsTheOverlay() throws Exception {
+        cache.mavenArguments("e1");
+        Path overlay = temp.resolve("overlays/e1");
+        write(overlay.resolve("cached/org/acme/lib/1.0/lib-1.0.jar"), "new");
+        write(overlay.resolve("cached/org/acme/lib/1.0/lib-1.0.jar.lastUpdated"), "x");
+        write(overlay.resolve("cached/org/acme/lib/resolver-status.properties"), "x");
+        write(overlay.resolve("cached/org/acme/core/2.0/core-2.0.jar"), "overlay copy");
+        write(overlay.resolve("installed/org/acme/app/1.0/app-1.0.jar"), "project module");
+        write(temp.resolve("base/cached/org/acme/core/2.0/core-2.0.jar"), "base copy");
+
+        cache.release("e1");
+
+        Path base = temp.resolve("base/cached/org/acme");
+        assertThat(base.resolve("lib/1.0/lib-1.0.jar")).hasContent("new");
+        assertThat(base.resolve("lib/1.0/lib-1.0.jar.lastUpdated")).doesNotExist();
+        assertThat(base.resolve("lib/resolver-status.properties")).doesNotExist();
+        assertThat(base.resolve("core/2.0/core-2.0.jar")).hasContent("base copy");
+        assertThat(temp.resolve("base/installed")).doesNotExist();
+        assertThat(overlay).doesNotExist();
+        assertThat(cache.stats()).containsEntry("filesPromoted", 1L);
+    }
+
+    @Test
+    void evictionRemovesLeastRecentlyUsedVersionsDownToNinetyPercent() throws Exception {
+        properties.setMaxSize(DataSize.ofBytes(1000));
+        Path base = temp.resolve("base/cached/org/acme");
+        version(base.resolve("a/1.0"), 250, 5);
+        version(base.resolve("b/1.0"), 250, 4);
+        version(base.resolve("c/1.0"), 250, 3);
+        version(base.resolve("d/1.0"), 250, 2);
+        version(base.resolve("e/1.0"), 250, 1);
+
+        cache.mavenArguments("e1");
+        Files.createDirectories(temp.resolve("overlays/e1"));
+        cache.release("e1");
+
+        // 1250 octets pour 1000 au maximum: les deux versions les plus anciennes partent (750 <= 900)
+        assertThat(base.resolve("a/1.0")).doesNotExist();
+        assertThat(base.resolve("b/1.0")).doesNotExist();
+        assertThat(base.resolve("c/1.0")).exists();
+        assertThat(base.resolve("e/1.0")).exists();
+        assertThat(cache.stats()).containsEntry("versionsEvicted", 2L).containsEntry("baseSizeBytes", 750L);
+    }
+
+    @Test
+    void evictionWaitsUntilNoPipelineReadsTheBase() throws Exception {
+        properties.setMaxSize(DataSize.ofBytes(500));
+        Path old = temp.resolve("base/cached/org/acme/old/1.0");
+        version(old, 400, 2);
+        version(temp.resolve("base/cached/org/acme/recent/1.0"), 400, 1);
+
+        cache.mavenArguments("e1");
+        cache.mavenArguments("e2");
+        Files.createDirectories(temp.resolve("overlays/e1"));
+        cache.release("e1");
+
+        assertThat(old).exists();
+        assertThat(cache.stats()).containsEntry("evictionsDeferred", 1L).containsEntry("versionsEvicted", 0L);
+
+        // Le dernier pipeline n'a rien téléchargé (pas d'overlay): l'éviction reportée a lieu quand même
+        cache.release("e2");
+
+        assertThat(old).doesNotExist();
+        assertThat(cache.stats()).containsEntry("versionsEvicted", 1L);
+    }
+
+    @Test
+    void recordInvocationCountsDownloads() {
+        cache.mavenArguments("e1");
+        StepResult result = StepResult.builder().logs(new ArrayList<>(List.of(
+                "Downloaded from central: https://repo/a.jar (1.5 MB at 2 MB/s)",
+                "Downloaded from central: https://repo/a.pom (2,048 B at 10 kB/s)",
+                "[INFO] BUILD SUCCESS"))).build();
+
+        cache.recordInvocation("e1", result);
+        cache.recordInvocation("e1", StepResult.builder().build());
+
+        assertThat(result.getMetrics()).containsEntry("mavenCacheDownloads", 2).containsEntry("mavenCacheBytesDownloaded", 1_502_048L);
+        assertThat(cache.stats())
+                .containsEntry("mavenInvocations", 2L)
+                .containsEntry("invocationsServedFromCache", 1L)
+                .containsEntry("hitRate", 0.5);
+    }
+
+    private static void version(Path directory, int bytes, int daysAgo) throws Exception {
+        Path file = directory.resolve("artifact.jar");
+        Files.createDirectories(directory);
+        Files.write(file, new byte[bytes]);
+        FileTime used = FileTime.from(Instant.now().minus(daysAgo, ChronoUnit.DAYS));
+        Files.setLastModifiedTime(file, used);
+        Files.setAttribute(file, "basic:lastAccessTime", used);
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,89 @@
+package com.imt.demo.deploy;
+
+import com.imt.demo.docker.DockerEngineClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageTransferTest {
+
+    private static final String IMAGE = "acme/app:1";
+
+    @TempDir
+    Path temp;
+
+    private byte[] archive;
+    private ImageTransfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        archive = new byte[512 * 1024];
+        new Random(42).nextBytes(archive);
+        // Moitié compressible, comme les couches texte d'une image
+        for (int i = 0; i < archive.length / 2; i++) {
+            archive[i] = 'a';
+        }
+
+        DockerEngineClient dockerEngineClient = mock(DockerEngineClient.class);
+        when(dockerEngineClient.isAvailable()).thenReturn(true);
+        doAnswer(invocation -> {
+            OutputStream target = invocation.getArgument(1);
+            target.write(archive);
+            return (long) archive.length;
+        }).when(dockerEngineClient).saveImage(eq(IMAGE), any());
+
+        transfer = new ImageTransfer(new DeployProperties(), dockerEngineClient);
+    }
+
+    @Test
+    void archiveIsCompressedOnTheFlyAndLoadedByTheRemoteCommand() throws Exception {
+        Path loaded = temp.resolve("loaded.tar");
+
+        ImageTransfer.Transfer result = transfer.stream(IMAGE, List.of("sh", "-c", "gunzip -c > '" + loaded + "'"));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getError()).isNull();
+        assertThat(Files.readAllBytes(loaded)).isEqualTo(archive);
+        assertThat(result.getRawBytes()).isEqualTo(archive.length);
+        assertThat(result.getCompressedBytes()).isPositive().isLessThan(archive.length);
+    }
+
+    @Test
+    void remoteFailureIsReportedWithItsOutput() throws Exception {
+        ImageTransfer.Transfer result = transfer.stream(IMAGE,
+                List.of("sh", "-c", "cat > /dev/null; echo 'permission denied'; exit 5"));
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getError()).contains("code 5");
+        assertThat(result.getOutput()).contains("permission denied");
+    }
+
+    @Test
+    void remoteCommandClosingItsInputEarlyFailsTheTransfer() throws Exception {
+        ImageTransfer.Transfer result = transfer.stream(IMAGE, List.of("sh", "-c", "exit 255"));
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getError()).contains("code 255");
+    }
+
+    @Test
+    void missingCommandIsReported() throws Exception {
+        ImageTransfer.Transfer result = transfer.stream(IMAGE, List.of(temp.resolve("no-such-ssh").toString()));
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getError()).startsWith("Impossible de lancer");
+    }
+}
@@ -0,0 +1,108 @@
+package com.imt.demo.deploy;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistryRelayTest {
+
+    private static final String MANIFEST = """
+            {"schemaVersion":2,"layers":[
+              {"digest":"sha256:aaaaaaaaaaaa1111","size":50000000},
+              {"digest":"sha256:bbbbbbbbbbbb2222","size":300000},
+              {"digest":"sha256:cccccccccccc3333","size":20000}]}
+            """;
+
+    private final Map<String, String> manifests = new ConcurrentHashMap<>();
+    private HttpServer registry;
+    private DeployProperties properties;
+    private RegistryRelay relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        registry.createContext("/v2/", exchange -> {
+            String body = manifests.get(exchange.getRequestURI().getPath());
+            byte[] content = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.sendResponseHeaders(body != null ? 200 : 404, content.length == 0 ? -1 : content.length);
+            exchange.getResponseBody().write(content);
+            exchange.close();
+        });
+        registry.start();
+
+        properties = new DeployProperties();
+        properties.setLayerDelta(true);
+        properties.setRegistryPort(registry.getAddress().getPort());
+        relay = new RegistryRelay(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.stop(0);
+    }
+
+    @Test
+    void onlyPulledLayersCountAsTransferred() {
+        manifests.put("/v2/acme/app/manifests/2", MANIFEST);
+
+        RegistryRelay.Delta delta = relay.delta(relayImage("acme/app:2"), List.of(
+                "2: Pulling from acme/app",
+                "aaaaaaaaaaaa: Already exists",
+                "bbbbbbbbbbbb: Already exists",
+                "cccccccccccc: Pull complete",
+                "Digest: sha256:ffff"));
+
+        assertThat(delta.getLayers()).isEqualTo(3);
+        assertThat(delta.getLayersTransferred()).isEqualTo(1);
+        assertThat(delta.getImageBytes()).isEqualTo(50_320_000L);
+        assertThat(delta.getTransferredBytes()).isEqualTo(20_000L);
+    }
+
+    @Test
+    void multiPlatformIndexUsesTheFirstManifest() {
+        manifests.put("/v2/acme/app/manifests/latest",
+                "{\"manifests\":[{\"digest\":\"sha256:amd64\"},{\"digest\":\"sha256:arm64\"}]}");
+        manifests.put("/v2/acme/app/manifests/sha256:amd64", MANIFEST);
+
+        RegistryRelay.Delta delta = relay.delta(relayImage("acme/app"), List.of("aaaaaaaaaaaa: Pull complete"));
+
+        assertThat(delta.getLayers()).isEqualTo(3);
+        assertThat(delta.getTransferredBytes()).isEqualTo(50_000_000L);
+    }
+
+    @Test
+    void missingManifestStillCountsPulledLayers() {
+        RegistryRelay.Delta delta = relay.delta(relayImage("acme/app:3"), List.of("cccccccccccc: Pull complete"));
+
+        assertThat(delta.getLayers()).isZero();
+        assertThat(delta.getLayersTransferred()).isEqualTo(1);
+        assertThat(delta.getTransferredBytes()).isZero();
+    }
+
+    @Test
+    void remoteCommandsGoThroughTheTunnel() {
+        String relayImage = relayImage("acme/app:2");
+
+        assertThat(relay.tunnel()).isEqualTo(properties.getRegistryPort() + ":127.0.0.1:" + properties.getRegistryPort());
+        assertThat(relay.pullCommand(relayImage, "acme/app:2"))
+                .isEqualTo("docker pull " + relayImage + " && docker tag " + relayImage + " acme/app:2 && docker rmi " + relayImage);
+        assertThat(relay.isEnabled()).isTrue();
+
+        properties.setLayerDelta(false);
+        assertThat(relay.isEnabled()).isFalse();
+    }
+
+    private String relayImage(String image) {
+        return "localhost:" + properties.getRegistryPort() + "/" + image;
+    }
+}
@@ -0,0 +1,104 @@
+package com.imt.demo.deploy;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SshConnectionPoolTest {
+
+    @TempDir
+    Path temp;
+
+    private DeployProperties properties;
+    private SshConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DeployProperties();
+        properties.setSshControlDirectory(temp.toString());
+        properties.setSshConnectTimeout(Duration.ofSeconds(1));
+        properties.setSshControlPersist(Duration.ofMinutes(5));
+        pool = new SshConnectionPool(properties);
+    }
+
+    @Test
+    void sshCommandWithoutMultiplexingCarriesKeyAndHostOptions() {
+        SshTarget target = new SshTarget("deploy", "10.0.0.5", "/keys/id_ed25519");
+
+        List<String> command = pool.ssh(target, "docker ps", "-R", "5000:127.0.0.1:5000");
+
+        assertThat(command).containsExactly("ssh",
+                "-i", "/keys/id_ed25519",
+                "-o", "StrictHostKeyChecking=accept-new",
+                "-o", "UserKnownHostsFile=" + temp.resolve("known_hosts"),
+                "-o", "BatchMode=yes",
+                "-o", "ConnectTimeout=1",
+                "-R", "5000:127.0.0.1:5000",
+                "deploy@10.0.0.5",
+                "docker ps");
+        assertThat(pool.stats()).containsEntry("enabled", false).containsEntry("acquisitions", 0L);
+    }
+
+    @Test
+    void scpCommandTargetsTheRemoteDirectoryWithoutKeyWhenNoneIsSet() {
+        properties.setSshStrictHostKeyChecking("yes");
+        SshTarget target = new SshTarget("deploy", "10.0.0.5", null);
+
+        List<String> command = pool.scp(target, "/tmp/app.tar", "/tmp/");
+
+        assertThat(command).containsExactly("scp",
+                "-o", "StrictHostKeyChecking=yes",
+                "-o", "UserKnownHostsFile=" + temp.resolve("known_hosts"),
+                "-o", "BatchMode=yes",
+                "-o", "ConnectTimeout=1",
+                "/tmp/app.tar",
+                "deploy@10.0.0.5:/tmp/");
+    }
+
+    @Test
+    void multiplexedCommandsShareOneControlSocketPerTarget() {
+        properties.setSshMultiplexing(true);
+        // Aucun serveur SSH local: la connexion maîtresse échoue vite, la commande reste générée
+        SshTarget target = new SshTarget("deploy", "127.0.0.1", "/keys/id_ed25519");
+        String controlPath = temp.resolve(WorkspaceFiles.slug("deploy@127.0.0.1|/keys/id_ed25519") + ".sock").toString();
+
+        List<String> ssh = pool.ssh(target, "docker ps");
+        List<String> scp = pool.scp(target, "/tmp/app.tar", "/tmp/");
+
+        assertThat(ssh).containsSequence("-o", "ControlMaster=auto", "-o", "ControlPath=" + controlPath, "-o", "ControlPersist=300")
+                .endsWith("deploy@127.0.0.1", "docker ps");
+        assertThat(scp).containsSequence("-o", "ControlMaster=auto", "-o", "ControlPath=" + controlPath, "-o", "ControlPersist=300")
+                .endsWith("/tmp/app.tar", "deploy@127.0.0.1:/tmp/");
+        assertThat(pool.stats())
+                .containsEntry("enabled", true)
+                .containsEntry("acquisitions", 2L)
+                .containsEntry("reuses", 0L)
+                .containsEntry("handshakes", 0L)
+                .containsEntry("handshakeFailures", 2L)
+                .containsEntry("channelsByTarget", Map.of("deploy@127.0.0.1", 2L));
+    }
+
+    @Test
+    void controlSocketDependsOnTheKey() {
+        properties.setSshMultiplexing(true);
+
+        List<String> first = pool.ssh(new SshTarget("deploy", "127.0.0.1", "/keys/a"), "true");
+        List<String> second = pool.ssh(new SshTarget("deploy", "127.0.0.1", "/keys/b"), "true");
+
+        assertThat(controlPath(first)).isNotEqualTo(controlPath(second));
+        assertThat(controlPath(first)).startsWith("ControlPath=" + temp).endsWith(".sock");
+        assertThat(pool.stats().get("channelsByTarget")).isEqualTo(Map.of("deploy@127.0.0.1", 2L));
+    }
+
+    private static String controlPath(List<String> command) {
+        return command.stream().filter(option -> option.startsWith("ControlPath=")).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,111 @@
+package com.imt.demo.docker;
+
+import com.imt.demo.workspace.WorkspaceFiles;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildKitCacheTest {
+
+    private static final String GIT_URL = "https://example.com/acme/shop.git";
+
+    @TempDir
+    Path temp;
+
+    private DockerProperties properties;
+    private BuildKitCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DockerProperties();
+        properties.setCacheDirectory(temp.toString());
+        cache = new BuildKitCache(properties);
+    }
+
+    @Test
+    void disabledByDefaultWithoutCallingDocker() {
+        assertThat(cache.isAvailable()).isFalse();
+        assertThat(cache.stats()).containsEntry("available", false);
+    }
+
+    @Test
+    void firstBuildExportsOnlyAndNextBuildImportsTheSwappedCache() throws Exception {
+        List<String> first = cache.buildArguments(GIT_URL, "p1");
+
+        assertThat(first).containsExactly("--builder", "jonk", "--load", "--cache-to", "type=local,mode=max,dest=" + pending("p1"));
+        assertThat(cache.hasCache(GIT_URL)).isFalse();
+
+        export("p1", "v1");
+        cache.complete(GIT_URL, "p1", true);
+
+        Path directory = cacheDirectory();
+        assertThat(directory.resolve("index.json")).hasContent("v1");
+        assertThat(cache.hasCache(GIT_URL)).isTrue();
+        assertThat(siblings()).containsExactly(directory.getFileName().toString());
+
+        assertThat(cache.buildArguments(GIT_URL, "p2")).containsExactly(
+                "--builder", "jonk", "--load",
+                "--cache-from", "type=local,src=" + directory,
+                "--cache-to", "type=local,mode=max,dest=" + pending("p2"));
+        assertThat(cache.stats()).containsEntry("builds", 2L).containsEntry("cacheImports", 1L).containsEntry("cacheExports", 1L);
+    }
+
+    @Test
+    void successfulExportReplacesThePreviousCacheWithoutLeftovers() throws Exception {
+        export("p1", "v1");
+        Files.writeString(pending("p1").resolve("blobs-v1"), "old layer");
+        cache.complete(GIT_URL, "p1", true);
+
+        export("p2", "v2");
+        cache.complete(GIT_URL, "p2", true);
+
+        // Le nouvel export remplace l'ancien en entier: pas de fusion des blobs
+        assertThat(cacheDirectory().resolve("index.json")).hasContent("v2");
+        assertThat(cacheDirectory().resolve("blobs-v1")).doesNotExist();
+        assertThat(siblings()).containsExactly(cacheDirectory().getFileName().toString());
+    }
+
+    @Test
+    void failedOrIncompleteExportKeepsTheCurrentCache() throws Exception {
+        export("p1", "v1");
+        cache.complete(GIT_URL, "p1", true);
+
+        export("p2", "v2");
+        cache.complete(GIT_URL, "p2", false);
+
+        // Export interrompu avant l'écriture de l'index
+        Files.createDirectories(pending("p3"));
+        Files.writeString(pending("p3").resolve("blob"), "partial");
+        cache.complete(GIT_URL, "p3", true);
+
+        assertThat(cacheDirectory().resolve("index.json")).hasContent("v1");
+        assertThat(siblings()).containsExactly(cacheDirectory().getFileName().toString());
+        assertThat(cache.stats()).containsEntry("cacheExports", 1L);
+    }
+
+    private void export(String pipelineId, String content) throws Exception {
+        Files.createDirectories(pending(pipelineId));
+        Files.writeString(pending(pipelineId).resolve("index.json"), content);
+    }
+
+    private Path cacheDirectory() {
+        return temp.resolve(WorkspaceFiles.slug(GIT_URL));
+    }
+
+    private Path pending(String pipelineId) {
+        return temp.resolve(WorkspaceFiles.slug(GIT_URL) + ".new-" + pipelineId);
+    }
+
+    private List<String> siblings() throws Exception {
+        try (Stream<Path> directories = Files.list(temp)) {
+            return directories.map(directory -> directory.getFileName().toString()).toList();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.imt.demo.docker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DockerEngineClientTest {
+
+    private static final String CONTAINERS = """
+            [{"Id":"abc","Names":["/app"],"Image":"acme/app:1","State":"running",
+              "Status":"Up 5 seconds (health: starting)",
+              "Ports":[{"PrivatePort":8080,"PublicPort":9000,"Type":"tcp"},{"PrivatePort":8080,"PublicPort":9000,"Type":"tcp"}]}]
+            """;
+
+    @TempDir
+    Path temp;
+
+    private DockerProperties properties;
+    private FakeDockerDaemon daemon;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DockerProperties();
+        properties.setEngineApi(true);
+        properties.setSocket(temp.resolve("docker.sock").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (daemon != null) {
+            daemon.close();
+        }
+    }
+
+    @Test
+    void listsContainersWithServerSideFilters() throws Exception {
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> FakeDockerDaemon.json(out, 200, CONTAINERS));
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        Optional<ContainerSummary> container = client.findContainer("app");
+
+        assertThat(container).isPresent();
+        assertThat(container.get().getName()).isEqualTo("app");
+        assertThat(container.get().getPublicPorts()).containsExactly(9000);
+        assertThat(container.get().getHealth()).isEqualTo("starting");
+        assertThat(container.get().isRunning()).isTrue();
+        FakeDockerDaemon.Request request = daemon.requests().get(0);
+        assertThat(request.method()).isEqualTo("GET");
+        assertThat(URLDecoder.decode(request.path(), StandardCharsets.UTF_8))
+                .isEqualTo("/v1.41/containers/json?all=true&filters={\"name\":[\"^/app$\"]}");
+    }
+
+    @Test
+    void keepAliveConnectionsAreReused() throws Exception {
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> FakeDockerDaemon.json(out, 200, "[]"));
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        client.listImages();
+        client.listImages();
+        client.listContainers(false, Map.of());
+
+        assertThat(daemon.connections()).isEqualTo(1);
+        assertThat(client.stats()).containsEntry("requests", 3L).containsEntry("connectionsOpened", 1L).containsEntry("idleConnections", 1);
+    }
+
+    @Test
+    void staleConnectionIsReplacedTransparently() throws Exception {
+        // Le démon ferme la connexion après chaque réponse sans l'annoncer (Connection: close absent)
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> {
+            FakeDockerDaemon.json(out, 200, "[]");
+            return false;
+        });
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        client.listImages();
+        Thread.sleep(50);
+        client.listImages();
+
+        assertThat(daemon.connections()).isEqualTo(2);
+        assertThat(daemon.requests()).hasSize(2);
+    }
+
+    @Test
+    void chunkedBodyIsStreamedToTheSink() throws Exception {
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"),
+                (request, out) -> FakeDockerDaemon.chunked(out, List.of("tar-", "archive-", "content")));
+        DockerEngineClient client = new DockerEngineClient(properties);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+        long bytes = client.saveImage("acme/app:1", sink);
+
+        assertThat(sink.toString(StandardCharsets.UTF_8)).isEqualTo("tar-archive-content");
+        assertThat(bytes).isEqualTo(19);
+        assertThat(daemon.requests().get(0).path()).isEqualTo("/v1.41/images/get?names=acme%2Fapp%3A1");
+    }
+
+    @Test
+    void createContainerSendsPortBindings() throws Exception {
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> request.path().contains("/create")
+                ? FakeDockerDaemon.json(out, 201, "{\"Id\":\"new-id\"}")
+                : FakeDockerDaemon.noContent(out, 204));
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        String id = client.createContainer("app", "acme/app:1", "9000", 8080);
+        client.startContainer(id);
+
+        assertThat(id).isEqualTo("new-id");
+        assertThat(daemon.requests().get(0).body())
+                .isEqualTo("{\"Image\":\"acme/app:1\",\"ExposedPorts\":{\"8080/tcp\":{}},"
+                        + "\"HostConfig\":{\"PortBindings\":{\"8080/tcp\":[{\"HostPort\":\"9000\"}]}}}");
+        assertThat(daemon.requests().get(1).method()).isEqualTo("POST");
+        assertThat(daemon.requests().get(1).path()).isEqualTo("/v1.41/containers/new-id/start");
+        assertThat(daemon.connections()).isEqualTo(1);
+    }
+
+    @Test
+    void missingResourcesAndErrorsAreReported() throws Exception {
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> request.path().contains("/rename")
+                ? FakeDockerDaemon.json(out, 409, "{\"message\":\"name already in use\"}")
+                : FakeDockerDaemon.json(out, 404, "{\"message\":\"No such container\"}"));
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        assertThat(client.inspectImage("acme/missing:1")).isEmpty();
+        assertThat(client.stopContainer("gone", 10)).isFalse();
+        assertThatThrownBy(() -> client.renameContainer("abc", "app"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("409")
+                .hasMessageContaining("name already in use");
+    }
+
+    @Test
+    void eventStreamReturnsOneEventPerLineUntilTheDaemonEndsIt() throws Exception {
+        BlockingQueue<String> chunks = FakeDockerDaemon.queue();
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> FakeDockerDaemon.stream(out, chunks));
+        DockerEngineClient client = new DockerEngineClient(properties);
+
+        try (DockerEngineClient.EventStream stream = client.events(Map.of("type", List.of("container")))) {
+            chunks.addAll(List.of("{\"Action\":\"start\"}\n\n{\"Act", "ion\":\"die\"}\n", ""));
+
+            assertThat(stream.next().path("Action").asText()).isEqualTo("start");
+            assertThat(stream.next().path("Action").asText()).isEqualTo("die");
+            assertThat(stream.next()).isNull();
+        }
+        assertThat(URLDecoder.decode(daemon.requests().get(0).path(), StandardCharsets.UTF_8))
+                .isEqualTo("/v1.41/events?filters={\"type\":[\"container\"]}");
+    }
+
+    @Test
+    void closingTheEventStreamUnblocksTheReader() throws Exception {
+        BlockingQueue<String> chunks = FakeDockerDaemon.queue();
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> FakeDockerDaemon.stream(out, chunks));
+        DockerEngineClient.EventStream stream = new DockerEngineClient(properties).events(Map.of());
+
+        CompletableFuture<Object> reader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return stream.next();
+            } catch (IOException e) {
+                return e;
+            }
+        });
+        Thread.sleep(100);
+        stream.close();
+
+        assertThat(reader.get(5, TimeUnit.SECONDS)).satisfiesAnyOf(
+                result -> assertThat(result).isNull(),
+                result -> assertThat(result).isInstanceOf(IOException.class));
+        chunks.add("");
+    }
+
+    @Test
+    void unavailableWithoutSocketOrWhenDisabled() throws Exception {
+        DockerEngineClient client = new DockerEngineClient(properties);
+        assertThat(client.isAvailable()).isFalse();
+
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> FakeDockerDaemon.json(out, 200, "[]"));
+        assertThat(client.isAvailable()).isTrue();
+
+        properties.setEngineApi(false);
+        assertThat(client.isAvailable()).isFalse();
+    }
+}
@@ -0,0 +1,53 @@
+package com.imt.demo.docker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DockerIgnoreTest {
+
+    private static final String JAR = "target/app-1.0.jar";
+
+    @TempDir
+    Path context;
+
+    @Test
+    void excludedDirectoryExcludesItsContent() {
+        assertThat(DockerIgnore.excludes(List.of("target"), JAR)).isTrue();
+        assertThat(DockerIgnore.excludes(List.of("/target/"), JAR)).isTrue();
+        assertThat(DockerIgnore.excludes(List.of("**/target"), JAR)).isTrue();
+        assertThat(DockerIgnore.excludes(List.of("src", "*.md"), JAR)).isFalse();
+    }
+
+    @Test
+    void lastMatchingPatternWins() {
+        assertThat(DockerIgnore.excludes(List.of("target", "!target/*.jar"), JAR)).isFalse();
+        assertThat(DockerIgnore.excludes(List.of("!target/*.jar", "target"), JAR)).isTrue();
+        assertThat(DockerIgnore.excludes(List.of("*", "!target/app-*.jar"), JAR)).isFalse();
+    }
+
+    @Test
+    void singleStarDoesNotCrossDirectories() {
+        assertThat(DockerIgnore.excludes(List.of("*.jar"), JAR)).isFalse();
+        assertThat(DockerIgnore.excludes(List.of("**/*.jar"), JAR)).isTrue();
+        assertThat(DockerIgnore.excludes(List.of("target/app-?.?.jar"), JAR)).isTrue();
+    }
+
+    @Test
+    void commentsAndBlankLinesAreIgnored() {
+        assertThat(DockerIgnore.excludes(List.of("# target", "", "  "), JAR)).isFalse();
+    }
+
+    @Test
+    void missingFileExcludesNothing() throws Exception {
+        assertThat(DockerIgnore.excludes(context, JAR)).isFalse();
+
+        Files.writeString(context.resolve(DockerIgnore.FILE_NAME), ".git\ntarget/\n");
+        assertThat(DockerIgnore.excludes(context, JAR)).isTrue();
+    }
+}
@@ -0,0 +1,157 @@
+package com.imt.demo.docker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DockerStateIndexTest {
+
+    @TempDir
+    Path temp;
+
+    private final Map<String, String> containers = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> events = FakeDockerDaemon.queue();
+    private volatile String images = "[{\"Id\":\"sha256:1\",\"Size\":10,\"RepoTags\":[\"acme/app:1\",\"<none>:<none>\"]}]";
+
+    private FakeDockerDaemon daemon;
+    private DockerStateIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        containers.put("c1", container("c1", "app", "running", "Up 1 minute (healthy)"));
+        daemon = new FakeDockerDaemon(temp.resolve("docker.sock"), (request, out) -> {
+            String path = URLDecoder.decode(request.path(), StandardCharsets.UTF_8);
+            if (path.contains("/events")) {
+                return FakeDockerDaemon.stream(out, events);
+            }
+            if (path.contains("/images/json")) {
+                return FakeDockerDaemon.json(out, 200, images);
+            }
+            String filtered = containers.entrySet().stream()
+                    .filter(entry -> !path.contains("\"id\"") || path.contains("\"" + entry.getKey() + "\""))
+                    .map(Map.Entry::getValue)
+                    .reduce((a, b) -> a + "," + b).orElse("");
+            return FakeDockerDaemon.json(out, 200, "[" + filtered + "]");
+        });
+
+        DockerProperties properties = new DockerProperties();
+        properties.setEngineApi(true);
+        properties.setStateIndex(true);
+        properties.setSocket(daemon.socket());
+        properties.setEventsReconnectDelay(Duration.ofMillis(50));
+        index = new DockerStateIndex(new DockerEngineClient(properties), properties);
+        index.start();
+        await(index::isSynced);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.stop();
+        events.add("");
+        daemon.close();
+    }
+
+    @Test
+    void initialLoadIndexesContainersPortsAndImages() {
+        assertThat(index.container("app")).map(ContainerSummary::getId).hasValue("c1");
+        assertThat(index.containerUsingPort("9000")).map(ContainerSummary::getName).hasValue("app");
+        assertThat(index.containerUsingPort("not-a-port")).isEmpty();
+        assertThat(index.health("app")).hasValue("healthy");
+        assertThat(index.imageId("acme/app:1")).hasValue("sha256:1");
+        assertThat(index.imageId("<none>:<none>")).isEmpty();
+    }
+
+    @Test
+    void dieEventCompletesWaitersAndReleasesThePort() throws Exception {
+        CompletableFuture<Integer> died = index.awaitDie("app");
+        CompletableFuture<String> changed = index.awaitStateChange("app");
+
+        containers.put("c1", container("c1", "app", "exited", "Exited (137) 1 second ago"));
+        events.add(event("die", "c1", "app", ",\"exitCode\":\"137\""));
+
+        assertThat(died.get(5, TimeUnit.SECONDS)).isEqualTo(137);
+        assertThat(changed.get(5, TimeUnit.SECONDS)).isEqualTo("die");
+        assertThat(index.containerUsingPort("9000")).isEmpty();
+        assertThat(index.container("app")).map(ContainerSummary::isRunning).hasValue(false);
+    }
+
+    @Test
+    void healthEventUpdatesHealthAndWakesWaiters() throws Exception {
+        CompletableFuture<String> changed = index.awaitStateChange("app");
+
+        events.add(event("health_status: unhealthy", "c1", "app", ""));
+
+        assertThat(changed.get(5, TimeUnit.SECONDS)).isEqualTo("unhealthy");
+        assertThat(index.health("app")).hasValue("unhealthy");
+    }
+
+    @Test
+    void eventsSplitAcrossChunksAreReassembled() {
+        containers.put("c2", container("c2", "worker", "running", "Up 1 second"));
+        String start = event("start", "c2", "worker", "");
+        events.add(start.substring(0, 10));
+        events.add(start.substring(10));
+
+        await(() -> index.container("worker").isPresent());
+    }
+
+    @Test
+    void destroyAndImageEventsUpdateTheIndex() {
+        containers.remove("c1");
+        events.add(event("destroy", "c1", "app", ""));
+        images = "[{\"Id\":\"sha256:2\",\"Size\":10,\"RepoTags\":[\"acme/app:2\"]}]";
+        events.add("{\"Type\":\"image\",\"Action\":\"tag\",\"Actor\":{\"ID\":\"sha256:2\"}}\n");
+
+        await(() -> index.imageId("acme/app:2").isPresent());
+        assertThat(index.container("app")).isEmpty();
+        assertThat(index.imageId("acme/app:1")).isEmpty();
+    }
+
+    @Test
+    void closedStreamIsReopenedWithAFullReload() {
+        containers.put("c3", container("c3", "missed", "running", "Up 1 second"));
+
+        events.add("");
+
+        // Le container est visible dès le rechargement, l'index n'est synchronisé qu'une fois les images relues
+        await(() -> index.container("missed").isPresent() && index.isSynced());
+        assertThat(index.stats()).containsEntry("resyncs", 2L);
+    }
+
+    private static String container(String id, String name, String state, String status) {
+        return "{\"Id\":\"" + id + "\",\"Names\":[\"/" + name + "\"],\"Image\":\"acme/app:1\",\"State\":\"" + state
+                + "\",\"Status\":\"" + status + "\",\"Ports\":[{\"PrivatePort\":8080,\"PublicPort\":9000,\"Type\":\"tcp\"}]}";
+    }
+
+    private static String event(String action, String id, String name, String attributes) {
+        return "{\"Type\":\"container\",\"Action\":\"" + action + "\",\"Actor\":{\"ID\":\"" + id
+                + "\",\"Attributes\":{\"name\":\"" + name + "\"" + attributes + "}}}\n";
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition non atteinte en 5 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.imt.demo.docker;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Démon Docker simulé: serveur HTTP/1.1 minimal sur un socket Unix, avec une réponse programmée par requête.
+ * Chaque connexion est servie par son propre thread et conservée tant que le handler le demande.
+ */
+class FakeDockerDaemon implements Closeable {
+
+    /**
+     * Requête reçue par le démon
+     */
+    record Request(String method, String path, String body, int connection) {
+    }
+
+    /**
+     * Réponse à une requête; false pour fermer la connexion ensuite
+     */
+    @FunctionalInterface
+    interface Handler {
+        boolean handle(Request request, OutputStream out) throws IOException;
+    }
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final Handler handler;
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private final List<SocketChannel> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    FakeDockerDaemon(Path socket, Handler handler) throws IOException {
+        this.socket = socket;
+        this.handler = handler;
+        Files.deleteIfExists(socket);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        Thread acceptor = new Thread(this::accept, "fake-docker-daemon");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String socket() {
+        return socket.toString();
+    }
+
+    List<Request> requests() {
+        return requests;
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    static boolean json(OutputStream out, int status, String body) throws IOException {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 " + status + " X\r\nContent-Type: application/json\r\nContent-Length: " + content.length + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+        return true;
+    }
+
+    static boolean noContent(OutputStream out, int status) throws IOException {
+        out.write(("HTTP/1.1 " + status + " X\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    static boolean chunked(OutputStream out, List<String> chunks) throws IOException {
+        out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        for (String chunk : chunks) {
+            writeChunk(out, chunk);
+        }
+        out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Flux chunked alimenté par une file: chaque élément est un chunk, la chaîne vide termine le flux
+     */
+    static boolean stream(OutputStream out, BlockingQueue<String> chunks) throws IOException {
+        out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        try {
+            String chunk;
+            while (!(chunk = chunks.take()).isEmpty()) {
+                writeChunk(out, chunk);
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return false;
+    }
+
+    static BlockingQueue<String> queue() {
+        return new LinkedBlockingQueue<>();
+    }
+
+    private static void writeChunk(OutputStream out, String chunk) throws IOException {
+        byte[] content = chunk.getBytes(StandardCharsets.UTF_8);
+        out.write((Integer.toHexString(content.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                clients.add(client);
+                int id = connections.incrementAndGet();
+                Thread worker = new Thread(() -> serve(client, id), "fake-docker-connection-" + id);
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel client, int id) {
+        try (client) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(client));
+            OutputStream out = Channels.newOutputStream(client);
+            String requestLine;
+            while ((requestLine = readLine(in)) != null) {
+                int length = 0;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                        length = Integer.parseInt(header.substring(header.indexOf(':') + 1).trim());
+                    }
+                }
+                String body = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+                String[] parts = requestLine.split(" ");
+                Request request = new Request(parts[0], parts[1], body, id);
+                requests.add(request);
+                if (!handler.handle(request, out)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // connexion fermée par le client
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int previous = -1;
+        int current;
+        while ((current = in.read()) >= 0) {
+            if (previous == '\r' && current == '\n') {
+                byte[] bytes = line.toByteArray();
+                return new String(bytes, 0, bytes.length - 1, StandardCharsets.US_ASCII);
+            }
+            line.write(current);
+            previous = current;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        Files.deleteIfExists(socket);
+    }
+}
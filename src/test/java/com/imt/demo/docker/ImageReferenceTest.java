@@ -0,0 +1,28 @@
+package com.imt.demo.docker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageReferenceTest {
+
+    @Test
+    void tagIsTheSuffixAfterTheLastColon() {
+        ImageReference reference = ImageReference.parse("acme/app:1.2");
+
+        assertThat(reference.getRepository()).isEqualTo("acme/app");
+        assertThat(reference.getTag()).isEqualTo("1.2");
+    }
+
+    @Test
+    void missingTagDefaultsToLatest() {
+        assertThat(ImageReference.parse("app")).isEqualTo(new ImageReference("app", "latest"));
+    }
+
+    @Test
+    void registryPortIsNotATag() {
+        assertThat(ImageReference.parse("registry:5000/app")).isEqualTo(new ImageReference("registry:5000/app", "latest"));
+        assertThat(ImageReference.parse("registry:5000/team/app:2")).isEqualTo(new ImageReference("registry:5000/team/app", "2"));
+        assertThat(ImageReference.parse("registry:5000/app").toString()).isEqualTo("registry:5000/app:latest");
+    }
+}
@@ -0,0 +1,131 @@
+package com.imt.demo.docker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LayeredJarExtractorTest {
+
+    private static final String LAUNCHER = "org.springframework.boot.loader.launch.JarLauncher";
+
+    private static final String INDEX = """
+            - "dependencies":
+              - "BOOT-INF/lib/"
+            - "spring-boot-loader":
+              - "org/"
+            - "snapshot-dependencies":
+              - "BOOT-INF/lib/lib-1.0-SNAPSHOT.jar"
+            - "application":
+              - "BOOT-INF/classes/"
+              - "META-INF/"
+            """;
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void entriesGoToTheirMostSpecificLayer() throws Exception {
+        Path jar = jar(INDEX, Map.of(
+                "BOOT-INF/lib/lib-1.0.jar", "dependency",
+                "BOOT-INF/lib/lib-1.0-SNAPSHOT.jar", "snapshot",
+                "org/springframework/boot/loader/Launcher.class", "loader",
+                "BOOT-INF/classes/com/acme/App.class", "app"));
+        Path layers = temp.resolve("layers");
+
+        Optional<LayeredJarExtractor.Layers> extracted = LayeredJarExtractor.extract(jar, layers);
+
+        assertThat(extracted).isPresent();
+        assertThat(extracted.get().getLauncher()).isEqualTo(LAUNCHER);
+        assertThat(extracted.get().getNames())
+                .containsExactly("dependencies", "spring-boot-loader", "snapshot-dependencies", "application");
+        assertThat(layers.resolve("dependencies/BOOT-INF/lib/lib-1.0.jar")).hasContent("dependency");
+        assertThat(layers.resolve("snapshot-dependencies/BOOT-INF/lib/lib-1.0-SNAPSHOT.jar")).hasContent("snapshot");
+        assertThat(layers.resolve("dependencies/BOOT-INF/lib/lib-1.0-SNAPSHOT.jar")).doesNotExist();
+        assertThat(layers.resolve("spring-boot-loader/org/springframework/boot/loader/Launcher.class")).exists();
+        assertThat(layers.resolve("application/BOOT-INF/classes/com/acme/App.class")).hasContent("app");
+        assertThat(extracted.get().getSizes()).containsEntry("snapshot-dependencies", 8L).containsEntry("dependencies", 10L);
+    }
+
+    @Test
+    void extractedFilesHaveAFixedTimestamp() throws Exception {
+        Path jar = jar(INDEX, Map.of("BOOT-INF/classes/com/acme/App.class", "app"));
+        Path layers = temp.resolve("layers");
+
+        LayeredJarExtractor.extract(jar, layers);
+
+        try (Stream<Path> paths = Files.walk(layers)) {
+            assertThat(paths.map(path -> {
+                try {
+                    return Files.getLastModifiedTime(path).toMillis();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).distinct().toList()).containsExactly(315532800000L);
+        }
+    }
+
+    @Test
+    void previousExtractionIsReplaced() throws Exception {
+        Path layers = temp.resolve("layers");
+        LayeredJarExtractor.extract(jar(INDEX, Map.of("BOOT-INF/classes/Old.class", "old")), layers);
+
+        LayeredJarExtractor.extract(jar(INDEX, Map.of("BOOT-INF/classes/New.class", "new")), layers);
+
+        assertThat(layers.resolve("application/BOOT-INF/classes/Old.class")).doesNotExist();
+        assertThat(layers.resolve("application/BOOT-INF/classes/New.class")).exists();
+    }
+
+    @Test
+    void jarWithoutLayersIndexIsNotExtracted() throws Exception {
+        Path jar = jar(null, Map.of("BOOT-INF/classes/com/acme/App.class", "app"));
+
+        assertThat(LayeredJarExtractor.extract(jar, temp.resolve("layers"))).isEmpty();
+        assertThat(temp.resolve("layers")).doesNotExist();
+    }
+
+    @Test
+    void entriesEscapingTheDestinationAreRejected() throws Exception {
+        Path jar = jar(INDEX, Map.of("BOOT-INF/classes/../../../../evil.txt", "evil"));
+
+        assertThatThrownBy(() -> LayeredJarExtractor.extract(jar, temp.resolve("layers")))
+                .isInstanceOf(IOException.class);
+        assertThat(temp.resolve("evil.txt")).doesNotExist();
+    }
+
+    private Path jar(String index, Map<String, String> entries) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, LAUNCHER);
+
+        Map<String, String> content = new LinkedHashMap<>(entries);
+        if (index != null) {
+            content.put("BOOT-INF/layers.idx", index);
+        }
+        Path jar = Files.createTempFile(temp, "app", ".jar");
+        try (OutputStream file = Files.newOutputStream(jar);
+             JarOutputStream out = new JarOutputStream(file, manifest)) {
+            for (Map.Entry<String, String> entry : content.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
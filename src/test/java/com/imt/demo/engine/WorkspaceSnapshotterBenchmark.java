@@ -0,0 +1,75 @@
+package com.imt.demo.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mesure reproductible du coût d'une copie de workspace, désactivée par défaut:
+ * mvn test -Dtest=WorkspaceSnapshotterBenchmark -Djonk.benchmark=true
+ * (-Djonk.benchmark.dir=... pour mesurer sur un autre système de fichiers, ex: btrfs ou xfs avec reflink)
+ */
+@EnabledIfSystemProperty(named = "jonk.benchmark", matches = "true")
+class WorkspaceSnapshotterBenchmark {
+
+    private static final int SOURCE_FILES = 2_000;
+    private static final int SOURCE_FILE_BYTES = 4 * 1024;
+    private static final int JAR_BYTES = 40 * 1024 * 1024;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 10;
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void forkTypicalSpringBootWorkspace() throws Exception {
+        Path root = System.getProperty("jonk.benchmark.dir") != null
+                ? Files.createTempDirectory(Path.of(System.getProperty("jonk.benchmark.dir")), "snapshot-bench")
+                : temp;
+        Path source = root.resolve("workspace");
+        generateWorkspace(source);
+
+        WorkspaceSnapshotter snapshotter = new WorkspaceSnapshotter();
+        List<Long> durations = new ArrayList<>();
+        WorkspaceSnapshotter.Snapshot last = null;
+        for (int run = 0; run < WARMUP + RUNS; run++) {
+            last = snapshotter.fork(source, root.resolve("forks/run-" + run));
+            if (run >= WARMUP) {
+                durations.add(last.getDurationMs());
+            }
+        }
+        durations.sort(Long::compare);
+
+        System.out.printf("Workspace: %d sources de %d Ko + jar de %d Mo (%s)%n",
+                SOURCE_FILES, SOURCE_FILE_BYTES / 1024, JAR_BYTES / (1024 * 1024), Files.getFileStore(source).type());
+        System.out.printf("Stratégie %s sur %d copies: médiane %d ms, min %d ms, max %d ms, %d octets copiés, %d partagés%n",
+                last.getStrategy(), RUNS, durations.get(RUNS / 2), durations.get(0), durations.get(RUNS - 1),
+                last.getBytesCopied(), last.getBytesShared());
+        System.out.println(snapshotter.stats());
+    }
+
+    /**
+     * Arbre déterministe (graine fixe) proche d'un projet Spring Boot packagé
+     */
+    private void generateWorkspace(Path source) throws Exception {
+        Random random = new Random(42);
+        byte[] content = new byte[SOURCE_FILE_BYTES];
+        for (int i = 0; i < SOURCE_FILES; i++) {
+            Path file = source.resolve(String.format("src/main/java/com/example/p%02d/Class%04d.java", i % 50, i));
+            Files.createDirectories(file.getParent());
+            random.nextBytes(content);
+            Files.write(file, content);
+        }
+        byte[] jar = new byte[JAR_BYTES];
+        random.nextBytes(jar);
+        Files.createDirectories(source.resolve("target"));
+        Files.write(source.resolve("target/app.jar"), jar);
+        Files.writeString(source.resolve("pom.xml"), "<project/>");
+    }
+}
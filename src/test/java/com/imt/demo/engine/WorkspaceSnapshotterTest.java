@@ -0,0 +1,86 @@
+package com.imt.demo.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkspaceSnapshotterTest {
+
+    @TempDir
+    Path temp;
+
+    private final WorkspaceSnapshotter snapshotter = new WorkspaceSnapshotter();
+
+    @Test
+    void forkCopiesTheWholeTree() throws Exception {
+        Path source = workspace();
+
+        WorkspaceSnapshotter.Snapshot snapshot = snapshotter.fork(source, temp.resolve("forks/a"));
+
+        assertThat(snapshot.getDirectory()).isEqualTo(temp.resolve("forks/a"));
+        assertThat(snapshot.getFiles()).isEqualTo(3);
+        assertThat(temp.resolve("forks/a/src/main/java/App.java")).hasContent("class App {}");
+        assertThat(temp.resolve("forks/a/pom.xml")).hasContent("<project/>");
+        assertThat(temp.resolve("forks/a/target/app.jar")).hasContent("jar");
+    }
+
+    @Test
+    void inPlaceWritesInAForkNeverReachTheSourceOrOtherForks() throws Exception {
+        Path source = workspace();
+        Path first = snapshotter.fork(source, temp.resolve("forks/a")).getDirectory();
+        Path second = snapshotter.fork(source, temp.resolve("forks/b")).getDirectory();
+
+        // Écriture en place (même inode), comme un filtrage de ressources ou un formateur
+        Files.writeString(first.resolve("src/main/java/App.java"), "class Changed {}",
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.writeString(first.resolve("pom.xml"), "<!-- -->", StandardOpenOption.APPEND);
+
+        assertThat(source.resolve("src/main/java/App.java")).hasContent("class App {}");
+        assertThat(second.resolve("src/main/java/App.java")).hasContent("class App {}");
+        assertThat(source.resolve("pom.xml")).hasContent("<project/>");
+    }
+
+    @Test
+    void forkReplacesAPreviousCopy() throws Exception {
+        Path source = workspace();
+        Path target = temp.resolve("forks/a");
+        Files.createDirectories(target);
+        Files.writeString(target.resolve("leftover.txt"), "old");
+
+        snapshotter.fork(source, target);
+
+        assertThat(target.resolve("leftover.txt")).doesNotExist();
+        assertThat(target.resolve("pom.xml")).exists();
+    }
+
+    @Test
+    void statsCountForksByStrategy() throws Exception {
+        Path source = workspace();
+        snapshotter.fork(source, temp.resolve("forks/a"));
+        snapshotter.fork(source, temp.resolve("forks/b"));
+
+        Map<String, Object> stats = snapshotter.stats();
+
+        assertThat(stats).containsEntry("forks", 2L);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> byStrategy = (Map<String, Object>) stats.get("forksByStrategy");
+        assertThat(byStrategy).containsOnlyKeys("REFLINK", "COPY");
+        assertThat((Long) byStrategy.get("REFLINK") + (Long) byStrategy.get("COPY")).isEqualTo(2L);
+    }
+
+    private Path workspace() throws Exception {
+        Path source = temp.resolve("workspace");
+        Files.createDirectories(source.resolve("src/main/java"));
+        Files.createDirectories(source.resolve("target"));
+        Files.writeString(source.resolve("src/main/java/App.java"), "class App {}");
+        Files.writeString(source.resolve("pom.xml"), "<project/>");
+        Files.writeString(source.resolve("target/app.jar"), "jar");
+        return source;
+    }
+}
@@ -0,0 +1,95 @@
+package com.imt.demo.gradle;
+
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradleDaemonPoolTest {
+
+    @TempDir
+    Path temp;
+
+    private GradleProperties properties;
+    private Path workspace;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new GradleProperties();
+        properties.setUserHome(temp.resolve("gradle-home").toString());
+        workspace = Files.createDirectories(temp.resolve("workspace"));
+    }
+
+    @Test
+    void configurationCacheIsOptIn() {
+        List<String> command = new GradleDaemonPool(properties).command(workspace, List.of("assemble"));
+
+        assertThat(command).doesNotContain("--configuration-cache").contains("--build-cache", "--daemon");
+    }
+
+    @Test
+    void defaultJvmArgsOnlyApplyToProjectsWithoutTheirOwn() throws Exception {
+        GradleDaemonPool pool = new GradleDaemonPool(properties);
+        assertThat(pool.command(workspace, List.of("assemble")))
+                .contains("-Dorg.gradle.jvmargs=" + properties.getDaemonJvmArgs());
+
+        Files.writeString(workspace.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx6g -Dfile.encoding=UTF-8\n");
+        assertThat(pool.projectJvmArgs(workspace)).contains("-Xmx6g -Dfile.encoding=UTF-8");
+        assertThat(pool.command(workspace, List.of("assemble"))).noneMatch(arg -> arg.startsWith("-Dorg.gradle.jvmargs"));
+    }
+
+    @Test
+    void sharedUserHomeNeverPinsJvmArgs() throws Exception {
+        new GradleDaemonPool(properties).command(workspace, List.of("assemble"));
+
+        String userHomeProperties = Files.readString(temp.resolve("gradle-home/gradle.properties"));
+        assertThat(userHomeProperties).contains("org.gradle.daemon=true").doesNotContain("org.gradle.jvmargs");
+    }
+
+    @Test
+    void retriesWithoutConfigurationCacheWhenTheProjectIsIncompatible() throws Exception {
+        properties.setConfigurationCache(true);
+        GradleDaemonPool pool = new GradleDaemonPool(properties);
+        List<List<String>> invocations = new ArrayList<>();
+
+        StepResult result = pool.run(workspace, List.of("assemble"), command -> {
+            invocations.add(command);
+            return command.contains("--configuration-cache")
+                    ? result(StepStatus.FAILED, "Configuration cache problems found in this build.")
+                    : result(StepStatus.SUCCESS, "> Task :jar", "BUILD SUCCESSFUL");
+        });
+
+        assertThat(invocations).hasSize(2);
+        assertThat(invocations.get(1)).doesNotContain("--configuration-cache");
+        assertThat(result.getStatus()).isEqualTo(StepStatus.SUCCESS);
+        assertThat(result.getMetrics()).containsEntry("gradleConfigurationCacheFallback", true);
+        assertThat(pool.stats()).containsEntry("configurationCacheFallbacks", 1L).containsEntry("busyDaemons", 0);
+    }
+
+    @Test
+    void ordinaryBuildFailuresAreNotRetried() throws Exception {
+        properties.setConfigurationCache(true);
+        GradleDaemonPool pool = new GradleDaemonPool(properties);
+        List<List<String>> invocations = new ArrayList<>();
+
+        StepResult result = pool.run(workspace, List.of("test"), command -> {
+            invocations.add(command);
+            return result(StepStatus.FAILED, "Configuration cache entry stored.", "> Task :test FAILED");
+        });
+
+        assertThat(invocations).hasSize(1);
+        assertThat(result.getStatus()).isEqualTo(StepStatus.FAILED);
+    }
+
+    private StepResult result(StepStatus status, String... logs) {
+        return StepResult.builder().status(status).logs(new ArrayList<>(List.of(logs))).build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.imt.demo.maven;
+
+import com.imt.demo.cache.BuildOutputCache;
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.testing.GitChangeDetector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AffectedModulePlannerTest {
+
+    private static final String BASE_COMMIT = "0123456789abcdef";
+
+    @TempDir
+    Path workspace;
+
+    private final List<String> changedFiles = new ArrayList<>();
+    private final Set<String> missingFromCache = new HashSet<>();
+    private final List<String> installed = new ArrayList<>();
+    private boolean overlayAvailable = true;
+
+    private final PipelineContext context = PipelineContext.builder()
+            .executionId("e1").gitUrl("https://example.com/shop.git").branch("main").build();
+    private AffectedModulePlanner planner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (Stream<Path> files = Files.walk(MavenReactorTest.FIXTURE)) {
+            for (Path source : files.toList()) {
+                Path target = workspace.resolve(MavenReactorTest.FIXTURE.relativize(source).toString());
+                if (Files.isDirectory(source)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(source, target);
+                }
+            }
+        }
+        // Archives des modules, comme après une restauration du cache de build
+        artifact("core/target/shop-core-1.4.0.jar");
+        artifact("tools/target/shop-tools-1.4.0.jar");
+        artifact("services/api/target/shop-api-1.4.0.jar");
+        artifact("services/impl/target/shop-impl-1.4.0.jar");
+        artifact("web/target/shop-web-1.4.0.war");
+
+        GitChangeDetector gitChangeDetector = mock(GitChangeDetector.class);
+        when(gitChangeDetector.lastSuccessfulCommit(anyString(), anyString())).thenReturn(Optional.of(BASE_COMMIT));
+        when(gitChangeDetector.changedFiles(workspace, BASE_COMMIT)).thenAnswer(invocation -> Optional.of(changedFiles));
+
+        BuildOutputCache buildOutputCache = mock(BuildOutputCache.class);
+        when(buildOutputCache.isEnabled()).thenReturn(true);
+        when(buildOutputCache.computeKey(any(), anyCollection(), anyCollection()))
+                .thenAnswer(invocation -> "key:" + workspace.relativize(invocation.<Path>getArgument(0)));
+        when(buildOutputCache.restore(anyString(), any()))
+                .thenAnswer(invocation -> !missingFromCache.contains(invocation.<String>getArgument(0)));
+
+        MavenRepositoryCache mavenRepositoryCache = mock(MavenRepositoryCache.class);
+        when(mavenRepositoryCache.installArtifact(anyString(), anyString(), anyString(), anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    installed.add(invocation.getArgument(2));
+                    return overlayAvailable;
+                });
+
+        planner = new AffectedModulePlanner(gitChangeDetector, buildOutputCache, mavenRepositoryCache);
+    }
+
+    @Test
+    void rootPomOrMavenConfigurationChangeBuildsEverything() {
+        changedFiles.addAll(List.of("core/src/main/java/Money.java", "pom.xml"));
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.isFullBuild()).isTrue();
+        assertThat(plan.getReason()).contains("pom.xml");
+        assertThat(plan.getMavenArguments()).isEmpty();
+        assertThat(plan.getModuleKeys()).containsKeys("", "core", "web");
+
+        changedFiles.clear();
+        changedFiles.add(".mvn/maven.config");
+        assertThat(planner.plan(context, workspace).orElseThrow().isFullBuild()).isTrue();
+    }
+
+    @Test
+    void aggregatorFilesOtherThanThePomAreIgnored() {
+        changedFiles.addAll(List.of("README.md", "services/README.md"));
+
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.isFullBuild()).isFalse();
+        assertThat(plan.isNothingToBuild()).isTrue();
+        assertThat(plan.getMavenArguments()).isEmpty();
+        assertThat(plan.getSkippedModules()).hasSize(7);
+        assertThat(installed).isEmpty();
+    }
+
+    @Test
+    void changedModuleIsBuiltWithItsDependentsAndTheOthersAreInstalled() {
+        changedFiles.add("core/src/main/java/Money.java");
+
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.isFullBuild()).isFalse();
+        assertThat(plan.getMavenArguments()).containsExactly(
+                "-pl", "com.acme:shop-core,com.acme:shop-api,com.acme:shop-impl,com.acme:shop-web", "-amd");
+        assertThat(plan.getBuiltModules()).containsExactly("shop-core", "shop-api", "shop-impl", "shop-web");
+        assertThat(plan.getSkippedModules()).containsExactly("shop-parent", "shop-services", "shop-tools");
+        assertThat(plan.getModuleKeys()).containsOnlyKeys("core", "services/api", "services/impl", "web");
+        assertThat(installed).containsExactly("shop-parent", "shop-services", "shop-tools");
+    }
+
+    @Test
+    void aggregatorPomChangeRebuildsItsChildren() {
+        changedFiles.add("services/pom.xml");
+
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.getBuiltModules()).containsExactly("shop-services", "shop-api", "shop-impl", "shop-web");
+    }
+
+    @Test
+    void withoutPipelineOverlayUpstreamModulesAreRebuiltWithAlsoMake() {
+        overlayAvailable = false;
+        changedFiles.add("services/impl/src/main/java/Orders.java");
+
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.getMavenArguments()).containsExactly("-pl", "com.acme:shop-impl,com.acme:shop-web", "-amd", "-am");
+        assertThat(plan.getBuiltModules())
+                .containsExactly("shop-parent", "shop-core", "shop-services", "shop-api", "shop-impl", "shop-web");
+        assertThat(plan.getSkippedModules()).containsExactly("shop-tools");
+    }
+
+    @Test
+    void moduleMissingFromTheCacheIsRebuiltWithItsDependents() throws Exception {
+        changedFiles.add("tools/src/main/java/Cli.java");
+        missingFromCache.add("key:services/api");
+
+        AffectedModulePlanner.ModulePlan plan = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(plan.getBuiltModules()).containsExactly("shop-api", "shop-impl", "shop-web", "shop-tools");
+        assertThat(plan.getSkippedModules()).containsExactly("shop-parent", "shop-core", "shop-services");
+
+        // Entrée restaurée mais sans archive: core et tous ses dépendants, soit tous les modules
+        missingFromCache.clear();
+        Files.delete(workspace.resolve("core/target/shop-core-1.4.0.jar"));
+        AffectedModulePlanner.ModulePlan full = planner.plan(context, workspace).orElseThrow();
+
+        assertThat(full.isFullBuild()).isTrue();
+        assertThat(full.getReason()).isEqualTo("tous les modules sont affectés");
+    }
+
+    private void artifact(String path) throws Exception {
+        Path file = workspace.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{0x50, 0x4b});
+    }
+}
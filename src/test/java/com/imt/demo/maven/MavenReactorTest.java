@@ -0,0 +1,82 @@
+package com.imt.demo.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenReactorTest {
+
+    static final Path FIXTURE = fixture();
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void parseResolvesCoordinatesAndDependenciesBetweenModules() {
+        MavenReactor reactor = MavenReactor.parse(FIXTURE).orElseThrow();
+
+        assertThat(reactor.isMultiModule()).isTrue();
+        assertThat(reactor.getModules()).containsOnlyKeys("", "core", "services", "services/api", "services/impl", "web", "tools");
+
+        MavenReactor.Module api = reactor.getModules().get("services/api");
+        assertThat(api.getSelector()).isEqualTo("com.acme:shop-api");
+        // ${revision} -> ${major}.4.0, hérité du parent déclarant
+        assertThat(api.getVersion()).isEqualTo("1.4.0");
+        assertThat(api.getUpstream()).containsExactly("services", "core");
+        assertThat(reactor.getModules().get("web").getPackaging()).isEqualTo("war");
+        assertThat(reactor.getModules().get("services").isAggregator()).isTrue();
+        assertThat(reactor.getModules().get("services").getChildren()).containsExactly("services/api", "services/impl");
+
+        assertThat(reactor.buildOrder()).extracting(MavenReactor.Module::getArtifactId)
+                .containsExactly("shop-parent", "shop-core", "shop-services", "shop-api", "shop-impl", "shop-web", "shop-tools");
+    }
+
+    @Test
+    void filesBelongToTheirDeepestModule() {
+        MavenReactor reactor = MavenReactor.parse(FIXTURE).orElseThrow();
+
+        assertThat(reactor.moduleOf("services/api/src/main/java/Api.java").getPath()).isEqualTo("services/api");
+        assertThat(reactor.moduleOf("services/README.md").getPath()).isEqualTo("services");
+        assertThat(reactor.moduleOf("README.md").getPath()).isEmpty();
+        // Préfixe de nom sans séparateur: pas le module core
+        assertThat(reactor.moduleOf("core-docs/index.md").getPath()).isEmpty();
+    }
+
+    @Test
+    void dependentsAndUpstreamFollowTheReactorGraph() {
+        MavenReactor reactor = MavenReactor.parse(FIXTURE).orElseThrow();
+
+        assertThat(reactor.withDependents(List.of("core"))).containsExactlyInAnyOrder("core", "services/api", "services/impl", "web");
+        assertThat(reactor.withDependents(List.of("tools"))).containsExactly("tools");
+        assertThat(reactor.withUpstream(Set.of("services/impl")))
+                .containsExactlyInAnyOrder("services/impl", "services", "services/api", "", "core");
+    }
+
+    @Test
+    void unresolvedCoordinatesOrMissingPomAreNotParsed() throws Exception {
+        assertThat(MavenReactor.parse(temp)).isEmpty();
+
+        Files.writeString(temp.resolve("pom.xml"), """
+                <project>
+                    <groupId>com.acme</groupId>
+                    <artifactId>app</artifactId>
+                    <version>${undefined}</version>
+                </project>
+                """);
+        assertThat(MavenReactor.parse(temp)).isEmpty();
+    }
+
+    private static Path fixture() {
+        try {
+            return Path.of(MavenReactorTest.class.getResource("/maven/reactor").toURI());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
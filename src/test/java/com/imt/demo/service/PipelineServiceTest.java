@@ -0,0 +1,141 @@
+package com.imt.demo.service;
+
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.deploy.DeploymentHistory;
+import com.imt.demo.engine.PipelineEngine;
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.DeploymentStatus;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.PipelineExecution;
+import com.imt.demo.model.PipelineStatus;
+import com.imt.demo.repository.PipelineExecutionRepository;
+import com.imt.demo.steps.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PipelineServiceTest {
+
+    private DeploymentHistory deploymentHistory;
+    private DockerDeployStep dockerDeployStep;
+    private PipelineExecutionRepository executionRepository;
+    private PipelineService service;
+
+    @BeforeEach
+    void setUp() {
+        deploymentHistory = mock(DeploymentHistory.class);
+        dockerDeployStep = mock(DockerDeployStep.class);
+        executionRepository = mock(PipelineExecutionRepository.class);
+        service = new PipelineService(mock(PipelineEngine.class), executionRepository, deploymentHistory,
+                mock(GitCloneStep.class), mock(MavenBuildStep.class), mock(MavenTestStep.class),
+                mock(GradleBuildStep.class), mock(GradleTestStep.class), mock(SonarQubeStep.class),
+                mock(DockerBuildStep.class), mock(DockerScanStep.class), dockerDeployStep,
+                mock(HealthCheckStep.class), mock(MultiHostDeployStep.class), mock(PerformanceSmokeTestStep.class),
+                new DeployProperties());
+    }
+
+    @Test
+    void rollbackRebuildsImageOnARegistryWithAPort() throws Exception {
+        PipelineContext context = rollback(DeploymentRecord.builder()
+                .pipelineId("p1")
+                .executionId("e1")
+                .host("localhost")
+                .port("8080")
+                .image("registry:5000/acme/app:2")
+                .previousImage("registry:5000/acme/app:1")
+                .build());
+
+        assertThat(context.getExecutionId()).isEqualTo("e1");
+        assertThat(context.getPipelineId()).isEqualTo("p1");
+        assertThat(context.getDockerImageName()).isEqualTo("registry:5000/acme/app");
+        assertThat(context.getDockerImageTag()).isEqualTo("2");
+        assertThat(context.getPreviousDockerImageTag()).isEqualTo("1");
+        assertThat(context.getDeploymentHost()).isNull();
+    }
+
+    @Test
+    void rollbackOfAnUntaggedImageUsesLatest() throws Exception {
+        PipelineContext context = rollback(DeploymentRecord.builder()
+                .pipelineId("e1")
+                .host("10.0.0.5")
+                .port("8080")
+                .image("registry:5000/app")
+                .previousImage("registry:5000/app")
+                .build());
+
+        assertThat(context.getExecutionId()).isEqualTo("e1");
+        assertThat(context.getDockerImageName()).isEqualTo("registry:5000/app");
+        assertThat(context.getDockerImageTag()).isEqualTo("latest");
+        assertThat(context.getPreviousDockerImageTag()).isEqualTo("latest");
+        assertThat(context.getDeploymentHost()).isEqualTo("10.0.0.5");
+    }
+
+    @Test
+    void executionIsRolledBackOnlyWhenAHostRestoredItsPreviousVersion() throws Exception {
+        DeploymentRecord restored = active("d1", "10.0.0.5");
+        DeploymentRecord failed = active("d2", "10.0.0.6");
+        when(deploymentHistory.forExecution("e1")).thenReturn(List.of(restored, failed));
+        doAnswer(invocation -> {
+            if ("10.0.0.5".equals(invocation.<PipelineContext>getArgument(0).getDeploymentHost())) {
+                restored.setStatus(DeploymentStatus.ROLLED_BACK);
+            }
+            return null;
+        }).when(dockerDeployStep).rollback(any());
+        PipelineExecution execution = PipelineExecution.builder().id("e1").status(PipelineStatus.SUCCESS).build();
+        when(executionRepository.findById("e1")).thenReturn(Optional.of(execution));
+
+        List<DeploymentRecord> deployments = service.rollbackDeployment("e1");
+
+        assertThat(deployments).extracting(DeploymentRecord::getStatus)
+                .containsExactly(DeploymentStatus.ROLLED_BACK, DeploymentStatus.ACTIVE);
+        assertThat(execution.getStatus()).isEqualTo(PipelineStatus.ROLLED_BACK);
+        verify(executionRepository).save(execution);
+    }
+
+    @Test
+    void failedRollbackLeavesTheExecutionStatusUnchanged() throws Exception {
+        DeploymentRecord record = active("d1", "10.0.0.5");
+        when(deploymentHistory.forExecution("e1")).thenReturn(List.of(record));
+        // Ni container conservé ni image précédente redémarrée: l'étape (mock) ne marque pas le déploiement
+
+        List<DeploymentRecord> deployments = service.rollbackDeployment("e1");
+
+        assertThat(deployments).extracting(DeploymentRecord::getStatus).containsExactly(DeploymentStatus.ACTIVE);
+        verify(executionRepository, never()).save(any());
+    }
+
+    private static DeploymentRecord active(String id, String host) {
+        return DeploymentRecord.builder()
+                .id(id)
+                .pipelineId("p1")
+                .executionId("e1")
+                .host(host)
+                .port("8080")
+                .image("acme/app:2")
+                .previousImage("acme/app:1")
+                .status(DeploymentStatus.ACTIVE)
+                .build();
+    }
+
+    private PipelineContext rollback(DeploymentRecord record) throws Exception {
+        record.setStatus(DeploymentStatus.ACTIVE);
+        when(deploymentHistory.forExecution("e1")).thenReturn(List.of(record));
+
+        service.rollbackDeployment("e1");
+
+        ArgumentCaptor<PipelineContext> context = ArgumentCaptor.forClass(PipelineContext.class);
+        verify(dockerDeployStep).rollback(context.capture());
+        return context.getValue();
+    }
+}
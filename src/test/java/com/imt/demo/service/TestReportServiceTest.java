@@ -0,0 +1,76 @@
+package com.imt.demo.service;
+
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.repository.TestCaseResultRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestReportServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private TestReportService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new TestReportService(mock(TestCaseResultRepository.class), mongoTemplate);
+    }
+
+    @Test
+    void slowestTestsAreGroupedSortedAndLimitedByMongo() {
+        results(new Document("_id", new Document("testClass", "com.acme.FooTest").append("testName", "slow"))
+                .append("runs", 3).append("averageMs", 1234.6).append("maxMs", 2000L).append("lastMs", 900L));
+
+        List<Map<String, Object>> slowest = service.slowestTests("https://example.com/acme/app.git", "main", 30, 5);
+
+        List<Document> pipeline = pipeline();
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$sort", "$group", "$sort", "$limit");
+        assertThat(pipeline.get(4).getLong("$limit")).isEqualTo(5L);
+        assertThat(slowest).singleElement().satisfies(test -> {
+            assertThat(test).containsEntry("testClass", "com.acme.FooTest").containsEntry("testName", "slow");
+            assertThat(test).containsEntry("runs", 3).containsEntry("averageMs", 1235L).containsEntry("maxMs", 2000L);
+        });
+    }
+
+    @Test
+    void trendingMediansAreComputedByMongo() {
+        results(new Document("_id", new Document("testClass", "com.acme.FooTest").append("testName", "slower"))
+                .append("runs", 6).append("previousMedianMs", 100L).append("recentMedianMs", 300L));
+
+        List<Map<String, Object>> trending = service.trendingSlower("https://example.com/acme/app.git", "main", 30, 10);
+
+        List<Document> pipeline = pipeline();
+        assertThat(pipeline.get(pipeline.size() - 1).getLong("$limit")).isEqualTo(10L);
+        assertThat(pipeline.toString()).contains("$sortArray", "$arrayElemAt", "$expr");
+        assertThat(trending).singleElement().satisfies(test -> {
+            assertThat(test).containsEntry("increaseMs", 200L).containsEntry("ratio", 3.0);
+        });
+    }
+
+    private void results(Document... rows) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(TestCaseResult.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(rows), new Document()));
+    }
+
+    private List<Document> pipeline() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(TestCaseResult.class), eq(Document.class));
+        return aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+    }
+}
@@ -0,0 +1,95 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.deploy.BlueGreenProxy;
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.deploy.DeploymentHistory;
+import com.imt.demo.deploy.DowntimeProbe;
+import com.imt.demo.deploy.ImageTransfer;
+import com.imt.demo.deploy.RegistryRelay;
+import com.imt.demo.deploy.SshConnectionPool;
+import com.imt.demo.docker.DockerEngineClient;
+import com.imt.demo.docker.DockerStateIndex;
+import com.imt.demo.model.DeploymentRecord;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DockerDeployStepTest {
+
+    private final List<String> remoteCommands = new ArrayList<>();
+    private StepStatus redeployStatus;
+
+    private DeploymentHistory deploymentHistory;
+    private DeploymentRecord record;
+    private DockerDeployStep step;
+
+    @BeforeEach
+    void setUp() {
+        SshConnectionPool sshConnectionPool = mock(SshConnectionPool.class);
+        when(sshConnectionPool.ssh(any(), anyString())).thenAnswer(invocation -> List.of("ssh", "10.0.0.5", invocation.getArgument(1)));
+        deploymentHistory = mock(DeploymentHistory.class);
+        record = DeploymentRecord.builder().id("d1").pipelineId("p1").host("10.0.0.5").port("8080").build();
+        when(deploymentHistory.find("p1", "10.0.0.5", "8080")).thenReturn(Optional.of(record));
+
+        step = new DockerDeployStep(mock(DockerEngineClient.class), mock(DockerStateIndex.class), new DeployProperties(),
+                mock(ImageTransfer.class), mock(RegistryRelay.class), sshConnectionPool, mock(BlueGreenProxy.class),
+                mock(DowntimeProbe.class), mock(HealthCheckStep.class), deploymentHistory) {
+            @Override
+            protected StepResult executeCommand(String[] command, String workingDirectory) {
+                String remote = command[command.length - 1];
+                remoteCommands.add(remote);
+                // Aucun container conservé sur l'hôte: seul le redéploiement de l'image précédente peut aboutir
+                StepStatus status = remote.contains("docker run") ? redeployStatus : StepStatus.FAILED;
+                return StepResult.builder().stepName("ssh").status(status).errorMessage(status == StepStatus.FAILED ? "exit 125" : null).build();
+            }
+        };
+    }
+
+    @Test
+    void remoteRollbackMarksTheDeploymentOnlyWhenThePreviousImageStarted() throws Exception {
+        redeployStatus = StepStatus.SUCCESS;
+
+        step.rollback(context());
+
+        assertThat(remoteCommands).hasSize(2);
+        assertThat(remoteCommands.get(1)).contains("docker run -d --name jonk-app-p1 -p 8080:8080 acme/app:1");
+        verify(deploymentHistory).markRolledBack(record);
+    }
+
+    @Test
+    void failedRedeployOfThePreviousImageIsNotRecordedAsRolledBack() throws Exception {
+        redeployStatus = StepStatus.FAILED;
+
+        step.rollback(context());
+
+        assertThat(remoteCommands).hasSize(2);
+        verify(deploymentHistory, never()).markRolledBack(any());
+    }
+
+    private static PipelineContext context() {
+        return PipelineContext.builder()
+                .pipelineId("p1")
+                .dockerImageName("acme/app")
+                .dockerImageTag("2")
+                .previousDockerImageTag("1")
+                .deploymentHost("10.0.0.5")
+                .deploymentPort("8080")
+                .sshUser("deploy")
+                .containerName("jonk-app-p1")
+                .build();
+    }
+}
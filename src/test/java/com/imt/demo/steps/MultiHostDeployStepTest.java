@@ -0,0 +1,178 @@
+package com.imt.demo.steps;
+
+import com.imt.demo.deploy.DeployProperties;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MultiHostDeployStepTest {
+
+    private static final List<String> HOSTS = List.of("h1", "h2", "h3", "h4", "h5");
+
+    private final Set<String> deployed = ConcurrentHashMap.newKeySet();
+    private final Set<String> unhealthy = ConcurrentHashMap.newKeySet();
+    private final Set<String> slow = ConcurrentHashMap.newKeySet();
+    private final Set<String> smokeTested = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> rolledBack = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private DeployProperties properties;
+    private MultiHostDeployStep step;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DockerDeployStep dockerDeployStep = mock(DockerDeployStep.class);
+        HealthCheckStep healthCheckStep = mock(HealthCheckStep.class);
+        PerformanceSmokeTestStep performanceSmokeTestStep = mock(PerformanceSmokeTestStep.class);
+
+        when(dockerDeployStep.execute(any())).thenAnswer(invocation -> {
+            PipelineContext hostContext = invocation.getArgument(0);
+            int concurrent = running.incrementAndGet();
+            maxRunning.accumulateAndGet(concurrent, Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                running.decrementAndGet();
+            }
+            deployed.add(hostContext.getDeploymentHost());
+            hostContext.setPreviousDockerImageTag("before-" + hostContext.getDeploymentHost());
+            return result(StepStatus.SUCCESS, null);
+        });
+        when(healthCheckStep.execute(any())).thenAnswer(invocation -> {
+            String host = ((PipelineContext) invocation.getArgument(0)).getDeploymentHost();
+            return unhealthy.contains(host)
+                    ? result(StepStatus.FAILED, "HTTP 503")
+                    : result(StepStatus.SUCCESS, null);
+        });
+        when(performanceSmokeTestStep.execute(any())).thenAnswer(invocation -> {
+            String host = ((PipelineContext) invocation.getArgument(0)).getDeploymentHost();
+            smokeTested.add(host);
+            return slow.contains(host)
+                    ? result(StepStatus.FAILED, "Régression de performance: p95")
+                    : result(StepStatus.SUCCESS, null);
+        });
+        doAnswer(invocation -> {
+            PipelineContext hostContext = invocation.getArgument(0);
+            rolledBack.put(hostContext.getDeploymentHost(), hostContext.getPreviousDockerImageTag());
+            return null;
+        }).when(dockerDeployStep).rollback(any());
+
+        properties = new DeployProperties();
+        step = new MultiHostDeployStep(dockerDeployStep, healthCheckStep, performanceSmokeTestStep, properties);
+    }
+
+    @Test
+    void rollingDeploymentRunsWavesOfParallelHosts() throws Exception {
+        PipelineContext context = context(HOSTS, 2, null);
+
+        StepResult result = step.execute(context);
+
+        assertThat(result.getStatus()).isEqualTo(StepStatus.SUCCESS);
+        assertThat(deployed).containsExactlyInAnyOrderElementsOf(HOSTS);
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(result.getMetrics())
+                .containsEntry("waves", 3)
+                .containsEntry("parallelism", 2)
+                .containsEntry("strategy", "rolling")
+                .containsEntry("hostsDeployed", 5);
+        assertThat((List<?>) result.getMetrics().get("waveDurationsMs")).hasSize(3);
+        assertThat(context.getContainerName()).isEqualTo("jonk-app-p1");
+        assertThat(rolledBack).isEmpty();
+        assertThat(smokeTested).isEmpty();
+    }
+
+    @Test
+    void batchStrategyDeploysEveryHostInOneWave() throws Exception {
+        properties.setHostParallelism(5);
+
+        StepResult result = step.execute(context(HOSTS, null, "batch"));
+
+        assertThat(result.getStatus()).isEqualTo(StepStatus.SUCCESS);
+        assertThat(result.getMetrics()).containsEntry("waves", 1).containsEntry("parallelism", 5);
+        assertThat(maxRunning.get()).isEqualTo(5);
+    }
+
+    @Test
+    void unhealthyHostStopsTheRolloutAndRollsBackOnlyTouchedHosts() throws Exception {
+        unhealthy.add("h3");
+
+        StepResult result = step.execute(context(HOSTS, 2, null));
+
+        assertThat(result.getStatus()).isEqualTo(StepStatus.FAILED);
+        assertThat(result.getErrorMessage()).contains("h3").contains("HTTP 503");
+        assertThat(deployed).containsExactlyInAnyOrder("h1", "h2", "h3", "h4");
+        assertThat(rolledBack).containsOnlyKeys("h1", "h2", "h3", "h4")
+                .containsEntry("h1", "before-h1")
+                .containsEntry("h3", "before-h3");
+        assertThat(result.getMetrics()).containsEntry("waves", 3).containsEntry("hostsRolledBack", 4);
+        assertThat((List<?>) result.getMetrics().get("waveDurationsMs")).hasSize(2);
+    }
+
+    @Test
+    void smokeTestRunsOnEveryHealthyHostWhenRequested() throws Exception {
+        PipelineContext context = context(HOSTS, 2, null);
+        context.setPerformanceTest(true);
+
+        StepResult result = step.execute(context);
+
+        assertThat(result.getStatus()).isEqualTo(StepStatus.SUCCESS);
+        assertThat(smokeTested).containsExactlyInAnyOrderElementsOf(HOSTS);
+        assertThat(result.getMetrics()).containsEntry("smokeTest", true);
+    }
+
+    @Test
+    void performanceRegressionStopsTheRolloutLikeAFailedHealthCheck() throws Exception {
+        properties.setSmokeTest(true);
+        slow.add("h2");
+        unhealthy.add("h1");
+
+        StepResult result = step.execute(context(HOSTS, 2, null));
+
+        assertThat(result.getStatus()).isEqualTo(StepStatus.FAILED);
+        assertThat(smokeTested).containsExactly("h2");
+        assertThat(deployed).containsExactlyInAnyOrder("h1", "h2");
+        assertThat(rolledBack).containsOnlyKeys("h1", "h2");
+    }
+
+    @Test
+    void rollbackFallsBackToThePipelinePreviousTag() throws Exception {
+        PipelineContext context = context(List.of("h1", "h2"), 2, null);
+        context.setDeployedHosts(List.of("h1", "h2"));
+        context.setPreviousHostImageTags(Map.of("h1", "before-h1"));
+
+        step.rollback(context);
+
+        assertThat(rolledBack).containsEntry("h1", "before-h1").containsEntry("h2", "0.9");
+    }
+
+    private static PipelineContext context(List<String> hosts, Integer parallelism, String strategy) {
+        return PipelineContext.builder()
+                .pipelineId("p1")
+                .dockerImageName("acme/app")
+                .dockerImageTag("1.0")
+                .previousDockerImageTag("0.9")
+                .deploymentHosts(hosts)
+                .deploymentParallelism(parallelism)
+                .deploymentStrategy(strategy)
+                .build();
+    }
+
+    private static StepResult result(StepStatus status, String error) {
+        return StepResult.builder().stepName("stub").status(status).errorMessage(error).build();
+    }
+}
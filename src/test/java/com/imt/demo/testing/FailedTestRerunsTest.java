@@ -0,0 +1,97 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.TestOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FailedTestRerunsTest {
+
+    private static final String ORDERS = "com.acme.OrderServiceTest";
+    private static final String CARTS = "com.acme.CartTest";
+
+    @Test
+    void flakyMethodThatPassesOnRerunIsRecovered() {
+        List<SurefireReportParser.SuiteReport> reports = List.of(
+                suite(ORDERS, passed(ORDERS, "createsOrder"), failed(ORDERS, "cancelsOrder", "timeout")),
+                suite(CARTS, passed(CARTS, "addsItem")));
+
+        assertThat(FailedTestReruns.filter(FailedTestReruns.failedMethods(reports))).isEqualTo(ORDERS + "#cancelsOrder");
+
+        List<SurefireReportParser.SuiteReport> merged = FailedTestReruns.applyRerun(reports,
+                List.of(suite(ORDERS, passed(ORDERS, "cancelsOrder"))));
+
+        assertThat(FailedTestReruns.failedMethods(merged)).isEmpty();
+        assertThat(FailedTestReruns.flakyTests(merged)).containsExactly(ORDERS + "#cancelsOrder");
+        SurefireReportParser.SuiteReport orders = merged.get(0);
+        assertThat(orders.getFailures()).isZero();
+        assertThat(orders.getDurationMs()).isEqualTo(reports.get(0).getDurationMs());
+        SurefireReportParser.CaseReport recovered = orders.getCases().get(1);
+        assertThat(recovered.getOutcome()).isEqualTo(TestOutcome.PASSED);
+        assertThat(recovered.getAttempts()).isEqualTo(2);
+        assertThat(recovered.getMessage()).isEqualTo("timeout");
+    }
+
+    @Test
+    void consistentFailureStaysFailedAcrossReruns() {
+        List<SurefireReportParser.SuiteReport> reports = List.of(
+                suite(ORDERS, failed(ORDERS, "cancelsOrder", "expected 1")));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            reports = FailedTestReruns.applyRerun(reports, List.of(suite(ORDERS, failed(ORDERS, "cancelsOrder", "expected 2"))));
+        }
+
+        assertThat(FailedTestReruns.failedMethods(reports)).isEqualTo(Map.of(ORDERS, Set.of("cancelsOrder")));
+        assertThat(FailedTestReruns.flakyTests(reports)).isEmpty();
+        SurefireReportParser.CaseReport testCase = reports.get(0).getCases().get(0);
+        assertThat(testCase.getAttempts()).isEqualTo(3);
+        assertThat(testCase.getMessage()).isEqualTo("expected 2");
+        assertThat(reports.get(0).getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void classLevelFailureRerunsTheWholeClassAndTakesItsOutcome() {
+        List<SurefireReportParser.SuiteReport> reports = List.of(
+                suite(ORDERS, failed(ORDERS, "", "@BeforeAll: base indisponible")),
+                suite(CARTS, failed(CARTS, "total(int)[1]", "a"), failed(CARTS, "total(int)[2]", "b")));
+
+        assertThat(FailedTestReruns.filter(FailedTestReruns.failedMethods(reports))).isEqualTo(ORDERS + "," + CARTS + "#total");
+
+        List<SurefireReportParser.SuiteReport> merged = FailedTestReruns.applyRerun(reports, List.of(
+                suite(ORDERS, passed(ORDERS, "createsOrder"), passed(ORDERS, "cancelsOrder")),
+                suite(CARTS, passed(CARTS, "total(int)[1]"), failed(CARTS, "total(int)[2]", "b"))));
+
+        assertThat(FailedTestReruns.failedMethods(merged)).isEqualTo(Map.of(CARTS, Set.of("total(int)[2]")));
+        assertThat(FailedTestReruns.flakyTests(merged)).containsExactly(ORDERS, CARTS + "#total(int)[1]");
+
+        List<SurefireReportParser.SuiteReport> stillBroken = FailedTestReruns.applyRerun(reports, List.of(
+                suite(ORDERS, failed(ORDERS, "", "@BeforeAll: base indisponible"))));
+        assertThat(FailedTestReruns.failedMethods(stillBroken)).containsKey(ORDERS);
+    }
+
+    @Test
+    void rerunsAreDisabledUnderFailFastOrWithoutRetries() {
+        assertThat(FailedTestReruns.isEnabled(2, false)).isTrue();
+        assertThat(FailedTestReruns.isEnabled(2, true)).isFalse();
+        assertThat(FailedTestReruns.isEnabled(0, false)).isFalse();
+    }
+
+    private static SurefireReportParser.SuiteReport suite(String testClass, SurefireReportParser.CaseReport... cases) {
+        List<SurefireReportParser.CaseReport> list = Arrays.asList(cases);
+        int failures = (int) list.stream().filter(SurefireReportParser.CaseReport::isFailed).count();
+        return new SurefireReportParser.SuiteReport(testClass, 120, list.size(), failures, 0, 0, list);
+    }
+
+    private static SurefireReportParser.CaseReport passed(String testClass, String name) {
+        return new SurefireReportParser.CaseReport(testClass, name, 10, TestOutcome.PASSED, null, 1, false);
+    }
+
+    private static SurefireReportParser.CaseReport failed(String testClass, String name, String message) {
+        return new SurefireReportParser.CaseReport(testClass, name, 10, TestOutcome.FAILED, message, 1, false);
+    }
+}
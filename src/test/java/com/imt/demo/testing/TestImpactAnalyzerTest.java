@@ -0,0 +1,138 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.JonkBackApplication;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.StepResult;
+import com.imt.demo.model.StepStatus;
+import com.imt.demo.model.TestImpactMap;
+import com.imt.demo.repository.TestImpactMapRepository;
+import com.imt.demo.steps.HealthCheckStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestImpactAnalyzerTest {
+
+    private static final String CHANGED_SOURCE = "src/main/java/com/imt/demo/testing/ClassFileScanner.java";
+
+    @TempDir
+    Path workspace;
+
+    private GitChangeDetector gitChangeDetector;
+    private TestImpactMapRepository repository;
+    private TestImpactAnalyzer analyzer;
+    private PipelineContext context;
+
+    @BeforeEach
+    void setUp() {
+        gitChangeDetector = mock(GitChangeDetector.class);
+        repository = mock(TestImpactMapRepository.class);
+        analyzer = new TestImpactAnalyzer(new TestingProperties(), gitChangeDetector, repository);
+        context = PipelineContext.builder()
+                .gitUrl("https://example.com/acme/app.git")
+                .branch("main")
+                .workspaceDirectory(workspace.toString())
+                .build();
+
+        TestImpactMap map = TestImpactMap.builder()
+                .id("map")
+                .tests(List.of(TestImpactMap.TestDependencies.builder()
+                        .testClass("com.imt.demo.testing.ClassFileScannerTest")
+                        .dependencies(List.of("com.imt.demo.testing.ClassFileScanner"))
+                        .build()))
+                .runsSinceFullRun(2)
+                .lastFullRun(LocalDateTime.now())
+                .build();
+        when(repository.findById(anyString())).thenReturn(Optional.of(map));
+        when(gitChangeDetector.lastSuccessfulCommit(anyString(), anyString())).thenReturn(Optional.of("0123456789abcdef"));
+    }
+
+    @Test
+    void plainClassOutsideComponentScanSelectsDependentTests() throws Exception {
+        compiled("classes", ClassFileScanner.class);
+        changed(CHANGED_SOURCE);
+
+        TestImpactAnalyzer.TestSelection selection = analyzer.plan(context);
+
+        assertThat(selection.isFullRun()).isFalse();
+        assertThat(selection.getTests()).containsExactly("com.imt.demo.testing.ClassFileScannerTest");
+    }
+
+    @Test
+    void classUnderComponentScanForcesFullRun() throws Exception {
+        compiled("classes", ClassFileScanner.class, JonkBackApplication.class);
+        changed(CHANGED_SOURCE);
+
+        TestImpactAnalyzer.TestSelection selection = analyzer.plan(context);
+
+        assertThat(selection.isFullRun()).isTrue();
+        assertThat(selection.getReason()).contains("scan de composants").contains("ClassFileScanner");
+    }
+
+    @Test
+    void springBeanForcesFullRunEvenWithoutScanRoot() throws Exception {
+        compiled("classes", HealthCheckStep.class);
+        changed("src/main/java/com/imt/demo/steps/HealthCheckStep.java");
+
+        TestImpactAnalyzer.TestSelection selection = analyzer.plan(context);
+
+        assertThat(selection.isFullRun()).isTrue();
+        assertThat(selection.getReason()).contains("composant Spring modifié");
+    }
+
+    @Test
+    void emptySelectiveRunAdvancesFullRunCounter() throws Exception {
+        compiled("test-classes", TestImpactAnalyzerTest.class);
+        TestImpactAnalyzer.TestSelection selection = new TestImpactAnalyzer.TestSelection(false, "aucun changement", List.of(), 1, 0);
+        StepResult result = StepResult.builder().status(StepStatus.SUCCESS).build();
+
+        analyzer.record(context, selection, result);
+
+        ArgumentCaptor<TestImpactMap> saved = ArgumentCaptor.forClass(TestImpactMap.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getRunsSinceFullRun()).isEqualTo(3);
+        assertThat(analyzer.stats()).containsEntry("selectiveRuns", 1L);
+    }
+
+    @Test
+    void scannerReadsSpringAnnotations() throws Exception {
+        try (InputStream in = JonkBackApplication.class.getResourceAsStream("JonkBackApplication.class")) {
+            assertThat(ClassFileScanner.scan(in).isComponentScanRoot()).isTrue();
+        }
+        try (InputStream in = TestClassLocator.class.getResourceAsStream("TestClassLocator.class")) {
+            assertThat(ClassFileScanner.scan(in).isSpringManaged()).isFalse();
+        }
+    }
+
+    private void changed(String... files) {
+        when(gitChangeDetector.changedFiles(any(), anyString())).thenReturn(Optional.of(List.of(files)));
+    }
+
+    /**
+     * Copie le bytecode de classes du projet dans target/{classes,test-classes} du workspace
+     */
+    private void compiled(String output, Class<?>... types) throws Exception {
+        for (Class<?> type : types) {
+            Path file = workspace.resolve("target").resolve(output).resolve(type.getName().replace('.', '/') + ".class");
+            Files.createDirectories(file.getParent());
+            try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+                Files.copy(in, file);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.TestCaseResult;
+import com.imt.demo.repository.TestCaseResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestPrioritizerTest {
+
+    private static final List<String> ALL_TESTS = List.of(
+            "com.acme.AccountTest", "com.acme.BillingTest", "com.acme.CartTest",
+            "com.acme.DeliveryTest", "com.acme.InvoiceTest", "com.acme.OrderTest");
+
+    private TestingProperties properties;
+    private TestCaseResultRepository repository;
+    private TestImpactAnalyzer analyzer;
+    private TestPrioritizer prioritizer;
+    private final PipelineContext context = PipelineContext.builder().gitUrl("https://example.com/acme.git").branch("main").build();
+
+    @BeforeEach
+    void setUp() {
+        properties = new TestingProperties();
+        repository = mock(TestCaseResultRepository.class);
+        analyzer = mock(TestImpactAnalyzer.class);
+        prioritizer = new TestPrioritizer(properties, repository, analyzer);
+    }
+
+    @Test
+    void recentFailuresComeFirstThenImpactedTestsWithinTheCap() {
+        failures("com.acme.OrderTest", "com.acme.CartTest", "com.acme.OrderTest");
+        when(analyzer.impactedTests(context)).thenReturn(Optional.of(List.of("com.acme.CartTest", "com.acme.BillingTest", "com.acme.AccountTest")));
+        properties.setPriorityMaxClasses(3);
+
+        TestPrioritizer.Priority priority = prioritizer.prioritize(context);
+
+        assertThat(priority.getRecentlyFailed()).containsExactly("com.acme.OrderTest", "com.acme.CartTest");
+        assertThat(priority.getImpacted()).containsExactly("com.acme.BillingTest");
+        assertThat(priority.getTests()).containsExactly("com.acme.OrderTest", "com.acme.CartTest", "com.acme.BillingTest");
+    }
+
+    @Test
+    void unavailableHistoryLeavesImpactedTestsOnly() {
+        when(repository.findByGitRepoUrlAndGitBranchAndOutcomeInAndRecordedAtAfterOrderByRecordedAtDesc(anyString(), anyString(), anyList(), any()))
+                .thenThrow(new IllegalStateException("MongoDB indisponible"));
+        when(analyzer.impactedTests(context)).thenReturn(Optional.of(List.of("com.acme.CartTest")));
+
+        assertThat(prioritizer.prioritize(context).getTests()).containsExactly("com.acme.CartTest");
+    }
+
+    @Test
+    void fullRunPhasesCoverEveryTestExactlyOnce() {
+        // Classe en échec récemment puis supprimée: absente des tests du projet
+        TestPrioritizer.Priority priority = new TestPrioritizer.Priority(
+                List.of("com.acme.OrderTest", "com.acme.RemovedTest"), List.of("com.acme.CartTest"));
+
+        List<String> first = TestPrioritizer.priorityTests(priority, null);
+        String remainder = TestPrioritizer.remainderFilter(null, new HashSet<>(first));
+
+        assertThat(remainder).isEqualTo("!com.acme.CartTest,!com.acme.OrderTest,!com.acme.RemovedTest");
+        assertCoveredExactlyOnce(ALL_TESTS, String.join(",", first), remainder, ALL_TESTS);
+    }
+
+    @Test
+    void selectiveRunPhasesCoverEverySelectedTestExactlyOnce() {
+        List<String> selected = List.of("com.acme.BillingTest", "com.acme.CartTest", "com.acme.InvoiceTest");
+        TestPrioritizer.Priority priority = new TestPrioritizer.Priority(
+                List.of("com.acme.OrderTest", "com.acme.CartTest"), List.of("com.acme.InvoiceTest"));
+
+        List<String> first = TestPrioritizer.priorityTests(priority, selection(selected));
+        String remainder = TestPrioritizer.remainderFilter(selection(selected), new HashSet<>(first));
+
+        // OrderTest n'est pas impacté par les changements: ni prioritaire ni exécuté
+        assertThat(first).containsExactly("com.acme.CartTest", "com.acme.InvoiceTest");
+        assertThat(remainder).isEqualTo("com.acme.BillingTest");
+        assertCoveredExactlyOnce(ALL_TESTS, String.join(",", first), remainder, selected);
+    }
+
+    @Test
+    void remainderIsEmptyWhenEverySelectedTestWasPrioritized() {
+        List<String> selected = List.of("com.acme.CartTest");
+        TestPrioritizer.Priority priority = new TestPrioritizer.Priority(List.of("com.acme.CartTest"), List.of());
+
+        List<String> first = TestPrioritizer.priorityTests(priority, selection(selected));
+
+        assertThat(TestPrioritizer.remainderFilter(selection(selected), new HashSet<>(first))).isEmpty();
+    }
+
+    @Test
+    void withoutPriorityTheRemainderIsUnrestricted() {
+        assertThat(TestPrioritizer.remainderFilter(null, Set.of())).isNull();
+        assertThat(TestPrioritizer.remainderFilter(TestImpactAnalyzer.TestSelection.full("pas de carte", 0), Set.of())).isNull();
+        assertThat(TestPrioritizer.remainderFilter(selection(List.of("com.acme.CartTest")), Set.of())).isEqualTo("com.acme.CartTest");
+    }
+
+    /**
+     * Applique les deux filtres -Dtest comme Surefire (liste de classes, ou exclusions "!classe")
+     * et vérifie que chaque test attendu est exécuté une et une seule fois
+     */
+    private static void assertCoveredExactlyOnce(List<String> projectTests, String priorityFilter, String remainderFilter,
+                                                 List<String> expected) {
+        List<String> executed = new ArrayList<>(surefire(projectTests, priorityFilter));
+        if (remainderFilter == null || !remainderFilter.isEmpty()) {
+            executed.addAll(surefire(projectTests, remainderFilter));
+        }
+        assertThat(executed).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private static List<String> surefire(List<String> projectTests, String filter) {
+        if (filter == null) {
+            return projectTests;
+        }
+        List<String> patterns = Arrays.asList(filter.split(","));
+        List<String> excluded = patterns.stream().filter(p -> p.startsWith("!")).map(p -> p.substring(1)).toList();
+        List<String> included = patterns.stream().filter(p -> !p.startsWith("!")).toList();
+        return projectTests.stream()
+                .filter(test -> included.isEmpty() || included.contains(test))
+                .filter(test -> !excluded.contains(test))
+                .toList();
+    }
+
+    private static TestImpactAnalyzer.TestSelection selection(List<String> tests) {
+        return new TestImpactAnalyzer.TestSelection(false, "changements", tests, ALL_TESTS.size(), 1);
+    }
+
+    private void failures(String... testClasses) {
+        when(repository.findByGitRepoUrlAndGitBranchAndOutcomeInAndRecordedAtAfterOrderByRecordedAtDesc(anyString(), anyString(), anyList(), any()))
+                .thenReturn(Arrays.stream(testClasses).map(test -> TestCaseResult.builder().testClass(test).build()).toList());
+    }
+}
@@ -0,0 +1,103 @@
+package com.imt.demo.testing;
+
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.TestTimingProfile;
+import com.imt.demo.repository.TestTimingProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestShardSchedulerTest {
+
+    private TestTimingProfileRepository repository;
+    private TestShardScheduler scheduler;
+    private PipelineContext context;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TestTimingProfileRepository.class);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        scheduler = new TestShardScheduler(new TestingProperties(), repository);
+        context = PipelineContext.builder()
+                .gitUrl("https://example.com/acme/app.git")
+                .branch("main")
+                .build();
+    }
+
+    @Test
+    void longestClassGoesToLightestShard() {
+        profile(Map.of("A", 8000L, "B", 7000L, "C", 6000L, "D", 5000L, "E", 4000L));
+
+        List<TestShardScheduler.Shard> shards = scheduler.plan(context, List.of("E", "D", "C", "B", "A"), 2);
+
+        assertThat(shards).extracting(TestShardScheduler.Shard::getTests)
+                .containsExactly(List.of("A", "D", "E"), List.of("B", "C"));
+        assertThat(shards).extracting(TestShardScheduler.Shard::getEstimatedMs).containsExactly(17000L, 13000L);
+    }
+
+    @Test
+    void unknownClassesAreEstimatedAtTheMedianDuration() {
+        profile(Map.of("A", 100L, "B", 300L, "C", 200L));
+
+        List<TestShardScheduler.Shard> shards = scheduler.plan(context, List.of("New"), 1);
+
+        assertThat(shards).singleElement().extracting(TestShardScheduler.Shard::getEstimatedMs).isEqualTo(200L);
+    }
+
+    @Test
+    void shardCountIsCappedByClassCount() {
+        List<TestShardScheduler.Shard> shards = scheduler.plan(context, List.of("A", "B"), 8);
+
+        assertThat(shards).hasSize(2);
+        assertThat(shards).allSatisfy(shard -> {
+            assertThat(shard.getTests()).hasSize(1);
+            assertThat(shard.getEstimatedMs()).isEqualTo(1000L);
+        });
+    }
+
+    @Test
+    void equalDurationsAreSpreadEvenlyInNameOrder() {
+        List<TestShardScheduler.Shard> shards = scheduler.plan(context, List.of("D", "C", "B", "A"), 2);
+
+        assertThat(shards).extracting(TestShardScheduler.Shard::getTests)
+                .containsExactly(List.of("A", "C"), List.of("B", "D"));
+    }
+
+    @Test
+    void recordedTimingsAreSmoothed() {
+        profile(Map.of("A", 1000L));
+
+        scheduler.recordTimings(context, List.of(
+                new SurefireReportParser.SuiteReport("A", 2000, 1, 0, 0, 0, List.of()),
+                new SurefireReportParser.SuiteReport("B", 500, 1, 0, 0, 0, List.of())));
+
+        ArgumentCaptor<TestTimingProfile> saved = ArgumentCaptor.forClass(TestTimingProfile.class);
+        verify(repository).save(saved.capture());
+        Map<String, TestTimingProfile.ClassTiming> timings = saved.getValue().getClasses().stream()
+                .collect(Collectors.toMap(TestTimingProfile.ClassTiming::getTestClass, timing -> timing));
+        assertThat(timings.get("A").getDurationMs()).isEqualTo(1500L);
+        assertThat(timings.get("A").getSamples()).isEqualTo(2);
+        assertThat(timings.get("B").getDurationMs()).isEqualTo(500L);
+    }
+
+    private void profile(Map<String, Long> durations) {
+        List<TestTimingProfile.ClassTiming> classes = new ArrayList<>();
+        durations.forEach((test, duration) -> classes.add(new TestTimingProfile.ClassTiming(test, duration, 1)));
+        when(repository.findById(anyString())).thenReturn(Optional.of(TestTimingProfile.builder()
+                .id("profile")
+                .classes(classes)
+                .build()));
+    }
+}
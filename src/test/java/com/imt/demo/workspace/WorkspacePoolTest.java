@@ -0,0 +1,184 @@
+package com.imt.demo.workspace;
+
+import com.imt.demo.cache.MavenRepositoryCache;
+import com.imt.demo.gradle.GradleDaemonPool;
+import com.imt.demo.model.PipelineContext;
+import com.imt.demo.model.PipelineExecution;
+import com.imt.demo.repository.PipelineExecutionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkspacePoolTest {
+
+    private static final String BRANCH = "main";
+
+    @TempDir
+    Path temp;
+
+    private Path origin;
+    private String gitUrl;
+    private WorkspacePoolProperties properties;
+    private PipelineExecutionRepository executionRepository;
+    private WorkspacePool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        origin = temp.resolve("origin");
+        Files.createDirectories(origin);
+        git(origin, "init", "-q", "-b", BRANCH);
+        Files.writeString(origin.resolve("README.md"), "v1");
+        commit(origin, "v1");
+        gitUrl = origin.toUri().toString();
+
+        properties = new WorkspacePoolProperties();
+        properties.setDirectory(temp.resolve("pool").toString());
+        properties.setWarmBuild(false);
+        executionRepository = mock(PipelineExecutionRepository.class);
+        when(executionRepository.findByStartTimeAfter(any())).thenReturn(List.of(
+                PipelineExecution.builder().gitRepoUrl(gitUrl).gitBranch(BRANCH).build()));
+        pool = new WorkspacePool(properties, executionRepository, mock(MavenRepositoryCache.class), mock(GradleDaemonPool.class));
+    }
+
+    @Test
+    void refreshProvisionsHotRepositoriesAndLeaseTakesThem() throws Exception {
+        pool.refresh();
+
+        Optional<WorkspaceLease> lease = pool.lease(gitUrl, BRANCH);
+
+        assertThat(lease).isPresent();
+        assertThat(lease.get().getDirectory()).startsWith(temp.resolve("pool"));
+        assertThat(lease.get().getDirectory().resolve("README.md")).hasContent("v1");
+        assertThat(pool.lease(gitUrl, BRANCH)).isEmpty();
+        assertThat(pool.lease(gitUrl, "other")).isEmpty();
+        assertThat(pool.stats())
+                .containsEntry("provisioned", 1L)
+                .containsEntry("leaseRequests", 3L)
+                .containsEntry("hits", 1L)
+                .containsEntry("readyWorkspaces", 0);
+    }
+
+    @Test
+    void refreshMovesReadyWorkspacesToTheBranchTipAndKeepsIgnoredOutputs() throws Exception {
+        pool.refresh();
+        Path workspace = pool.lease(gitUrl, BRANCH).orElseThrow().getDirectory();
+        Files.writeString(workspace.resolve(".gitignore"), "target/\n");
+        Files.createDirectories(workspace.resolve("target/classes"));
+        Files.writeString(workspace.resolve("target/classes/App.class"), "warm");
+        assertThat(pool.offer(context(workspace))).isTrue();
+
+        Files.writeString(origin.resolve("README.md"), "v2");
+        Files.writeString(origin.resolve(".gitignore"), "target/\n");
+        commit(origin, "v2");
+        pool.refresh();
+
+        Path refreshed = pool.lease(gitUrl, BRANCH).orElseThrow().getDirectory();
+        assertThat(refreshed).isEqualTo(workspace);
+        assertThat(refreshed.resolve("README.md")).hasContent("v2");
+        assertThat(refreshed.resolve("target/classes/App.class")).exists();
+        assertThat(pool.stats()).containsEntry("provisioned", 1L);
+    }
+
+    @Test
+    void offerKeepsOnlyWorkspacesOfHotRepositoriesWithinTheCap() throws Exception {
+        pool.refresh();
+
+        assertThat(pool.offer(context(clone("full")))).isFalse();
+
+        pool.lease(gitUrl, BRANCH).orElseThrow();
+        Path workspace = clone("finished");
+        assertThat(pool.offer(context(workspace))).isTrue();
+        assertThat(workspace).doesNotExist();
+        assertThat(pool.lease(gitUrl, BRANCH)).map(WorkspaceLease::getDirectory).get()
+                .satisfies(directory -> assertThat(directory).startsWith(temp.resolve("pool")));
+
+        PipelineContext cold = context(clone("cold"));
+        cold.setBranch("feature");
+        assertThat(pool.offer(cold)).isFalse();
+    }
+
+    @Test
+    void concurrentOffersNeverExceedTheCap() throws Exception {
+        properties.setWorkspacesPerRepository(2);
+        pool.refresh();
+        pool.lease(gitUrl, BRANCH).orElseThrow();
+        pool.lease(gitUrl, BRANCH).orElseThrow();
+
+        List<PipelineContext> finished = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            finished.add(context(clone("finished-" + i)));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(finished.size())) {
+            for (PipelineContext context : finished) {
+                Callable<Boolean> offer = () -> {
+                    start.await();
+                    return pool.offer(context);
+                };
+                results.add(executor.submit(offer));
+            }
+            start.countDown();
+        }
+
+        long accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get() ? 1 : 0;
+        }
+        assertThat(accepted).isEqualTo(2);
+        assertThat(pool.stats()).containsEntry("readyWorkspaces", 2);
+    }
+
+    @Test
+    void disabledPoolNeverLeasesNorKeeps() throws Exception {
+        properties.setEnabled(false);
+        pool.refresh();
+
+        assertThat(pool.lease(gitUrl, BRANCH)).isEmpty();
+        assertThat(pool.offer(context(clone("finished")))).isFalse();
+        assertThat(pool.stats()).containsEntry("provisioned", 0L);
+    }
+
+    private PipelineContext context(Path workspace) {
+        return PipelineContext.builder()
+                .gitUrl(gitUrl)
+                .branch(BRANCH)
+                .workspaceDirectory(workspace.toString())
+                .build();
+    }
+
+    private Path clone(String name) throws Exception {
+        Path workspace = temp.resolve("workspaces").resolve(name);
+        Files.createDirectories(workspace);
+        git(workspace, "clone", "-q", gitUrl, ".");
+        return workspace;
+    }
+
+    private static void commit(Path repository, String message) throws Exception {
+        git(repository, "add", "-A");
+        git(repository, "-c", "user.name=jonk", "-c", "user.email=jonk@example.com", "commit", "-q", "-m", message);
+    }
+
+    private static void git(Path directory, String... arguments) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertThat(process.waitFor()).as(String.join(" ", command)).isZero();
+    }
+}